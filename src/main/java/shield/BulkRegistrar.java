@@ -0,0 +1,310 @@
+package shield;
+
+import com.google.gson.JsonSyntaxException;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Registers a whole cohort of shielding individuals with the server.
+ *
+ * <p>The CHI numbers are streamed from a text file with one CHI number per line; blank lines are
+ * ignored. The file is processed in batches: the CHI numbers of a batch are validated in parallel,
+ * then the valid ones are registered asynchronously, with at most a bounded number of requests in
+ * flight. Once a batch is complete, the number of lines processed so far is written atomically to
+ * a checkpoint file. A run that finds a checkpoint skips the lines it records, so a crashed run
+ * resumes at the batch it stopped in. Individuals of that batch which were already registered are
+ * reported as such by the server.
+ *
+ * <p>The server only returns the personal details of an individual when it registers them, so the
+ * details are recorded in the order journal (see {@link OrderJournal}), from which a session of the
+ * individual is recovered later (see {@link ShieldingIndividualModel#recover}). Individuals
+ * registered while the journal is disabled cannot open a session.
+ *
+ * <p>The registrar is configured through the following settings (see {@link ClientSettings}):
+ *
+ * <ul>
+ *   <li>{@code shield.bulkRegistration.concurrency} - the maximum number of requests in flight
+ *   <li>{@code shield.bulkRegistration.batchSize} - the number of lines per checkpoint
+ * </ul>
+ */
+public final class BulkRegistrar {
+  /** Default maximum number of registration requests in flight */
+  private static final int DEFAULT_CONCURRENCY = 32;
+  /** Default number of lines processed between checkpoints */
+  private static final int DEFAULT_BATCH_SIZE = 1024;
+
+  private final Function<String, CompletableFuture<String>> sender;
+  /** Journal recording the registrations, null if the journal is disabled */
+  private final OrderJournal journal;
+  private final int concurrency;
+  private final int batchSize;
+
+  /**
+   * Initialises a bulk registrar.
+   *
+   * @param endpoint the endpoint used for remote communication with a server
+   */
+  public BulkRegistrar(String endpoint) {
+    this(
+        chi ->
+            ClientIO.doGETRequestAsync(
+                endpoint + QueryStringFormatter.individualRegisterRequest(chi)),
+        OrderJournal.shared(),
+        Math.max(1, ClientSettings.getInt("bulkRegistration.concurrency", DEFAULT_CONCURRENCY)),
+        Math.max(1, ClientSettings.getInt("bulkRegistration.batchSize", DEFAULT_BATCH_SIZE)));
+  }
+
+  /**
+   * Initialises a bulk registrar.
+   *
+   * @param sender sends the registration request for a CHI number, returns the server's response
+   * @param journal the journal recording the registrations, null if the journal is disabled
+   * @param concurrency the maximum number of requests in flight
+   * @param batchSize the number of lines processed between checkpoints
+   */
+  BulkRegistrar(
+      Function<String, CompletableFuture<String>> sender,
+      OrderJournal journal,
+      int concurrency,
+      int batchSize) {
+    assert concurrency > 0 && batchSize > 0 : "Concurrency and batch size must be positive.";
+
+    this.sender = sender;
+    this.journal = journal;
+    this.concurrency = concurrency;
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Registers the shielding individuals listed in a file.
+   *
+   * @param chiFile the file listing one CHI number per line
+   * @param checkpointFile the file recording the progress of the run, need not exist
+   * @return the outcome of the run
+   * @throws IOException if one of the files cannot be read or the checkpoint cannot be written
+   * @throws InterruptedException if the thread is interrupted while waiting for a request slot
+   */
+  public Report register(Path chiFile, Path checkpointFile)
+      throws IOException, InterruptedException {
+    long start = System.nanoTime();
+    long processedLines = readCheckpoint(checkpointFile);
+    Tally tally = new Tally();
+    Semaphore permits = new Semaphore(concurrency);
+    long skippedLines = 0;
+    try (BufferedReader reader = Files.newBufferedReader(chiFile, StandardCharsets.UTF_8)) {
+      while (skippedLines < processedLines && Objects.nonNull(reader.readLine())) {
+        skippedLines++;
+      }
+      long lineNumber = skippedLines;
+      List<String> batch = new ArrayList<>(batchSize);
+      String line;
+      while (Objects.nonNull(line = reader.readLine())) {
+        lineNumber++;
+        batch.add(line.trim());
+        if (batch.size() == batchSize) {
+          registerBatch(batch, permits, tally);
+          writeCheckpoint(checkpointFile, lineNumber);
+          batch.clear();
+        }
+      }
+      if (!batch.isEmpty()) {
+        registerBatch(batch, permits, tally);
+        writeCheckpoint(checkpointFile, lineNumber);
+      }
+    }
+    return new Report(tally, skippedLines, System.nanoTime() - start);
+  }
+
+  // Validates and registers the CHI numbers of a batch, returns once all requests have completed
+  private void registerBatch(List<String> batch, Semaphore permits, Tally tally)
+      throws InterruptedException {
+    boolean[] valid = ChiValidator.shared().areValid(batch);
+    List<CompletableFuture<Void>> requests = new ArrayList<>(batch.size());
+    try {
+      for (int i = 0; i < valid.length; i++) {
+        String chi = batch.get(i);
+        if (chi.isEmpty()) {
+          continue;
+        }
+        if (!valid[i]) {
+          tally.invalid.increment();
+          continue;
+        }
+        permits.acquire();
+        requests.add(
+            send(chi)
+                .handle(
+                    (response, error) -> {
+                      permits.release();
+                      record(chi, response, error, tally);
+                      return null;
+                    }));
+      }
+    } finally {
+      // Never leave requests of an interrupted batch running behind the checkpoint
+      CompletableFuture.allOf(requests.toArray(new CompletableFuture<?>[0])).join();
+    }
+  }
+
+  // Classifies the response of the server and journals the details of a new registration
+  private void record(String chi, String response, Throwable error, Tally tally) {
+    if (Objects.nonNull(error)) {
+      tally.failed.increment();
+      return;
+    }
+    if (response.equals(ServerResponse.ALREADY_REGISTERED.toString())) {
+      tally.alreadyRegistered.increment();
+      return;
+    }
+    List<String> details;
+    try {
+      details = ShieldingIndividualModelImp.parseRegistrationResponse(response);
+    } catch (JsonSyntaxException e) {
+      details = null;
+    }
+    if (Objects.isNull(details)) {
+      tally.failed.increment();
+      return;
+    }
+    tally.registered.increment();
+    if (Objects.nonNull(journal)) {
+      try {
+        journal.recordRegistered(chi, details);
+      } catch (IOException e) {
+        System.err.println("ERROR: Failed to write to the order journal.");
+        e.printStackTrace();
+      }
+    }
+  }
+
+  // Sends a registration request, turning a synchronous failure into a failed future
+  private CompletableFuture<String> send(String chi) {
+    try {
+      return sender.apply(chi);
+    } catch (RuntimeException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  // Returns the number of lines processed by a previous run
+  private static long readCheckpoint(Path checkpointFile) throws IOException {
+    if (!Files.exists(checkpointFile)) {
+      return 0;
+    }
+    String content = new String(Files.readAllBytes(checkpointFile), StandardCharsets.UTF_8);
+    try {
+      return Math.max(0, Long.parseLong(content.trim()));
+    } catch (NumberFormatException e) {
+      throw new IOException("Invalid checkpoint file " + checkpointFile, e);
+    }
+  }
+
+  // Records the number of lines processed, replacing the previous checkpoint atomically
+  private static void writeCheckpoint(Path checkpointFile, long processedLines)
+      throws IOException {
+    Path directory = checkpointFile.toAbsolutePath().getParent();
+    Path temporary = Files.createTempFile(directory, checkpointFile.getFileName().toString(), null);
+    try {
+      Files.write(temporary, Long.toString(processedLines).getBytes(StandardCharsets.UTF_8));
+      Files.move(
+          temporary,
+          checkpointFile,
+          StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      Files.deleteIfExists(temporary);
+    }
+  }
+
+  /** Counts the outcomes of the registrations of a run. */
+  private static final class Tally {
+    private final LongAdder registered = new LongAdder();
+    private final LongAdder alreadyRegistered = new LongAdder();
+    private final LongAdder invalid = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+  }
+
+  /** The outcome of a bulk registration run. */
+  public static final class Report {
+    private final long registered;
+    private final long alreadyRegistered;
+    private final long invalid;
+    private final long failed;
+    private final long skippedLines;
+    private final long elapsedNanos;
+
+    private Report(Tally tally, long skippedLines, long elapsedNanos) {
+      this.registered = tally.registered.sum();
+      this.alreadyRegistered = tally.alreadyRegistered.sum();
+      this.invalid = tally.invalid.sum();
+      this.failed = tally.failed.sum();
+      this.skippedLines = skippedLines;
+      this.elapsedNanos = elapsedNanos;
+    }
+
+    /** @return the number of individuals registered by this run */
+    public long getRegistered() {
+      return registered;
+    }
+
+    /** @return the number of individuals the server reported as already registered */
+    public long getAlreadyRegistered() {
+      return alreadyRegistered;
+    }
+
+    /** @return the number of CHI numbers rejected before contacting the server */
+    public long getInvalid() {
+      return invalid;
+    }
+
+    /** @return the number of registrations which failed or were rejected by the server */
+    public long getFailed() {
+      return failed;
+    }
+
+    /** @return the number of lines skipped because a previous run had processed them */
+    public long getSkippedLines() {
+      return skippedLines;
+    }
+
+    /** @return the duration of the run in nanoseconds */
+    public long getElapsedNanos() {
+      return elapsedNanos;
+    }
+
+    /** @return the number of CHI numbers processed per second */
+    public double getThroughput() {
+      long processed = registered + alreadyRegistered + invalid + failed;
+      if (elapsedNanos == 0) {
+        return 0;
+      }
+      return processed * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "registered=%d alreadyRegistered=%d invalid=%d failed=%d skippedLines=%d"
+              + " elapsed=%dms throughput=%.1f/s",
+          registered,
+          alreadyRegistered,
+          invalid,
+          failed,
+          skippedLines,
+          TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+          getThroughput());
+    }
+  }
+}
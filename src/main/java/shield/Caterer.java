@@ -0,0 +1,93 @@
+package shield;
+
+import java.util.Objects;
+
+/**
+ * A catering company as listed by the server, parsed once from its {@code id,name,postCode} form.
+ *
+ * <p>The name is interned, as the same companies are listed by every download of the directory.
+ * The post code is kept as its packed key (see {@link PostCode}); the string is only kept if it
+ * cannot be rebuilt from the key, i.e. if the post code is not a canonical Edinburgh post code.
+ */
+final class Caterer {
+  /** Delimiter separating the details of a catering company */
+  private static final char DELIMITER = ',';
+
+  private final int id;
+  private final String name;
+  private final int postCodeKey;
+  /** The post code as listed by the server, null if it is the canonical form of the key */
+  private final String postCode;
+
+  private Caterer(int id, String name, int postCodeKey, String postCode) {
+    this.id = id;
+    this.name = name;
+    this.postCodeKey = postCodeKey;
+    this.postCode = postCode;
+  }
+
+  /**
+   * Parses a catering company in the format returned by the server, {@code id,name,postCode}. The
+   * name may itself contain commas.
+   *
+   * @param company the catering company
+   * @return the catering company, or null if it is not in the expected format
+   */
+  static Caterer parse(String company) {
+    if (Objects.isNull(company)) {
+      return null;
+    }
+    int firstIndex = company.indexOf(DELIMITER);
+    int lastIndex = company.lastIndexOf(DELIMITER);
+    if (firstIndex <= 0 || firstIndex == lastIndex) {
+      return null;
+    }
+    int id;
+    try {
+      id = Integer.parseInt(company.substring(0, firstIndex));
+    } catch (NumberFormatException e) {
+      return null;
+    }
+    String name = company.substring(firstIndex + 1, lastIndex).intern();
+    String postCode = company.substring(lastIndex + 1);
+    int postCodeKey = PostCode.toKey(postCode);
+    if (postCodeKey != PostCode.INVALID_KEY && PostCode.fromKey(postCodeKey).equals(postCode)) {
+      postCode = null;
+    }
+    return new Caterer(id, name, postCodeKey, postCode);
+  }
+
+  /** @return the ID of the catering company */
+  int getId() {
+    return id;
+  }
+
+  /** @return the name of the catering company */
+  String getName() {
+    return name;
+  }
+
+  /**
+   * Returns the key of the post code of the catering company.
+   *
+   * @return the post code key, or {@link PostCode#INVALID_KEY} if it is not an Edinburgh post code
+   */
+  int getPostCodeKey() {
+    return postCodeKey;
+  }
+
+  /** @return the post code of the catering company as listed by the server */
+  String getPostCode() {
+    return Objects.isNull(postCode) ? PostCode.fromKey(postCodeKey) : postCode;
+  }
+
+  /**
+   * Returns the catering company in the format returned by the server.
+   *
+   * @return the catering company as {@code id,name,postCode}
+   */
+  @Override
+  public String toString() {
+    return id + "," + name + "," + getPostCode();
+  }
+}
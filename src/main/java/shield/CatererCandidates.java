@@ -0,0 +1,38 @@
+package shield;
+
+import java.util.List;
+
+/**
+ * The candidates of a closest catering company search, i.e. the catering companies whose exact
+ * distance is looked up (see {@link CatererIndex#nearest}).
+ *
+ * <p>The number of candidates is capped, so that a search never sends more distance requests than
+ * it can answer before its deadline. If the cap left out companies which may be closer than some
+ * candidates, e.g. part of a crowded district, the candidates are truncated and a ranking of them
+ * is not complete (see {@link CatererRanking#isValidFor}).
+ */
+final class CatererCandidates {
+  private final List<Caterer> caterers;
+  private final boolean truncated;
+
+  /**
+   * Initialises the candidates of a search.
+   *
+   * @param caterers the candidates, in the order in which they are listed
+   * @param truncated true if companies which may be closer were left out by the cap
+   */
+  CatererCandidates(List<Caterer> caterers, boolean truncated) {
+    this.caterers = caterers;
+    this.truncated = truncated;
+  }
+
+  /** @return the candidates, in the order in which they are listed */
+  List<Caterer> getCaterers() {
+    return caterers;
+  }
+
+  /** @return true if companies which may be closer than some candidates were left out */
+  boolean isTruncated() {
+    return truncated;
+  }
+}
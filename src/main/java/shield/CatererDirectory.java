@@ -0,0 +1,344 @@
+package shield;
+
+import com.google.gson.JsonSyntaxException;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Directory of the catering companies registered on a server, shared by all models in the JVM
+ * which talk to the same server.
+ *
+ * <p>The list of catering companies is downloaded on demand and reused until it is older than its
+ * time to live, so that many shielding individuals looking for a catering company at the same time
+ * cause a single download. Concurrent reads of an expired list share that download. A catering
+ * company registered through this JVM invalidates the list, so it is visible to the next read.
+ *
+ * <p>Each list is parsed once into {@link Caterer} records. The server offers no conditional
+ * requests, so a list that is downloaded again is compared with the previous one instead: if it is
+ * unchanged, the previous list and records are kept, only their time to live is renewed, and the
+ * version of the directory stays the same. The version only changes when the catering companies
+ * do, so structures derived from the records need only be rebuilt then: the spatial index of the
+ * records (see {@link CatererIndex}) is built once per version.
+ *
+ * <p>If a download fails, the previous list is returned and the next read tries again. The time to
+ * live is configured through the setting {@code shield.catererDirectory.ttlSeconds} (see {@link
+ * ClientSettings}).
+ */
+final class CatererDirectory {
+  /** Default time to live of a list of catering companies (in seconds). */
+  private static final long DEFAULT_TTL_SECONDS = 30;
+  /** Time to live of a list of catering companies (in nanoseconds). */
+  private static final long TTL_NANOS =
+      TimeUnit.SECONDS.toNanos(
+          ClientSettings.getLong("catererDirectory.ttlSeconds", DEFAULT_TTL_SECONDS));
+
+  /** The directories shared by all models, keyed by server endpoint. */
+  private static final ConcurrentMap<String, CatererDirectory> SHARED = new ConcurrentHashMap<>();
+
+  private final Supplier<List<String>> loader;
+  private final long ttlNanos;
+  private final LongSupplier clock;
+  private final Executor executor;
+  /** Incremented whenever the directory is invalidated */
+  private final AtomicLong generation = new AtomicLong();
+  private final AtomicReference<Snapshot> current = new AtomicReference<>();
+  private final AtomicReference<Load> inFlight = new AtomicReference<>();
+  /** The version of the most recently parsed list */
+  private final AtomicLong lastVersion = new AtomicLong();
+
+  /**
+   * Initialises a directory.
+   *
+   * @param loader downloads the catering companies, returns null if the download failed
+   * @param ttlNanos the time to live of a list of catering companies in nanoseconds
+   * @param clock the source of the current time in nanoseconds
+   * @param executor the executor running asynchronous downloads
+   */
+  CatererDirectory(
+      Supplier<List<String>> loader, long ttlNanos, LongSupplier clock, Executor executor) {
+    this.loader = loader;
+    this.ttlNanos = ttlNanos;
+    this.clock = clock;
+    this.executor = executor;
+  }
+
+  /**
+   * Returns the directory shared by all models talking to a server.
+   *
+   * @param endpoint the endpoint of the server
+   * @return the shared directory
+   */
+  static CatererDirectory forEndpoint(String endpoint) {
+    return SHARED.computeIfAbsent(
+        endpoint,
+        key ->
+            new CatererDirectory(
+                () -> fetchCaterers(key), TTL_NANOS, System::nanoTime, ClientExecutors.fanOut()));
+  }
+
+  // Downloads the catering companies from the server, returns null if the download failed
+  private static List<String> fetchCaterers(String endpoint) {
+    try {
+      String request = endpoint + QueryStrings.GET_CATERERS.toString();
+      List<String> caterers = ClientIO.doGETRequest(request, WireCodec.stringListHandler());
+      if (Objects.nonNull(caterers)) {
+        caterers.removeIf(caterer -> Objects.isNull(caterer) || caterer.isEmpty());
+      }
+      return caterers;
+    } catch (JsonSyntaxException e) {
+      System.err.println("ERROR: JSON syntax invalid.");
+      e.printStackTrace();
+    } catch (RuntimeException | IOException e) {
+      System.err.println("ERROR: HTTP get request failed.");
+      e.printStackTrace();
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+    return null;
+  }
+
+  /**
+   * Returns the catering companies in the format {@code id,name,postCode}, downloading them if the
+   * current list has expired.
+   *
+   * @return an unmodifiable list of catering companies, or null if none could be downloaded yet
+   */
+  List<String> getCaterers() {
+    return Snapshot.caterersOf(getSnapshot());
+  }
+
+  /**
+   * Returns the catering companies without blocking the calling thread.
+   *
+   * @return a future completed with the result of {@link #getCaterers}, never exceptionally
+   */
+  CompletableFuture<List<String>> getCaterersAsync() {
+    Snapshot snapshot = current.get();
+    if (isFresh(snapshot)) {
+      return CompletableFuture.completedFuture(snapshot.caterers);
+    }
+    return startLoad(true).caterers;
+  }
+
+  /**
+   * Returns the parsed catering companies, downloading them if the current list has expired.
+   * Companies which are not in the format {@code id,name,postCode} are left out.
+   *
+   * @return an unmodifiable list of catering companies, or null if none could be downloaded yet
+   */
+  List<Caterer> getRecords() {
+    return Snapshot.recordsOf(getSnapshot());
+  }
+
+  /**
+   * Returns the parsed catering companies without blocking the calling thread.
+   *
+   * @return a future completed with the result of {@link #getRecords}, never exceptionally
+   */
+  CompletableFuture<List<Caterer>> getRecordsAsync() {
+    Snapshot snapshot = current.get();
+    if (isFresh(snapshot)) {
+      return CompletableFuture.completedFuture(snapshot.records);
+    }
+    return startLoad(true).future.thenApply(Snapshot::recordsOf);
+  }
+
+  /**
+   * Returns the spatial index of the parsed catering companies, downloading them if the current
+   * list has expired.
+   *
+   * @return the index, or null if no catering companies could be downloaded yet
+   */
+  CatererIndex getIndex() {
+    return Snapshot.indexOf(getSnapshot());
+  }
+
+  /**
+   * Returns the spatial index of the parsed catering companies without blocking the calling
+   * thread.
+   *
+   * @return a future completed with the result of {@link #getIndex}, never exceptionally
+   */
+  CompletableFuture<CatererIndex> getIndexAsync() {
+    Snapshot snapshot = current.get();
+    if (isFresh(snapshot)) {
+      return CompletableFuture.completedFuture(snapshot.index);
+    }
+    return startLoad(true).future.thenApply(Snapshot::indexOf);
+  }
+
+  /**
+   * Returns the version of the current list of catering companies, which changes whenever a
+   * download finds different catering companies. It does not trigger a download.
+   *
+   * @return the version, or 0 if no list has been downloaded yet
+   */
+  long getVersion() {
+    Snapshot snapshot = current.get();
+    return Objects.isNull(snapshot) ? 0 : snapshot.version;
+  }
+
+  private Snapshot getSnapshot() {
+    Snapshot snapshot = current.get();
+    if (isFresh(snapshot)) {
+      return snapshot;
+    }
+    return startLoad(false).future.join();
+  }
+
+  /**
+   * Discards the current list, so that the next read downloads the catering companies again.
+   * Downloads that started before the call are not reused.
+   */
+  void invalidate() {
+    generation.incrementAndGet();
+  }
+
+  private boolean isFresh(Snapshot snapshot) {
+    return Objects.nonNull(snapshot)
+        && snapshot.generation == generation.get()
+        && clock.getAsLong() - snapshot.loadedAt < ttlNanos;
+  }
+
+  // Starts a download unless an equally recent one is already running, returns the download
+  private Load startLoad(boolean async) {
+    long requiredGeneration = generation.get();
+    while (true) {
+      Load running = inFlight.get();
+      if (Objects.nonNull(running) && running.generation >= requiredGeneration) {
+        return running;
+      }
+      Load load = new Load(requiredGeneration);
+      if (inFlight.compareAndSet(running, load)) {
+        if (async) {
+          executor.execute(() -> load(load));
+        } else {
+          load(load);
+        }
+        return load;
+      }
+    }
+  }
+
+  // Downloads the catering companies and publishes them, never completes the future exceptionally
+  private void load(Load load) {
+    Snapshot snapshot = null;
+    try {
+      List<String> downloaded = loader.get();
+      if (Objects.nonNull(downloaded)) {
+        snapshot = toSnapshot(downloaded, load.generation);
+        // A slow download must not replace the result of a download started after it
+        current.accumulateAndGet(
+            snapshot,
+            (previous, next) ->
+                Objects.isNull(previous) || previous.generation <= next.generation
+                    ? next
+                    : previous);
+      }
+    } catch (RuntimeException e) {
+      System.err.println("ERROR: Failed to load the catering companies");
+      e.printStackTrace();
+    } finally {
+      if (Objects.isNull(snapshot)) {
+        // Keep serving the previous list until a download succeeds
+        snapshot = current.get();
+      }
+      inFlight.compareAndSet(load, null);
+      load.future.complete(snapshot);
+    }
+  }
+
+  // Parses and indexes a downloaded list, reusing the current list, records and index if nothing
+  // has changed
+  private Snapshot toSnapshot(List<String> downloaded, long generation) {
+    long loadedAt = clock.getAsLong();
+    Snapshot previous = current.get();
+    if (Objects.nonNull(previous) && previous.caterers.equals(downloaded)) {
+      return new Snapshot(
+          previous.caterers,
+          previous.records,
+          previous.index,
+          previous.version,
+          generation,
+          loadedAt);
+    }
+    List<String> caterers = Collections.unmodifiableList(new ArrayList<>(downloaded));
+    List<Caterer> records = new ArrayList<>(caterers.size());
+    for (String company : caterers) {
+      Caterer caterer = Caterer.parse(company);
+      if (Objects.nonNull(caterer)) {
+        records.add(caterer);
+      }
+    }
+    records = Collections.unmodifiableList(records);
+    return new Snapshot(
+        caterers,
+        records,
+        new CatererIndex(records, GeoDistanceEngine.shared()),
+        lastVersion.incrementAndGet(),
+        generation,
+        loadedAt);
+  }
+
+  /** A list of catering companies together with the time at which it was downloaded. */
+  private static final class Snapshot {
+    private final List<String> caterers;
+    private final List<Caterer> records;
+    private final CatererIndex index;
+    private final long version;
+    private final long generation;
+    private final long loadedAt;
+
+    Snapshot(
+        List<String> caterers,
+        List<Caterer> records,
+        CatererIndex index,
+        long version,
+        long generation,
+        long loadedAt) {
+      this.caterers = caterers;
+      this.records = records;
+      this.index = index;
+      this.version = version;
+      this.generation = generation;
+      this.loadedAt = loadedAt;
+    }
+
+    static List<String> caterersOf(Snapshot snapshot) {
+      return Objects.isNull(snapshot) ? null : snapshot.caterers;
+    }
+
+    static List<Caterer> recordsOf(Snapshot snapshot) {
+      return Objects.isNull(snapshot) ? null : snapshot.records;
+    }
+
+    static CatererIndex indexOf(Snapshot snapshot) {
+      return Objects.isNull(snapshot) ? null : snapshot.index;
+    }
+  }
+
+  /** A running download. */
+  private static final class Load {
+    private final long generation;
+    private final CompletableFuture<Snapshot> future = new CompletableFuture<>();
+    /** The catering companies of the download, shared by all asynchronous reads */
+    private final CompletableFuture<List<String>> caterers =
+        future.thenApply(Snapshot::caterersOf);
+
+    Load(long generation) {
+      this.generation = generation;
+    }
+  }
+}
@@ -0,0 +1,231 @@
+package shield;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Spatial index of a list of catering companies, answering nearest-k queries without scanning the
+ * list.
+ *
+ * <p>The {@link GeoDistanceEngine} only locates a post code by the centroid of its district, so
+ * the index is a grid whose cells are the districts: the companies are bucketed by district, and a
+ * query visits the districts in order of distance from the district of the post code, which the
+ * engine has sorted once, until it has found enough companies or reached a cap. A query therefore
+ * costs time in the number of districts and companies it visits, whatever the number of companies
+ * listed.
+ *
+ * <p>An index is immutable and is built once per list of catering companies (see {@link
+ * CatererDirectory#getIndex}).
+ */
+final class CatererIndex {
+  /** Number of districts */
+  private static final int DISTRICTS = PostCode.MAX_DISTRICT + 1;
+
+  private final List<Caterer> caterers;
+  private final GeoDistanceEngine engine;
+  /** The companies of district d are members[start[d]] to members[start[d + 1] - 1] */
+  private final int[] start = new int[DISTRICTS + 1];
+  /** Indices of the located companies, grouped by district and ascending within a district */
+  private final int[] members;
+  /** Indices of the companies which cannot be located, ascending */
+  private final int[] unlocated;
+
+  /**
+   * Builds the index of a list of catering companies.
+   *
+   * @param caterers the catering companies, which must not be modified afterwards
+   * @param engine the engine locating the post codes
+   */
+  CatererIndex(List<Caterer> caterers, GeoDistanceEngine engine) {
+    assert Objects.nonNull(caterers) : "Catering companies cannot be null.";
+    assert Objects.nonNull(engine) : "Distance engine cannot be null.";
+
+    this.caterers = caterers;
+    this.engine = engine;
+    int count = caterers.size();
+    int[] districts = new int[count];
+    int located = 0;
+    for (int i = 0; i < count; i++) {
+      int key = caterers.get(i).getPostCodeKey();
+      if (engine.isLocated(key)) {
+        districts[i] = PostCode.districtOf(key);
+        start[districts[i] + 1]++;
+        located++;
+      } else {
+        districts[i] = -1;
+      }
+    }
+    for (int district = 0; district < DISTRICTS; district++) {
+      start[district + 1] += start[district];
+    }
+    members = new int[located];
+    unlocated = new int[count - located];
+    int[] next = Arrays.copyOf(start, DISTRICTS);
+    int unlocatedCount = 0;
+    for (int i = 0; i < count; i++) {
+      if (districts[i] < 0) {
+        unlocated[unlocatedCount++] = i;
+      } else {
+        members[next[districts[i]]++] = i;
+      }
+    }
+  }
+
+  /** @return the indexed catering companies */
+  List<Caterer> getCaterers() {
+    return caterers;
+  }
+
+  /**
+   * Returns the {@code k} catering companies nearest to a post code, together with every company at
+   * the same distance as the {@code k}-th nearest and every company the engine cannot locate. If
+   * the post code itself cannot be located, or there are no more than {@code k} located companies,
+   * all companies are returned. The result is that of {@link GeoDistanceEngine#preselect}.
+   *
+   * @param postCodeKey the key of the post code
+   * @param k the number of located companies, 0 or less to return every company
+   * @return the companies, in the order in which they are listed
+   */
+  List<Caterer> nearest(int postCodeKey, int k) {
+    return nearest(postCodeKey, k, Integer.MAX_VALUE).getCaterers();
+  }
+
+  /**
+   * Returns the candidates of {@link #nearest(int, int)}, capped at {@code max} companies.
+   *
+   * <p>If there are more candidates, the located ones are taken first, by distance, then the
+   * unlocated ones, in the order in which they are listed. The companies at the same distance, e.g.
+   * those of a district, are taken by how close their post codes are to the post code in the order
+   * of post codes, and then in the order in which they are listed (see {@link
+   * GeoDistanceEngine#tieBreak}). Only the companies at the distance where the cap is reached are
+   * compared, so a query costs time in the number of districts visited and companies returned. If
+   * the post code cannot be located, all companies are compared.
+   *
+   * @param postCodeKey the key of the post code
+   * @param k the number of located companies, 0 or less to return every company
+   * @param max the maximum number of companies returned, at least {@code k}
+   * @return the companies, in the order in which they are listed, truncated if the cap left out
+   *     any company
+   */
+  CatererCandidates nearest(int postCodeKey, int k, int max) {
+    assert max >= Math.max(1, k) : "The cap cannot be less than the number of companies.";
+
+    int count = caterers.size();
+    if (k <= 0 || !engine.isLocated(postCodeKey)) {
+      if (count <= max) {
+        return new CatererCandidates(caterers, false);
+      }
+      int[] all = new int[count];
+      for (int i = 0; i < count; i++) {
+        all[i] = i;
+      }
+      int[] selected = closestByKey(all, count, postCodeKey, max);
+      Arrays.sort(selected);
+      return new CatererCandidates(merge(selected, selected.length, 0), true);
+    }
+    boolean everyLocated = members.length <= k;
+    if (everyLocated && count <= max) {
+      return new CatererCandidates(caterers, false);
+    }
+    int origin = PostCode.districtOf(postCodeKey);
+    int[] districts = engine.districtsByDistance(origin);
+    int[] selected = new int[Math.min(max, count)];
+    int size = 0;
+    boolean truncated = false;
+    // Take the districts at the same distance together, as their companies are tied
+    int end = 0;
+    while (end < districts.length && (everyLocated || size < k)) {
+      int first = end;
+      int tied = 0;
+      float distance = engine.districtDistance(origin, districts[end]);
+      while (end < districts.length
+          && engine.districtDistance(origin, districts[end]) == distance) {
+        tied += start[districts[end] + 1] - start[districts[end]];
+        end++;
+      }
+      int room = selected.length - size;
+      if (tied <= room) {
+        for (int i = first; i < end; i++) {
+          size = copyDistrict(districts[i], selected, size);
+        }
+        continue;
+      }
+      int[] group = new int[tied];
+      int length = 0;
+      for (int i = first; i < end; i++) {
+        length = copyDistrict(districts[i], group, length);
+      }
+      System.arraycopy(closestByKey(group, tied, postCodeKey, room), 0, selected, size, room);
+      size += room;
+      truncated = true;
+      break;
+    }
+    int unlocatedTaken = Math.min(unlocated.length, selected.length - size);
+    truncated |= unlocatedTaken < unlocated.length;
+    Arrays.sort(selected, 0, size);
+    return new CatererCandidates(merge(selected, size, unlocatedTaken), truncated);
+  }
+
+  // Appends the companies of a district, returns the new length
+  private int copyDistrict(int district, int[] destination, int length) {
+    int companies = start[district + 1] - start[district];
+    System.arraycopy(members, start[district], destination, length, companies);
+    return length + companies;
+  }
+
+  // Returns the count companies of a group which come first by the tie break, in no order
+  private int[] closestByKey(int[] group, int size, int postCodeKey, int count) {
+    // Max-heap of the tie breaks of the companies kept so far, the last one at the root
+    long[] heap = new long[count];
+    int kept = 0;
+    for (int i = 0; i < size; i++) {
+      int key = caterers.get(group[i]).getPostCodeKey();
+      long tieBreak = GeoDistanceEngine.tieBreak(key, postCodeKey, group[i]);
+      if (kept < count) {
+        int position = kept++;
+        while (position > 0 && heap[(position - 1) / 2] < tieBreak) {
+          heap[position] = heap[(position - 1) / 2];
+          position = (position - 1) / 2;
+        }
+        heap[position] = tieBreak;
+      } else if (tieBreak < heap[0]) {
+        int position = 0;
+        while (2 * position + 1 < kept) {
+          int child = 2 * position + 1;
+          if (child + 1 < kept && heap[child + 1] > heap[child]) {
+            child++;
+          }
+          if (heap[child] <= tieBreak) {
+            break;
+          }
+          heap[position] = heap[child];
+          position = child;
+        }
+        heap[position] = tieBreak;
+      }
+    }
+    int[] chosen = new int[kept];
+    for (int i = 0; i < kept; i++) {
+      chosen[i] = GeoDistanceEngine.listIndexOf(heap[i]);
+    }
+    return chosen;
+  }
+
+  // Returns the first size selected companies and the first unlocatedCount unlocated ones, in the
+  // order in which they are listed
+  private List<Caterer> merge(int[] selected, int size, int unlocatedCount) {
+    List<Caterer> result = new ArrayList<>(size + unlocatedCount);
+    int i = 0;
+    int j = 0;
+    while (i < size || j < unlocatedCount) {
+      if (j == unlocatedCount || (i < size && selected[i] < unlocated[j])) {
+        result.add(caterers.get(selected[i++]));
+      } else {
+        result.add(caterers.get(unlocated[j++]));
+      }
+    }
+    return result;
+  }
+}
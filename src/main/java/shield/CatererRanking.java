@@ -0,0 +1,199 @@
+package shield;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * The catering companies nearest to a shielding individual, closest first, as measured by the
+ * server.
+ *
+ * <p>A ranking is computed in one pass over the distances of the candidates of a search, keeping
+ * the {@code k} closest in a bounded max-heap. It is kept by the model of the individual so that
+ * placing an order can fall back on the next company when the closest one rejects it, without
+ * searching again, and is shared with the individuals at the same post code (see {@link
+ * ClosestCatererCache}). It remains valid as long as the index of the catering companies it was
+ * computed from (see {@link CatererDirectory#getIndex}) and the post code of the individual are
+ * unchanged.
+ */
+final class CatererRanking {
+  private final CatererIndex index;
+  private final String postCode;
+  private final int k;
+  private final List<Caterer> caterers;
+  private final float[] distances;
+  /**
+   * True if the distance to every candidate was known and the candidates were not truncated, i.e.
+   * no closer company was missed
+   */
+  private final boolean complete;
+
+  private CatererRanking(
+      CatererIndex index,
+      String postCode,
+      int k,
+      List<Caterer> caterers,
+      float[] distances,
+      boolean complete) {
+    this.index = index;
+    this.postCode = postCode;
+    this.k = k;
+    this.caterers = caterers;
+    this.distances = distances;
+    this.complete = complete;
+  }
+
+  /**
+   * Ranks the candidates of a search by distance. Ties are broken in favour of the candidate listed
+   * first. Candidates whose distance is negative or NaN, i.e. unknown, are left out.
+   *
+   * @param index the index the candidates were selected from
+   * @param postCode the post code of the shielding individual
+   * @param candidates the candidates
+   * @param distances the distance to each candidate
+   * @param k the maximum number of companies ranked
+   * @return the ranking of the {@code k} closest candidates
+   */
+  static CatererRanking rank(
+      CatererIndex index, String postCode, List<Caterer> candidates, float[] distances, int k) {
+    return rank(index, postCode, new CatererCandidates(candidates, false), distances, k);
+  }
+
+  /**
+   * Ranks the candidates of a search by distance, as {@link #rank(CatererIndex, String, List,
+   * float[], int)} does. The ranking of truncated candidates is not complete.
+   *
+   * @param index the index the candidates were selected from
+   * @param postCode the post code of the shielding individual
+   * @param candidates the candidates
+   * @param distances the distance to each candidate
+   * @param k the maximum number of companies ranked
+   * @return the ranking of the {@code k} closest candidates
+   */
+  static CatererRanking rank(
+      CatererIndex index,
+      String postCode,
+      CatererCandidates candidates,
+      float[] distances,
+      int k) {
+    assert candidates.getCaterers().size() == distances.length
+        : "A distance is needed for every candidate.";
+    assert k > 0 : "At least one company must be ranked.";
+
+    // Max-heap of the indices of the closest candidates found so far, the furthest at the root
+    int[] heap = new int[k];
+    int size = 0;
+    boolean complete = !candidates.isTruncated();
+    for (int i = 0; i < distances.length; i++) {
+      if (!(distances[i] >= 0)) {
+        complete = false;
+        continue;
+      }
+      if (size < k) {
+        heap[size] = i;
+        siftUp(heap, size++, distances);
+      } else if (isCloser(i, heap[0], distances)) {
+        heap[0] = i;
+        siftDown(heap, size, distances);
+      }
+    }
+
+    // Remove the furthest repeatedly to sort the closest first
+    List<Caterer> ranked = new ArrayList<>(Collections.nCopies(size, null));
+    float[] rankedDistances = new float[size];
+    for (int position = size - 1; position >= 0; position--) {
+      int furthest = heap[0];
+      ranked.set(position, candidates.getCaterers().get(furthest));
+      rankedDistances[position] = distances[furthest];
+      heap[0] = heap[position];
+      siftDown(heap, position, distances);
+    }
+    return new CatererRanking(
+        index, postCode, k, Collections.unmodifiableList(ranked), rankedDistances, complete);
+  }
+
+  // Checks if candidate i ranks before candidate j
+  private static boolean isCloser(int i, int j, float[] distances) {
+    return distances[i] < distances[j] || (distances[i] == distances[j] && i < j);
+  }
+
+  private static void siftUp(int[] heap, int position, float[] distances) {
+    int candidate = heap[position];
+    while (position > 0) {
+      int parent = (position - 1) / 2;
+      if (!isCloser(heap[parent], candidate, distances)) {
+        break;
+      }
+      heap[position] = heap[parent];
+      position = parent;
+    }
+    heap[position] = candidate;
+  }
+
+  private static void siftDown(int[] heap, int size, float[] distances) {
+    if (size == 0) {
+      return;
+    }
+    int candidate = heap[0];
+    int position = 0;
+    while (2 * position + 1 < size) {
+      int child = 2 * position + 1;
+      if (child + 1 < size && isCloser(heap[child], heap[child + 1], distances)) {
+        child++;
+      }
+      if (!isCloser(candidate, heap[child], distances)) {
+        break;
+      }
+      heap[position] = heap[child];
+      position = child;
+    }
+    heap[position] = candidate;
+  }
+
+  /**
+   * Checks if the ranking answers a search for the {@code k} closest companies.
+   *
+   * @param index the current index of the catering companies
+   * @param postCode the current post code of the shielding individual
+   * @param k the number of companies searched for
+   * @return true if the ranking was computed from the same index and post code, for at least
+   *     {@code k} companies, and no distance was missing
+   */
+  boolean isValidFor(CatererIndex index, String postCode, int k) {
+    return Objects.equals(this.postCode, postCode) && isValidFor(index, k);
+  }
+
+  /**
+   * Checks if the ranking answers a search for the {@code k} closest companies to its post code,
+   * or to any post code of the same key.
+   *
+   * @param index the current index of the catering companies
+   * @param k the number of companies searched for
+   * @return true if the ranking was computed from the same index, for at least {@code k}
+   *     companies, and no distance was missing
+   */
+  boolean isValidFor(CatererIndex index, int k) {
+    return complete && this.index == index && this.k >= k;
+  }
+
+  /** @return the ranked catering companies, closest first */
+  List<Caterer> getCaterers() {
+    return caterers;
+  }
+
+  /**
+   * Returns the distance to a ranked catering company.
+   *
+   * @param rank the rank of the company, 0 for the closest
+   * @return the distance
+   */
+  float getDistance(int rank) {
+    return distances[rank];
+  }
+
+  /** @return true if no catering company could be ranked */
+  boolean isEmpty() {
+    return caterers.isEmpty();
+  }
+}
@@ -36,26 +36,12 @@ public class CateringCompanyClientImp implements CateringCompanyClient {
     if (isRegistered()) {
       return true;
     }
-    if (Objects.isNull(name) || !isValidPostCode(postCode)) {
+    if (Objects.isNull(name) || !PostCode.isValid(postCode)) {
       return false;
     }
     return model.register(name, postCode);
   }
 
-  /**
-   * This method validates a post code in Edinburgh based on particular format.
-   *
-   * @param postCode the post code of the catering company to be validated
-   * @return ture if the post code is valid otherwise false
-   */
-  private boolean isValidPostCode(String postCode) {
-    if (Objects.isNull(postCode)) {
-      return false;
-    }
-    String postCodeRegex = "^[E][H][1-9][0-7]?[_][1-9][A-Z][A-Z]$";
-    return postCode.matches(postCodeRegex);
-  }
-
   /**
    * Update order status
    *
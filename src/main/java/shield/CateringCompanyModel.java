@@ -1,5 +1,7 @@
 package shield;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface CateringCompanyModel {
   /**
    * Registers the catering company.
@@ -26,6 +28,30 @@ public interface CateringCompanyModel {
    */
   boolean updateOrderStatus(int orderNumber, OrderStatus status);
 
+  /**
+   * Registers the catering company without blocking the calling thread.
+   *
+   * <p>This is the asynchronous twin of {@link #register}. The returned future never completes
+   * exceptionally; it holds false if any error occurs.
+   *
+   * @param name the name of the catering company
+   * @param postCode the post code of the catering company
+   * @return a future holding true if the catering company has been successfully registered
+   */
+  CompletableFuture<Boolean> registerAsync(String name, String postCode);
+
+  /**
+   * Updates the order status without blocking the calling thread.
+   *
+   * <p>This is the asynchronous twin of {@link #updateOrderStatus}. The returned future never
+   * completes exceptionally; it holds false if any error occurs.
+   *
+   * @param orderNumber is the order number whose status has to be changed
+   * @param status is the status to which the order has to be updated
+   * @return a future holding true if the order status has been successfully updated
+   */
+  CompletableFuture<Boolean> updateOrderStatusAsync(int orderNumber, OrderStatus status);
+
   /**
    * Check if catering company has been registered
    *
@@ -2,6 +2,7 @@ package shield;
 
 import java.io.IOException;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Example of a potential application for a catering company.
@@ -11,6 +12,8 @@ import java.util.Objects;
 public class CateringCompanyModelImp implements CateringCompanyModel {
   /** The endpoint used for remote communication. */
   private final String endpoint;
+  /** The orders held by shielding individuals in this JVM. */
+  private final OrderRegistry orderRegistry;
   /** The name of the catering company. */
   private String name;
   /** The post code of the catering company. */
@@ -25,6 +28,7 @@ public class CateringCompanyModelImp implements CateringCompanyModel {
    */
   public CateringCompanyModelImp(String endpoint) {
     this.endpoint = endpoint;
+    this.orderRegistry = OrderRegistry.forEndpoint(endpoint);
     this.registered = false;
   }
 
@@ -36,15 +40,7 @@ public class CateringCompanyModelImp implements CateringCompanyModel {
     String request = QueryStringFormatter.cateringCompanyRegisterRequest(name, postCode);
     try {
       String response = ClientIO.doGETRequest(endpoint + request);
-      if (response.equals(ServerResponse.ALREADY_REGISTERED.toString())) {
-        return true;
-      }
-      if (response.equals(ServerResponse.REGISTRATION_SUCCESS.toString())) {
-        this.registered = true;
-        this.name = name;
-        this.postCode = postCode;
-        return true;
-      }
+      return handleRegistrationResponse(response, name, postCode);
     } catch (IOException | RuntimeException e) {
       System.err.println("ERROR: HTTP get request failed.");
       e.printStackTrace();
@@ -54,6 +50,34 @@ public class CateringCompanyModelImp implements CateringCompanyModel {
     return false;
   }
 
+  @Override
+  public CompletableFuture<Boolean> registerAsync(String name, String postCode) {
+    assert Objects.nonNull(name) : "Model should not receive null name for registration.";
+    assert Objects.nonNull(postCode) : "Model should not receive null post code for registration.";
+
+    String request = QueryStringFormatter.cateringCompanyRegisterRequest(name, postCode);
+    return ClientIO.doGETRequestAsync(endpoint + request)
+        .thenApply(response -> handleRegistrationResponse(response, name, postCode))
+        .exceptionally(ClientIO.recover(false));
+  }
+
+  // Interprets the server's response to a registration request
+  private boolean handleRegistrationResponse(String response, String name, String postCode) {
+    if (response.equals(ServerResponse.ALREADY_REGISTERED.toString())) {
+      return true;
+    }
+    if (response.equals(ServerResponse.REGISTRATION_SUCCESS.toString())) {
+      // Shielding individuals in this JVM should see the new company straight away
+      CatererDirectory.forEndpoint(endpoint).invalidate();
+      ClosestCatererCache.forEndpoint(endpoint).invalidate();
+      this.registered = true;
+      this.name = name;
+      this.postCode = postCode;
+      return true;
+    }
+    return false;
+  }
+
   @Override
   public boolean updateOrderStatus(int orderNumber, OrderStatus status) {
     assert isValidOrderNumber(orderNumber) : "Model should not receive invalid order number.";
@@ -62,7 +86,7 @@ public class CateringCompanyModelImp implements CateringCompanyModel {
     request = QueryStringFormatter.updateCateringOrderRequest(orderNumber, status.toString());
     try {
       String response = ClientIO.doGETRequest(endpoint + request);
-      return response.equals(ServerResponse.ORDER_STATUS_UPDATE_SUCCESS.toString());
+      return handleStatusUpdateResponse(response, orderNumber, status);
     } catch (IOException | RuntimeException e) {
       System.err.println("ERROR: HTTP get request failed.");
       e.printStackTrace();
@@ -72,6 +96,30 @@ public class CateringCompanyModelImp implements CateringCompanyModel {
     return false;
   }
 
+  @Override
+  public CompletableFuture<Boolean> updateOrderStatusAsync(int orderNumber, OrderStatus status) {
+    assert isValidOrderNumber(orderNumber) : "Model should not receive invalid order number.";
+
+    String request;
+    request = QueryStringFormatter.updateCateringOrderRequest(orderNumber, status.toString());
+    return ClientIO.doGETRequestAsync(endpoint + request)
+        .thenApply(response -> handleStatusUpdateResponse(response, orderNumber, status))
+        .exceptionally(ClientIO.recover(false));
+  }
+
+  // Applies a status update accepted by the server to the local copy of the order, if there is
+  // one, which journals the change and publishes it on the order status event bus
+  private boolean handleStatusUpdateResponse(
+      String response, int orderNumber, OrderStatus status) {
+    if (!response.equals(ServerResponse.ORDER_STATUS_UPDATE_SUCCESS.toString())) {
+      return false;
+    }
+    if (!orderRegistry.updateStatus(orderNumber, status)) {
+      OrderStatusEventBus.shared().publish(OrderKind.CATERING, orderNumber, null, status);
+    }
+    return true;
+  }
+
   private boolean isValidOrderNumber(int orderNumber) {
     return orderNumber >= 0;
   }
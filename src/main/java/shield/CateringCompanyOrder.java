@@ -1,6 +1,7 @@
 package shield;
 
 import java.time.LocalDateTime;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
@@ -12,9 +13,13 @@ public class CateringCompanyOrder {
   /** The food box corresponding to the order. */
   private final FoodBox foodBox;
   /** The status of the order. */
-  private OrderStatus status;
+  private volatile OrderStatus status;
   /** The time the order was ordered. */
-  private LocalDateTime timeOrdered;
+  private volatile LocalDateTime timeOrdered;
+  /** The status changes not published yet, oldest first, null if there are none. */
+  private ArrayDeque<OrderStatusEvent> unpublished;
+  /** Whether a thread is publishing the status changes of the order. */
+  private boolean publishing;
 
   /**
    * Initialises a catering company order.
@@ -24,10 +29,24 @@ public class CateringCompanyOrder {
    * @param orderPlacedDateTime the time the order was placed
    */
   public CateringCompanyOrder(int number, FoodBox foodBox, LocalDateTime orderPlacedDateTime) {
+    this(number, foodBox, orderPlacedDateTime, OrderStatus.PLACED);
+  }
+
+  /**
+   * Initialises a catering company order whose status is already known, e.g. when it is restored.
+   * No status change is published.
+   *
+   * @param number the order number
+   * @param foodBox the food box for this order
+   * @param orderPlacedDateTime the time the order was placed
+   * @param status the status of the order
+   */
+  CateringCompanyOrder(
+      int number, FoodBox foodBox, LocalDateTime orderPlacedDateTime, OrderStatus status) {
     this.number = number;
     this.foodBox = foodBox;
     this.timeOrdered = orderPlacedDateTime;
-    this.status = OrderStatus.PLACED;
+    this.status = status;
   }
 
   /**
@@ -55,11 +74,68 @@ public class CateringCompanyOrder {
    * @return true if the status has been successfully set, otherwise false
    */
   public boolean setStatus(OrderStatus status) {
-    if (Objects.nonNull(status)) {
-      this.status = status;
-      return true;
+    if (Objects.isNull(status)) {
+      return false;
+    }
+    synchronized (this) {
+      changeStatus(status);
+    }
+    publishChanges();
+    return true;
+  }
+
+  /**
+   * Sets the status of the order, provided it has not changed since it was last read.
+   *
+   * @param expected the status the order must still have
+   * @param status the new status of the order
+   * @return true if the status has been set, otherwise false
+   */
+  boolean compareAndSetStatus(OrderStatus expected, OrderStatus status) {
+    synchronized (this) {
+      if (Objects.isNull(status) || this.status != expected) {
+        return false;
+      }
+      changeStatus(status);
+    }
+    publishChanges();
+    return true;
+  }
+
+  // Sets the status and queues the change for publishing if there is one, the lock must be held
+  private void changeStatus(OrderStatus status) {
+    OrderStatus previous = this.status;
+    this.status = status;
+    if (status != previous && OrderStatusEventBus.shared().hasSubscriptions()) {
+      if (Objects.isNull(unpublished)) {
+        unpublished = new ArrayDeque<>(2);
+      }
+      unpublished.add(new OrderStatusEvent(OrderKind.CATERING, number, previous, status));
+    }
+  }
+
+  // Publishes the queued changes without holding the lock, so that a subscriber blocking the
+  // publisher can still change the order. One thread at a time publishes the changes of an order,
+  // oldest first, and the others leave theirs to it, so subscribers see the changes in order.
+  private void publishChanges() {
+    synchronized (this) {
+      if (publishing || Objects.isNull(unpublished)) {
+        return;
+      }
+      publishing = true;
+    }
+    while (true) {
+      OrderStatusEvent event;
+      synchronized (this) {
+        event = unpublished.poll();
+        if (Objects.isNull(event)) {
+          unpublished = null;
+          publishing = false;
+          return;
+        }
+      }
+      OrderStatusEventBus.shared().publish(event);
     }
-    return false;
   }
 
   /**
@@ -69,12 +145,7 @@ public class CateringCompanyOrder {
    * @return the quantity of the particular item in the food box if found. Otherwise, -1
    */
   public int getItemQuantity(int itemId) {
-    for (FoodBoxItem item : this.foodBox.getContents()) {
-      if (Objects.nonNull(item) && itemId == item.getId()) {
-        return item.getQuantity();
-      }
-    }
-    return -1;
+    return foodBox.getItemQuantity(itemId);
   }
 
   /**
@@ -93,12 +164,7 @@ public class CateringCompanyOrder {
    * @return the name of the particular item if found, otherwise null
    */
   public String getItemName(int itemId) {
-    for (FoodBoxItem item : this.foodBox.getContents()) {
-      if (Objects.nonNull(item) && itemId == item.getId()) {
-        return item.getName();
-      }
-    }
-    return null;
+    return foodBox.getItemName(itemId);
   }
 
   /**
@@ -0,0 +1,163 @@
+package shield;
+
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+/**
+ * Validates CHI numbers, shared by all clients in the JVM.
+ *
+ * <p>A CHI number is valid if it consists of exactly ten digits and its first six digits are the
+ * date of birth of the individual in the format {@code ddMMyy}, which must not be in the future.
+ * The two-digit year is resolved like {@link java.text.SimpleDateFormat} resolves it: it refers to
+ * the century that starts 80 years before today.
+ *
+ * <p>Validation only uses arithmetic on the characters of the CHI number, so it neither allocates
+ * nor throws. Today's date is computed at most once a day.
+ */
+final class ChiValidator {
+  /** Number of digits in a CHI number */
+  private static final int CHI_LENGTH = 10;
+  /** Number of years before today at which the century of two-digit years starts */
+  private static final int CENTURY_START_YEARS_AGO = 80;
+  /** Batches smaller than this are validated on the calling thread */
+  private static final int MIN_PARALLEL_BATCH_SIZE = 1024;
+
+  /** The validator shared by all clients */
+  private static final ChiValidator SHARED = new ChiValidator(Clock.systemDefaultZone());
+
+  private final Clock clock;
+  private volatile Today today;
+
+  /**
+   * Initialises a validator.
+   *
+   * @param clock the clock giving the current date
+   */
+  ChiValidator(Clock clock) {
+    this.clock = clock;
+    this.today = new Today(LocalDate.now(clock), clock);
+  }
+
+  /**
+   * Returns the validator shared by all clients in the JVM.
+   *
+   * @return the shared validator
+   */
+  static ChiValidator shared() {
+    return SHARED;
+  }
+
+  /**
+   * Checks if the given CHI number follows the <a
+   * href="https://datadictionary.nhs.uk/attributes/community_health_index_number.html">format
+   * specified by the NHS</a>.
+   *
+   * @param chi the CHI number to be validated
+   * @return true if the CHI number is valid
+   */
+  boolean isValid(String chi) {
+    if (Objects.isNull(chi) || chi.length() != CHI_LENGTH) {
+      return false;
+    }
+    for (int i = 0; i < CHI_LENGTH; i++) {
+      char c = chi.charAt(i);
+      if (c < '0' || c > '9') {
+        return false;
+      }
+    }
+    int day = twoDigits(chi, 0);
+    int month = twoDigits(chi, 2);
+    int twoDigitYear = twoDigits(chi, 4);
+    if (month < 1 || month > 12 || day < 1) {
+      return false;
+    }
+
+    Today today = getToday();
+    // Resolve the year into the century starting CENTURY_START_YEARS_AGO years before today
+    int year = today.centuryStartYear / 100 * 100 + twoDigitYear;
+    if (year < today.centuryStartYear
+        || (year == today.centuryStartYear
+            && dateKey(year, month, day) <= today.centuryStartKey)) {
+      year += 100;
+    }
+    if (day > lengthOfMonth(year, month)) {
+      return false;
+    }
+    return dateKey(year, month, day) <= today.key;
+  }
+
+  /**
+   * Checks a batch of CHI numbers, in parallel if the batch is large.
+   *
+   * @param chis the CHI numbers to be validated
+   * @return whether each CHI number is valid, in the same order as {@code chis}
+   */
+  boolean[] areValid(List<String> chis) {
+    boolean[] valid = new boolean[chis.size()];
+    IntStream indices = IntStream.range(0, valid.length);
+    if (valid.length >= MIN_PARALLEL_BATCH_SIZE) {
+      indices = indices.parallel();
+    }
+    indices.forEach(i -> valid[i] = isValid(chis.get(i)));
+    return valid;
+  }
+
+  // Returns today's date, recomputing it if the day has changed
+  private Today getToday() {
+    Today current = today;
+    if (clock.millis() >= current.endMillis) {
+      current = new Today(LocalDate.now(clock), clock);
+      today = current;
+    }
+    return current;
+  }
+
+  private static int twoDigits(String chi, int start) {
+    return (chi.charAt(start) - '0') * 10 + (chi.charAt(start + 1) - '0');
+  }
+
+  // Orders dates by their numeric value yyyyMMdd
+  private static int dateKey(int year, int month, int day) {
+    return (year * 100 + month) * 100 + day;
+  }
+
+  private static int lengthOfMonth(int year, int month) {
+    switch (month) {
+      case 2:
+        boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+        return leap ? 29 : 28;
+      case 4:
+      case 6:
+      case 9:
+      case 11:
+        return 30;
+      default:
+        return 31;
+    }
+  }
+
+  /** Today's date together with the values derived from it. */
+  private static final class Today {
+    /** Today as yyyyMMdd */
+    private final int key;
+    /** The first year of the century of two-digit years */
+    private final int centuryStartYear;
+    /** The first day of the century of two-digit years as yyyyMMdd */
+    private final int centuryStartKey;
+    /** The time at which today ends, in milliseconds since the epoch */
+    private final long endMillis;
+
+    Today(LocalDate date, Clock clock) {
+      this.key = dateKey(date.getYear(), date.getMonthValue(), date.getDayOfMonth());
+      LocalDate centuryStart = date.minusYears(CENTURY_START_YEARS_AGO);
+      this.centuryStartYear = centuryStart.getYear();
+      this.centuryStartKey =
+          dateKey(
+              centuryStart.getYear(), centuryStart.getMonthValue(), centuryStart.getDayOfMonth());
+      this.endMillis = date.plusDays(1).atStartOfDay(clock.getZone()).toInstant().toEpochMilli();
+    }
+  }
+}
@@ -0,0 +1,69 @@
+package shield;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executors shared by all models in the JVM.
+ *
+ * <p>The fan-out executor runs blocking server requests that are issued in parallel, such as the
+ * distance lookups behind {@link ShieldingIndividualModel#getClosestCateringCompany}. Its size is
+ * bounded by the setting {@code shield.fanOut.threads} (see {@link ClientSettings}), so a burst of
+ * lookups cannot create an unbounded number of threads. Idle threads are released after a minute.
+ */
+final class ClientExecutors {
+  /** Default number of threads of the fan-out executor. */
+  private static final int DEFAULT_FAN_OUT_THREADS = 64;
+  /** Time after which an idle fan-out thread is released (in seconds). */
+  private static final long IDLE_THREAD_TIMEOUT_SECONDS = 60;
+
+  /** The executor used for parallel server requests. */
+  private static final ExecutorService FAN_OUT = newFanOutExecutor();
+
+  private ClientExecutors() {
+    // Private constructor essentially makes this a static class
+  }
+
+  /**
+   * Returns the bounded executor used for parallel server requests.
+   *
+   * @return the fan-out executor
+   */
+  static ExecutorService fanOut() {
+    return FAN_OUT;
+  }
+
+  private static ExecutorService newFanOutExecutor() {
+    int threads = Math.max(1, ClientSettings.getInt("fanOut.threads", DEFAULT_FAN_OUT_THREADS));
+    ThreadPoolExecutor executor =
+        new ThreadPoolExecutor(
+            threads,
+            threads,
+            IDLE_THREAD_TIMEOUT_SECONDS,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(),
+            daemonThreadFactory("shield-fan-out-"));
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+
+  /**
+   * Returns a factory creating daemon threads, so that the shared executors never keep the JVM
+   * alive.
+   *
+   * @param prefix the prefix of the names of the created threads
+   * @return the thread factory
+   */
+  static ThreadFactory daemonThreadFactory(String prefix) {
+    AtomicInteger counter = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+}
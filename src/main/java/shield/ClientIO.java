@@ -4,53 +4,78 @@
 
 package shield;
 
-import java.io.BufferedReader;
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 public class ClientIO {
+  /**
+   * Reads the body of a successful reply.
+   *
+   * <p>The handler is given the body as it arrives from the connection. It does not need to close
+   * the stream or read it to the end.
+   *
+   * @param <T> the type of the result produced from the body
+   */
+  @FunctionalInterface
+  public interface ResponseHandler<T> {
+    /**
+     * Produces a result from the body of a reply.
+     *
+     * @param body the body of the reply
+     * @return the result produced from the body
+     * @throws IOException an input/output error occurred
+     */
+    T handle(InputStream body) throws IOException;
+  }
+
+  /**
+   * Writes the body of a request.
+   *
+   * <p>The writer is given a stream which is sent to the server once the writer returns. It does
+   * not need to flush or close the stream.
+   */
+  @FunctionalInterface
+  public interface BodyWriter {
+    /**
+     * Writes the body of a request.
+     *
+     * @param out the stream receiving the body
+     * @throws IOException an input/output error occurred
+     */
+    void writeTo(OutputStream out) throws IOException;
+  }
+
   /**
    * Performs a GET HTTP request and returns a String with the remote endpoint's reply
    *
+   * <p>The request is sent over a pooled keep-alive connection of the shared {@link
+   * HttpTransport}. The reply is decoded as UTF-8 and a trailing line terminator is dropped. This
+   * is meant for small scalar replies; large JSON replies should be read with {@link
+   * #doGETRequest(String, ResponseHandler)}.
+   *
    * @param  endpoint  a HTTP URL giving location of an endpoint
    * @return      the endpoint's response
    * @throws IOException an input/output error occurred
    * @throws RuntimeException a protocol processing error occurred
    * */
   public static String doGETRequest(String endpoint) throws RuntimeException, IOException {
-    URL requestUrl = new URL(endpoint);
-    HttpURLConnection conn = (HttpURLConnection) requestUrl.openConnection();
-    conn.setRequestMethod("GET");
-    conn.setRequestProperty("Accept", "application/json");
-
-    int responseCode = conn.getResponseCode();
-
-    if (responseCode != HttpURLConnection.HTTP_OK) {
-      throw new RuntimeException("Failed with HTTP code : "
-                                 + conn.getResponseCode());
-    }
-
-    BufferedReader in = new BufferedReader(
-      new InputStreamReader(conn.getInputStream()));
-    StringBuffer response = new StringBuffer();
-    String output = null;
-
-    while ((output = in.readLine()) != null) {
-      response.append(output);
-    }
-
-    in.close();
-    conn.disconnect();
-
-    return response.toString();
+    return HttpTransport.shared().get(endpoint);
   }
 
   /**
    * Performs a POST HTTP request and returns a String with the remote endpoint's reply
    *
+   * <p>The request is sent over a pooled keep-alive connection of the shared {@link
+   * HttpTransport}.
+   *
    * @param  endpoint  a HTTP URL giving location of an endpoint
    * @param  data the data to post to the endpoint as string
    * @return      the endpoint's response
@@ -58,33 +83,138 @@ public class ClientIO {
    * @throws RuntimeException a protocol processing error occurred
    * */
   public static String doPOSTRequest(String endpoint, String data) throws RuntimeException, IOException {
-    URL url = new URL(endpoint);
-    HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-    conn.setDoOutput(true);
-    conn.setRequestMethod("POST");
-    conn.setRequestProperty("Content-Type", "application/json");
+    return HttpTransport.shared().post(endpoint, data);
+  }
 
-    OutputStream os = conn.getOutputStream();
-    os.write(data.getBytes());
-    os.flush();
+  /**
+   * Performs a POST HTTP request whose body is produced by {@code body} and returns a String with
+   * the remote endpoint's reply
+   *
+   * <p>The writer's output is sent as is, with a fixed Content-Length, over a pooled keep-alive
+   * connection of the shared {@link HttpTransport}. This avoids building the body as a String
+   * first, e.g. when posting JSON encoded as UTF-8.
+   *
+   * @param  endpoint  a HTTP URL giving location of an endpoint
+   * @param  body the writer producing the body of the request
+   * @return      the endpoint's response
+   * @throws IOException an input/output error occurred
+   * @throws RuntimeException a protocol processing error occurred
+   * */
+  public static String doPOSTRequest(String endpoint, BodyWriter body)
+      throws RuntimeException, IOException {
+    return HttpTransport.shared().post(endpoint, body);
+  }
 
-    if (conn.getResponseCode() != HttpURLConnection.HTTP_OK) {
-      throw new RuntimeException("Failed with HTTP code : "
-                                 + conn.getResponseCode());
-    }
+  /**
+   * Performs a GET HTTP request and streams the remote endpoint's reply into {@code handler}
+   *
+   * <p>The request is sent over a pooled keep-alive connection of the shared {@link
+   * HttpTransport}.
+   *
+   * @param  endpoint  a HTTP URL giving location of an endpoint
+   * @param  handler the handler reading the body of the reply
+   * @param  <T> the type of the result produced by the handler
+   * @return      the result produced by the handler
+   * @throws IOException an input/output error occurred
+   * @throws RuntimeException a protocol processing error occurred
+   * */
+  public static <T> T doGETRequest(String endpoint, ResponseHandler<T> handler)
+      throws RuntimeException, IOException {
+    return HttpTransport.shared().get(endpoint, handler);
+  }
 
-    BufferedReader in = new BufferedReader(new InputStreamReader(
-        (conn.getInputStream())));
-    StringBuffer response = new StringBuffer();
-    String output = null;
+  /**
+   * Performs a POST HTTP request and streams the remote endpoint's reply into {@code handler}
+   *
+   * <p>The request is sent over a pooled keep-alive connection of the shared {@link
+   * HttpTransport}.
+   *
+   * @param  endpoint  a HTTP URL giving location of an endpoint
+   * @param  data the data to post to the endpoint as string
+   * @param  handler the handler reading the body of the reply
+   * @param  <T> the type of the result produced by the handler
+   * @return      the result produced by the handler
+   * @throws IOException an input/output error occurred
+   * @throws RuntimeException a protocol processing error occurred
+   * */
+  public static <T> T doPOSTRequest(String endpoint, String data, ResponseHandler<T> handler)
+      throws RuntimeException, IOException {
+    return HttpTransport.shared().post(endpoint, data, handler);
+  }
+
+  /**
+   * Returns a handler that parses a JSON reply straight from the connection
+   *
+   * <p>The body is decoded as UTF-8 and fed to a {@link JsonReader}, so the reply is never copied
+   * into an intermediate String.
+   *
+   * @param  gson the Gson instance used for parsing
+   * @param  type the type of the JSON value in the reply
+   * @param  <T> the type of the parsed value
+   * @return      a handler parsing the reply
+   * */
+  public static <T> ResponseHandler<T> jsonHandler(Gson gson, Type type) {
+    return body -> {
+      JsonReader reader = new JsonReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+      return gson.fromJson(reader, type);
+    };
+  }
+
+  /**
+   * Performs a GET HTTP request without blocking the calling thread
+   *
+   * <p>The returned future completes exceptionally if an input/output or protocol processing error
+   * occurred.
+   *
+   * @param  endpoint  a HTTP URL giving location of an endpoint
+   * @return      a future holding the endpoint's response
+   * */
+  public static CompletableFuture<String> doGETRequestAsync(String endpoint) {
+    return HttpTransport.shared().getAsync(endpoint);
+  }
 
-    while ((output = in.readLine()) != null) {
-      response.append(output);
-    }
+  /**
+   * Performs a POST HTTP request without blocking the calling thread
+   *
+   * <p>The returned future completes exceptionally if an input/output or protocol processing error
+   * occurred.
+   *
+   * @param  endpoint  a HTTP URL giving location of an endpoint
+   * @param  data the data to post to the endpoint as string
+   * @return      a future holding the endpoint's response
+   * */
+  public static CompletableFuture<String> doPOSTRequestAsync(String endpoint, String data) {
+    return HttpTransport.shared().postAsync(endpoint, data);
+  }
 
-    in.close();
-    conn.disconnect();
+  /**
+   * Performs a POST HTTP request whose body is produced by {@code body} without blocking the
+   * calling thread
+   *
+   * <p>The body is written on the calling thread. The returned future completes exceptionally if
+   * the writer failed or if an input/output or protocol processing error occurred.
+   *
+   * @param  endpoint  a HTTP URL giving location of an endpoint
+   * @param  body the writer producing the body of the request
+   * @return      a future holding the endpoint's response
+   * */
+  public static CompletableFuture<String> doPOSTRequestAsync(String endpoint, BodyWriter body) {
+    return HttpTransport.shared().postAsync(endpoint, body);
+  }
 
-    return response.toString();
+  /**
+   * Returns a function that reports a failed asynchronous request and replaces its result with
+   * {@code fallback}, mirroring how the blocking methods report errors.
+   *
+   * @param  fallback the result to be used if the request failed
+   * @param  <T> the type of the result
+   * @return      a function to be passed to {@link CompletableFuture#exceptionally}
+   * */
+  static <T> Function<Throwable, T> recover(T fallback) {
+    return error -> {
+      System.err.println("ERROR: HTTP request failed.");
+      error.printStackTrace();
+      return fallback;
+    };
   }
 }
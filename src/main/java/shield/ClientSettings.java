@@ -0,0 +1,73 @@
+package shield;
+
+import java.util.Objects;
+
+/**
+ * Reads tunable client settings from system properties.
+ *
+ * <p>All settings live under the {@code shield.} prefix, e.g. {@code -Dshield.http.poolSize=64}.
+ * Missing or malformed values fall back to the supplied default.
+ */
+final class ClientSettings {
+  /** Prefix shared by all client settings. */
+  private static final String PREFIX = "shield.";
+
+  private ClientSettings() {
+    // Private constructor essentially makes this a static class
+  }
+
+  /**
+   * Returns the string setting with the given name.
+   *
+   * @param name the name of the setting, without the {@code shield.} prefix
+   * @param defaultValue the value returned if the setting is missing or blank
+   * @return the value of the setting
+   */
+  static String getString(String name, String defaultValue) {
+    String value = System.getProperty(PREFIX + name);
+    if (Objects.isNull(value) || value.trim().isEmpty()) {
+      return defaultValue;
+    }
+    return value.trim();
+  }
+
+  /**
+   * Returns the integer setting with the given name.
+   *
+   * @param name the name of the setting, without the {@code shield.} prefix
+   * @param defaultValue the value returned if the setting is missing or malformed
+   * @return the value of the setting
+   */
+  static int getInt(String name, int defaultValue) {
+    String value = System.getProperty(PREFIX + name);
+    if (Objects.isNull(value)) {
+      return defaultValue;
+    }
+    try {
+      return Integer.parseInt(value.trim());
+    } catch (NumberFormatException e) {
+      System.err.println("ERROR: Invalid value for setting " + PREFIX + name + ": " + value);
+      return defaultValue;
+    }
+  }
+
+  /**
+   * Returns the long setting with the given name.
+   *
+   * @param name the name of the setting, without the {@code shield.} prefix
+   * @param defaultValue the value returned if the setting is missing or malformed
+   * @return the value of the setting
+   */
+  static long getLong(String name, long defaultValue) {
+    String value = System.getProperty(PREFIX + name);
+    if (Objects.isNull(value)) {
+      return defaultValue;
+    }
+    try {
+      return Long.parseLong(value.trim());
+    } catch (NumberFormatException e) {
+      System.err.println("ERROR: Invalid value for setting " + PREFIX + name + ": " + value);
+      return defaultValue;
+    }
+  }
+}
@@ -0,0 +1,119 @@
+package shield;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Cache of the closest catering companies of every post code, shared by all shielding individuals
+ * in the JVM which talk to the same server.
+ *
+ * <p>Many shielding individuals live at the same post code and would otherwise each look up the
+ * distances to the same catering companies. The cache maps the key of a post code (see {@link
+ * PostCode}) to the ranking of its closest catering companies (see {@link CatererRanking}), and a
+ * search is single-flight: individuals asking for a post code whose search is running wait for its
+ * ranking instead of starting another.
+ *
+ * <p>A ranking is only reused while it was computed from the current index of the catering
+ * companies, so a change of the catering companies on the server invalidates the entries as they
+ * are next read. A catering company registered through this JVM clears the cache straight away.
+ * Rankings missing a distance are not cached, so that the next search tries again.
+ */
+final class ClosestCatererCache {
+  /** The caches shared by all models, keyed by server endpoint. */
+  private static final ConcurrentMap<String, ClosestCatererCache> SHARED =
+      new ConcurrentHashMap<>();
+
+  private final ConcurrentMap<Integer, Entry> entries = new ConcurrentHashMap<>();
+
+  /**
+   * Returns the cache shared by all models talking to a server.
+   *
+   * @param endpoint the endpoint of the server
+   * @return the shared cache
+   */
+  static ClosestCatererCache forEndpoint(String endpoint) {
+    return SHARED.computeIfAbsent(endpoint, key -> new ClosestCatererCache());
+  }
+
+  /**
+   * Returns the ranking of the {@code k} closest catering companies of a post code, starting a
+   * search unless a ranking answering it is cached or being computed.
+   *
+   * @param postCodeKey the key of the post code
+   * @param index the current index of the catering companies
+   * @param k the number of catering companies to rank
+   * @param search starts the search, run by the calling thread if no ranking can be reused
+   * @return a future holding the ranking, or null if the search failed
+   */
+  CompletableFuture<CatererRanking> getRanking(
+      int postCodeKey,
+      CatererIndex index,
+      int k,
+      Supplier<CompletableFuture<CatererRanking>> search) {
+    assert postCodeKey != PostCode.INVALID_KEY : "Only valid post codes are cached.";
+
+    while (true) {
+      Entry entry = entries.get(postCodeKey);
+      if (Objects.nonNull(entry) && entry.answers(index, k)) {
+        return entry.ranking;
+      }
+      Entry started = new Entry(index, k);
+      boolean won =
+          Objects.isNull(entry)
+              ? Objects.isNull(entries.putIfAbsent(postCodeKey, started))
+              : entries.replace(postCodeKey, entry, started);
+      if (won) {
+        run(postCodeKey, started, search);
+        return started.ranking;
+      }
+    }
+  }
+
+  // Runs a search and completes its entry, which is dropped unless the ranking can be reused
+  private void run(
+      int postCodeKey, Entry entry, Supplier<CompletableFuture<CatererRanking>> search) {
+    CompletableFuture<CatererRanking> ranking;
+    try {
+      ranking = search.get();
+    } catch (RuntimeException e) {
+      ranking = CompletableFuture.failedFuture(e);
+    }
+    ranking.whenComplete(
+        (ranked, error) -> {
+          // Drop the entry first, so that waiters retrying see no stale failure
+          if (Objects.isNull(ranked) || !ranked.isValidFor(entry.index, entry.k)) {
+            entries.remove(postCodeKey, entry);
+          }
+          if (Objects.nonNull(error)) {
+            entry.ranking.completeExceptionally(error);
+          } else {
+            entry.ranking.complete(ranked);
+          }
+        });
+  }
+
+  /** Discards every cached ranking, e.g. when a catering company has registered. */
+  void invalidate() {
+    entries.clear();
+  }
+
+  /** A ranking of the closest catering companies of a post code, computed or being computed. */
+  private static final class Entry {
+    private final CatererIndex index;
+    private final int k;
+    private final CompletableFuture<CatererRanking> ranking = new CompletableFuture<>();
+
+    Entry(CatererIndex index, int k) {
+      this.index = index;
+      this.k = k;
+    }
+
+    // Checks if the ranking answers a search for the k closest companies in an index
+    boolean answers(CatererIndex index, int k) {
+      return this.index == index && this.k >= k;
+    }
+  }
+}
@@ -0,0 +1,216 @@
+package shield;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded cache of distances between pairs of post codes, shared by all models in the JVM.
+ *
+ * <p>Distances are symmetric, so the pairs (a, b) and (b, a) share a single entry, keyed by the
+ * packed keys of both post codes (see {@link PostCode#toKey}). Pairs involving a post code that
+ * cannot be packed are not cached. When the cache is full, the least recently used entry is
+ * evicted. Entries can optionally expire after a time to live. Invalid distances answered by the
+ * server, i.e. negative ones, are cached as well, but expire after a separate, usually shorter,
+ * time to live so that the server is asked again eventually. Lookups which failed, e.g. because the
+ * server could not be reached, are not cached by the models, so the next lookup tries again.
+ *
+ * <p>The shared cache is configured through the following settings (see {@link ClientSettings}):
+ *
+ * <ul>
+ *   <li>{@code shield.distanceCache.maxEntries} - the maximum number of cached pairs
+ *   <li>{@code shield.distanceCache.ttlSeconds} - the time to live of a distance (0 means never
+ *       expire)
+ *   <li>{@code shield.distanceCache.negativeTtlSeconds} - the time to live of an invalid distance
+ * </ul>
+ */
+final class DistanceCache {
+  /** Default maximum number of cached pairs. */
+  private static final int DEFAULT_MAX_ENTRIES = 100_000;
+  /** Default time to live of a distance (in seconds), 0 means distances never expire. */
+  private static final long DEFAULT_TTL_SECONDS = 0;
+  /** Default time to live of an invalid distance (in seconds). */
+  private static final long DEFAULT_NEGATIVE_TTL_SECONDS = 60;
+  /** Expiry time of entries which never expire. */
+  private static final long NEVER = Long.MAX_VALUE;
+
+  /** The cache shared by all models. */
+  private static final DistanceCache SHARED =
+      new DistanceCache(
+          ClientSettings.getInt("distanceCache.maxEntries", DEFAULT_MAX_ENTRIES),
+          TimeUnit.SECONDS.toNanos(
+              ClientSettings.getLong("distanceCache.ttlSeconds", DEFAULT_TTL_SECONDS)),
+          TimeUnit.SECONDS.toNanos(
+              ClientSettings.getLong(
+                  "distanceCache.negativeTtlSeconds", DEFAULT_NEGATIVE_TTL_SECONDS)),
+          System::nanoTime);
+
+  private final Map<Long, CachedDistance> entries;
+  private final long ttlNanos;
+  private final long negativeTtlNanos;
+  private final LongSupplier clock;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  /**
+   * Initialises a distance cache.
+   *
+   * @param maxEntries the maximum number of cached pairs
+   * @param ttlNanos the time to live of a distance in nanoseconds, 0 means never expire
+   * @param negativeTtlNanos the time to live of an invalid distance in nanoseconds, 0 means never
+   *     expire
+   * @param clock the source of the current time in nanoseconds
+   */
+  DistanceCache(int maxEntries, long ttlNanos, long negativeTtlNanos, LongSupplier clock) {
+    assert maxEntries > 0 : "A distance cache must be able to hold at least one entry.";
+
+    this.ttlNanos = ttlNanos;
+    this.negativeTtlNanos = negativeTtlNanos;
+    this.clock = clock;
+    this.entries =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<Long, CachedDistance> eldest) {
+            return size() > maxEntries;
+          }
+        };
+  }
+
+  /**
+   * Returns the cache shared by all models in the JVM.
+   *
+   * @return the shared distance cache
+   */
+  static DistanceCache shared() {
+    return SHARED;
+  }
+
+  /**
+   * Returns the cached distance between two post codes.
+   *
+   * <p>The method returns null if the pair is not cached or if its entry has expired. A negative
+   * value means that a previous lookup for the pair failed.
+   *
+   * @param postCode1 post code of one location
+   * @param postCode2 post code of another location
+   * @return the cached distance, or null if there is none
+   */
+  Float get(String postCode1, String postCode2) {
+    return get(PostCode.toKey(postCode1), PostCode.toKey(postCode2));
+  }
+
+  /**
+   * Returns the cached distance between two post codes given by their keys.
+   *
+   * @param postCodeKey1 key of the post code of one location
+   * @param postCodeKey2 key of the post code of another location
+   * @return the cached distance, or null if there is none
+   * @see #get(String, String)
+   */
+  Float get(int postCodeKey1, int postCodeKey2) {
+    CachedDistance entry = null;
+    if (postCodeKey1 != PostCode.INVALID_KEY && postCodeKey2 != PostCode.INVALID_KEY) {
+      Long key = pairKey(postCodeKey1, postCodeKey2);
+      synchronized (entries) {
+        entry = entries.get(key);
+        if (Objects.nonNull(entry) && entry.expiresAt <= clock.getAsLong()) {
+          entries.remove(key);
+          entry = null;
+        }
+      }
+    }
+    if (Objects.isNull(entry)) {
+      misses.increment();
+      return null;
+    }
+    hits.increment();
+    return entry.distance;
+  }
+
+  /**
+   * Caches the distance between two post codes.
+   *
+   * @param postCode1 post code of one location
+   * @param postCode2 post code of another location
+   * @param distance the distance between the post codes, or a negative value if the lookup failed
+   */
+  void put(String postCode1, String postCode2, float distance) {
+    put(PostCode.toKey(postCode1), PostCode.toKey(postCode2), distance);
+  }
+
+  /**
+   * Caches the distance between two post codes given by their keys.
+   *
+   * @param postCodeKey1 key of the post code of one location
+   * @param postCodeKey2 key of the post code of another location
+   * @param distance the distance between the post codes, or a negative value if the lookup failed
+   */
+  void put(int postCodeKey1, int postCodeKey2, float distance) {
+    if (postCodeKey1 == PostCode.INVALID_KEY || postCodeKey2 == PostCode.INVALID_KEY) {
+      return;
+    }
+    long ttl = distance >= 0 ? ttlNanos : negativeTtlNanos;
+    long expiresAt = ttl > 0 ? clock.getAsLong() + ttl : NEVER;
+    Long key = pairKey(postCodeKey1, postCodeKey2);
+    synchronized (entries) {
+      entries.put(key, new CachedDistance(distance, expiresAt));
+    }
+  }
+
+  // Packs an unordered pair of post code keys, so that (a, b) and (b, a) are equal
+  private static long pairKey(int postCodeKey1, int postCodeKey2) {
+    int low = Math.min(postCodeKey1, postCodeKey2);
+    int high = Math.max(postCodeKey1, postCodeKey2);
+    return ((long) low << Integer.SIZE) | high;
+  }
+
+  /** Removes all cached distances. */
+  void clear() {
+    synchronized (entries) {
+      entries.clear();
+    }
+  }
+
+  /**
+   * Returns the number of cached pairs, including expired pairs which have not been evicted yet.
+   *
+   * @return the number of cached pairs
+   */
+  int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  /**
+   * Returns the number of lookups which were answered from the cache.
+   *
+   * @return the number of cache hits
+   */
+  long getHits() {
+    return hits.sum();
+  }
+
+  /**
+   * Returns the number of lookups which could not be answered from the cache.
+   *
+   * @return the number of cache misses
+   */
+  long getMisses() {
+    return misses.sum();
+  }
+
+  /** A cached distance together with its expiry time. */
+  private static final class CachedDistance {
+    private final float distance;
+    private final long expiresAt;
+
+    CachedDistance(float distance, long expiresAt) {
+      this.distance = distance;
+      this.expiresAt = expiresAt;
+    }
+  }
+}
@@ -1,9 +1,8 @@
 package shield;
 
 import com.google.gson.annotations.Expose;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.JsonObject;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Objects;
 
@@ -17,16 +16,53 @@ public class FoodBox {
   private String diet;
   private String id;
   private String name;
+  /** Current quantities by item position, null while they match the items. */
+  private transient int[] quantities;
+  /** The order body sent to the server, encoded on first use and shared with copies. */
+  private transient volatile byte[] orderPayload;
+
+  /** Initialises an empty food box, used when deserializing reflectively. */
+  FoodBox() {}
+
+  /**
+   * Initialises a food box with the details returned by the server.
+   *
+   * @param contents the items in the food box
+   * @param deliveredBy who delivers the food box
+   * @param diet the dietary preference of the food box
+   * @param id the stringified ID of the food box
+   * @param name the name of the food box
+   */
+  FoodBox(List<FoodBoxItem> contents, String deliveredBy, String diet, String id, String name) {
+    this.contents = contents;
+    this.delivered_by = deliveredBy;
+    this.diet = diet;
+    this.id = id;
+    this.name = name;
+  }
 
   /**
    * Get the contents of the particular food box
    *
+   * <p>The items are shared between copies of the food box and must not be modified. Their
+   * quantities are the ones offered by the catering company; use {@link #getItemQuantity} for the
+   * current quantities.
+   *
    * @return a list of food box items in the food box itself
    */
   public List<FoodBoxItem> getContents() {
     return contents;
   }
 
+  /**
+   * Get who delivers the particular food box
+   *
+   * @return who delivers the food box, e.g. a catering company
+   */
+  public String getDeliveredBy() {
+    return delivered_by;
+  }
+
   /**
    * Get the dietary preference of the particular food box
    *
@@ -45,38 +81,80 @@ public class FoodBox {
     return id;
   }
 
+  /**
+   * Get the name of the food box
+   *
+   * @return the name of the food box
+   */
+  public String getName() {
+    return name;
+  }
+
   /**
    * This method is used to set the quantity for a particular item ID in the food box
    *
+   * <p>If the food box has been ordered, the maximum permissible quantity is the current quantity
+   * of the item. Otherwise, the new quantity can be as high as the quantity offered by the
+   * catering company. In both cases, the lowest quantity possible is 0
+   *
    * @param itemId is the ID for which the quantity needs to be changed
    * @param quantity is the quantity to which the item ID needs to be changed
    * @param ordered whether the food box has been ordered
    * @return if the quantity has been successfully set by the item
    */
   public boolean setQuantityForItem(int itemId, int quantity, boolean ordered) {
-    if (itemId < 0 || quantity < 0) {
+    if (itemId < 0 || quantity < 0 || Objects.isNull(contents)) {
+      return false;
+    }
+    int position = positionOf(itemId);
+    if (position < 0) {
+      return false;
+    }
+    int maxQuantity = ordered ? quantityAt(position) : contents.get(position).getQuantity();
+    if (quantity > maxQuantity) {
       return false;
     }
     if (quantity == 0) {
       // Ensure that the food box contents are not completely zeroed out
       int totalQuantity = 0;
-      for (FoodBoxItem item : contents) {
-        if (itemId != item.getId()) {
-          totalQuantity += item.getQuantity();
-        } else {
-          totalQuantity += quantity;
+      for (int i = 0; i < contents.size(); i++) {
+        if (i != position && Objects.nonNull(contents.get(i))) {
+          totalQuantity += quantityAt(i);
         }
       }
       if (totalQuantity == 0) {
         return false;
       }
     }
-    for (FoodBoxItem item : contents) {
-      if (itemId == item.getId()) {
-        return item.setQuantity(quantity, ordered);
+    if (Objects.isNull(quantities)) {
+      // Copy on write: the items themselves are shared and never modified
+      quantities = new int[contents.size()];
+      for (int i = 0; i < quantities.length; i++) {
+        FoodBoxItem item = contents.get(i);
+        quantities[i] = Objects.isNull(item) ? 0 : item.getQuantity();
       }
     }
-    return false;
+    quantities[position] = quantity;
+    return true;
+  }
+
+  // Returns the position of the first item with a matching ID, or -1 if there is none
+  private int positionOf(int itemId) {
+    for (int i = 0; i < contents.size(); i++) {
+      FoodBoxItem item = contents.get(i);
+      if (Objects.nonNull(item) && item.getId() == itemId) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  // Returns the current quantity of the item at a position
+  private int quantityAt(int position) {
+    if (Objects.nonNull(quantities)) {
+      return quantities[position];
+    }
+    return contents.get(position).getQuantity();
   }
 
   /**
@@ -86,12 +164,33 @@ public class FoodBox {
    * @return the stringified JSON object
    */
   public String jsonify() {
-    Gson gson = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().create();
-    return gson.toJson(this);
+    return WireCodec.toOrderJson(this);
   }
 
   /**
-   * Get the quantity of a particular item given its ID
+   * Writes the JSON returned by {@link #jsonify} to a request body, encoded as UTF-8.
+   *
+   * <p>The body only depends on the items, which never change, so it is encoded once and then
+   * reused for every order placed or edited with this food box or any of its copies.
+   *
+   * @param out the stream receiving the body of the request
+   * @throws IOException an input/output error occurred
+   */
+  public void writeOrderTo(OutputStream out) throws IOException {
+    out.write(getOrderPayload());
+  }
+
+  private byte[] getOrderPayload() {
+    byte[] payload = orderPayload;
+    if (Objects.isNull(payload)) {
+      payload = WireCodec.toOrderPayload(this);
+      orderPayload = payload;
+    }
+    return payload;
+  }
+
+  /**
+   * Get the current quantity of a particular item given its ID
    *
    * @param itemId is the ID for which we need to get the quantity
    * @return the quantity of the item with this ID
@@ -100,12 +199,11 @@ public class FoodBox {
     if (Objects.isNull(contents)) {
       return INVALID_ITEM_QUANTITY;
     }
-    for (FoodBoxItem item : contents) {
-      if (Objects.nonNull(item) && item.getId() == itemId) {
-        return item.getQuantity();
-      }
+    int position = positionOf(itemId);
+    if (position < 0) {
+      return INVALID_ITEM_QUANTITY;
     }
-    return INVALID_ITEM_QUANTITY;
+    return quantityAt(position);
   }
 
   /**
@@ -127,13 +225,52 @@ public class FoodBox {
   }
 
   /**
-   * Returns a deep copy of the current instance.
+   * Returns the current quantities of the items, in the order of the contents.
+   *
+   * @return the quantities, with 0 for missing items, or an empty array if there are no contents
+   */
+  int[] getQuantities() {
+    if (Objects.isNull(contents)) {
+      return new int[0];
+    }
+    int[] result = new int[contents.size()];
+    for (int i = 0; i < result.length; i++) {
+      result[i] = Objects.isNull(contents.get(i)) ? 0 : quantityAt(i);
+    }
+    return result;
+  }
+
+  /**
+   * Restores quantities previously returned by {@link #getQuantities}.
+   *
+   * @param quantities the quantities of the items, in the order of the contents
+   */
+  void setQuantities(int[] quantities) {
+    if (Objects.isNull(contents)) {
+      return;
+    }
+    assert quantities.length == contents.size() : "Quantities do not match the food box.";
+
+    this.quantities = quantities.clone();
+  }
+
+  /**
+   * Returns a copy of the current instance.
+   *
+   * <p>The copy shares the immutable items with this food box and only duplicates the current
+   * quantities, so changing the quantities of the copy does not affect this food box.
    *
    * @return a copy of this food box
    */
   public FoodBox copy() {
-    Gson gson = new Gson();
-    JsonObject serialized = gson.toJsonTree(this).getAsJsonObject();
-    return gson.fromJson(serialized, this.getClass());
+    FoodBox copy = new FoodBox();
+    copy.contents = contents;
+    copy.delivered_by = delivered_by;
+    copy.diet = diet;
+    copy.id = id;
+    copy.name = name;
+    copy.quantities = Objects.isNull(quantities) ? null : quantities.clone();
+    copy.orderPayload = getOrderPayload();
+    return copy;
   }
 }
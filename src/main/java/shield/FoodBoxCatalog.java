@@ -0,0 +1,192 @@
+package shield;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Immutable, indexed view of the food boxes offered by the server.
+ *
+ * <p>The catalog is built once per fetch of {@code /showFoodBox}. Food boxes are indexed by their
+ * numeric ID, the items of each box are indexed by item ID, and the IDs of the boxes matching each
+ * {@link DietaryPreference} are precomputed. Every lookup therefore runs in constant time, and the
+ * lists handed out are unmodifiable and shared between callers.
+ */
+final class FoodBoxCatalog {
+  /** Represents an invalid item quantity */
+  private static final int INVALID_ITEM_QUANTITY = -1;
+
+  private final List<FoodBox> foodBoxes;
+  private final Map<Integer, IndexedFoodBox> foodBoxesById;
+  private final EnumMap<DietaryPreference, List<String>> foodBoxIdsByPreference;
+
+  /**
+   * Builds a catalog from the food boxes returned by the server.
+   *
+   * @param foodBoxes the food boxes returned by the server
+   */
+  FoodBoxCatalog(List<FoodBox> foodBoxes) {
+    assert Objects.nonNull(foodBoxes) : "A catalog cannot be built without food boxes.";
+
+    this.foodBoxes = Collections.unmodifiableList(new ArrayList<>(foodBoxes));
+    this.foodBoxesById = new HashMap<>();
+    for (FoodBox box : foodBoxes) {
+      Integer id = parseId(box);
+      // The first box with a given ID wins, as in a linear search
+      if (Objects.nonNull(id) && !foodBoxesById.containsKey(id)) {
+        foodBoxesById.put(id, new IndexedFoodBox(box));
+      }
+    }
+    this.foodBoxIdsByPreference = new EnumMap<>(DietaryPreference.class);
+    for (DietaryPreference preference : DietaryPreference.values()) {
+      foodBoxIdsByPreference.put(preference, idsMatching(foodBoxes, preference));
+    }
+  }
+
+  // Parses the stringified ID of a food box, returns null if it is not a number
+  private static Integer parseId(FoodBox box) {
+    if (Objects.isNull(box) || Objects.isNull(box.getId())) {
+      return null;
+    }
+    try {
+      return Integer.parseInt(box.getId());
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  private static List<String> idsMatching(List<FoodBox> foodBoxes, DietaryPreference preference) {
+    List<String> ids = new ArrayList<>();
+    for (FoodBox box : foodBoxes) {
+      if (Objects.isNull(box)) {
+        continue;
+      }
+      if (preference == DietaryPreference.NO_PREFERENCE
+          || preference.toString().equals(box.getDiet())) {
+        ids.add(box.getId());
+      }
+    }
+    return Collections.unmodifiableList(ids);
+  }
+
+  /**
+   * Returns all food boxes in the order returned by the server.
+   *
+   * @return an unmodifiable list of food boxes
+   */
+  List<FoodBox> getFoodBoxes() {
+    return foodBoxes;
+  }
+
+  /**
+   * Returns the total number of food boxes.
+   *
+   * @return the number of food boxes
+   */
+  int size() {
+    return foodBoxes.size();
+  }
+
+  /**
+   * Returns the IDs of the food boxes that satisfy a dietary preference.
+   *
+   * @param preference the dietary preference
+   * @return an unmodifiable list of stringified food box IDs
+   */
+  List<String> getFoodBoxIds(DietaryPreference preference) {
+    return foodBoxIdsByPreference.get(preference);
+  }
+
+  /**
+   * Returns the food box with a matching ID, or null if there is none.
+   *
+   * @param foodBoxId the ID of the food box
+   * @return the food box
+   */
+  FoodBox getFoodBox(int foodBoxId) {
+    IndexedFoodBox indexedBox = foodBoxesById.get(foodBoxId);
+    return Objects.isNull(indexedBox) ? null : indexedBox.box;
+  }
+
+  /**
+   * Returns the dietary preference of a food box, or null if there is no such food box.
+   *
+   * @param foodBoxId the ID of the food box
+   * @return the dietary preference of the food box
+   */
+  String getDietaryPreference(int foodBoxId) {
+    FoodBox box = getFoodBox(foodBoxId);
+    return Objects.isNull(box) ? null : box.getDiet();
+  }
+
+  /**
+   * Returns the IDs of the items in a food box, or null if there is no such food box or if it has
+   * no contents.
+   *
+   * @param foodBoxId the ID of the food box
+   * @return an unmodifiable list of item IDs
+   */
+  List<Integer> getItemIds(int foodBoxId) {
+    IndexedFoodBox indexedBox = foodBoxesById.get(foodBoxId);
+    return Objects.isNull(indexedBox) ? null : indexedBox.itemIds;
+  }
+
+  /**
+   * Returns the name of an item in a food box, or null if either cannot be found.
+   *
+   * @param itemId the ID of the item
+   * @param foodBoxId the ID of the food box
+   * @return the name of the item
+   */
+  String getItemName(int itemId, int foodBoxId) {
+    FoodBoxItem item = findItem(itemId, foodBoxId);
+    return Objects.isNull(item) ? null : item.getName();
+  }
+
+  /**
+   * Returns the quantity of an item in a food box, or -1 if either cannot be found.
+   *
+   * @param itemId the ID of the item
+   * @param foodBoxId the ID of the food box
+   * @return the quantity of the item
+   */
+  int getItemQuantity(int itemId, int foodBoxId) {
+    FoodBoxItem item = findItem(itemId, foodBoxId);
+    return Objects.isNull(item) ? INVALID_ITEM_QUANTITY : item.getQuantity();
+  }
+
+  private FoodBoxItem findItem(int itemId, int foodBoxId) {
+    IndexedFoodBox indexedBox = foodBoxesById.get(foodBoxId);
+    return Objects.isNull(indexedBox) ? null : indexedBox.itemsById.get(itemId);
+  }
+
+  /** A food box together with the index of its items. */
+  private static final class IndexedFoodBox {
+    private final FoodBox box;
+    private final List<Integer> itemIds;
+    private final Map<Integer, FoodBoxItem> itemsById;
+
+    IndexedFoodBox(FoodBox box) {
+      this.box = box;
+      this.itemsById = new HashMap<>();
+      List<FoodBoxItem> contents = box.getContents();
+      if (Objects.isNull(contents)) {
+        this.itemIds = null;
+        return;
+      }
+      List<Integer> ids = new ArrayList<>(contents.size());
+      for (FoodBoxItem item : contents) {
+        if (Objects.isNull(item)) {
+          continue;
+        }
+        ids.add(item.getId());
+        itemsById.putIfAbsent(item.getId(), item);
+      }
+      this.itemIds = Collections.unmodifiableList(ids);
+    }
+  }
+}
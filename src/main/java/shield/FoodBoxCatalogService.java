@@ -0,0 +1,166 @@
+package shield;
+
+import com.google.gson.JsonSyntaxException;
+import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Food box catalog shared by all models in the JVM which talk to the same server.
+ *
+ * <p>The catalog is downloaded once and published as an immutable snapshot, which is swapped
+ * atomically when a newer catalog has been downloaded. Readers never block on a refresh: once a
+ * snapshot is older than the refresh interval, the next read starts a download in the background
+ * and keeps returning the current snapshot until the download completes. Only the very first read
+ * has to wait for the catalog, and concurrent first reads share a single download.
+ *
+ * <p>If a refresh fails, the current snapshot is kept and the download is retried after another
+ * refresh interval. The interval is configured through the setting {@code
+ * shield.foodBoxCatalog.refreshSeconds} (see {@link ClientSettings}).
+ */
+final class FoodBoxCatalogService {
+  /** Default time after which a catalog is refreshed (in seconds). */
+  private static final long DEFAULT_REFRESH_SECONDS = 300;
+  /** Time after which a catalog is refreshed (in nanoseconds). */
+  private static final long REFRESH_NANOS =
+      TimeUnit.SECONDS.toNanos(
+          ClientSettings.getLong("foodBoxCatalog.refreshSeconds", DEFAULT_REFRESH_SECONDS));
+
+  /** The services shared by all models, keyed by server endpoint. */
+  private static final ConcurrentMap<String, FoodBoxCatalogService> SHARED =
+      new ConcurrentHashMap<>();
+
+  private final Supplier<List<FoodBox>> loader;
+  private final long refreshNanos;
+  private final LongSupplier clock;
+  private final Executor executor;
+  private final AtomicReference<Snapshot> current = new AtomicReference<>();
+  private final AtomicReference<CompletableFuture<Snapshot>> inFlight = new AtomicReference<>();
+
+  /**
+   * Initialises a catalog service.
+   *
+   * @param loader downloads the food boxes, returns null if the download failed
+   * @param refreshNanos the time after which a catalog is refreshed in nanoseconds
+   * @param clock the source of the current time in nanoseconds
+   * @param executor the executor running background refreshes
+   */
+  FoodBoxCatalogService(
+      Supplier<List<FoodBox>> loader, long refreshNanos, LongSupplier clock, Executor executor) {
+    this.loader = loader;
+    this.refreshNanos = refreshNanos;
+    this.clock = clock;
+    this.executor = executor;
+  }
+
+  /**
+   * Returns the service shared by all models talking to a server.
+   *
+   * @param endpoint the endpoint of the server
+   * @return the shared catalog service
+   */
+  static FoodBoxCatalogService forEndpoint(String endpoint) {
+    return SHARED.computeIfAbsent(
+        endpoint,
+        key ->
+            new FoodBoxCatalogService(
+                () -> fetchFoodBoxes(key),
+                REFRESH_NANOS,
+                System::nanoTime,
+                ClientExecutors.fanOut()));
+  }
+
+  // Downloads the food boxes from the server, returns null if the download failed
+  private static List<FoodBox> fetchFoodBoxes(String endpoint) {
+    try {
+      String request = endpoint + QueryStrings.SHOW_FOOD_BOX.toString();
+      return ClientIO.doGETRequest(request, WireCodec.foodBoxListHandler());
+    } catch (JsonSyntaxException e) {
+      System.err.println("ERROR: Invalid JSON format");
+      e.printStackTrace();
+    } catch (RuntimeException | IOException e) {
+      System.err.println("ERROR: Invalid HTTP get request to the server");
+      e.printStackTrace();
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+    return null;
+  }
+
+  /**
+   * Returns the current catalog.
+   *
+   * <p>The first call downloads the catalog and waits for it. Later calls return the current
+   * snapshot immediately, starting a background refresh if it is older than the refresh interval.
+   *
+   * @return the current catalog, or null if no catalog could be downloaded yet
+   */
+  FoodBoxCatalog getCatalog() {
+    Snapshot snapshot = current.get();
+    if (Objects.isNull(snapshot)) {
+      snapshot = startLoad(false).join();
+      return Objects.isNull(snapshot) ? null : snapshot.catalog;
+    }
+    if (clock.getAsLong() - snapshot.loadedAt >= refreshNanos) {
+      startLoad(true);
+    }
+    return snapshot.catalog;
+  }
+
+  // Starts a download unless one is already running, returns the running download
+  private CompletableFuture<Snapshot> startLoad(boolean background) {
+    CompletableFuture<Snapshot> load = new CompletableFuture<>();
+    CompletableFuture<Snapshot> running = inFlight.compareAndExchange(null, load);
+    if (Objects.nonNull(running)) {
+      return running;
+    }
+    if (background) {
+      executor.execute(() -> load(load));
+    } else {
+      load(load);
+    }
+    return load;
+  }
+
+  // Downloads the catalog and publishes it, never completes the future exceptionally
+  private void load(CompletableFuture<Snapshot> load) {
+    Snapshot snapshot = current.get();
+    try {
+      List<FoodBox> foodBoxes = loader.get();
+      if (Objects.nonNull(foodBoxes)) {
+        snapshot = new Snapshot(new FoodBoxCatalog(foodBoxes), clock.getAsLong());
+      } else if (Objects.nonNull(snapshot)) {
+        // Keep serving the stale catalog, but wait another interval before retrying
+        snapshot = new Snapshot(snapshot.catalog, clock.getAsLong());
+      }
+      if (Objects.nonNull(snapshot)) {
+        current.set(snapshot);
+      }
+    } catch (RuntimeException e) {
+      System.err.println("ERROR: Failed to load the food box catalog");
+      e.printStackTrace();
+    } finally {
+      inFlight.set(null);
+      load.complete(current.get());
+    }
+  }
+
+  /** A catalog together with the time at which it was downloaded. */
+  private static final class Snapshot {
+    private final FoodBoxCatalog catalog;
+    private final long loadedAt;
+
+    Snapshot(FoodBoxCatalog catalog, long loadedAt) {
+      this.catalog = catalog;
+      this.loadedAt = loadedAt;
+    }
+  }
+}
@@ -2,14 +2,32 @@ package shield;
 
 import com.google.gson.annotations.Expose;
 
-/** Representation of a food box item. */
+/**
+ * Representation of a food box item.
+ *
+ * <p>Items are immutable so that they can be shared between the catalog, picked food boxes and
+ * orders. The quantities chosen by a shielding individual are tracked by {@link FoodBox}.
+ */
 public class FoodBoxItem {
-  private static final int QUANTITY_NOT_INITIALIZED = -1;
-
   @Expose private int id;
   @Expose private String name;
   @Expose private int quantity; // Maximum quantity; we need this name for unmarshalling purposes.
-  private int currentQuantity = QUANTITY_NOT_INITIALIZED;
+
+  /** Initialises an empty item, used when deserializing reflectively. */
+  FoodBoxItem() {}
+
+  /**
+   * Initialises a food box item.
+   *
+   * @param id the ID of the item
+   * @param name the name of the item
+   * @param quantity the quantity offered by the catering company
+   */
+  FoodBoxItem(int id, String name, int quantity) {
+    this.id = id;
+    this.name = name;
+    this.quantity = quantity;
+  }
 
   /**
    * Gets the ID of the particular food box item
@@ -30,41 +48,11 @@ public class FoodBoxItem {
   }
 
   /**
-   * Gets the current quantity of the food box item.
+   * Gets the quantity of the food box item offered by the catering company.
    *
    * @return the quantity of the particular food box item
    */
   public int getQuantity() {
-    if (currentQuantity == QUANTITY_NOT_INITIALIZED) {
-      // Lazy-loading current quantity
-      // Note: It has to be done here as GSON cannot be coerced to use a specific constructor
-      currentQuantity = getMaxQuantity();
-    }
-    return currentQuantity;
-  }
-
-  // Wrapper function for better code readability
-  private int getMaxQuantity() {
     return quantity;
   }
-
-  /**
-   * Sets the quantity of the food box item.
-   *
-   * <p>If the item is part of a placed order, the maximum permissible quantity is given by {@link
-   * #getQuantity}. Otherwise, the new quantity can be as high as {@link #getMaxQuantity}. In both
-   * cases, the lowest quantity possible is 0
-   *
-   * @param quantity is the quantity to which the items quantity will be changed
-   * @param ordered whether the item has been ordered
-   * @return true if the quantity has been edited successfully, false otherwise
-   */
-  public boolean setQuantity(int quantity, boolean ordered) {
-    int maxQuantity = ordered ? getQuantity() : getMaxQuantity();
-    if (0 <= quantity && quantity <= maxQuantity) {
-      this.currentQuantity = quantity;
-      return true;
-    }
-    return false;
-  }
 }
@@ -0,0 +1,358 @@
+package shield;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Approximate distances between Edinburgh post codes, computed locally.
+ *
+ * <p>The engine knows the centroid of every geographic post code district from a table bundled
+ * with the client, and measures the great-circle (haversine) distance between the centroids of
+ * the districts of two post codes. The distances between all pairs of districts are computed once,
+ * so a distance is a single array lookup. Post codes of the same district are at distance zero.
+ *
+ * <p>The distances are too coarse to replace the server's, but good enough to rank catering
+ * companies: a closest catering company search only asks the server for the exact distances to
+ * the few companies which are nearest according to the engine (see {@link #preselect}).
+ */
+final class GeoDistanceEngine {
+  /** The table of district centroids, relative to this class */
+  private static final String CENTROIDS_RESOURCE = "eh_district_centroids.csv";
+  /** Mean radius of the earth (in kilometres) */
+  private static final double EARTH_RADIUS_KM = 6371.0088;
+  /** Number of rows and columns of the distance table, indexed by district */
+  private static final int DISTRICTS = PostCode.MAX_DISTRICT + 1;
+
+  /** Distances between the centroids of all pairs of districts, NaN if either is unknown */
+  private final float[] distances = new float[DISTRICTS * DISTRICTS];
+  private final boolean[] located = new boolean[DISTRICTS];
+  /** For every located district, the located districts sorted by distance from it */
+  private final int[][] districtsByDistance = new int[DISTRICTS][];
+
+  /**
+   * Initialises an engine.
+   *
+   * @param latitudes the latitude of the centroid of each district in degrees, NaN if unknown
+   * @param longitudes the longitude of the centroid of each district in degrees, NaN if unknown
+   */
+  GeoDistanceEngine(double[] latitudes, double[] longitudes) {
+    assert latitudes.length == DISTRICTS && longitudes.length == DISTRICTS
+        : "A centroid is needed for every district.";
+
+    for (int district = 0; district < DISTRICTS; district++) {
+      located[district] = !Double.isNaN(latitudes[district]) && !Double.isNaN(longitudes[district]);
+    }
+    for (int from = 0; from < DISTRICTS; from++) {
+      for (int to = 0; to < DISTRICTS; to++) {
+        distances[from * DISTRICTS + to] =
+            located[from] && located[to]
+                ? (float)
+                    haversine(latitudes[from], longitudes[from], latitudes[to], longitudes[to])
+                : Float.NaN;
+      }
+    }
+    Integer[] order = new Integer[DISTRICTS];
+    for (int from = 0; from < DISTRICTS; from++) {
+      if (!located[from]) {
+        districtsByDistance[from] = new int[0];
+        continue;
+      }
+      for (int district = 0; district < DISTRICTS; district++) {
+        order[district] = district;
+      }
+      int row = from * DISTRICTS;
+      // The sort is stable, so districts at the same distance stay sorted by number
+      Arrays.sort(order, (to1, to2) -> Float.compare(distances[row + to1], distances[row + to2]));
+      // NaN distances sort last, i.e. the districts which are not located
+      int count = 0;
+      while (count < DISTRICTS && located[order[count]]) {
+        count++;
+      }
+      int[] sorted = new int[count];
+      for (int i = 0; i < count; i++) {
+        sorted[i] = order[i];
+      }
+      districtsByDistance[from] = sorted;
+    }
+  }
+
+  /**
+   * Returns the engine using the bundled table of district centroids. If the table cannot be read,
+   * the engine knows no district.
+   *
+   * @return the shared engine
+   */
+  static GeoDistanceEngine shared() {
+    return Holder.SHARED;
+  }
+
+  /**
+   * Reads a table of district centroids, one {@code district,latitude,longitude} per line. Empty
+   * lines and lines starting with {@code #} are ignored.
+   *
+   * @param table the table
+   * @return an engine knowing the districts of the table
+   * @throws IOException if the table cannot be read or is malformed
+   */
+  static GeoDistanceEngine load(InputStream table) throws IOException {
+    double[] latitudes = new double[DISTRICTS];
+    double[] longitudes = new double[DISTRICTS];
+    Arrays.fill(latitudes, Double.NaN);
+    Arrays.fill(longitudes, Double.NaN);
+    BufferedReader reader =
+        new BufferedReader(new InputStreamReader(table, StandardCharsets.UTF_8));
+    String line;
+    while (Objects.nonNull(line = reader.readLine())) {
+      line = line.trim();
+      if (line.isEmpty() || line.charAt(0) == '#') {
+        continue;
+      }
+      String[] fields = line.split(",");
+      try {
+        int district = Integer.parseInt(fields[0].trim());
+        latitudes[district] = Double.parseDouble(fields[1].trim());
+        longitudes[district] = Double.parseDouble(fields[2].trim());
+      } catch (RuntimeException e) {
+        throw new IOException("Invalid district centroid: " + line, e);
+      }
+    }
+    return new GeoDistanceEngine(latitudes, longitudes);
+  }
+
+  /**
+   * Returns the great-circle distance between two points.
+   *
+   * @param latitude1 the latitude of the first point in degrees
+   * @param longitude1 the longitude of the first point in degrees
+   * @param latitude2 the latitude of the second point in degrees
+   * @param longitude2 the longitude of the second point in degrees
+   * @return the distance in kilometres
+   */
+  static double haversine(
+      double latitude1, double longitude1, double latitude2, double longitude2) {
+    double phi1 = Math.toRadians(latitude1);
+    double phi2 = Math.toRadians(latitude2);
+    double sinHalfLatitude = Math.sin((phi2 - phi1) / 2);
+    double sinHalfLongitude = Math.sin(Math.toRadians(longitude2 - longitude1) / 2);
+    double a =
+        sinHalfLatitude * sinHalfLatitude
+            + Math.cos(phi1) * Math.cos(phi2) * sinHalfLongitude * sinHalfLongitude;
+    return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+  }
+
+  /**
+   * Checks if the engine knows where a post code is.
+   *
+   * @param postCodeKey the key of the post code
+   * @return true if the district of the post code is known
+   */
+  boolean isLocated(int postCodeKey) {
+    return postCodeKey >= 0 && located[PostCode.districtOf(postCodeKey)];
+  }
+
+  /**
+   * Returns the approximate distance between two post codes.
+   *
+   * @param postCodeKey1 the key of the first post code
+   * @param postCodeKey2 the key of the second post code
+   * @return the distance between the centroids of their districts in kilometres, or NaN if either
+   *     post code is not located
+   */
+  float distance(int postCodeKey1, int postCodeKey2) {
+    if (postCodeKey1 < 0 || postCodeKey2 < 0) {
+      return Float.NaN;
+    }
+    int from = PostCode.districtOf(postCodeKey1);
+    return distances[from * DISTRICTS + PostCode.districtOf(postCodeKey2)];
+  }
+
+  /**
+   * Returns the distance between the centroids of two districts.
+   *
+   * @param from the first district
+   * @param to the second district
+   * @return the distance in kilometres, or NaN if either district is not located
+   */
+  float districtDistance(int from, int to) {
+    return distances[from * DISTRICTS + to];
+  }
+
+  /**
+   * Returns the located districts sorted by distance from a district, the district itself first.
+   * Districts at the same distance are sorted by number. The array must not be modified.
+   *
+   * @param district the district
+   * @return the located districts, empty if the district itself is not located
+   */
+  int[] districtsByDistance(int district) {
+    return districtsByDistance[district];
+  }
+
+  /**
+   * Selects the candidates of a closest catering company search.
+   *
+   * <p>The candidates are the {@code k} catering companies nearest to the post code according to
+   * the engine, together with every company at the same distance as the {@code k}-th nearest and
+   * every company the engine cannot locate. The engine cannot tell apart companies in the same
+   * district, so companies tied with the {@code k}-th nearest are all kept for the server to rank.
+   * If the post code itself cannot be located, or there are no more than {@code k} companies, all
+   * companies are candidates.
+   *
+   * <p>This scans every company; {@link CatererIndex#nearest} answers the same query from an index
+   * built once per list of catering companies.
+   *
+   * @param postCodeKey the key of the post code of the shielding individual
+   * @param caterers the catering companies
+   * @param k the number of located candidates, 0 or less to select every company
+   * @return the candidates, in the order in which they are listed in {@code caterers}
+   */
+  List<Caterer> preselect(int postCodeKey, List<Caterer> caterers, int k) {
+    return preselect(postCodeKey, caterers, k, Integer.MAX_VALUE).getCaterers();
+  }
+
+  /**
+   * Selects the candidates of {@link #preselect(int, List, int)}, capped at {@code max} companies
+   * as in {@link CatererIndex#nearest(int, int, int)}.
+   *
+   * @param postCodeKey the key of the post code of the shielding individual
+   * @param caterers the catering companies
+   * @param k the number of located candidates, 0 or less to select every company
+   * @param max the maximum number of candidates, at least {@code k}
+   * @return the candidates, in the order in which they are listed in {@code caterers}, truncated if
+   *     the cap left out any company
+   */
+  CatererCandidates preselect(int postCodeKey, List<Caterer> caterers, int k, int max) {
+    assert max >= Math.max(1, k) : "The cap cannot be less than the number of candidates.";
+
+    List<Caterer> uncapped = preselectUncapped(postCodeKey, caterers, k);
+    if (uncapped.size() <= max) {
+      return new CatererCandidates(uncapped, false);
+    }
+    // The positions of the candidates in the list, which holds them in the same order
+    List<Integer> order = new ArrayList<>(uncapped.size());
+    for (int i = 0; order.size() < uncapped.size(); i++) {
+      if (caterers.get(i) == uncapped.get(order.size())) {
+        order.add(i);
+      }
+    }
+    // Located companies by distance and tie break, then unlocated ones in the order listed. If the
+    // post code cannot be located, all companies are tied.
+    boolean locatedOrigin = k > 0 && isLocated(postCodeKey);
+    float[] companyDistances = new float[caterers.size()];
+    for (int i : order) {
+      int key = caterers.get(i).getPostCodeKey();
+      companyDistances[i] =
+          !locatedOrigin
+              ? 0
+              : isLocated(key) ? distance(postCodeKey, key) : Float.POSITIVE_INFINITY;
+    }
+    order.sort(
+        (i, j) -> {
+          if (companyDistances[i] != companyDistances[j]) {
+            return Float.compare(companyDistances[i], companyDistances[j]);
+          }
+          return companyDistances[i] == Float.POSITIVE_INFINITY
+              ? Integer.compare(i, j)
+              : Long.compare(
+                  tieBreak(caterers.get(i).getPostCodeKey(), postCodeKey, i),
+                  tieBreak(caterers.get(j).getPostCodeKey(), postCodeKey, j));
+        });
+    List<Integer> kept = new ArrayList<>(order.subList(0, max));
+    Collections.sort(kept);
+    List<Caterer> candidates = new ArrayList<>(max);
+    for (int i : kept) {
+      candidates.add(caterers.get(i));
+    }
+    return new CatererCandidates(candidates, true);
+  }
+
+  /**
+   * Orders the catering companies at the same distance from a post code, by how close their post
+   * codes are to it in the order of post codes (see {@link PostCode#toKey}), then in the order in
+   * which they are listed. Invalid post codes come last.
+   *
+   * @param key the key of the post code of the catering company
+   * @param postCodeKey the key of the post code of the shielding individual
+   * @param listIndex the position of the catering company in the list
+   * @return the tie break, smaller for the company which comes first
+   */
+  static long tieBreak(int key, int postCodeKey, int listIndex) {
+    long proximity = key < 0 || postCodeKey < 0 ? Integer.MAX_VALUE : Math.abs(key - postCodeKey);
+    return proximity << Integer.SIZE | listIndex;
+  }
+
+  /**
+   * Returns the position in the list of the catering company of a tie break.
+   *
+   * @param tieBreak a tie break returned by {@link #tieBreak}
+   * @return the position of the catering company in the list
+   */
+  static int listIndexOf(long tieBreak) {
+    return (int) tieBreak;
+  }
+
+  // Selects the candidates without a cap
+  private List<Caterer> preselectUncapped(int postCodeKey, List<Caterer> caterers, int k) {
+    int count = caterers.size();
+    if (k <= 0 || count <= k || !isLocated(postCodeKey)) {
+      return caterers;
+    }
+    int row = PostCode.districtOf(postCodeKey) * DISTRICTS;
+    float[] companyDistances = new float[count];
+    // The k smallest distances found so far, ascending
+    float[] nearestDistances = new float[k];
+    int found = 0;
+    for (int i = 0; i < count; i++) {
+      int key = caterers.get(i).getPostCodeKey();
+      float distance = key < 0 ? Float.NaN : distances[row + PostCode.districtOf(key)];
+      companyDistances[i] = distance;
+      if (Float.isNaN(distance) || (found == k && distance >= nearestDistances[k - 1])) {
+        continue;
+      }
+      int position = found == k ? k - 1 : found++;
+      while (position > 0 && nearestDistances[position - 1] > distance) {
+        nearestDistances[position] = nearestDistances[position - 1];
+        position--;
+      }
+      nearestDistances[position] = distance;
+    }
+    // Every located company is a candidate if there are no more than k of them
+    float limit = found == k ? nearestDistances[k - 1] : Float.POSITIVE_INFINITY;
+    List<Caterer> candidates = new ArrayList<>(k);
+    for (int i = 0; i < count; i++) {
+      float distance = companyDistances[i];
+      if (Float.isNaN(distance) || distance <= limit) {
+        candidates.add(caterers.get(i));
+      }
+    }
+    return candidates;
+  }
+
+  /** Loads the shared engine on first use. */
+  private static final class Holder {
+    private static final GeoDistanceEngine SHARED = loadBundled();
+
+    private static GeoDistanceEngine loadBundled() {
+      try (InputStream table = GeoDistanceEngine.class.getResourceAsStream(CENTROIDS_RESOURCE)) {
+        if (Objects.isNull(table)) {
+          throw new IOException("Missing resource " + CENTROIDS_RESOURCE);
+        }
+        return load(table);
+      } catch (IOException e) {
+        System.err.println("ERROR: Failed to load the post code district centroids.");
+        e.printStackTrace();
+      }
+      double[] unknown = new double[DISTRICTS];
+      Arrays.fill(unknown, Double.NaN);
+      return new GeoDistanceEngine(unknown, unknown);
+    }
+  }
+}
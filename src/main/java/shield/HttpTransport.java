@@ -0,0 +1,345 @@
+package shield;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * HTTP transport shared by every model in the JVM.
+ *
+ * <p>All requests go through a single {@link HttpClient}, which is thread-safe and keeps
+ * connections to the server alive between requests, so only the first request to a host pays for
+ * the TCP handshake. The connection pool is configured through the following settings (see {@link
+ * ClientSettings}):
+ *
+ * <ul>
+ *   <li>{@code shield.http.poolSize} - the maximum number of idle connections kept per host (0
+ *       means unbounded)
+ *   <li>{@code shield.http.idleTimeoutSeconds} - how long an idle connection is kept before it is
+ *       evicted from the pool
+ *   <li>{@code shield.http.connectTimeoutMillis} - the timeout for establishing a new connection
+ *   <li>{@code shield.http.requestTimeoutMillis} - the timeout for a whole request
+ * </ul>
+ *
+ * <p>Requests can either block the calling thread or be sent asynchronously, in which case the
+ * returned future is completed by the client's own threads once the reply has arrived.
+ *
+ * <p>The pool settings are only honoured if they are read before the JDK HTTP client is first used
+ * in the JVM.
+ */
+final class HttpTransport {
+  /** Default maximum number of idle connections kept in the pool. */
+  private static final int DEFAULT_POOL_SIZE = 32;
+  /** Default time after which an idle connection is evicted (in seconds). */
+  private static final long DEFAULT_IDLE_TIMEOUT_SECONDS = 30;
+  /** Default connection timeout (in milliseconds). */
+  private static final long DEFAULT_CONNECT_TIMEOUT_MILLIS = 10_000;
+  /** Default request timeout (in milliseconds). */
+  private static final long DEFAULT_REQUEST_TIMEOUT_MILLIS = 30_000;
+  /** Largest reply (in bytes) that is read into an array sized from its Content-Length. */
+  private static final long MAX_PRESIZED_LENGTH = 64 * 1024;
+  /** Largest request body buffer (in bytes) that is kept for reuse by a thread. */
+  private static final int MAX_RETAINED_BUFFER_SIZE = 64 * 1024;
+  /** JDK property controlling the size of the connection pool. */
+  private static final String JDK_POOL_SIZE_PROPERTY = "jdk.httpclient.connectionPoolSize";
+  /** JDK property controlling the idle timeout of pooled connections. */
+  private static final String JDK_KEEP_ALIVE_PROPERTY = "jdk.httpclient.keepalive.timeout";
+
+  /** The transport shared by all models. */
+  private static final HttpTransport SHARED = new HttpTransport();
+
+  /** Request body buffers, reused by blocking requests of the same thread. */
+  private static final ThreadLocal<BodyBuffer> BODY_BUFFERS =
+      ThreadLocal.withInitial(BodyBuffer::new);
+
+  private final HttpClient client;
+  private final Duration requestTimeout;
+
+  private HttpTransport() {
+    configurePool(
+        ClientSettings.getInt("http.poolSize", DEFAULT_POOL_SIZE),
+        ClientSettings.getLong("http.idleTimeoutSeconds", DEFAULT_IDLE_TIMEOUT_SECONDS));
+    long connectTimeout =
+        ClientSettings.getLong("http.connectTimeoutMillis", DEFAULT_CONNECT_TIMEOUT_MILLIS);
+    this.requestTimeout =
+        Duration.ofMillis(
+            ClientSettings.getLong("http.requestTimeoutMillis", DEFAULT_REQUEST_TIMEOUT_MILLIS));
+    this.client =
+        HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofMillis(connectTimeout))
+            .followRedirects(HttpClient.Redirect.NEVER)
+            .build();
+  }
+
+  // The JDK client reads these properties once, so an explicit value set by the user wins
+  private static void configurePool(int poolSize, long idleTimeoutSeconds) {
+    if (Objects.isNull(System.getProperty(JDK_POOL_SIZE_PROPERTY))) {
+      System.setProperty(JDK_POOL_SIZE_PROPERTY, Integer.toString(Math.max(0, poolSize)));
+    }
+    if (Objects.isNull(System.getProperty(JDK_KEEP_ALIVE_PROPERTY))) {
+      System.setProperty(JDK_KEEP_ALIVE_PROPERTY, Long.toString(Math.max(1, idleTimeoutSeconds)));
+    }
+  }
+
+  /**
+   * Returns the transport shared by all models in the JVM.
+   *
+   * @return the shared transport
+   */
+  static HttpTransport shared() {
+    return SHARED;
+  }
+
+  /**
+   * Performs a GET request on a pooled connection.
+   *
+   * @param endpoint a HTTP URL giving location of an endpoint
+   * @return the endpoint's response
+   * @throws IOException an input/output error occurred
+   * @throws RuntimeException a protocol processing error occurred
+   */
+  String get(String endpoint) throws IOException {
+    return send(getRequest(endpoint));
+  }
+
+  /**
+   * Performs a POST request on a pooled connection.
+   *
+   * @param endpoint a HTTP URL giving location of an endpoint
+   * @param data the data to post to the endpoint as string
+   * @return the endpoint's response
+   * @throws IOException an input/output error occurred
+   * @throws RuntimeException a protocol processing error occurred
+   */
+  String post(String endpoint, String data) throws IOException {
+    return send(postRequest(endpoint, data));
+  }
+
+  /**
+   * Performs a POST request on a pooled connection with a body produced by {@code body}.
+   *
+   * <p>The body is written into a buffer reused by the calling thread and sent with a fixed
+   * Content-Length.
+   *
+   * @param endpoint a HTTP URL giving location of an endpoint
+   * @param body the writer producing the body of the request
+   * @return the endpoint's response
+   * @throws IOException an input/output error occurred
+   * @throws RuntimeException a protocol processing error occurred
+   */
+  String post(String endpoint, ClientIO.BodyWriter body) throws IOException {
+    BodyBuffer buffer = BODY_BUFFERS.get();
+    buffer.reset();
+    try {
+      body.writeTo(buffer);
+      // The client copies the body into its own buffers when the request is sent, so the array
+      // can be reused as soon as the blocking send returns
+      return send(postRequest(endpoint, buffer.publisher()));
+    } finally {
+      if (buffer.capacity() > MAX_RETAINED_BUFFER_SIZE) {
+        BODY_BUFFERS.remove();
+      }
+    }
+  }
+
+  /**
+   * Performs a GET request on a pooled connection and passes the reply's body to {@code handler}.
+   *
+   * @param endpoint a HTTP URL giving location of an endpoint
+   * @param handler the handler reading the body of the reply
+   * @param <T> the type of the result produced by the handler
+   * @return the result produced by the handler
+   * @throws IOException an input/output error occurred
+   * @throws RuntimeException a protocol processing error occurred
+   */
+  <T> T get(String endpoint, ClientIO.ResponseHandler<T> handler) throws IOException {
+    return send(getRequest(endpoint), handler);
+  }
+
+  /**
+   * Performs a POST request on a pooled connection and passes the reply's body to {@code
+   * handler}.
+   *
+   * @param endpoint a HTTP URL giving location of an endpoint
+   * @param data the data to post to the endpoint as string
+   * @param handler the handler reading the body of the reply
+   * @param <T> the type of the result produced by the handler
+   * @return the result produced by the handler
+   * @throws IOException an input/output error occurred
+   * @throws RuntimeException a protocol processing error occurred
+   */
+  <T> T post(String endpoint, String data, ClientIO.ResponseHandler<T> handler)
+      throws IOException {
+    return send(postRequest(endpoint, data), handler);
+  }
+
+  /**
+   * Performs a GET request without blocking the calling thread.
+   *
+   * <p>The returned future completes exceptionally if the request fails or if the server does not
+   * reply with HTTP 200.
+   *
+   * @param endpoint a HTTP URL giving location of an endpoint
+   * @return a future holding the endpoint's response
+   */
+  CompletableFuture<String> getAsync(String endpoint) {
+    try {
+      return sendAsync(getRequest(endpoint));
+    } catch (RuntimeException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  /**
+   * Performs a POST request without blocking the calling thread.
+   *
+   * <p>The returned future completes exceptionally if the request fails or if the server does not
+   * reply with HTTP 200.
+   *
+   * @param endpoint a HTTP URL giving location of an endpoint
+   * @param data the data to post to the endpoint as string
+   * @return a future holding the endpoint's response
+   */
+  CompletableFuture<String> postAsync(String endpoint, String data) {
+    try {
+      return sendAsync(postRequest(endpoint, data));
+    } catch (RuntimeException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  /**
+   * Performs a POST request with a body produced by {@code body} without blocking the calling
+   * thread.
+   *
+   * <p>The body is written on the calling thread. The returned future completes exceptionally if
+   * the writer fails, if the request fails or if the server does not reply with HTTP 200.
+   *
+   * @param endpoint a HTTP URL giving location of an endpoint
+   * @param body the writer producing the body of the request
+   * @return a future holding the endpoint's response
+   */
+  CompletableFuture<String> postAsync(String endpoint, ClientIO.BodyWriter body) {
+    try {
+      // The request may be sent after this call returns, so it gets a buffer of its own
+      BodyBuffer buffer = new BodyBuffer();
+      body.writeTo(buffer);
+      return sendAsync(postRequest(endpoint, buffer.publisher()));
+    } catch (IOException | RuntimeException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  private HttpRequest getRequest(String endpoint) {
+    return newRequest(endpoint).header("Accept", "application/json").GET().build();
+  }
+
+  private HttpRequest postRequest(String endpoint, String data) {
+    return postRequest(
+        endpoint, HttpRequest.BodyPublishers.ofByteArray(data.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  private HttpRequest postRequest(String endpoint, HttpRequest.BodyPublisher body) {
+    return newRequest(endpoint).header("Content-Type", "application/json").POST(body).build();
+  }
+
+  private HttpRequest.Builder newRequest(String endpoint) {
+    return HttpRequest.newBuilder(URI.create(endpoint)).timeout(requestTimeout);
+  }
+
+  private String send(HttpRequest request) throws IOException {
+    HttpResponse<InputStream> response = open(request);
+    try (InputStream body = response.body()) {
+      long contentLength = response.headers().firstValueAsLong("Content-Length").orElse(-1);
+      byte[] bytes;
+      if (contentLength >= 0 && contentLength <= MAX_PRESIZED_LENGTH) {
+        // Small replies such as distances and statuses are read straight into an exact-size array
+        bytes = new byte[(int) contentLength];
+        int read = body.readNBytes(bytes, 0, bytes.length);
+        drain(body);
+        return decodeText(bytes, read);
+      }
+      bytes = body.readAllBytes();
+      return decodeText(bytes, bytes.length);
+    }
+  }
+
+  private <T> T send(HttpRequest request, ClientIO.ResponseHandler<T> handler)
+      throws IOException {
+    HttpResponse<InputStream> response = open(request);
+    try (InputStream body = response.body()) {
+      T result = handler.handle(body);
+      drain(body);
+      return result;
+    }
+  }
+
+  // A body has to be read up to its end for the connection to go back to the pool on close
+  private static void drain(InputStream body) throws IOException {
+    body.transferTo(OutputStream.nullOutputStream());
+  }
+
+  private HttpResponse<InputStream> open(HttpRequest request) throws IOException {
+    HttpResponse<InputStream> response;
+    try {
+      response = client.send(request, HttpResponse.BodyHandlers.ofInputStream());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("HTTP request interrupted: " + request.uri());
+    }
+    if (response.statusCode() != HttpURLConnection.HTTP_OK) {
+      response.body().close();
+      throw new RuntimeException("Failed with HTTP code : " + response.statusCode());
+    }
+    return response;
+  }
+
+  private CompletableFuture<String> sendAsync(HttpRequest request) {
+    return client
+        .sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+        .thenApply(HttpTransport::bodyOf);
+  }
+
+  private static String bodyOf(HttpResponse<byte[]> response) {
+    if (response.statusCode() != HttpURLConnection.HTTP_OK) {
+      throw new RuntimeException("Failed with HTTP code : " + response.statusCode());
+    }
+    byte[] body = response.body();
+    return decodeText(body, body.length);
+  }
+
+  // Decodes a textual reply as UTF-8, dropping the line terminator the server may append to it
+  private static String decodeText(byte[] body, int length) {
+    while (length > 0 && (body[length - 1] == '\n' || body[length - 1] == '\r')) {
+      length--;
+    }
+    return new String(body, 0, length, StandardCharsets.UTF_8);
+  }
+
+  /** A growable request body handed to the client without first copying it to an exact array. */
+  private static final class BodyBuffer extends ByteArrayOutputStream {
+    BodyBuffer() {
+      super(1024);
+    }
+
+    int capacity() {
+      return buf.length;
+    }
+
+    HttpRequest.BodyPublisher publisher() {
+      return HttpRequest.BodyPublishers.ofByteArray(buf, 0, count);
+    }
+  }
+}
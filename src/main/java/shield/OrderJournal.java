@@ -0,0 +1,793 @@
+package shield;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * Durable, append-only journal of the registrations and orders of shielding individuals, shared by
+ * all models in the JVM.
+ *
+ * <p>Every change is appended to the journal file as a record framed by its length and CRC-32, and
+ * applied to an in-memory copy of the state. A record torn by a crash fails its checksum and is
+ * discarded, together with everything after it, when the journal is opened again. Appends are
+ * group committed: a thread waiting for its record to become durable writes and syncs all records
+ * appended so far, so concurrent writers share one {@code fsync}.
+ *
+ * <p>After a configurable number of records, the whole state is written to a snapshot file, which
+ * atomically replaces the previous snapshot, and the journal is truncated. Opening a journal reads
+ * the snapshot and replays the records appended after it. Replaying a record twice has no effect,
+ * so a crash between writing a snapshot and truncating the journal is harmless.
+ *
+ * <p>The shared journal is configured through the following settings (see {@link
+ * ClientSettings}):
+ *
+ * <ul>
+ *   <li>{@code shield.orderJournal.directory} - the directory holding the journal; the journal is
+ *       disabled if this setting is missing
+ *   <li>{@code shield.orderJournal.snapshotInterval} - the number of records between snapshots
+ * </ul>
+ */
+final class OrderJournal implements Closeable {
+  /** Name of the journal file */
+  private static final String JOURNAL_FILE = "orders.journal";
+  /** Name of the snapshot file */
+  private static final String SNAPSHOT_FILE = "orders.snapshot";
+  /** First bytes of a snapshot file */
+  private static final int SNAPSHOT_MAGIC = 0x53484a31;
+  /** Default number of records between snapshots */
+  private static final int DEFAULT_SNAPSHOT_INTERVAL = 100_000;
+  /** Size of the length and checksum preceding each record */
+  private static final int FRAME_HEADER_SIZE = 8;
+  /** Records larger than this are treated as corrupt */
+  private static final int MAX_RECORD_SIZE = 1 << 20;
+  /** Size of the buffers used to read and write files */
+  private static final int IO_BUFFER_SIZE = 1 << 16;
+
+  /** Record of a registered shielding individual */
+  private static final byte REGISTERED = 1;
+  /** Record of a placed order */
+  private static final byte PLACED = 2;
+  /** Record of edited item quantities */
+  private static final byte QUANTITIES = 3;
+  /** Record of a changed order status */
+  private static final byte STATUS = 4;
+
+  private final Path directory;
+  private final int snapshotInterval;
+  private final FileChannel journal;
+
+  /** Guards the state and the commit bookkeeping below */
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition flushed = lock.newCondition();
+  private final Map<String, List<String>> registrations = new HashMap<>();
+  private final Map<Integer, OrderState> orders = new HashMap<>();
+  private final Map<String, List<OrderState>> ordersByChi = new HashMap<>();
+  /** Decoded food boxes keyed by their encoding, so that equal boxes are held only once */
+  private final Map<ByteBuffer, FoodBox> foodBoxes = new HashMap<>();
+  private int recordsSinceSnapshot;
+  /** Records appended but not written yet */
+  private FrameBuffer pending = new FrameBuffer();
+  /** Buffer swapped in for pending while a batch is written, null during a write */
+  private FrameBuffer spare = new FrameBuffer();
+  private long appendedSequence;
+  private long durableSequence;
+  private boolean flushing;
+  /** The failure of a write, after which the journal refuses all further writes */
+  private IOException failure;
+
+  private OrderJournal(Path directory, int snapshotInterval) throws IOException {
+    this.directory = directory;
+    this.snapshotInterval = snapshotInterval;
+    Files.createDirectories(directory);
+    readSnapshot();
+    long validLength = replayJournal();
+    journal =
+        FileChannel.open(
+            directory.resolve(JOURNAL_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    // Drop a torn record at the end, so that new records follow the last valid one
+    journal.truncate(validLength);
+    journal.position(validLength);
+  }
+
+  /**
+   * Opens a journal, recovering the state recorded in it.
+   *
+   * @param directory the directory holding the journal, created if necessary
+   * @param snapshotInterval the number of records between snapshots
+   * @return the opened journal
+   * @throws IOException if the journal cannot be read or opened for writing
+   */
+  static OrderJournal open(Path directory, int snapshotInterval) throws IOException {
+    assert snapshotInterval > 0 : "The snapshot interval must be positive.";
+
+    return new OrderJournal(directory, snapshotInterval);
+  }
+
+  /**
+   * Returns the journal shared by all models in the JVM.
+   *
+   * @return the shared journal, or null if the journal is disabled or could not be opened
+   */
+  static OrderJournal shared() {
+    return SharedJournal.INSTANCE;
+  }
+
+  /** Opens the shared journal on first use. */
+  private static final class SharedJournal {
+    private static final OrderJournal INSTANCE = openShared();
+
+    private static OrderJournal openShared() {
+      String directory = ClientSettings.getString("orderJournal.directory", null);
+      if (Objects.isNull(directory)) {
+        return null;
+      }
+      int snapshotInterval =
+          Math.max(
+              1, ClientSettings.getInt("orderJournal.snapshotInterval", DEFAULT_SNAPSHOT_INTERVAL));
+      try {
+        return open(Paths.get(directory), snapshotInterval);
+      } catch (IOException | RuntimeException e) {
+        System.err.println("ERROR: Failed to open the order journal in " + directory);
+        e.printStackTrace();
+        return null;
+      }
+    }
+  }
+
+  // --------------- WRITING RECORDS ---------------
+
+  /**
+   * Records the registration of a shielding individual.
+   *
+   * @param chi the CHI number of the individual
+   * @param details the post code, name, surname and phone number of the individual
+   * @throws IOException if the record could not be made durable
+   */
+  void recordRegistered(String chi, List<String> details) throws IOException {
+    assert details.size() == 4 : "Registration details must have four entries.";
+
+    RecordWriter record = new RecordWriter(REGISTERED);
+    writeRegistration(record.out, chi, details);
+    append(record);
+  }
+
+  /**
+   * Records an order placed by a shielding individual, including its food box and quantities.
+   *
+   * @param chi the CHI number of the individual
+   * @param order the placed order
+   * @throws IOException if the record could not be made durable
+   */
+  void recordPlaced(String chi, CateringCompanyOrder order) throws IOException {
+    RecordWriter record = new RecordWriter(PLACED);
+    writeOrder(
+        record.out,
+        chi,
+        order.getNumber(),
+        order.getTimeOrdered(),
+        order.getFoodBox(),
+        order.getFoodBox().getQuantities());
+    append(record);
+  }
+
+  /**
+   * Records the current item quantities of an order.
+   *
+   * @param orderNumber the number of the order
+   * @param box the food box of the order
+   * @throws IOException if the record could not be made durable
+   */
+  void recordQuantities(int orderNumber, FoodBox box) throws IOException {
+    RecordWriter record = new RecordWriter(QUANTITIES);
+    record.out.writeInt(orderNumber);
+    writeInts(record.out, box.getQuantities());
+    append(record);
+  }
+
+  /**
+   * Records a new status of an order.
+   *
+   * @param orderNumber the number of the order
+   * @param status the new status
+   * @throws IOException if the record could not be made durable
+   */
+  void recordStatus(int orderNumber, OrderStatus status) throws IOException {
+    RecordWriter record = new RecordWriter(STATUS);
+    record.out.writeInt(orderNumber);
+    record.out.writeByte(status.ordinal());
+    append(record);
+  }
+
+  // Applies a record, appends it and waits until it is durable
+  private void append(RecordWriter record) throws IOException {
+    byte[] payload = record.toByteArray();
+    long sequence;
+    boolean snapshotDue;
+    lock.lock();
+    try {
+      checkNotFailed();
+      apply(payload);
+      pending.writeFrame(payload);
+      sequence = ++appendedSequence;
+      snapshotDue = ++recordsSinceSnapshot >= snapshotInterval;
+    } finally {
+      lock.unlock();
+    }
+    awaitDurable(sequence);
+    if (snapshotDue) {
+      snapshot(false);
+    }
+  }
+
+  // Waits until the record with the given sequence number has been synced, syncing it if no other
+  // thread is writing
+  private void awaitDurable(long sequence) throws IOException {
+    lock.lock();
+    try {
+      while (durableSequence < sequence) {
+        checkNotFailed();
+        if (flushing) {
+          flushed.awaitUninterruptibly();
+          continue;
+        }
+        // Become the leader of the next batch, which holds every record appended so far
+        FrameBuffer batch = pending;
+        pending = spare;
+        spare = null;
+        long batchEnd = appendedSequence;
+        flushing = true;
+        lock.unlock();
+        IOException writeFailure = null;
+        try {
+          batch.writeTo(journal);
+          journal.force(false);
+        } catch (IOException e) {
+          writeFailure = e;
+        } finally {
+          lock.lock();
+          batch.reset();
+          spare = batch;
+          flushing = false;
+          if (Objects.isNull(writeFailure)) {
+            durableSequence = batchEnd;
+          } else {
+            failure = writeFailure;
+          }
+          flushed.signalAll();
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // Writes all pending records, the lock must be held
+  private void flushLocked() throws IOException {
+    while (flushing) {
+      flushed.awaitUninterruptibly();
+    }
+    checkNotFailed();
+    try {
+      pending.writeTo(journal);
+      pending.reset();
+      journal.force(false);
+      durableSequence = appendedSequence;
+    } catch (IOException e) {
+      failure = e;
+      throw e;
+    } finally {
+      flushed.signalAll();
+    }
+  }
+
+  private void checkNotFailed() throws IOException {
+    if (Objects.nonNull(failure)) {
+      throw new IOException("The order journal failed to write earlier", failure);
+    }
+  }
+
+  /**
+   * Writes all pending records and a snapshot of the state, then truncates the journal.
+   *
+   * @throws IOException if the snapshot could not be written
+   */
+  void snapshot() throws IOException {
+    snapshot(true);
+  }
+
+  // Writes a snapshot, unless it is not forced and another thread has written one already
+  private void snapshot(boolean force) throws IOException {
+    lock.lock();
+    try {
+      if (!force && recordsSinceSnapshot < snapshotInterval) {
+        return;
+      }
+      flushLocked();
+      Path temporary = Files.createTempFile(directory, SNAPSHOT_FILE, null);
+      try {
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+          DataOutputStream out =
+              new DataOutputStream(
+                  new BufferedOutputStream(Channels.newOutputStream(channel), IO_BUFFER_SIZE));
+          writeSnapshot(out);
+          out.flush();
+          channel.force(true);
+        }
+        Files.move(
+            temporary,
+            directory.resolve(SNAPSHOT_FILE),
+            StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+      } finally {
+        Files.deleteIfExists(temporary);
+      }
+      journal.truncate(0);
+      journal.force(true);
+      recordsSinceSnapshot = 0;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Writes all pending records and closes the journal.
+   *
+   * @throws IOException if the pending records could not be written
+   */
+  @Override
+  public void close() throws IOException {
+    lock.lock();
+    try {
+      if (journal.isOpen()) {
+        try {
+          flushLocked();
+        } finally {
+          journal.close();
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // --------------- READING THE STATE ---------------
+
+  /**
+   * Returns the recorded registration details of a shielding individual.
+   *
+   * @param chi the CHI number of the individual
+   * @return the post code, name, surname and phone number, or null if none were recorded
+   */
+  List<String> getRegistration(String chi) {
+    lock.lock();
+    try {
+      List<String> details = registrations.get(chi);
+      return Objects.isNull(details) ? null : new ArrayList<>(details);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Rebuilds the recorded orders of a shielding individual.
+   *
+   * @param chi the CHI number of the individual
+   * @return new order objects in the order in which they were placed
+   */
+  List<CateringCompanyOrder> getOrders(String chi) {
+    lock.lock();
+    try {
+      List<OrderState> states = ordersByChi.getOrDefault(chi, Collections.emptyList());
+      List<CateringCompanyOrder> result = new ArrayList<>(states.size());
+      for (OrderState state : states) {
+        result.add(state.toOrder());
+      }
+      return result;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Returns the number of recorded orders.
+   *
+   * @return the number of orders of all shielding individuals
+   */
+  int getOrderCount() {
+    lock.lock();
+    try {
+      return orders.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // --------------- RECOVERY ---------------
+
+  private void readSnapshot() throws IOException {
+    Path snapshot = directory.resolve(SNAPSHOT_FILE);
+    if (!Files.exists(snapshot)) {
+      return;
+    }
+    RecordReader in = new RecordReader(Files.readAllBytes(snapshot));
+    if (in.readInt() != SNAPSHOT_MAGIC) {
+      throw new IOException("Not an order journal snapshot: " + snapshot);
+    }
+    int registrationCount = in.readInt();
+    for (int i = 0; i < registrationCount; i++) {
+      applyRegistered(in);
+    }
+    int orderCount = in.readInt();
+    for (int i = 0; i < orderCount; i++) {
+      OrderState state = applyPlaced(in);
+      state.status = OrderStatus.values()[in.readByte()];
+    }
+  }
+
+  // Replays the journal, returns the length of its valid prefix
+  private long replayJournal() throws IOException {
+    Path path = directory.resolve(JOURNAL_FILE);
+    if (!Files.exists(path)) {
+      return 0;
+    }
+    // The journal is bounded by the snapshot interval, so it is read at once and the records are
+    // decoded in place rather than copied out one by one
+    byte[] bytes = Files.readAllBytes(path);
+    RecordReader in = new RecordReader(bytes);
+    CRC32 crc = new CRC32();
+    int validLength = 0;
+    while (bytes.length - validLength >= FRAME_HEADER_SIZE) {
+      in.seek(validLength);
+      int length = in.readInt();
+      int checksum = in.readInt();
+      int start = validLength + FRAME_HEADER_SIZE;
+      if (length <= 0 || length > MAX_RECORD_SIZE || length > bytes.length - start) {
+        break;
+      }
+      crc.reset();
+      crc.update(bytes, start, length);
+      if ((int) crc.getValue() != checksum) {
+        break;
+      }
+      apply(in);
+      validLength = start + length;
+      recordsSinceSnapshot++;
+    }
+    return validLength;
+  }
+
+  // Applies a record to the state
+  private void apply(byte[] payload) throws IOException {
+    apply(new RecordReader(payload));
+  }
+
+  // Applies the record read from the input to the state
+  private void apply(RecordReader in) throws IOException {
+    byte type = in.readByte();
+    switch (type) {
+      case REGISTERED:
+        applyRegistered(in);
+        break;
+      case PLACED:
+        applyPlaced(in);
+        break;
+      case QUANTITIES:
+        {
+          OrderState state = orders.get(in.readInt());
+          int[] quantities = readInts(in);
+          if (Objects.nonNull(state)) {
+            state.quantities = quantities;
+          }
+          break;
+        }
+      case STATUS:
+        {
+          OrderState state = orders.get(in.readInt());
+          OrderStatus status = OrderStatus.values()[in.readByte()];
+          if (Objects.nonNull(state)) {
+            state.status = status;
+          }
+          break;
+        }
+      default:
+        throw new IOException("Unknown order journal record type " + type);
+    }
+  }
+
+  private void applyRegistered(RecordReader in) throws IOException {
+    String chi = in.readUTF();
+    List<String> details =
+        Arrays.asList(readString(in), readString(in), readString(in), readString(in));
+    registrations.put(chi, details);
+  }
+
+  private OrderState applyPlaced(RecordReader in) throws IOException {
+    OrderState state = new OrderState();
+    state.chi = in.readUTF();
+    state.number = in.readInt();
+    state.timeOrdered = LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC);
+    int foodBoxStart = in.position();
+    FoodBox foodBox = readFoodBox(in);
+    state.foodBox =
+        foodBoxes.computeIfAbsent(ByteBuffer.wrap(in.copyFrom(foodBoxStart)), key -> foodBox);
+    state.quantities = readInts(in);
+    state.status = OrderStatus.PLACED;
+    OrderState previous = orders.put(state.number, state);
+    if (Objects.nonNull(previous)) {
+      ordersByChi.get(previous.chi).remove(previous);
+    }
+    ordersByChi.computeIfAbsent(state.chi, key -> new ArrayList<>()).add(state);
+    return state;
+  }
+
+  // --------------- ENCODING ---------------
+
+  private void writeSnapshot(DataOutputStream out) throws IOException {
+    out.writeInt(SNAPSHOT_MAGIC);
+    out.writeInt(registrations.size());
+    for (Map.Entry<String, List<String>> registration : registrations.entrySet()) {
+      writeRegistration(out, registration.getKey(), registration.getValue());
+    }
+    out.writeInt(orders.size());
+    // Keep the orders of each individual in the order in which they were placed
+    for (List<OrderState> states : ordersByChi.values()) {
+      for (OrderState state : states) {
+        writeOrder(
+            out, state.chi, state.number, state.timeOrdered, state.foodBox, state.quantities);
+        out.writeByte(state.status.ordinal());
+      }
+    }
+  }
+
+  private static void writeRegistration(DataOutput out, String chi, List<String> details)
+      throws IOException {
+    out.writeUTF(chi);
+    for (String detail : details) {
+      writeString(out, detail);
+    }
+  }
+
+  private static void writeOrder(
+      DataOutput out,
+      String chi,
+      int number,
+      LocalDateTime timeOrdered,
+      FoodBox foodBox,
+      int[] quantities)
+      throws IOException {
+    out.writeUTF(chi);
+    out.writeInt(number);
+    out.writeLong(timeOrdered.toEpochSecond(ZoneOffset.UTC));
+    out.writeInt(timeOrdered.getNano());
+    writeFoodBox(out, foodBox);
+    writeInts(out, quantities);
+  }
+
+  private static void writeFoodBox(DataOutput out, FoodBox box) throws IOException {
+    writeString(out, box.getId());
+    writeString(out, box.getName());
+    writeString(out, box.getDiet());
+    writeString(out, box.getDeliveredBy());
+    List<FoodBoxItem> contents = box.getContents();
+    if (Objects.isNull(contents)) {
+      out.writeInt(-1);
+      return;
+    }
+    out.writeInt(contents.size());
+    for (FoodBoxItem item : contents) {
+      out.writeBoolean(Objects.nonNull(item));
+      if (Objects.nonNull(item)) {
+        out.writeInt(item.getId());
+        writeString(out, item.getName());
+        out.writeInt(item.getQuantity());
+      }
+    }
+  }
+
+  private static FoodBox readFoodBox(RecordReader in) throws IOException {
+    String id = readString(in);
+    String name = readString(in);
+    String diet = readString(in);
+    String deliveredBy = readString(in);
+    int size = in.readInt();
+    List<FoodBoxItem> contents = null;
+    if (size >= 0) {
+      contents = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+        contents.add(in.readBoolean() ? readItem(in) : null);
+      }
+    }
+    return new FoodBox(contents, deliveredBy, diet, id, name);
+  }
+
+  private static FoodBoxItem readItem(RecordReader in) throws IOException {
+    int id = in.readInt();
+    String name = readString(in);
+    return new FoodBoxItem(id, name, in.readInt());
+  }
+
+  private static void writeString(DataOutput out, String value) throws IOException {
+    out.writeBoolean(Objects.nonNull(value));
+    if (Objects.nonNull(value)) {
+      out.writeUTF(value);
+    }
+  }
+
+  private static String readString(RecordReader in) throws IOException {
+    return in.readBoolean() ? in.readUTF() : null;
+  }
+
+  private static void writeInts(DataOutput out, int[] values) throws IOException {
+    out.writeInt(values.length);
+    for (int value : values) {
+      out.writeInt(value);
+    }
+  }
+
+  private static int[] readInts(RecordReader in) throws IOException {
+    int[] values = new int[in.readInt()];
+    for (int i = 0; i < values.length; i++) {
+      values[i] = in.readInt();
+    }
+    return values;
+  }
+
+  /** The recorded state of an order. */
+  private static final class OrderState {
+    private String chi;
+    private int number;
+    private LocalDateTime timeOrdered;
+    /** The food box without quantities, shared by all orders with the same food box */
+    private FoodBox foodBox;
+    private int[] quantities;
+    private OrderStatus status;
+
+    CateringCompanyOrder toOrder() {
+      FoodBox box = foodBox.copy();
+      box.setQuantities(quantities);
+      return new CateringCompanyOrder(number, box, timeOrdered, status);
+    }
+  }
+
+  /** Decodes records held in memory, as written by a {@link DataOutput}. */
+  private static final class RecordReader {
+    private final byte[] bytes;
+    private int position;
+
+    RecordReader(byte[] bytes) {
+      this.bytes = bytes;
+    }
+
+    int position() {
+      return position;
+    }
+
+    // Moves to the given offset
+    void seek(int offset) {
+      position = offset;
+    }
+
+    // Returns a copy of the bytes from the given offset to the current position
+    byte[] copyFrom(int offset) {
+      return Arrays.copyOfRange(bytes, offset, position);
+    }
+
+    byte readByte() throws EOFException {
+      require(1);
+      return bytes[position++];
+    }
+
+    boolean readBoolean() throws EOFException {
+      return readByte() != 0;
+    }
+
+    int readInt() throws EOFException {
+      require(4);
+      int value =
+          (bytes[position] & 0xff) << 24
+              | (bytes[position + 1] & 0xff) << 16
+              | (bytes[position + 2] & 0xff) << 8
+              | (bytes[position + 3] & 0xff);
+      position += 4;
+      return value;
+    }
+
+    long readLong() throws EOFException {
+      long high = readInt();
+      return high << 32 | (readInt() & 0xffffffffL);
+    }
+
+    // Reads a string written by DataOutput.writeUTF, decoding ASCII strings directly
+    String readUTF() throws IOException {
+      require(2);
+      int length = (bytes[position] & 0xff) << 8 | (bytes[position + 1] & 0xff);
+      require(2 + length);
+      int start = position + 2;
+      for (int i = start; i < start + length; i++) {
+        if (bytes[i] < 0) {
+          String value =
+              new DataInputStream(new ByteArrayInputStream(bytes, position, 2 + length)).readUTF();
+          position = start + length;
+          return value;
+        }
+      }
+      position = start + length;
+      return new String(bytes, start, length, StandardCharsets.ISO_8859_1);
+    }
+
+    private void require(int count) throws EOFException {
+      if (bytes.length - position < count) {
+        throw new EOFException("Order journal record is truncated");
+      }
+    }
+  }
+
+  /** Encodes a single record. */
+  private static final class RecordWriter extends ByteArrayOutputStream {
+    private final DataOutputStream out = new DataOutputStream(this);
+
+    RecordWriter(byte type) throws IOException {
+      out.writeByte(type);
+    }
+  }
+
+  /** Buffers framed records until they are written to the journal file. */
+  private static final class FrameBuffer extends ByteArrayOutputStream {
+    private final CRC32 crc = new CRC32();
+
+    FrameBuffer() {
+      super(IO_BUFFER_SIZE);
+    }
+
+    // Appends a record preceded by its length and checksum
+    void writeFrame(byte[] payload) {
+      crc.reset();
+      crc.update(payload);
+      writeInt(payload.length);
+      writeInt((int) crc.getValue());
+      write(payload, 0, payload.length);
+    }
+
+    private void writeInt(int value) {
+      write(value >>> 24);
+      write(value >>> 16);
+      write(value >>> 8);
+      write(value);
+    }
+
+    void writeTo(FileChannel channel) throws IOException {
+      ByteBuffer buffer = ByteBuffer.wrap(buf, 0, count);
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+    }
+  }
+}
@@ -0,0 +1,33 @@
+package shield;
+
+/** Stores the kinds of orders whose statuses are published, as their numbers may overlap. */
+public enum OrderKind {
+
+  /** Kind of the food box orders placed by shielding individuals with catering companies. */
+  CATERING("catering"),
+
+  /** Kind of the orders delivered by supermarkets. */
+  SUPERMARKET("supermarket");
+
+  /** Description of the kind of order. */
+  private final String kindDescription;
+
+  /**
+   * Initialises an instance of this enum.
+   *
+   * @param kindDescription a description of the kind of order
+   */
+  OrderKind(String kindDescription) {
+    this.kindDescription = kindDescription;
+  }
+
+  /**
+   * Overrides the default toString() method of OrderKind to return the description of the kind.
+   *
+   * @return the description of the kind of order
+   */
+  @Override
+  public String toString() {
+    return kindDescription;
+  }
+}
@@ -0,0 +1,104 @@
+package shield;
+
+import java.io.IOException;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registry of the orders held by the shielding individuals in the JVM, keyed by order number, so
+ * that a status update made by a catering company in the same JVM reaches the local copy of the
+ * order and the order journal of the individual holding it.
+ *
+ * <p>The orders are referenced weakly: the registry never keeps the orders of a closed or evicted
+ * session alive. Entries of collected orders are removed as new orders are registered.
+ */
+final class OrderRegistry {
+  /** The registries shared by all models, keyed by server endpoint. */
+  private static final ConcurrentMap<String, OrderRegistry> SHARED = new ConcurrentHashMap<>();
+
+  private final ConcurrentMap<Integer, OrderReference> orders = new ConcurrentHashMap<>();
+  private final ReferenceQueue<CateringCompanyOrder> collected = new ReferenceQueue<>();
+
+  /**
+   * Returns the registry of the orders placed on a server.
+   *
+   * @param endpoint the endpoint of the server
+   * @return the shared registry
+   */
+  static OrderRegistry forEndpoint(String endpoint) {
+    return SHARED.computeIfAbsent(endpoint, key -> new OrderRegistry());
+  }
+
+  /**
+   * Registers an order, replacing any order with the same number.
+   *
+   * @param order the order to be registered
+   * @param journal the journal recording the order, null if the journal is disabled
+   */
+  void register(CateringCompanyOrder order, OrderJournal journal) {
+    assert Objects.nonNull(order) : "Order being registered cannot be null";
+
+    purge();
+    orders.put(order.getNumber(), new OrderReference(order, journal, collected));
+  }
+
+  /**
+   * Sets the status of a registered order, as updated by a catering company, and records the
+   * change in the journal of the order.
+   *
+   * @param number the order number
+   * @param status the new status of the order
+   * @return true if a live order with this number is registered, false otherwise
+   */
+  boolean updateStatus(int number, OrderStatus status) {
+    assert Objects.nonNull(status) : "Status cannot be null.";
+
+    OrderReference reference = orders.get(number);
+    CateringCompanyOrder order = Objects.isNull(reference) ? null : reference.get();
+    if (Objects.isNull(order)) {
+      return false;
+    }
+    OrderStatus previous;
+    do {
+      previous = order.getStatus();
+    } while (!order.compareAndSetStatus(previous, status));
+    if (previous != status && Objects.nonNull(reference.journal)) {
+      try {
+        reference.journal.recordStatus(number, status);
+      } catch (IOException e) {
+        System.err.println("ERROR: Failed to write to the order journal.");
+        e.printStackTrace();
+      }
+    }
+    return true;
+  }
+
+  // Removes the entries of orders which have been garbage collected
+  private void purge() {
+    OrderReference reference;
+    while (Objects.nonNull(reference = (OrderReference) collected.poll())) {
+      orders.remove(reference.number, reference);
+    }
+  }
+
+  /**
+   * A weak reference to an order and the journal recording it, remembering its number once the
+   * order is collected.
+   */
+  private static final class OrderReference extends WeakReference<CateringCompanyOrder> {
+    private final int number;
+    private final OrderJournal journal;
+
+    OrderReference(
+        CateringCompanyOrder order,
+        OrderJournal journal,
+        ReferenceQueue<CateringCompanyOrder> queue) {
+      super(order, queue);
+      this.number = order.getNumber();
+      this.journal = journal;
+    }
+  }
+}
@@ -0,0 +1,54 @@
+package shield;
+
+/** A change of the status of an order, as published on the {@link OrderStatusEventBus}. */
+public final class OrderStatusEvent {
+  private final OrderKind kind;
+  private final int orderNumber;
+  private final OrderStatus previous;
+  private final OrderStatus current;
+
+  /**
+   * Initialises an event.
+   *
+   * @param kind the kind of the order, as catering and supermarket order numbers may coincide
+   * @param orderNumber the number of the order
+   * @param previous the previous status of the order, null if it is unknown
+   * @param current the new status of the order
+   */
+  OrderStatusEvent(OrderKind kind, int orderNumber, OrderStatus previous, OrderStatus current) {
+    this.kind = kind;
+    this.orderNumber = orderNumber;
+    this.previous = previous;
+    this.current = current;
+  }
+
+  /** @return the kind of the order, which tells whose numbering the order number belongs to */
+  public OrderKind getKind() {
+    return kind;
+  }
+
+  /** @return the number of the order */
+  public int getOrderNumber() {
+    return orderNumber;
+  }
+
+  /**
+   * Returns the previous status of the order. It is unknown if the status was changed by a catering
+   * company or supermarket for an order which is not held by a shielding individual in this JVM.
+   *
+   * @return the previous status of the order, or null if it is unknown
+   */
+  public OrderStatus getPrevious() {
+    return previous;
+  }
+
+  /** @return the new status of the order */
+  public OrderStatus getCurrent() {
+    return current;
+  }
+
+  @Override
+  public String toString() {
+    return orderNumber + ": " + previous + " -> " + current;
+  }
+}
@@ -0,0 +1,244 @@
+package shield;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process bus publishing the changes of the statuses of orders, shared by all models in the JVM.
+ *
+ * <p>An event is published whenever the status of a {@link CateringCompanyOrder} actually changes,
+ * e.g. when a shielding individual requests the status of an order or cancels it, or when a
+ * catering company in the same JVM updates it. Status updates made by supermarkets are published as
+ * well, with an unknown previous status. As catering and supermarket orders are numbered apart,
+ * every event tells the kind of its order (see {@link OrderKind}).
+ *
+ * <p>Every subscription has its own bounded queue, so a slow subscriber never delays the others.
+ * What happens when the queue of a subscription is full is chosen when subscribing: the event is
+ * either dropped for that subscription ({@link OverflowPolicy#DROP}), which never stalls the
+ * publishing model, or the publisher waits until the subscriber has made room ({@link
+ * OverflowPolicy#BLOCK}). Publishing takes no lock: the subscriptions are read from a copy-on-write
+ * list and the queues are lock-free, with their bounds kept by semaphores. Publishing is free when
+ * there are no subscriptions.
+ */
+public final class OrderStatusEventBus {
+  /** The bus shared by all models */
+  private static final OrderStatusEventBus SHARED = new OrderStatusEventBus();
+
+  private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+  /** What a publisher does when the queue of a subscription is full. */
+  public enum OverflowPolicy {
+    /** The event is dropped for the subscription and counted. */
+    DROP,
+    /** The publisher waits until the subscription has room for the event. */
+    BLOCK
+  }
+
+  /** Initialises a bus without subscriptions. */
+  OrderStatusEventBus() {}
+
+  /**
+   * Returns the bus shared by all models in the JVM.
+   *
+   * @return the shared bus
+   */
+  public static OrderStatusEventBus shared() {
+    return SHARED;
+  }
+
+  /**
+   * Subscribes to the bus, the events are retrieved from the returned subscription.
+   *
+   * @param capacity the maximum number of events waiting in the queue of the subscription
+   * @param policy what to do when the queue is full
+   * @return the subscription
+   */
+  public Subscription subscribe(int capacity, OverflowPolicy policy) {
+    assert capacity > 0 : "Capacity must be positive.";
+    assert Objects.nonNull(policy) : "Overflow policy cannot be null.";
+
+    Subscription subscription = new Subscription(this, capacity, policy);
+    subscriptions.add(subscription);
+    return subscription;
+  }
+
+  /**
+   * Subscribes a listener to the bus. The events are delivered to the listener, in the order in
+   * which they were queued, by a daemon thread of its own which stops when the subscription is
+   * closed.
+   *
+   * @param listener the listener receiving the events
+   * @param capacity the maximum number of events waiting for the listener
+   * @param policy what to do when the queue is full
+   * @return the subscription, whose events must not be retrieved by the caller
+   */
+  public Subscription subscribe(OrderStatusListener listener, int capacity, OverflowPolicy policy) {
+    assert Objects.nonNull(listener) : "Listener cannot be null.";
+
+    Subscription subscription = subscribe(capacity, policy);
+    ClientExecutors.daemonThreadFactory("shield-status-events-")
+        .newThread(() -> dispatch(subscription, listener))
+        .start();
+    return subscription;
+  }
+
+  // Delivers the events of a subscription to a listener until the subscription is closed
+  private static void dispatch(Subscription subscription, OrderStatusListener listener) {
+    while (!subscription.isClosed()) {
+      OrderStatusEvent event;
+      try {
+        event = subscription.poll(1, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        return;
+      }
+      if (Objects.isNull(event)) {
+        continue;
+      }
+      try {
+        listener.onStatusChanged(
+            event.getKind(), event.getOrderNumber(), event.getPrevious(), event.getCurrent());
+      } catch (RuntimeException e) {
+        System.err.println("ERROR: Order status listener failed.");
+        e.printStackTrace();
+      }
+    }
+  }
+
+  /**
+   * Publishes a change of the status of an order to all subscriptions.
+   *
+   * @param kind the kind of the order
+   * @param orderNumber the number of the order
+   * @param previous the previous status of the order, null if it is unknown
+   * @param current the new status of the order
+   */
+  void publish(OrderKind kind, int orderNumber, OrderStatus previous, OrderStatus current) {
+    if (subscriptions.isEmpty()) {
+      return;
+    }
+    publish(new OrderStatusEvent(kind, orderNumber, previous, current));
+  }
+
+  /**
+   * Publishes an event to all subscriptions. The caller must not hold a lock which a subscriber
+   * may need, as the {@link OverflowPolicy#BLOCK} policy waits for the subscribers.
+   *
+   * @param event the event
+   */
+  void publish(OrderStatusEvent event) {
+    for (Subscription subscription : subscriptions) {
+      subscription.offer(event);
+    }
+  }
+
+  /** @return true if the bus has at least one subscription */
+  boolean hasSubscriptions() {
+    return !subscriptions.isEmpty();
+  }
+
+  /** A subscription to the bus, holding the events which have not been retrieved yet. */
+  public static final class Subscription implements Closeable {
+    private final OrderStatusEventBus bus;
+    private final OverflowPolicy policy;
+    private final Queue<OrderStatusEvent> events = new ConcurrentLinkedQueue<>();
+    /** Free places in the queue */
+    private final Semaphore space;
+    /** Events in the queue */
+    private final Semaphore available = new Semaphore(0);
+    private final LongAdder dropped = new LongAdder();
+    private volatile boolean closed;
+
+    private Subscription(OrderStatusEventBus bus, int capacity, OverflowPolicy policy) {
+      this.bus = bus;
+      this.policy = policy;
+      this.space = new Semaphore(capacity);
+    }
+
+    // Queues an event, waiting for room or dropping it according to the overflow policy
+    private void offer(OrderStatusEvent event) {
+      if (!space.tryAcquire()) {
+        if (policy == OverflowPolicy.DROP) {
+          dropped.increment();
+          return;
+        }
+        try {
+          space.acquire();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          dropped.increment();
+          return;
+        }
+      }
+      if (closed) {
+        return;
+      }
+      events.add(event);
+      available.release();
+    }
+
+    /**
+     * Retrieves the next event without waiting.
+     *
+     * @return the next event, or null if there is none
+     */
+    public OrderStatusEvent poll() {
+      if (!available.tryAcquire()) {
+        return null;
+      }
+      return remove();
+    }
+
+    /**
+     * Retrieves the next event, waiting for one if necessary.
+     *
+     * @param timeout how long to wait for an event
+     * @param unit the unit of the timeout
+     * @return the next event, or null if none was published in time
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public OrderStatusEvent poll(long timeout, TimeUnit unit) throws InterruptedException {
+      if (!available.tryAcquire(timeout, unit)) {
+        return null;
+      }
+      return remove();
+    }
+
+    private OrderStatusEvent remove() {
+      OrderStatusEvent event = events.poll();
+      space.release();
+      return event;
+    }
+
+    /** @return the number of events dropped because the queue was full */
+    public long getDroppedCount() {
+      return dropped.sum();
+    }
+
+    /** @return true if the subscription has been closed */
+    public boolean isClosed() {
+      return closed;
+    }
+
+    /**
+     * Cancels the subscription. Publishers waiting for room in its queue are released and no
+     * further events are queued.
+     */
+    @Override
+    public void close() {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      bus.subscriptions.remove(this);
+      // Wake up every publisher blocked on the full queue
+      space.release(Integer.MAX_VALUE / 2);
+    }
+  }
+}
@@ -0,0 +1,29 @@
+package shield;
+
+/** Receives the changes of the statuses of orders. */
+@FunctionalInterface
+public interface OrderStatusListener {
+
+  /**
+   * Called when the status of an order has changed.
+   *
+   * @param orderNumber the number of the order
+   * @param previous the previous status of the order
+   * @param current the new status of the order
+   */
+  void onStatusChanged(int orderNumber, OrderStatus previous, OrderStatus current);
+
+  /**
+   * Called when the status of an order has changed, telling the kind of the order, as the numbers
+   * of catering and supermarket orders may coincide. By default, the kind is ignored.
+   *
+   * @param kind the kind of the order
+   * @param orderNumber the number of the order
+   * @param previous the previous status of the order, null if it is unknown
+   * @param current the new status of the order
+   */
+  default void onStatusChanged(
+      OrderKind kind, int orderNumber, OrderStatus previous, OrderStatus current) {
+    onStatusChanged(orderNumber, previous, current);
+  }
+}
@@ -0,0 +1,527 @@
+package shield;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Polls the server for the statuses of many orders and applies their changes to the orders.
+ *
+ * <p>A change found by a poll is set on the order registered under its number (see {@link
+ * OrderRegistry}), which records it in the order journal and publishes it on the order status
+ * event bus, and is then reported to the listeners of the scheduler. Orders which are no longer
+ * registered, e.g. those of closed sessions which have been garbage collected, stop being polled
+ * once their status changes. The models of the shielding individuals track the orders they place
+ * or recover in the scheduler shared by all models (see {@link #forEndpoint}).
+ *
+ * <p>Each tracked order is polled on its own schedule, which depends on its last known status:
+ *
+ * <ul>
+ *   <li>Placed and packed orders are polled with exponential backoff: every poll that finds the
+ *       status unchanged doubles the delay until the next one, up to a maximum. A change of status
+ *       resets the delay to its base value.
+ *   <li>Dispatched orders are about to be delivered, so they are always polled at the base delay.
+ *   <li>Delivered and cancelled orders are no longer polled.
+ * </ul>
+ *
+ * <p>Every delay is drawn at random between half and all of its nominal value, so orders tracked
+ * at the same time drift apart instead of being polled together. In addition, at most a fixed
+ * number of polls are sent per tick; the rest are moved to the front of the next tick, ahead of
+ * the polls scheduled for it.
+ *
+ * <p>The polls are kept in a hierarchical timer wheel of four levels of 64 slots. Tracking,
+ * untracking and rescheduling an order take constant time, and a tick only touches the orders due
+ * in it, so the scheduler can track millions of orders. The scheduler is configured through the
+ * following settings (see {@link ClientSettings}):
+ *
+ * <ul>
+ *   <li>{@code shield.statusPoll.tickMillis} - the resolution of the timer wheel
+ *   <li>{@code shield.statusPoll.baseDelaySeconds} - the delay before the first poll of an order
+ *   <li>{@code shield.statusPoll.maxDelaySeconds} - the maximum delay between two polls
+ *   <li>{@code shield.statusPoll.maxPerTick} - the maximum number of polls sent per tick
+ * </ul>
+ */
+public final class OrderStatusPollScheduler implements Closeable {
+  /** Default resolution of the timer wheel (in milliseconds) */
+  private static final long DEFAULT_TICK_MILLIS = 100;
+  /** Default delay before the first poll of an order (in seconds) */
+  private static final long DEFAULT_BASE_DELAY_SECONDS = 30;
+  /** Default maximum delay between two polls of an order (in seconds) */
+  private static final long DEFAULT_MAX_DELAY_SECONDS = 30 * 60;
+  /** Default maximum number of polls sent per tick */
+  private static final int DEFAULT_MAX_POLLS_PER_TICK = 100;
+
+  /** Number of bits of the slot index of a level */
+  private static final int SLOT_BITS = 6;
+  /** Number of slots per level */
+  private static final int SLOTS = 1 << SLOT_BITS;
+  /** Number of levels of the timer wheel */
+  private static final int LEVELS = 4;
+  /** Number of ticks covered by the timer wheel, later deadlines are brought forward */
+  private static final long MAX_TICKS = (1L << (SLOT_BITS * LEVELS)) - 1;
+  /** Largest backoff exponent, beyond which the delay cannot grow any further */
+  private static final int MAX_ATTEMPT = 30;
+
+  /** The schedulers shared by all models, keyed by server endpoint. */
+  private static final ConcurrentMap<String, OrderStatusPollScheduler> SHARED =
+      new ConcurrentHashMap<>();
+
+  private final Function<Integer, CompletableFuture<OrderStatus>> fetcher;
+  /** Registry of the orders the changes are applied to, null if they are only reported */
+  private final OrderRegistry registry;
+  private final long tickNanos;
+  private final long baseDelayTicks;
+  private final long maxDelayTicks;
+  private final int maxPollsPerTick;
+  private final LongSupplier clock;
+  private final Random random;
+  private final long origin;
+  private final List<OrderStatusListener> listeners = new CopyOnWriteArrayList<>();
+
+  /** The lock guarding the timer wheel and the tracked orders */
+  private final Object lock = new Object();
+  /** Heads of the lists of polls of each slot of each level, in the order they were added */
+  private final Poll[][] wheel = new Poll[LEVELS][SLOTS];
+  /** Tails of the lists of polls of each slot of each level */
+  private final Poll[][] tails = new Poll[LEVELS][SLOTS];
+  private final Map<Integer, Poll> tracked = new HashMap<>();
+  private long currentTick;
+  private ScheduledExecutorService timer;
+
+  /**
+   * Initialises a scheduler polling a server. The scheduler polls nothing until it is started.
+   *
+   * @param endpoint the endpoint used for remote communication with a server
+   */
+  public OrderStatusPollScheduler(String endpoint) {
+    this(
+        orderNumber ->
+            ClientIO.doGETRequestAsync(
+                    endpoint + QueryStringFormatter.orderStatusRequest(orderNumber))
+                .thenApply(ShieldingIndividualModelImp::parseOrderStatus),
+        OrderRegistry.forEndpoint(endpoint),
+        TimeUnit.MILLISECONDS.toNanos(
+            Math.max(1, ClientSettings.getLong("statusPoll.tickMillis", DEFAULT_TICK_MILLIS))),
+        TimeUnit.SECONDS.toNanos(
+            ClientSettings.getLong("statusPoll.baseDelaySeconds", DEFAULT_BASE_DELAY_SECONDS)),
+        TimeUnit.SECONDS.toNanos(
+            ClientSettings.getLong("statusPoll.maxDelaySeconds", DEFAULT_MAX_DELAY_SECONDS)),
+        Math.max(1, ClientSettings.getInt("statusPoll.maxPerTick", DEFAULT_MAX_POLLS_PER_TICK)),
+        System::nanoTime,
+        new Random());
+  }
+
+  /**
+   * Initialises a scheduler.
+   *
+   * @param fetcher requests the status of an order number from the server, the future holds null
+   *     if the status is unknown
+   * @param registry the registry of the orders the changes are applied to, null if the changes
+   *     are only reported to the listeners
+   * @param tickNanos the resolution of the timer wheel in nanoseconds
+   * @param baseDelayNanos the delay before the first poll of an order in nanoseconds
+   * @param maxDelayNanos the maximum delay between two polls of an order in nanoseconds
+   * @param maxPollsPerTick the maximum number of polls sent per tick
+   * @param clock the source of the current time in nanoseconds
+   * @param random the source of the jitter of the delays
+   */
+  OrderStatusPollScheduler(
+      Function<Integer, CompletableFuture<OrderStatus>> fetcher,
+      OrderRegistry registry,
+      long tickNanos,
+      long baseDelayNanos,
+      long maxDelayNanos,
+      int maxPollsPerTick,
+      LongSupplier clock,
+      Random random) {
+    assert tickNanos > 0 && maxPollsPerTick > 0 : "Tick and polls per tick must be positive.";
+
+    this.fetcher = fetcher;
+    this.registry = registry;
+    this.tickNanos = tickNanos;
+    this.baseDelayTicks = Math.max(1, baseDelayNanos / tickNanos);
+    this.maxDelayTicks = Math.max(baseDelayTicks, Math.min(MAX_TICKS, maxDelayNanos / tickNanos));
+    this.maxPollsPerTick = maxPollsPerTick;
+    this.clock = clock;
+    this.random = random;
+    this.origin = clock.getAsLong();
+  }
+
+  /**
+   * Returns the scheduler polling the statuses of the orders placed on a server, started on first
+   * use.
+   *
+   * @param endpoint the endpoint of the server
+   * @return the shared scheduler
+   */
+  static OrderStatusPollScheduler forEndpoint(String endpoint) {
+    return SHARED.computeIfAbsent(
+        endpoint,
+        key -> {
+          OrderStatusPollScheduler scheduler = new OrderStatusPollScheduler(key);
+          scheduler.start();
+          return scheduler;
+        });
+  }
+
+  /** Starts polling in a background thread, once per tick. */
+  public void start() {
+    synchronized (lock) {
+      if (Objects.nonNull(timer)) {
+        return;
+      }
+      timer =
+          Executors.newSingleThreadScheduledExecutor(
+              ClientExecutors.daemonThreadFactory("shield-status-poll-"));
+      timer.scheduleAtFixedRate(this::tick, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  /** Stops polling. Orders remain tracked and are polled again if the scheduler is restarted. */
+  @Override
+  public void close() {
+    synchronized (lock) {
+      if (Objects.nonNull(timer)) {
+        timer.shutdownNow();
+        timer = null;
+      }
+    }
+  }
+
+  /**
+   * Registers a listener to be told about every change of status found by a poll.
+   *
+   * @param listener the listener to be registered
+   */
+  public void addListener(OrderStatusListener listener) {
+    assert Objects.nonNull(listener) : "Listener cannot be null.";
+
+    listeners.add(listener);
+  }
+
+  /**
+   * Unregisters a listener.
+   *
+   * @param listener the listener to be unregistered
+   */
+  public void removeListener(OrderStatusListener listener) {
+    listeners.remove(listener);
+  }
+
+  /**
+   * Starts polling the status of an order, replacing any previous schedule of the order.
+   *
+   * @param orderNumber the number of the order
+   * @param status the last known status of the order
+   * @return true if the order is tracked, false if its status can no longer change
+   */
+  public boolean track(int orderNumber, OrderStatus status) {
+    assert Objects.nonNull(status) : "Status cannot be null.";
+
+    synchronized (lock) {
+      Poll previous = tracked.remove(orderNumber);
+      if (Objects.nonNull(previous)) {
+        unlink(previous);
+      }
+      if (isFinal(status)) {
+        return false;
+      }
+      Poll poll = new Poll(orderNumber, status);
+      tracked.put(orderNumber, poll);
+      schedule(poll, jitter(baseDelayTicks));
+      return true;
+    }
+  }
+
+  /**
+   * Stops polling the status of an order.
+   *
+   * @param orderNumber the number of the order
+   * @return true if the order was tracked
+   */
+  public boolean untrack(int orderNumber) {
+    synchronized (lock) {
+      Poll poll = tracked.remove(orderNumber);
+      if (Objects.isNull(poll)) {
+        return false;
+      }
+      unlink(poll);
+      return true;
+    }
+  }
+
+  /**
+   * Returns the number of tracked orders.
+   *
+   * @return the number of orders being polled
+   */
+  public int getTrackedCount() {
+    synchronized (lock) {
+      return tracked.size();
+    }
+  }
+
+  // Runs the ticks which have passed since the last one
+  private void tick() {
+    try {
+      advanceTo(clock.getAsLong());
+    } catch (RuntimeException e) {
+      // An exception would cancel the periodic task
+      System.err.println("ERROR: Failed to poll the statuses of orders.");
+      e.printStackTrace();
+    }
+  }
+
+  /**
+   * Runs every tick up to the given time, sending the polls which are due.
+   *
+   * @param nanos the current time in nanoseconds
+   */
+  void advanceTo(long nanos) {
+    long targetTick = (nanos - origin) / tickNanos;
+    while (true) {
+      List<Poll> due;
+      synchronized (lock) {
+        if (currentTick >= targetTick) {
+          return;
+        }
+        currentTick++;
+        cascade();
+        due = takeDue();
+      }
+      for (Poll poll : due) {
+        send(poll);
+      }
+    }
+  }
+
+  // Moves the polls of the next slot of each higher level down once the lower level wraps around
+  private void cascade() {
+    for (int level = 1; level < LEVELS; level++) {
+      if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) != 0) {
+        return;
+      }
+      int slot = slotIndex(currentTick, level);
+      Poll poll = wheel[level][slot];
+      wheel[level][slot] = null;
+      tails[level][slot] = null;
+      while (Objects.nonNull(poll)) {
+        Poll next = poll.next;
+        poll.next = null;
+        poll.previous = null;
+        insert(poll);
+        poll = next;
+      }
+    }
+  }
+
+  // Removes the polls due in the current tick, deferring those beyond the limit to the front of
+  // the next tick, ahead of the polls scheduled for it
+  private List<Poll> takeDue() {
+    int slot = slotIndex(currentTick, 0);
+    Poll poll = wheel[0][slot];
+    wheel[0][slot] = null;
+    tails[0][slot] = null;
+    List<Poll> due = new ArrayList<>();
+    while (Objects.nonNull(poll) && due.size() < maxPollsPerTick) {
+      Poll next = poll.next;
+      poll.next = null;
+      poll.previous = null;
+      poll.level = -1;
+      due.add(poll);
+      poll = next;
+    }
+    if (Objects.nonNull(poll)) {
+      // The rest of the list stays linked and is spliced in before the head of the next slot
+      poll.previous = null;
+      int nextSlot = slotIndex(currentTick + 1, 0);
+      Poll last = null;
+      for (Poll deferred = poll; Objects.nonNull(deferred); deferred = deferred.next) {
+        deferred.deadline = currentTick + 1;
+        deferred.slot = nextSlot;
+        last = deferred;
+      }
+      last.next = wheel[0][nextSlot];
+      if (Objects.nonNull(last.next)) {
+        last.next.previous = last;
+      } else {
+        tails[0][nextSlot] = last;
+      }
+      wheel[0][nextSlot] = poll;
+    }
+    return due;
+  }
+
+  // Sends a poll and handles its response
+  private void send(Poll poll) {
+    CompletableFuture<OrderStatus> response;
+    try {
+      response = fetcher.apply(poll.orderNumber);
+    } catch (RuntimeException e) {
+      response = CompletableFuture.failedFuture(e);
+    }
+    response.whenComplete(
+        (status, error) -> {
+          if (Objects.nonNull(error)) {
+            System.err.println("ERROR: Failed to poll the status of an order.");
+            error.printStackTrace();
+          }
+          handleResponse(poll, Objects.isNull(error) ? status : null);
+        });
+  }
+
+  // Reschedules an order after a poll, applying its status and telling the listeners if it changed
+  private void handleResponse(Poll poll, OrderStatus status) {
+    OrderStatus previous;
+    synchronized (lock) {
+      if (tracked.get(poll.orderNumber) != poll) {
+        // Untracked or tracked again while the poll was in flight
+        return;
+      }
+      previous = poll.status;
+      if (Objects.isNull(status) || status == previous) {
+        poll.attempt = Math.min(MAX_ATTEMPT, poll.attempt + 1);
+      } else {
+        poll.status = status;
+        poll.attempt = 0;
+      }
+      if (isFinal(poll.status)) {
+        tracked.remove(poll.orderNumber);
+      } else {
+        schedule(poll, jitter(nextDelay(poll)));
+      }
+    }
+    if (Objects.isNull(status) || status == previous) {
+      return;
+    }
+    // Applied outside the lock, as the change is journalled and published to subscribers
+    if (Objects.nonNull(registry) && !registry.updateStatus(poll.orderNumber, status)) {
+      synchronized (lock) {
+        if (tracked.get(poll.orderNumber) == poll) {
+          tracked.remove(poll.orderNumber);
+          unlink(poll);
+        }
+      }
+    }
+    notifyListeners(poll.orderNumber, previous, status);
+  }
+
+  private void notifyListeners(int orderNumber, OrderStatus previous, OrderStatus current) {
+    for (OrderStatusListener listener : listeners) {
+      try {
+        listener.onStatusChanged(OrderKind.CATERING, orderNumber, previous, current);
+      } catch (RuntimeException e) {
+        System.err.println("ERROR: Order status listener failed.");
+        e.printStackTrace();
+      }
+    }
+  }
+
+  // Returns the nominal delay until the next poll of an order, in ticks
+  private long nextDelay(Poll poll) {
+    if (poll.status == OrderStatus.DISPATCHED) {
+      return baseDelayTicks;
+    }
+    long limit = maxDelayTicks >> poll.attempt;
+    return limit < baseDelayTicks ? maxDelayTicks : baseDelayTicks << poll.attempt;
+  }
+
+  // Draws a delay between half and all of the nominal delay, so that polls drift apart
+  private long jitter(long delayTicks) {
+    long half = delayTicks / 2;
+    return delayTicks - half + (half == 0 ? 0 : (long) (random.nextDouble() * (half + 1)));
+  }
+
+  // Schedules the next poll of an order, the lock must be held
+  private void schedule(Poll poll, long delayTicks) {
+    poll.deadline = currentTick + Math.max(1, Math.min(MAX_TICKS, delayTicks));
+    insert(poll);
+  }
+
+  // Appends a poll to the slot of its deadline, the lock must be held. A poll due in the current
+  // tick, i.e. cascaded onto its deadline, goes to the current slot, which is taken next.
+  private void insert(Poll poll) {
+    long delta = poll.deadline - currentTick;
+    if (delta < 0) {
+      poll.deadline = currentTick;
+      delta = 0;
+    }
+    int level = 0;
+    while (level < LEVELS - 1 && delta >= 1L << (SLOT_BITS * (level + 1))) {
+      level++;
+    }
+    int slot = slotIndex(poll.deadline, level);
+    poll.level = level;
+    poll.slot = slot;
+    poll.next = null;
+    poll.previous = tails[level][slot];
+    if (Objects.nonNull(poll.previous)) {
+      poll.previous.next = poll;
+    } else {
+      wheel[level][slot] = poll;
+    }
+    tails[level][slot] = poll;
+  }
+
+  // Removes a poll from its slot, the lock must be held
+  private void unlink(Poll poll) {
+    if (poll.level < 0) {
+      // In flight, its response will be ignored
+      return;
+    }
+    if (Objects.nonNull(poll.previous)) {
+      poll.previous.next = poll.next;
+    } else {
+      wheel[poll.level][poll.slot] = poll.next;
+    }
+    if (Objects.nonNull(poll.next)) {
+      poll.next.previous = poll.previous;
+    } else {
+      tails[poll.level][poll.slot] = poll.previous;
+    }
+    poll.previous = null;
+    poll.next = null;
+    poll.level = -1;
+  }
+
+  private static int slotIndex(long tick, int level) {
+    return (int) ((tick >>> (SLOT_BITS * level)) & (SLOTS - 1));
+  }
+
+  private static boolean isFinal(OrderStatus status) {
+    return status == OrderStatus.DELIVERED || status == OrderStatus.CANCELLED;
+  }
+
+  /** The polling schedule of a tracked order, linked into a slot of the timer wheel. */
+  private static final class Poll {
+    private final int orderNumber;
+    private OrderStatus status;
+    /** Number of polls since the status last changed */
+    private int attempt;
+    /** Tick at which the order is polled next */
+    private long deadline;
+    /** Level and slot holding the poll, level is -1 while the poll is in flight */
+    private int level = -1;
+    private int slot;
+    private Poll previous;
+    private Poll next;
+
+    Poll(int orderNumber, OrderStatus status) {
+      this.orderNumber = orderNumber;
+      this.status = status;
+    }
+  }
+}
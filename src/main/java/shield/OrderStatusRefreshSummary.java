@@ -0,0 +1,83 @@
+package shield;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The outcome of refreshing the statuses of a set of orders from the server.
+ *
+ * <p>Every order considered by the refresh is counted exactly once: it either changed, kept its
+ * status, was skipped because its status can no longer change, or could not be refreshed.
+ */
+public final class OrderStatusRefreshSummary {
+  private final Map<Integer, OrderStatus> changed;
+  private final int unchanged;
+  private final int skipped;
+  private final List<Integer> failed;
+
+  /**
+   * Initialises a summary.
+   *
+   * @param changed the new statuses of the orders which changed, keyed by order number
+   * @param unchanged the number of orders whose status did not change
+   * @param skipped the number of orders which were not refreshed as they are delivered or cancelled
+   * @param failed the numbers of the orders which could not be refreshed
+   */
+  OrderStatusRefreshSummary(
+      Map<Integer, OrderStatus> changed, int unchanged, int skipped, List<Integer> failed) {
+    this.changed = Collections.unmodifiableMap(new LinkedHashMap<>(changed));
+    this.unchanged = unchanged;
+    this.skipped = skipped;
+    this.failed = Collections.unmodifiableList(new ArrayList<>(failed));
+  }
+
+  /**
+   * Combines the summaries of several refreshes, e.g. of the sessions of many individuals.
+   *
+   * @param summaries the summaries to be combined
+   * @return a summary of all the refreshes
+   */
+  static OrderStatusRefreshSummary merge(Collection<OrderStatusRefreshSummary> summaries) {
+    Map<Integer, OrderStatus> changed = new LinkedHashMap<>();
+    int unchanged = 0;
+    int skipped = 0;
+    List<Integer> failed = new ArrayList<>();
+    for (OrderStatusRefreshSummary summary : summaries) {
+      changed.putAll(summary.changed);
+      unchanged += summary.unchanged;
+      skipped += summary.skipped;
+      failed.addAll(summary.failed);
+    }
+    return new OrderStatusRefreshSummary(changed, unchanged, skipped, failed);
+  }
+
+  /** @return the new statuses of the orders which changed, keyed by order number */
+  public Map<Integer, OrderStatus> getChanged() {
+    return changed;
+  }
+
+  /** @return the number of orders whose status did not change */
+  public int getUnchanged() {
+    return unchanged;
+  }
+
+  /** @return the number of orders skipped because they are delivered or cancelled */
+  public int getSkipped() {
+    return skipped;
+  }
+
+  /** @return the numbers of the orders which could not be refreshed */
+  public List<Integer> getFailed() {
+    return failed;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "changed=%s unchanged=%d skipped=%d failed=%s", changed, unchanged, skipped, failed);
+  }
+}
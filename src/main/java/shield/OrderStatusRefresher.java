@@ -0,0 +1,210 @@
+package shield;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Refreshes the statuses of many orders from the server, with a bounded number of requests in
+ * flight.
+ *
+ * <p>Orders which are delivered or cancelled are skipped, as their status can no longer change.
+ * The status requests of the remaining orders are sent concurrently. Requests beyond the bound
+ * wait in a queue and are sent as earlier ones complete, so no thread is blocked while waiting.
+ * The shared refresher is used by all models in the JVM, so the bound also holds when many
+ * individuals refresh their orders at the same time. It is configured through the setting {@code
+ * shield.statusRefresh.concurrency} (see {@link ClientSettings}).
+ *
+ * <p>The new statuses are applied in one pass once every response has arrived. A status is only
+ * applied if the order still has the status it had when its request was sent, so an order that was
+ * cancelled while the refresh was running is never reverted to the older status of the server.
+ */
+final class OrderStatusRefresher {
+  /** Default maximum number of status requests in flight */
+  private static final int DEFAULT_CONCURRENCY = 16;
+
+  private final int concurrency;
+  /** Requests waiting for a slot, guarded by this */
+  private final Queue<Runnable> waiting = new ArrayDeque<>();
+  /** True while the current thread is starting waiting requests */
+  private final ThreadLocal<Boolean> draining = ThreadLocal.withInitial(() -> false);
+  /** Number of requests in flight, guarded by this */
+  private int running;
+
+  /**
+   * Initialises a refresher.
+   *
+   * @param concurrency the maximum number of status requests in flight
+   */
+  OrderStatusRefresher(int concurrency) {
+    assert concurrency > 0 : "Concurrency must be positive.";
+
+    this.concurrency = concurrency;
+  }
+
+  /**
+   * Returns the refresher shared by all models in the JVM.
+   *
+   * @return the shared refresher
+   */
+  static OrderStatusRefresher shared() {
+    return Holder.SHARED;
+  }
+
+  /**
+   * Refreshes the statuses of a set of orders.
+   *
+   * @param orders the orders to be refreshed
+   * @param fetcher requests the status of an order number from the server, the future holds null
+   *     if the status could not be retrieved
+   * @param update sets the status of an order if it still has the expected status, returns true
+   *     if the status was set
+   * @return a future holding the summary of the refresh, never completed exceptionally
+   */
+  CompletableFuture<OrderStatusRefreshSummary> refresh(
+      Collection<CateringCompanyOrder> orders,
+      Function<Integer, CompletableFuture<OrderStatus>> fetcher,
+      StatusUpdate update) {
+    int skipped = 0;
+    List<Request> requests = new ArrayList<>(orders.size());
+    for (CateringCompanyOrder order : orders) {
+      OrderStatus status = order.getStatus();
+      if (status == OrderStatus.DELIVERED || status == OrderStatus.CANCELLED) {
+        skipped++;
+        continue;
+      }
+      Request request = new Request(order, status);
+      submit(() -> send(fetcher, request));
+      requests.add(request);
+    }
+    int skippedOrders = skipped;
+    CompletableFuture<?>[] responses = new CompletableFuture<?>[requests.size()];
+    for (int i = 0; i < responses.length; i++) {
+      responses[i] = requests.get(i).done;
+    }
+    return CompletableFuture.allOf(responses)
+        .thenApply(none -> apply(requests, skippedOrders, update));
+  }
+
+  // Applies the statuses received for all requests and summarises the outcome
+  private static OrderStatusRefreshSummary apply(
+      List<Request> requests, int skipped, StatusUpdate update) {
+    Map<Integer, OrderStatus> changed = new LinkedHashMap<>();
+    List<Integer> failed = new ArrayList<>();
+    int unchanged = 0;
+    for (Request request : requests) {
+      int number = request.order.getNumber();
+      if (Objects.isNull(request.received)) {
+        failed.add(number);
+      } else if (request.received == request.expected) {
+        unchanged++;
+      } else if (update.apply(request.order, request.expected, request.received)) {
+        changed.put(number, request.received);
+      } else {
+        // The order changed locally while its request was in flight, which takes precedence
+        unchanged++;
+      }
+    }
+    return new OrderStatusRefreshSummary(changed, unchanged, skipped, failed);
+  }
+
+  // Sends a status request, recording the response in the request
+  private static CompletableFuture<?> send(
+      Function<Integer, CompletableFuture<OrderStatus>> fetcher, Request request) {
+    CompletableFuture<OrderStatus> response;
+    try {
+      response = fetcher.apply(request.order.getNumber());
+    } catch (RuntimeException e) {
+      response = CompletableFuture.failedFuture(e);
+    }
+    return response.handle(
+        (status, error) -> {
+          if (Objects.nonNull(error)) {
+            System.err.println("ERROR: Failed to request the status of an order.");
+            error.printStackTrace();
+          } else {
+            request.received = status;
+          }
+          request.done.complete(null);
+          return null;
+        });
+  }
+
+  // Queues a request, which starts now if a slot is free, otherwise once a running one completes
+  private void submit(Supplier<CompletableFuture<?>> request) {
+    Runnable start = () -> request.get().whenComplete((result, error) -> finished());
+    synchronized (this) {
+      waiting.add(start);
+    }
+    drain();
+  }
+
+  // Frees the slot of a completed request for the next waiting request
+  private void finished() {
+    synchronized (this) {
+      running--;
+    }
+    drain();
+  }
+
+  // Starts waiting requests while slots are free. A request completing synchronously calls back
+  // into this method from within the loop, so nested calls return at once and leave the freed slot
+  // to the loop rather than recursing once per request.
+  private void drain() {
+    if (draining.get()) {
+      return;
+    }
+    draining.set(true);
+    try {
+      while (true) {
+        Runnable next;
+        synchronized (this) {
+          if (running >= concurrency || waiting.isEmpty()) {
+            return;
+          }
+          next = waiting.poll();
+          running++;
+        }
+        next.run();
+      }
+    } finally {
+      draining.set(false);
+    }
+  }
+
+  /** Sets the status of an order if it has not changed since it was read. */
+  @FunctionalInterface
+  interface StatusUpdate {
+    boolean apply(CateringCompanyOrder order, OrderStatus expected, OrderStatus status);
+  }
+
+  /** The status request of one order. */
+  private static final class Request {
+    private final CateringCompanyOrder order;
+    /** Status of the order when the request was sent */
+    private final OrderStatus expected;
+    private final CompletableFuture<Void> done = new CompletableFuture<>();
+    /** Status received from the server, null if the request failed */
+    private volatile OrderStatus received;
+
+    Request(CateringCompanyOrder order, OrderStatus expected) {
+      this.order = order;
+      this.expected = expected;
+    }
+  }
+
+  /** Creates the shared refresher on first use. */
+  private static final class Holder {
+    private static final OrderStatusRefresher SHARED =
+        new OrderStatusRefresher(
+            Math.max(1, ClientSettings.getInt("statusRefresh.concurrency", DEFAULT_CONCURRENCY)));
+  }
+}
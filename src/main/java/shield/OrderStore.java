@@ -0,0 +1,262 @@
+package shield;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Thread-safe store of the orders placed by a shielding individual.
+ *
+ * <p>Orders are kept in an open-addressing hash table keyed by their primitive order numbers, so
+ * lookups neither box the number nor allocate. Readers share a read lock; adding an order takes
+ * the write lock.
+ *
+ * <p>The store also enforces the minimum time between two orders. Placing an order takes a
+ * reservation with {@link #tryReserve}, which checks the time of the most recent order and blocks
+ * other reservations until the order is either added with {@link #commit} or abandoned with {@link
+ * #release}. Two concurrent attempts to place an order can therefore never both pass the check.
+ */
+final class OrderStore {
+  /** Initial capacity of the hash table, must be a power of two */
+  private static final int INITIAL_CAPACITY = 8;
+
+  private final Duration minTimeBetweenOrders;
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+  private int[] numbers = new int[INITIAL_CAPACITY];
+  private CateringCompanyOrder[] orders = new CateringCompanyOrder[INITIAL_CAPACITY];
+  /** Order numbers in the order in which they were added */
+  private int[] insertionOrder = new int[INITIAL_CAPACITY];
+  private int size;
+  private CateringCompanyOrder mostRecentOrder;
+  private boolean reserved;
+
+  /**
+   * Initialises an empty order store.
+   *
+   * @param minTimeBetweenOrders the minimum time between two orders
+   */
+  OrderStore(Duration minTimeBetweenOrders) {
+    this.minTimeBetweenOrders = minTimeBetweenOrders;
+  }
+
+  /**
+   * Returns the order with the given number.
+   *
+   * @param number the order number
+   * @return the order, or null if there is no such order
+   */
+  CateringCompanyOrder get(int number) {
+    lock.readLock().lock();
+    try {
+      int slot = slotOf(number);
+      return orders[slot];
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Checks if an order with the given number has been added.
+   *
+   * @param number the order number
+   * @return true if the store contains the order
+   */
+  boolean contains(int number) {
+    return Objects.nonNull(get(number));
+  }
+
+  /**
+   * Returns the numbers of all orders.
+   *
+   * @return the order numbers in the order in which the orders were added
+   */
+  List<Integer> getNumbers() {
+    lock.readLock().lock();
+    try {
+      List<Integer> result = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+        result.add(insertionOrder[i]);
+      }
+      return result;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns all orders.
+   *
+   * @return the orders in the order in which they were added
+   */
+  List<CateringCompanyOrder> getOrders() {
+    lock.readLock().lock();
+    try {
+      List<CateringCompanyOrder> result = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+        result.add(orders[slotOf(insertionOrder[i])]);
+      }
+      return result;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the most recently added order.
+   *
+   * @return the most recent order, or null if no order has been added
+   */
+  CateringCompanyOrder getMostRecentOrder() {
+    lock.readLock().lock();
+    try {
+      return mostRecentOrder;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Adds an order and makes it the most recent order, replacing any order with the same number.
+   *
+   * @param order the order to be added
+   */
+  void add(CateringCompanyOrder order) {
+    assert Objects.nonNull(order) : "Order being added cannot be null";
+
+    lock.writeLock().lock();
+    try {
+      put(order);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Reserves the right to place an order at the given time.
+   *
+   * <p>The reservation fails if another reservation is held, or if the most recent order was not
+   * placed at least the minimum time between orders before {@code requestedTime}. A successful
+   * reservation must be followed by {@link #commit} or {@link #release}.
+   *
+   * @param requestedTime the time at which the order is placed
+   * @return true if the order may be placed
+   */
+  boolean tryReserve(LocalDateTime requestedTime) {
+    assert Objects.nonNull(requestedTime) : "Requested order time cannot be null.";
+
+    lock.writeLock().lock();
+    try {
+      if (reserved) {
+        return false;
+      }
+      if (Objects.nonNull(mostRecentOrder)) {
+        LocalDateTime lastTimeOrdered = mostRecentOrder.getTimeOrdered();
+        if (!lastTimeOrdered.isBefore(requestedTime)
+            || Duration.between(lastTimeOrdered, requestedTime).compareTo(minTimeBetweenOrders)
+                < 0) {
+          return false;
+        }
+      }
+      reserved = true;
+      return true;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Adds the order placed under the current reservation and releases the reservation.
+   *
+   * @param order the order which has been placed
+   */
+  void commit(CateringCompanyOrder order) {
+    assert Objects.nonNull(order) : "Order being added cannot be null";
+
+    lock.writeLock().lock();
+    try {
+      put(order);
+      reserved = false;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /** Releases the current reservation without adding an order. */
+  void release() {
+    lock.writeLock().lock();
+    try {
+      reserved = false;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * Moves the time of the most recent order into the past.
+   *
+   * @param days the number of days by which the time is moved
+   */
+  void moveMostRecentOrderBack(long days) {
+    lock.writeLock().lock();
+    try {
+      mostRecentOrder.setTimeOrdered(mostRecentOrder.getTimeOrdered().minusDays(days));
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  // Adds an order, the write lock must be held
+  private void put(CateringCompanyOrder order) {
+    int number = order.getNumber();
+    int slot = slotOf(number);
+    if (Objects.isNull(orders[slot])) {
+      if (size == insertionOrder.length) {
+        int[] grown = new int[size * 2];
+        System.arraycopy(insertionOrder, 0, grown, 0, size);
+        insertionOrder = grown;
+      }
+      insertionOrder[size++] = number;
+      numbers[slot] = number;
+    }
+    orders[slot] = order;
+    mostRecentOrder = order;
+    // Keep the table at most half full
+    if (size * 2 > orders.length) {
+      resize();
+    }
+  }
+
+  // Returns the slot holding the order number, or the empty slot where it would be added
+  private int slotOf(int number) {
+    int mask = orders.length - 1;
+    int slot = mix(number) & mask;
+    while (Objects.nonNull(orders[slot]) && numbers[slot] != number) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private void resize() {
+    int[] oldNumbers = numbers;
+    CateringCompanyOrder[] oldOrders = orders;
+    numbers = new int[oldNumbers.length * 2];
+    orders = new CateringCompanyOrder[oldOrders.length * 2];
+    for (int i = 0; i < oldOrders.length; i++) {
+      if (Objects.nonNull(oldOrders[i])) {
+        int slot = slotOf(oldNumbers[i]);
+        numbers[slot] = oldNumbers[i];
+        orders[slot] = oldOrders[i];
+      }
+    }
+  }
+
+  // Spreads consecutive order numbers over the table
+  private static int mix(int number) {
+    int hash = number * 0x9E3779B9;
+    return hash ^ (hash >>> 16);
+  }
+}
@@ -0,0 +1,135 @@
+package shield;
+
+/**
+ * Validation and canonicalisation of Edinburgh post codes, shared by all clients.
+ *
+ * <p>A post code consists of the area {@code EH}, a district from 1 to 97 whose second digit is at
+ * most 7, a separator, a sector from 1 to 9 and two upper case letters, e.g. {@code EH1_2AB}. The
+ * clients expect the separator to be an underscore, while the server sometimes uses a space.
+ *
+ * <p>Post codes are checked by a hand-written scanner. A valid post code can also be packed into a
+ * small non-negative {@code int} key, which is cheaper to hash and compare than the string and
+ * identifies the post code regardless of its separator.
+ */
+final class PostCode {
+  /** The key of an invalid post code */
+  static final int INVALID_KEY = -1;
+  /** The largest district of a valid post code */
+  static final int MAX_DISTRICT = 97;
+  /** The separator of the canonical form */
+  private static final char SEPARATOR = '_';
+  /** The separator used by the server */
+  private static final char SERVER_SEPARATOR = ' ';
+  /** Number of letters in the alphabet */
+  private static final int LETTERS = 26;
+
+  private PostCode() {
+    // Private constructor essentially makes this a static class
+  }
+
+  /**
+   * Checks that a post code is valid and in the canonical form, e.g. {@code EH1_2AB}.
+   *
+   * @param postCode the post code to be validated
+   * @return true if the post code is valid
+   */
+  static boolean isValid(String postCode) {
+    return scan(postCode, false) != INVALID_KEY;
+  }
+
+  /**
+   * Returns the canonical form of a post code written with either an underscore or a space.
+   *
+   * @param postCode the post code
+   * @return the post code with an underscore as separator, or null if it is invalid
+   */
+  static String normalize(String postCode) {
+    int key = scan(postCode, true);
+    if (key == INVALID_KEY) {
+      return null;
+    }
+    if (postCode.indexOf(SERVER_SEPARATOR) < 0) {
+      return postCode;
+    }
+    return postCode.replace(SERVER_SEPARATOR, SEPARATOR);
+  }
+
+  /**
+   * Packs a post code written with either an underscore or a space into a key.
+   *
+   * <p>Two post codes have the same key if and only if they have the same canonical form.
+   *
+   * @param postCode the post code
+   * @return a non-negative key, or {@link #INVALID_KEY} if the post code is invalid
+   */
+  static int toKey(String postCode) {
+    return scan(postCode, true);
+  }
+
+  /**
+   * Returns the canonical form of the post code packed into a key.
+   *
+   * @param key a key returned by {@link #toKey}
+   * @return the post code with an underscore as separator
+   */
+  static String fromKey(int key) {
+    assert key >= 0 : "Invalid post code key";
+
+    char letter2 = (char) ('A' + key % LETTERS);
+    key /= LETTERS;
+    char letter1 = (char) ('A' + key % LETTERS);
+    key /= LETTERS;
+    int sector = key % 10;
+    int district = key / 10;
+    return "EH" + district + SEPARATOR + sector + letter1 + letter2;
+  }
+
+  /**
+   * Returns the district of the post code packed into a key, e.g. 16 for {@code EH16_7AB}.
+   *
+   * @param key a key returned by {@link #toKey}
+   * @return the district, from 1 to {@link #MAX_DISTRICT}
+   */
+  static int districtOf(int key) {
+    assert key >= 0 : "Invalid post code key";
+
+    return key / (LETTERS * LETTERS * 10);
+  }
+
+  // Scans a post code, returns its key or INVALID_KEY
+  private static int scan(String postCode, boolean allowServerSeparator) {
+    if (postCode == null) {
+      return INVALID_KEY;
+    }
+    int length = postCode.length();
+    if ((length != 7 && length != 8) || postCode.charAt(0) != 'E' || postCode.charAt(1) != 'H') {
+      return INVALID_KEY;
+    }
+    int district = digit(postCode.charAt(2), '1', '9');
+    int i = 3;
+    if (length == 8) {
+      int secondDigit = digit(postCode.charAt(i++), '0', '7');
+      district = district < 0 || secondDigit < 0 ? -1 : district * 10 + secondDigit;
+    }
+    char separator = postCode.charAt(i++);
+    if (district < 0
+        || !(separator == SEPARATOR || (allowServerSeparator && separator == SERVER_SEPARATOR))) {
+      return INVALID_KEY;
+    }
+    int sector = digit(postCode.charAt(i++), '1', '9');
+    int letter1 = letter(postCode.charAt(i++));
+    int letter2 = letter(postCode.charAt(i));
+    if (sector < 0 || letter1 < 0 || letter2 < 0) {
+      return INVALID_KEY;
+    }
+    return ((district * 10 + sector) * LETTERS + letter1) * LETTERS + letter2;
+  }
+
+  private static int digit(char c, char min, char max) {
+    return c >= min && c <= max ? c - '0' : -1;
+  }
+
+  private static int letter(char c) {
+    return c >= 'A' && c <= 'Z' ? c - 'A' : -1;
+  }
+}
@@ -1,18 +1,99 @@
 package shield;
 
 import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
 
 /**
  * Formats query strings into the format expected by the Scottish governments server's API.
  *
  * <p>Ensures that query string parameters do not contain reserved characters, such as '&' or '?'.
+ * Requests are expanded from the templates compiled by {@link QueryStrings}, and parameters which
+ * are already URL safe, such as CHIs and post codes, are not copied.
  */
 public final class QueryStringFormatter {
+  /** Upper case hexadecimal digits used in percent-encoding */
+  private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+  /** Replacement for characters which cannot be encoded as UTF-8, i.e. unpaired surrogates */
+  private static final char MALFORMED_REPLACEMENT = '?';
+
   private QueryStringFormatter() {
     // Private constructor essentially makes this a static class
   }
 
+  /**
+   * Encodes a query string parameter exactly like {@link URLEncoder#encode} does with UTF-8.
+   *
+   * <p>The parameter is scanned once. If it only contains characters which never need escaping,
+   * i.e. letters, digits, '.', '-', '*' and '_', it is returned unchanged.
+   *
+   * @param value the query string parameter
+   * @return the URL encoded parameter
+   */
+  public static String encode(String value) {
+    int length = value.length();
+    int safePrefix = 0;
+    while (safePrefix < length && isUrlSafe(value.charAt(safePrefix))) {
+      safePrefix++;
+    }
+    if (safePrefix == length) {
+      return value;
+    }
+    StringBuilder encoded = new StringBuilder(length + 16);
+    encoded.append(value, 0, safePrefix);
+    int i = safePrefix;
+    while (i < length) {
+      char c = value.charAt(i);
+      if (isUrlSafe(c)) {
+        encoded.append(c);
+        i++;
+      } else if (c == ' ') {
+        encoded.append('+');
+        i++;
+      } else {
+        int codePoint = value.codePointAt(i);
+        i += Character.charCount(codePoint);
+        if (Character.isSurrogate(c) && Character.charCount(codePoint) == 1) {
+          codePoint = MALFORMED_REPLACEMENT;
+        }
+        appendUtf8Escaped(encoded, codePoint);
+      }
+    }
+    return encoded.toString();
+  }
+
+  // Characters which URLEncoder never escapes
+  private static boolean isUrlSafe(char c) {
+    return (c >= 'a' && c <= 'z')
+        || (c >= 'A' && c <= 'Z')
+        || (c >= '0' && c <= '9')
+        || c == '.'
+        || c == '-'
+        || c == '*'
+        || c == '_';
+  }
+
+  // Appends the UTF-8 encoding of a code point, every byte escaped as %XX
+  private static void appendUtf8Escaped(StringBuilder encoded, int codePoint) {
+    if (codePoint < 0x80) {
+      appendEscapedByte(encoded, codePoint);
+    } else if (codePoint < 0x800) {
+      appendEscapedByte(encoded, 0xC0 | (codePoint >> 6));
+      appendEscapedByte(encoded, 0x80 | (codePoint & 0x3F));
+    } else if (codePoint < 0x10000) {
+      appendEscapedByte(encoded, 0xE0 | (codePoint >> 12));
+      appendEscapedByte(encoded, 0x80 | ((codePoint >> 6) & 0x3F));
+      appendEscapedByte(encoded, 0x80 | (codePoint & 0x3F));
+    } else {
+      appendEscapedByte(encoded, 0xF0 | (codePoint >> 18));
+      appendEscapedByte(encoded, 0x80 | ((codePoint >> 12) & 0x3F));
+      appendEscapedByte(encoded, 0x80 | ((codePoint >> 6) & 0x3F));
+      appendEscapedByte(encoded, 0x80 | (codePoint & 0x3F));
+    }
+  }
+
+  private static void appendEscapedByte(StringBuilder encoded, int b) {
+    encoded.append('%').append(HEX_DIGITS[(b >> 4) & 0xF]).append(HEX_DIGITS[b & 0xF]);
+  }
+
   /**
    * This method is used to format a request to register the shielding individual using the
    * individual's CHI. This format is specified by the server's API.
@@ -22,8 +103,7 @@ public final class QueryStringFormatter {
    * @return the formatted request to the server's API to register a shielding individual
    */
   public static String individualRegisterRequest(String chi) {
-    String formattedChi = URLEncoder.encode(chi, StandardCharsets.UTF_8);
-    return String.format(QueryStrings.REGISTER_SHIELDING_INDIVIDUAL.toString(), formattedChi);
+    return QueryStrings.REGISTER_SHIELDING_INDIVIDUAL.template().expand(encode(chi));
   }
 
   /**
@@ -34,7 +114,7 @@ public final class QueryStringFormatter {
    * @return the formatted request to the server's API to edit an order
    */
   public static String editOrderRequest(int orderNumber) {
-    return String.format(QueryStrings.EDIT_ORDER.toString(), orderNumber);
+    return QueryStrings.EDIT_ORDER.template().expand(orderNumber);
   }
 
   /**
@@ -45,7 +125,7 @@ public final class QueryStringFormatter {
    * @return the formatted request to the server's API to get the order status of the order
    */
   public static String orderStatusRequest(int orderNumber) {
-    return String.format(QueryStrings.ORDER_STATUS.toString(), orderNumber);
+    return QueryStrings.ORDER_STATUS.template().expand(orderNumber);
   }
 
   /**
@@ -56,7 +136,7 @@ public final class QueryStringFormatter {
    * @return the formatted request to the server's API to cancel an order
    */
   public static String cancelOrderRequest(int orderNumber) {
-    return String.format(QueryStrings.CANCEL_ORDER.toString(), orderNumber);
+    return QueryStrings.CANCEL_ORDER.template().expand(orderNumber);
   }
 
   /**
@@ -70,11 +150,9 @@ public final class QueryStringFormatter {
    * @return the formatted request to the server's API to place an order
    */
   public static String placeOrderRequest(String chi, String companyName, String postCode) {
-    String formattedChi = URLEncoder.encode(chi, StandardCharsets.UTF_8);
-    String formattedCompanyName = URLEncoder.encode(companyName, StandardCharsets.UTF_8);
-    String formattedPostCode = URLEncoder.encode(postCode, StandardCharsets.UTF_8);
-    return String.format(
-        QueryStrings.PLACE_ORDER.toString(), formattedChi, formattedCompanyName, formattedPostCode);
+    return QueryStrings.PLACE_ORDER
+        .template()
+        .expand(encode(chi), encode(companyName), encode(postCode));
   }
 
   /**
@@ -85,10 +163,7 @@ public final class QueryStringFormatter {
    * @return the formatted request to the server's API to get distance between two post codes
    */
   public static String distanceRequest(String postCode1, String postCode2) {
-    String formattedPostCode1 = URLEncoder.encode(postCode1, StandardCharsets.UTF_8);
-    String formattedPostCode2 = URLEncoder.encode(postCode2, StandardCharsets.UTF_8);
-    return String.format(
-        QueryStrings.GET_DISTANCE.toString(), formattedPostCode1, formattedPostCode2);
+    return QueryStrings.GET_DISTANCE.template().expand(encode(postCode1), encode(postCode2));
   }
 
   /**
@@ -100,10 +175,7 @@ public final class QueryStringFormatter {
    * @return the formatted request to the server's API to register a catering company
    */
   public static String cateringCompanyRegisterRequest(String name, String postCode) {
-    String formattedName = URLEncoder.encode(name, StandardCharsets.UTF_8);
-    String formattedPostCode = URLEncoder.encode(postCode, StandardCharsets.UTF_8);
-    return String.format(
-        QueryStrings.REGISTER_CATERING_COMPANY.toString(), formattedName, formattedPostCode);
+    return QueryStrings.REGISTER_CATERING_COMPANY.template().expand(encode(name), encode(postCode));
   }
 
   /**
@@ -116,9 +188,7 @@ public final class QueryStringFormatter {
    *     company
    */
   public static String updateCateringOrderRequest(int orderNumber, String status) {
-    String formattedStatus = URLEncoder.encode(status, StandardCharsets.UTF_8);
-    return String.format(
-        QueryStrings.UPDATE_CATERING_ORDER_STATUS.toString(), orderNumber, formattedStatus);
+    return QueryStrings.UPDATE_CATERING_ORDER_STATUS.template().expand(orderNumber, encode(status));
   }
 
   /**
@@ -130,10 +200,7 @@ public final class QueryStringFormatter {
    * @return the formatted request to the server's API to register a supermarket
    */
   public static String supermarketRegisterRequest(String name, String postCode) {
-    String formattedName = URLEncoder.encode(name, StandardCharsets.UTF_8);
-    String formattedPostCode = URLEncoder.encode(postCode, StandardCharsets.UTF_8);
-    return String.format(
-        QueryStrings.REGISTER_SUPERMARKET.toString(), formattedName, formattedPostCode);
+    return QueryStrings.REGISTER_SUPERMARKET.template().expand(encode(name), encode(postCode));
   }
 
   /**
@@ -145,9 +212,10 @@ public final class QueryStringFormatter {
    * @return the formatted request to the server's API to update the order status by a supermarket
    */
   public static String updateSupermarketOrderRequest(int orderNumber, String status) {
-    String formattedStatus = URLEncoder.encode(status, StandardCharsets.UTF_8);
-    return String.format(
-        QueryStrings.UPDATE_SUPERMARKET_STATUS.toString(), orderNumber, formattedStatus);
+    // The server's API takes the order number of supermarket orders as a string
+    return QueryStrings.UPDATE_SUPERMARKET_STATUS
+        .template()
+        .expand(Integer.toString(orderNumber), encode(status));
   }
 
   /**
@@ -163,14 +231,8 @@ public final class QueryStringFormatter {
    */
   public static String recordSupermarketOrderRequest(
       String chi, int orderNumber, String name, String postCode) {
-    String formattedChi = URLEncoder.encode(chi, StandardCharsets.UTF_8);
-    String formattedName = URLEncoder.encode(name, StandardCharsets.UTF_8);
-    String formattedPostCode = URLEncoder.encode(postCode, StandardCharsets.UTF_8);
-    return String.format(
-        QueryStrings.RECORD_SUPERMARKET_ORDER.toString(),
-        formattedChi,
-        orderNumber,
-        formattedName,
-        formattedPostCode);
+    return QueryStrings.RECORD_SUPERMARKET_ORDER
+        .template()
+        .expand(encode(chi), orderNumber, encode(name), encode(postCode));
   }
 }
@@ -46,6 +46,9 @@ public enum QueryStrings {
   /** Constant to store the request sent to the server */
   private final String request;
 
+  /** The request compiled into literal segments and slots */
+  private final QueryTemplate template;
+
   /**
    * This is a parameterized constructor for the API request enum
    *
@@ -53,6 +56,16 @@ public enum QueryStrings {
    */
   QueryStrings(String request) {
     this.request = request;
+    this.template = QueryTemplate.compile(request);
+  }
+
+  /**
+   * Returns the request compiled into a template, which is faster to expand than the format string.
+   *
+   * @return the compiled request
+   */
+  QueryTemplate template() {
+    return template;
   }
 
   /**
@@ -0,0 +1,133 @@
+package shield;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A query string compiled from one of the format strings in {@link QueryStrings}.
+ *
+ * <p>The format string is split once into literal segments and typed slots, {@code %s} for strings
+ * and {@code %d} for integers. Expanding the template then appends the segments and the values to a
+ * single pre-sized builder, instead of parsing the format string on every request as {@link
+ * String#format} does.
+ *
+ * <p>String values must already be URL encoded, see {@link QueryStringFormatter#encode}. Templates
+ * are immutable; {@link #bind} returns a new template with its first slot filled in, so values
+ * which never change can be encoded and inserted once.
+ */
+final class QueryTemplate {
+  /** The kinds of slot in a template. */
+  enum Slot {
+    /** A URL encoded string, written as {@code %s} */
+    STRING,
+    /** An integer, written as {@code %d} */
+    INT
+  }
+
+  /** Estimated length of a value, used to size the builder. */
+  private static final int ESTIMATED_VALUE_LENGTH = 16;
+
+  /** The literal segments, one more than the number of slots. */
+  private final String[] literals;
+  private final Slot[] slots;
+  private final int literalLength;
+
+  private QueryTemplate(String[] literals, Slot[] slots) {
+    assert literals.length == slots.length + 1 : "Every slot must be surrounded by literals.";
+
+    this.literals = literals;
+    this.slots = slots;
+    int length = 0;
+    for (String literal : literals) {
+      length += literal.length();
+    }
+    this.literalLength = length;
+  }
+
+  /**
+   * Compiles a format string containing {@code %s} and {@code %d} placeholders.
+   *
+   * @param format the format string
+   * @return the compiled template
+   * @throws IllegalArgumentException if the format string contains another placeholder
+   */
+  static QueryTemplate compile(String format) {
+    List<String> literals = new ArrayList<>();
+    List<Slot> slots = new ArrayList<>();
+    StringBuilder literal = new StringBuilder();
+    for (int i = 0; i < format.length(); i++) {
+      char c = format.charAt(i);
+      if (c != '%') {
+        literal.append(c);
+        continue;
+      }
+      char conversion = i + 1 < format.length() ? format.charAt(++i) : '\0';
+      if (conversion == '%') {
+        literal.append('%');
+        continue;
+      }
+      if (conversion != 's' && conversion != 'd') {
+        throw new IllegalArgumentException("Unsupported placeholder in query string: " + format);
+      }
+      literals.add(literal.toString());
+      literal.setLength(0);
+      slots.add(conversion == 's' ? Slot.STRING : Slot.INT);
+    }
+    literals.add(literal.toString());
+    return new QueryTemplate(literals.toArray(new String[0]), slots.toArray(new Slot[0]));
+  }
+
+  /**
+   * Returns the number of slots which are not filled in yet.
+   *
+   * @return the number of slots
+   */
+  int getSlotCount() {
+    return slots.length;
+  }
+
+  /**
+   * Returns a template whose first slot, a string slot, is filled in with {@code encodedValue}.
+   *
+   * @param encodedValue the URL encoded value
+   * @return a template with one slot less
+   */
+  QueryTemplate bind(String encodedValue) {
+    assert slots.length > 0 && slots[0] == Slot.STRING : "The first slot must be a string slot.";
+
+    String[] boundLiterals = Arrays.copyOfRange(literals, 1, literals.length);
+    boundLiterals[0] = literals[0] + encodedValue + literals[1];
+    return new QueryTemplate(boundLiterals, Arrays.copyOfRange(slots, 1, slots.length));
+  }
+
+  /**
+   * Expands the template.
+   *
+   * @param values one value per slot: an already URL encoded {@code String} for string slots and
+   *     an {@code Integer} for integer slots
+   * @return the expanded query string
+   * @throws IllegalArgumentException if the values do not match the slots
+   */
+  String expand(Object... values) {
+    if (values.length != slots.length) {
+      throw new IllegalArgumentException(
+          "Expected " + slots.length + " values but got " + values.length);
+    }
+    StringBuilder query = new StringBuilder(literalLength + ESTIMATED_VALUE_LENGTH * slots.length);
+    query.append(literals[0]);
+    for (int i = 0; i < slots.length; i++) {
+      Object value = values[i];
+      if (slots[i] == Slot.INT && value instanceof Integer) {
+        query.append((int) (Integer) value);
+      } else if (slots[i] == Slot.STRING && (value instanceof String || value == null)) {
+        // String.format writes null values as "null"
+        query.append((String) value);
+      } else {
+        throw new IllegalArgumentException("Value " + value + " does not fit slot " + slots[i]);
+      }
+      query.append(literals[i + 1]);
+    }
+    return query.toString();
+  }
+}
@@ -1,10 +1,7 @@
 package shield;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
 import java.time.LocalDateTime;
 import java.util.Collection;
-import java.util.Date;
 import java.util.List;
 import java.util.Objects;
 
@@ -33,6 +30,17 @@ public class ShieldingIndividualClientImp implements ShieldingIndividualClient {
     model = new ShieldingIndividualModelImp(endpoint);
   }
 
+  /**
+   * Initialises a shielding individual client on top of an existing model.
+   *
+   * @param model the model holding the state of the shielding individual
+   */
+  ShieldingIndividualClientImp(ShieldingIndividualModel model) {
+    assert Objects.nonNull(model) : "Model cannot be null.";
+
+    this.model = model;
+  }
+
   /**
    * Initiates registration of a shielding individual.
    *
@@ -50,49 +58,31 @@ public class ShieldingIndividualClientImp implements ShieldingIndividualClient {
     if (isRegistered()) {
       return true;
     }
-    if (!isValidChi(chi)) {
+    if (!ChiValidator.shared().isValid(chi)) {
       return false;
     }
     return model.register(chi);
   }
 
   /**
-   * Checks if the given CHI number follows the <a
-   * href="https://datadictionary.nhs.uk/attributes/community_health_index_number.html">format
-   * specified by the * NHS </a>
+   * Recovers a shielding individual registered before the client restarted.
+   *
+   * <p>If the shielding individual is already registered, the method returns true immediately. If
+   * the CHI is invalid, the method returns false. Otherwise, the method {@link
+   * ShieldingIndividualModel#recover(String)} is called, which reads the individual back from the
+   * order journal.
    *
-   * @param chi the CHI number to be validated
-   * @return true if the CHI number is valid.
+   * @param chi the CHI number of the shielding individual
+   * @return true if the individual was recovered, false otherwise
    */
-  private boolean isValidChi(String chi) {
-    if (Objects.isNull(chi)) {
-      return false;
+  public boolean recoverShieldingIndividual(String chi) {
+    if (isRegistered()) {
+      return true;
     }
-    String chiRegex = "^[0-9]{10}$";
-    if (!chi.matches(chiRegex)) {
+    if (!ChiValidator.shared().isValid(chi)) {
       return false;
     }
-
-    String rawBirthDate = chi.substring(0, 6);
-    SimpleDateFormat formatter;
-    formatter = new SimpleDateFormat("ddMMyy");
-    formatter.setLenient(false); // Prevents lenience in edge cases such as "999999"
-
-    boolean success = false;
-    try {
-      Date birthDate = formatter.parse(rawBirthDate);
-      Date today = new Date();
-      // No need to treat the edge case where birthDate and today are equal, since Date contains a
-      // timestamp and today is initialised after birthDate
-      success = birthDate.before(today);
-    } catch (ParseException e) {
-      System.err.println("ERROR: Parsing birthdate in CHI failed.");
-      e.printStackTrace();
-    } catch (Exception e) {
-      e.printStackTrace();
-    }
-
-    return success;
+    return model.recover(chi);
   }
 
   // --------------- METHODS RELATED TO ORDERS ---------------
@@ -173,6 +163,21 @@ public class ShieldingIndividualClientImp implements ShieldingIndividualClient {
     return model.requestOrderStatus(orderNumber);
   }
 
+  /**
+   * Initiates fetching of the status of all orders.
+   *
+   * <p>The method returns null if the shielding individual is not registered. Otherwise, it
+   * triggers the method {@link ShieldingIndividualModel#refreshAllOrderStatuses}.
+   *
+   * @return a summary of the orders whose status changed
+   */
+  public OrderStatusRefreshSummary refreshAllOrderStatuses() {
+    if (!isRegistered()) {
+      return null;
+    }
+    return model.refreshAllOrderStatuses();
+  }
+
   // --------------- ACCESSOR METHODS FOR ORDERS ---------------
 
   /**
@@ -328,21 +333,12 @@ public class ShieldingIndividualClientImp implements ShieldingIndividualClient {
    */
   @Override
   public float getDistance(String postCode1, String postCode2) {
-    if (!isRegistered() || !isValidPostCode(postCode1) || !isValidPostCode(postCode2)) {
+    if (!isRegistered() || !PostCode.isValid(postCode1) || !PostCode.isValid(postCode2)) {
       return INVALID_DISTANCE;
     }
     return model.getDistance(postCode1, postCode2);
   }
 
-  // Verifies the validity of a post code.
-  private boolean isValidPostCode(String postCode) {
-    if (Objects.isNull(postCode)) {
-      return false;
-    }
-    String postCodeRegex = "^[E][H][1-9][0-7]?[_][1-9][A-Z][A-Z]$";
-    return postCode.matches(postCodeRegex);
-  }
-
   /**
    * Initiates retrieval of the closest catering company.
    *
@@ -359,6 +355,23 @@ public class ShieldingIndividualClientImp implements ShieldingIndividualClient {
     return model.getClosestCateringCompany();
   }
 
+  /**
+   * Initiates retrieval of the closest catering companies.
+   *
+   * <p>The method returns null if the shielding individual is not registered or if {@code k} is
+   * not positive. Otherwise, the method {@link
+   * ShieldingIndividualModel#getClosestCateringCompanies} is triggered.
+   *
+   * @param k the maximum number of catering companies returned
+   * @return the closest catering companies, closest first
+   */
+  public List<String> getClosestCateringCompanies(int k) {
+    if (!isRegistered() || k <= 0) {
+      return null;
+    }
+    return model.getClosestCateringCompanies(k);
+  }
+
   // --------------- ACCESSOR METHODS ---------------
 
   /**
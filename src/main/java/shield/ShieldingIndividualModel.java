@@ -3,6 +3,7 @@ package shield;
 import java.time.LocalDateTime;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /** Interface for the model of a client application for a shielding individual. */
 public interface ShieldingIndividualModel {
@@ -20,16 +21,45 @@ public interface ShieldingIndividualModel {
    */
   boolean register(String chi);
 
+  /**
+   * Recovers a shielding individual registered before the client restarted.
+   *
+   * <p>The personal details and orders of the individual are read back from the order journal,
+   * which the server does not return again once the individual is registered. The method returns
+   * false if the journal is disabled or holds no registration for the CHI, if this model is already
+   * registered, or if another model in the JVM is registered with the CHI, whose orders would
+   * otherwise be copied and diverge.
+   *
+   * @param chi the Community Health Index number of the shielding individual
+   * @return true if the individual was recovered, false otherwise
+   */
+  boolean recover(String chi);
+
   /**
    * Places an order. This method uses the food box picked using {@link #pickFoodBox}. It returns
    * false if the shielding individual is not registered, has not picked a food box or has placed an
    * order within the last 7 days, or if any error occurs.
    *
+   * <p>The order is placed with the closest catering company. If that company rejects it, the
+   * order is placed with the next closest, and so on through the few closest companies, reusing the
+   * ranking of the last search (see {@link #getClosestCateringCompanies}).
+   *
    * @param timeOrdered the exact time at which the order was placed
    * @return true if the order was placed successfully, false otherwise
    */
   boolean placeOrder(LocalDateTime timeOrdered);
 
+  /**
+   * Places an order without blocking the calling thread.
+   *
+   * <p>This is the asynchronous twin of {@link #placeOrder}. The returned future never completes
+   * exceptionally; it holds false in every case where {@link #placeOrder} would return false.
+   *
+   * @param timeOrdered the exact time at which the order was placed
+   * @return a future holding true if the order was placed successfully, false otherwise
+   */
+  CompletableFuture<Boolean> placeOrderAsync(LocalDateTime timeOrdered);
+
   /**
    * Moves back the date time the most recent order was ordered by {@code numDays} days.
    *
@@ -48,6 +78,17 @@ public interface ShieldingIndividualModel {
    */
   boolean editOrder(int orderNumber);
 
+  /**
+   * Edits an order without blocking the calling thread.
+   *
+   * <p>This is the asynchronous twin of {@link #editOrder}. The returned future never completes
+   * exceptionally; it holds false in every case where {@link #editOrder} would return false.
+   *
+   * @param orderNumber the number of the order to be edited
+   * @return a future holding true if the changes were propagated successfully, false otherwise
+   */
+  CompletableFuture<Boolean> editOrderAsync(int orderNumber);
+
   /**
    * Cancels an order.
    *
@@ -59,6 +100,17 @@ public interface ShieldingIndividualModel {
    */
   boolean cancelOrder(int orderNumber);
 
+  /**
+   * Cancels an order without blocking the calling thread.
+   *
+   * <p>This is the asynchronous twin of {@link #cancelOrder}. The returned future never completes
+   * exceptionally; it holds false in every case where {@link #cancelOrder} would return false.
+   *
+   * @param orderNumber the number of the order to be cancelled
+   * @return a future holding true if the order was cancelled successfully, false otherwise
+   */
+  CompletableFuture<Boolean> cancelOrderAsync(int orderNumber);
+
   /**
    * Retrieves order status from the Scottish government's server.
    *
@@ -71,6 +123,41 @@ public interface ShieldingIndividualModel {
    */
   boolean requestOrderStatus(int orderNumber);
 
+  /**
+   * Retrieves order status from the Scottish government's server without blocking the calling
+   * thread.
+   *
+   * <p>This is the asynchronous twin of {@link #requestOrderStatus}. The returned future never
+   * completes exceptionally; it holds false in every case where {@link #requestOrderStatus} would
+   * return false.
+   *
+   * @param orderNumber the order number whose status should be requested
+   * @return a future holding true if the request is successful, false otherwise
+   */
+  CompletableFuture<Boolean> requestOrderStatusAsync(int orderNumber);
+
+  /**
+   * Retrieves the statuses of all orders of the shielding individual from the Scottish
+   * government's server.
+   *
+   * <p>Orders which are delivered or cancelled are skipped, as their status can no longer change.
+   * The status requests of the other orders are sent concurrently, with a bounded number in
+   * flight, and the new statuses are cached locally once all requests have completed.
+   *
+   * @return a summary of the orders whose status changed
+   */
+  OrderStatusRefreshSummary refreshAllOrderStatuses();
+
+  /**
+   * Retrieves the statuses of all orders without blocking the calling thread.
+   *
+   * <p>This is the asynchronous twin of {@link #refreshAllOrderStatuses}. The returned future never
+   * completes exceptionally.
+   *
+   * @return a future holding a summary of the orders whose status changed
+   */
+  CompletableFuture<OrderStatusRefreshSummary> refreshAllOrderStatusesAsync();
+
   /**
    * Retrieves order numbers.
    *
@@ -80,6 +167,15 @@ public interface ShieldingIndividualModel {
    */
   List<Integer> getOrderNumbers();
 
+  /**
+   * Returns the orders of the shielding individual.
+   *
+   * <p>The orders are returned themselves, not copies.
+   *
+   * @return the orders in the order in which they were placed or added
+   */
+  List<CateringCompanyOrder> getOrders();
+
   /**
    * Returns the status of the order given by {@code orderNumber}.
    *
@@ -149,6 +245,16 @@ public interface ShieldingIndividualModel {
    */
   List<String> getCateringCompanies();
 
+  /**
+   * Returns a list of catering companies and their locations without blocking the calling thread.
+   *
+   * <p>This is the asynchronous twin of {@link #getCateringCompanies}. The returned future never
+   * completes exceptionally; it holds null if any error occurs.
+   *
+   * @return a future holding a list of catering companies
+   */
+  CompletableFuture<List<String>> getCateringCompaniesAsync();
+
   /**
    * Computes the distance between two locations.
    *
@@ -161,6 +267,18 @@ public interface ShieldingIndividualModel {
    */
   Float getDistance(String postCode1, String postCode2);
 
+  /**
+   * Computes the distance between two locations without blocking the calling thread.
+   *
+   * <p>This is the asynchronous twin of {@link #getDistance}. The returned future never completes
+   * exceptionally; it holds -1.0 if any error occurs.
+   *
+   * @param postCode1 post code of one location
+   * @param postCode2 post code of another location
+   * @return a future holding the distance between the two post codes in metres
+   */
+  CompletableFuture<Float> getDistanceAsync(String postCode1, String postCode2);
+
   /**
    * Returns the closest catering company.
    *
@@ -172,6 +290,30 @@ public interface ShieldingIndividualModel {
    */
   String getClosestCateringCompany();
 
+  /**
+   * Returns the catering companies closest to the shielding individual, closest first.
+   *
+   * <p>The output format mirrors that of {@link #getClosestCateringCompany}. The ranking is
+   * computed in one pass over the distances to the candidates of the search, and is kept until the
+   * catering companies or the post code of the individual change, so later searches and orders
+   * reuse it. The method returns null if there are no catering companies, or if any error occurs.
+   *
+   * @param k the maximum number of catering companies returned
+   * @return up to {@code k} catering companies in the specified format
+   */
+  List<String> getClosestCateringCompanies(int k);
+
+  /**
+   * Returns the closest catering company without blocking the calling thread.
+   *
+   * <p>This is the asynchronous twin of {@link #getClosestCateringCompany}. The distances to all
+   * catering companies are requested concurrently. The returned future never completes
+   * exceptionally; it holds null if there are no catering companies, or if any error occurs.
+   *
+   * @return a future holding a catering company
+   */
+  CompletableFuture<String> getClosestCateringCompanyAsync();
+
   /**
    * Tells whether the shielding individual is registered.
    *
@@ -232,7 +374,7 @@ public interface ShieldingIndividualModel {
    *
    * @param preference the dietary preference of the shielding individual (e.g. pollotarian, vegan,
    *     ...)
-   * @return a list of stringified food box IDs
+   * @return a new list of stringified food box IDs, which the caller may modify
    */
   Collection<String> getFoodBoxIds(DietaryPreference preference);
 
@@ -254,7 +396,7 @@ public interface ShieldingIndividualModel {
    * occurs.
    *
    * @param foodBoxId the ID of the food box whose item IDs we are interested in
-   * @return a list of IDs
+   * @return a new list of IDs, which the caller may modify
    */
   List<Integer> getItemIdsForFoodBox(int foodBoxId);
 
@@ -334,6 +476,17 @@ public interface ShieldingIndividualModel {
    */
   void setRegistered(boolean registrationStatus);
 
+  /**
+   * Takes over the state of another model of the same shielding individual, e.g. one whose session
+   * was evicted (see {@link ShieldingIndividualSessionManager}): the personal details, the orders
+   * and the picked food box. The orders and the picked food box are shared with the other model
+   * rather than copied, so an order which the other model is still placing ends up with this model
+   * and the minimum time between orders applies across both. The registration status is unchanged.
+   *
+   * @param previous the model whose state is taken over, of the same implementation as this one
+   */
+  void takeOver(ShieldingIndividualModel previous);
+
   /**
    * Sets the CHI number.
    *
@@ -1,18 +1,26 @@
 package shield;
 
-import com.google.gson.Gson;
 import com.google.gson.JsonSyntaxException;
-import com.google.gson.reflect.TypeToken;
 import java.io.IOException;
-import java.lang.reflect.Type;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Example of a potential application for a shielding individual.
@@ -23,26 +31,61 @@ import java.util.stream.Stream;
 public class ShieldingIndividualModelImp implements ShieldingIndividualModel {
   /** An invalid distance */
   private static final float INVALID_DISTANCE = -1f;
-  /** Delimiter used to separate the details of the output from the server */
-  private static final char CATERING_COMPANY_INFO_DELIMITER = ',';
-  /** The minimum required time between orders i.e. one week (in seconds) */
-  private static final int MIN_TIME_BETWEEN_ORDERS = 7 * 24 * 60 * 60;
+  /** The minimum required time between orders i.e. one week */
+  private static final Duration MIN_TIME_BETWEEN_ORDERS = Duration.ofDays(7);
   /** Invalid number of items */
   private static final int INVALID_NUMBER_OF_ITEMS = -1;
   /** Invalid item quantity */
   private static final int INVALID_ITEM_QUANTITY = -1;
+  /** Time allowed for all distance lookups of a closest catering company search */
+  private static final long CLOSEST_CATERER_DEADLINE_NANOS =
+      TimeUnit.MILLISECONDS.toNanos(ClientSettings.getLong("closestCaterer.deadlineMillis", 5_000));
+  /** Number of catering companies nearest by district whose exact distance is looked up */
+  private static final int CLOSEST_CATERER_CANDIDATES =
+      ClientSettings.getInt("closestCaterer.candidates", 8);
+  /**
+   * Maximum number of catering companies whose exact distance is looked up, which bounds the
+   * requests of a search when many companies are tied, e.g. in the same district
+   */
+  private static final int CLOSEST_CATERER_MAX_CANDIDATES =
+      ClientSettings.getInt("closestCaterer.maxCandidates", 32);
+  /** Number of closest catering companies ranked, an order falls back on the next if one fails */
+  private static final int CLOSEST_CATERERS_RANKED =
+      Math.max(1, ClientSettings.getInt("closestCaterer.ranked", 3));
+
+  /**
+   * The model registered with each CHI in the JVM, keyed by endpoint and CHI, guarded by itself.
+   * A model removes its entry when it is unregistered, entries of models collected while still
+   * registered are removed through HOLDERS_COLLECTED on the next registration.
+   */
+  private static final Map<String, Holder> HOLDERS = new HashMap<>();
+  /** Queue of the HOLDERS entries whose model was collected, guarded by HOLDERS */
+  private static final ReferenceQueue<ShieldingIndividualModelImp> HOLDERS_COLLECTED =
+      new ReferenceQueue<>();
 
   private final String endpoint;
-  private final HashMap<Integer, CateringCompanyOrder> orders;
-  private List<FoodBox> cachedFoodBoxes;
-  private FoodBox pickedFoodBox;
-  private CateringCompanyOrder mostRecentOrder;
+  /** The orders, shared with the model this one took over from, if any (see takeOver) */
+  private OrderStore orders;
+  private final FoodBoxCatalogService catalogService;
+  private final CatererDirectory catererDirectory;
+  /** Closest catering companies of the post codes of all individuals in the JVM */
+  private final ClosestCatererCache closestCaterers;
+  /** Orders of all individuals in the JVM, reached by status updates of catering companies */
+  private final OrderRegistry orderRegistry;
+  /** Journal recording registrations and orders, null if the journal is disabled */
+  private final OrderJournal journal;
+  /** The picked food box, shared like the orders */
+  private AtomicReference<FoodBox> pickedFoodBox = new AtomicReference<>();
+  /** The closest catering companies found by the last search, null if there was none */
+  private volatile CatererRanking ranking;
   private String chi;
+  /** Place order request with the URL encoded CHI filled in, built on first use */
+  private QueryTemplate placeOrderTemplate;
   private String postCode;
   private String name;
   private String surname;
   private String phoneNumber;
-  private boolean registered;
+  private volatile boolean registered;
 
   /**
    * Initialises a shielding individual model.
@@ -50,9 +93,23 @@ public class ShieldingIndividualModelImp implements ShieldingIndividualModel {
    * @param endpoint the endpoint used for remote communication with a server
    */
   public ShieldingIndividualModelImp(String endpoint) {
+    this(endpoint, OrderJournal.shared());
+  }
+
+  /**
+   * Initialises a shielding individual model recording to a journal.
+   *
+   * @param endpoint the endpoint used for remote communication with a server
+   * @param journal the journal recording registrations and orders, null to disable it
+   */
+  ShieldingIndividualModelImp(String endpoint, OrderJournal journal) {
     this.endpoint = endpoint;
-    orders = new HashMap<>();
-    mostRecentOrder = null;
+    catalogService = FoodBoxCatalogService.forEndpoint(endpoint);
+    catererDirectory = CatererDirectory.forEndpoint(endpoint);
+    closestCaterers = ClosestCatererCache.forEndpoint(endpoint);
+    orderRegistry = OrderRegistry.forEndpoint(endpoint);
+    this.journal = journal;
+    orders = new OrderStore(MIN_TIME_BETWEEN_ORDERS);
   }
 
   @Override
@@ -63,19 +120,20 @@ public class ShieldingIndividualModelImp implements ShieldingIndividualModel {
     boolean success = false;
     try {
       String response = ClientIO.doGETRequest(endpoint + request);
-      if (!response.equals(ServerResponse.ALREADY_REGISTERED.toString())
-          && !response.equals(ServerResponse.NO_CHI.toString())) {
-        Type type = new TypeToken<List<String>>() {}.getType();
-        List<String> details = new Gson().fromJson(response, type);
-        success = Objects.nonNull(details) && details.size() == 4 && !details.contains(null);
-        if (success) {
-          this.postCode = details.get(0).replace(' ', '_');
-          this.name = details.get(1);
-          this.surname = details.get(2);
-          this.phoneNumber = details.get(3);
-          this.chi = chi;
+      List<String> details = parseRegistrationResponse(response);
+      success = Objects.nonNull(details);
+      if (success) {
+        this.postCode = details.get(0);
+        this.name = details.get(1);
+        this.surname = details.get(2);
+        this.phoneNumber = details.get(3);
+        this.chi = chi;
+        this.placeOrderTemplate = null;
+        synchronized (HOLDERS) {
           this.registered = true;
+          hold(chi);
         }
+        writeJournal(journal -> journal.recordRegistered(chi, details));
       }
     } catch (JsonSyntaxException e) {
       System.err.println("ERROR: JSON syntax invalid.");
@@ -89,48 +147,139 @@ public class ShieldingIndividualModelImp implements ShieldingIndividualModel {
     return success;
   }
 
+  @Override
+  public boolean recover(String chi) {
+    assert Objects.nonNull(chi) : "CHI number passed cannot be null.";
+
+    if (Objects.isNull(journal) || registered) {
+      return false;
+    }
+    List<String> details = journal.getRegistration(chi);
+    if (Objects.isNull(details)) {
+      return false;
+    }
+    synchronized (HOLDERS) {
+      // Another model holding the CHI already has the orders, copies of them would diverge
+      if (isHeldByAnother(chi)) {
+        return false;
+      }
+      this.postCode = details.get(0);
+      this.name = details.get(1);
+      this.surname = details.get(2);
+      this.phoneNumber = details.get(3);
+      this.chi = chi;
+      this.placeOrderTemplate = null;
+      for (CateringCompanyOrder order : journal.getOrders(chi)) {
+        orders.add(order);
+        orderRegistry.register(order, journal);
+        trackStatus(order);
+      }
+      this.registered = true;
+      hold(chi);
+    }
+    return true;
+  }
+
+  // Checks if a model other than this one is registered with a CHI, holding HOLDERS
+  private boolean isHeldByAnother(String chi) {
+    Holder held = HOLDERS.get(holderKey(chi));
+    ShieldingIndividualModelImp holder = Objects.isNull(held) ? null : held.get();
+    return Objects.nonNull(holder)
+        && holder != this
+        && holder.registered
+        && chi.equals(holder.chi);
+  }
+
+  // Records this model as the holder of a CHI, holding HOLDERS
+  private void hold(String chi) {
+    for (Reference<?> collected = HOLDERS_COLLECTED.poll();
+        Objects.nonNull(collected);
+        collected = HOLDERS_COLLECTED.poll()) {
+      Holder holder = (Holder) collected;
+      HOLDERS.remove(holder.key, holder);
+    }
+    String key = holderKey(chi);
+    HOLDERS.put(key, new Holder(key, this));
+  }
+
+  // Removes this model as the holder of a CHI, if it is, holding HOLDERS
+  private void release(String chi) {
+    String key = holderKey(chi);
+    Holder held = HOLDERS.get(key);
+    if (Objects.nonNull(held) && held.get() == this) {
+      HOLDERS.remove(key);
+    }
+  }
+
+  private String holderKey(String chi) {
+    return endpoint + ' ' + chi;
+  }
+
+  // Checks if any model is recorded as the holder of a CHI at an endpoint
+  static boolean isHeld(String endpoint, String chi) {
+    synchronized (HOLDERS) {
+      return HOLDERS.containsKey(endpoint + ' ' + chi);
+    }
+  }
+
+  /** Entry of HOLDERS, which remembers its key to be removed once the model is collected */
+  private static final class Holder extends WeakReference<ShieldingIndividualModelImp> {
+    private final String key;
+
+    Holder(String key, ShieldingIndividualModelImp model) {
+      super(model, HOLDERS_COLLECTED);
+      this.key = key;
+    }
+  }
+
+  /**
+   * Parses the server's response to the registration of a shielding individual.
+   *
+   * @param response the response of the server
+   * @return the post code in canonical form, the name, the surname and the phone number of the
+   *     individual, or null if the registration failed
+   * @throws JsonSyntaxException if the response is neither a known message nor valid JSON
+   */
+  static List<String> parseRegistrationResponse(String response) {
+    if (response.equals(ServerResponse.ALREADY_REGISTERED.toString())
+        || response.equals(ServerResponse.NO_CHI.toString())) {
+      return null;
+    }
+    List<String> details = WireCodec.parseStringList(response);
+    if (Objects.isNull(details) || details.size() != 4 || details.contains(null)) {
+      return null;
+    }
+    details.set(0, canonicalPostCode(details.get(0)));
+    return details;
+  }
+
   // --------------- METHODS RELATED TO ORDERS ---------------
 
   @Override
   public boolean placeOrder(LocalDateTime timeOrdered) {
     assert Objects.nonNull(timeOrdered) : "Time at which order has been placed cannot be null.";
 
-    if (Objects.isNull(pickedFoodBox)) {
-      return false;
-    }
-    if (!canPlaceOrder(timeOrdered)) {
+    FoodBox box = pickedFoodBox.get();
+    if (Objects.isNull(box) || !orders.tryReserve(timeOrdered)) {
       return false;
     }
     boolean success = false;
     try {
-      // Find closest catering company
-      String company = getClosestCateringCompany();
-      if (Objects.isNull(company)) {
+      // Rank the closest catering companies
+      CatererRanking ranked = rankCaterers(CLOSEST_CATERERS_RANKED);
+      if (Objects.isNull(ranked)) {
         return false;
       }
-      int firstIndex = company.indexOf(CATERING_COMPANY_INFO_DELIMITER);
-      int lastIndex = company.lastIndexOf(CATERING_COMPANY_INFO_DELIMITER);
-      String companyName = company.substring(firstIndex + 1, lastIndex);
-      String companyPostCode = company.substring(lastIndex + 1);
-
-      // Place order
-      String request = QueryStringFormatter.placeOrderRequest(chi, companyName, companyPostCode);
-      String response = ClientIO.doPOSTRequest(endpoint + request, pickedFoodBox.jsonify());
-      if (!response.equals(ServerResponse.ORDER_PLACE_FAILURE.toString())) {
-        int orderNumber = Integer.parseInt(response);
-        if (orderNumber < 0) {
-          return false;
-        }
-        CateringCompanyOrder newOrder;
-        newOrder = new CateringCompanyOrder(orderNumber, pickedFoodBox, timeOrdered);
-        success = addOrder(newOrder);
+
+      // Place order, falling back on the next company if one rejects it
+      for (Caterer company : ranked.getCaterers()) {
+        String request = placeOrderRequest(company);
+        String response = ClientIO.doPOSTRequest(endpoint + request, box::writeOrderTo);
+        success = handlePlaceOrderResponse(response, box, timeOrdered);
         if (success) {
-          resetFoodBoxChoice();
+          break;
         }
       }
-    } catch (StringIndexOutOfBoundsException e) {
-      System.err.println("ERROR: Improper format in company name.");
-      e.printStackTrace();
     } catch (NumberFormatException e) {
       System.err.println("ERROR: Response has inappropriate format.");
       e.printStackTrace();
@@ -139,26 +288,158 @@ public class ShieldingIndividualModelImp implements ShieldingIndividualModel {
       e.printStackTrace();
     } catch (Exception e) {
       e.printStackTrace();
+    } finally {
+      if (!success) {
+        orders.release();
+      }
     }
     return success;
   }
 
-  private boolean canPlaceOrder(LocalDateTime requestedOrderTime) {
-    assert Objects.nonNull(requestedOrderTime) : "Requested order time cannot be null.";
+  @Override
+  public CompletableFuture<Boolean> placeOrderAsync(LocalDateTime timeOrdered) {
+    assert Objects.nonNull(timeOrdered) : "Time at which order has been placed cannot be null.";
+
+    FoodBox box = pickedFoodBox.get();
+    if (Objects.isNull(box) || !orders.tryReserve(timeOrdered)) {
+      return CompletableFuture.completedFuture(false);
+    }
+    return rankCaterersAsync(CLOSEST_CATERERS_RANKED)
+        .thenCompose(
+            ranked ->
+                Objects.isNull(ranked)
+                    ? CompletableFuture.completedFuture(false)
+                    : placeOrderAsync(ranked, 0, box, timeOrdered))
+        .exceptionally(ClientIO.recover(false))
+        .thenApply(
+            success -> {
+              if (!success) {
+                orders.release();
+              }
+              return success;
+            });
+  }
+
+  // Places an order with the ranked catering companies in turn, from the given rank, until one
+  // accepts it
+  private CompletableFuture<Boolean> placeOrderAsync(
+      CatererRanking ranked, int rank, FoodBox box, LocalDateTime timeOrdered) {
+    if (rank >= ranked.getCaterers().size()) {
+      return CompletableFuture.completedFuture(false);
+    }
+    String request = placeOrderRequest(ranked.getCaterers().get(rank));
+    return ClientIO.doPOSTRequestAsync(endpoint + request, box::writeOrderTo)
+        .thenCompose(
+            response ->
+                handlePlaceOrderResponse(response, box, timeOrdered)
+                    ? CompletableFuture.completedFuture(true)
+                    : placeOrderAsync(ranked, rank + 1, box, timeOrdered));
+  }
+
+  // The server separates the parts of post codes with a space, the clients with an underscore
+  private static String canonicalPostCode(String serverPostCode) {
+    String postCode = PostCode.normalize(serverPostCode);
+    if (Objects.isNull(postCode)) {
+      // Keep post codes outside of Edinburgh, only swapping their separator
+      postCode = serverPostCode.replace(' ', '_');
+    }
+    return postCode;
+  }
+
+  // Formats the request placing an order with a catering company
+  private String placeOrderRequest(Caterer company) {
+    if (Objects.isNull(placeOrderTemplate)) {
+      // The CHI never changes between orders, so it is encoded once
+      placeOrderTemplate =
+          QueryStrings.PLACE_ORDER.template().bind(QueryStringFormatter.encode(chi));
+    }
+    return placeOrderTemplate.expand(
+        QueryStringFormatter.encode(company.getName()),
+        QueryStringFormatter.encode(company.getPostCode()));
+  }
+
+  // Records the order placed for the box under the current reservation if the server accepted it
+  private boolean handlePlaceOrderResponse(
+      String response, FoodBox box, LocalDateTime timeOrdered) {
+    if (response.equals(ServerResponse.ORDER_PLACE_FAILURE.toString())) {
+      return false;
+    }
+    int orderNumber = Integer.parseInt(response);
+    if (orderNumber < 0) {
+      return false;
+    }
+    CateringCompanyOrder order = new CateringCompanyOrder(orderNumber, box, timeOrdered);
+    orders.commit(order);
+    orderRegistry.register(order, journal);
+    trackStatus(order);
+    // The individual may have picked another box while the request was in flight
+    pickedFoodBox.compareAndSet(box, null);
+    writeJournal(journal -> journal.recordPlaced(chi, order));
+    return true;
+  }
+
+  // Polls the status of an order until it is delivered or cancelled, applying its changes
+  private void trackStatus(CateringCompanyOrder order) {
+    OrderStatus status = order.getStatus();
+    if (status != OrderStatus.DELIVERED && status != OrderStatus.CANCELLED) {
+      OrderStatusPollScheduler.forEndpoint(endpoint).track(order.getNumber(), status);
+    }
+  }
+
+  // Records the quantities of an order in the journal once the server has accepted the edit
+  private boolean handleEditOrderResponse(String response, int orderNumber, FoodBox box) {
+    if (!response.equals(ServerResponse.ORDER_EDIT_SUCCESS.toString())) {
+      return false;
+    }
+    writeJournal(journal -> journal.recordQuantities(orderNumber, box));
+    return true;
+  }
 
-    if (Objects.isNull(mostRecentOrder)) {
-      return true;
+  // Marks an order as cancelled once the server has accepted the cancellation. The cancellation
+  // is the latest status of the order, so it replaces any status set while it was in flight.
+  private boolean markCancelled(CateringCompanyOrder order) {
+    OrderStatus current;
+    do {
+      current = order.getStatus();
+    } while (!updateStatus(order, current, OrderStatus.CANCELLED));
+    return true;
+  }
+
+  // Sets the status of an order unless it changed since it was read, recording it in the journal
+  private boolean updateStatus(
+      CateringCompanyOrder order, OrderStatus expected, OrderStatus status) {
+    if (!order.compareAndSetStatus(expected, status)) {
+      return false;
+    }
+    if (status != expected) {
+      writeJournal(journal -> journal.recordStatus(order.getNumber(), status));
+    }
+    return true;
+  }
+
+  // Writes to the journal if it is enabled; a failed write does not fail the operation, which the
+  // server has already accepted
+  private void writeJournal(JournalWrite write) {
+    if (Objects.isNull(journal)) {
+      return;
+    }
+    try {
+      write.writeTo(journal);
+    } catch (IOException e) {
+      System.err.println("ERROR: Failed to write to the order journal.");
+      e.printStackTrace();
     }
-    LocalDateTime lastTimeOrdered = mostRecentOrder.getTimeOrdered();
-    Duration timeSinceLastOrder = Duration.between(lastTimeOrdered, requestedOrderTime);
-    return lastTimeOrdered.isBefore(requestedOrderTime)
-        && (timeSinceLastOrder.getSeconds() >= MIN_TIME_BETWEEN_ORDERS);
+  }
+
+  /** A write to the order journal. */
+  @FunctionalInterface
+  private interface JournalWrite {
+    void writeTo(OrderJournal journal) throws IOException;
   }
 
   @Override
   public void setMostRecentOrderTimeOrderedBeforeDays(long numDays) {
-    LocalDateTime timeOrdered = mostRecentOrder.getTimeOrdered();
-    mostRecentOrder.setTimeOrdered(timeOrdered.minusDays(numDays));
+    orders.moveMostRecentOrderBack(numDays);
   }
 
   @Override
@@ -172,15 +453,11 @@ public class ShieldingIndividualModelImp implements ShieldingIndividualModel {
       if (Objects.isNull(box)) {
         return false;
       }
-      String orderData = box.jsonify();
-      if (Objects.isNull(orderData)) {
-        return false;
-      }
       String request = QueryStringFormatter.editOrderRequest(orderNumber);
       // The server checks that the order has not been packed and that the user is not trying
       // to increase the number of contents
-      String response = ClientIO.doPOSTRequest(endpoint + request, orderData);
-      success = response.equals(ServerResponse.ORDER_EDIT_SUCCESS.toString());
+      String response = ClientIO.doPOSTRequest(endpoint + request, box::writeOrderTo);
+      success = handleEditOrderResponse(response, orderNumber, box);
     } catch (RuntimeException | IOException e) {
       System.err.println("ERROR: HTTP get request failed.");
       e.printStackTrace();
@@ -190,9 +467,21 @@ public class ShieldingIndividualModelImp implements ShieldingIndividualModel {
     return success;
   }
 
+  @Override
+  public CompletableFuture<Boolean> editOrderAsync(int orderNumber) {
+    FoodBox box = findFoodBoxForOrder(orderNumber);
+    if (Objects.isNull(box)) {
+      return CompletableFuture.completedFuture(false);
+    }
+    String request = QueryStringFormatter.editOrderRequest(orderNumber);
+    return ClientIO.doPOSTRequestAsync(endpoint + request, box::writeOrderTo)
+        .thenApply(response -> handleEditOrderResponse(response, orderNumber, box))
+        .exceptionally(ClientIO.recover(false));
+  }
+
   // Returns whether an order was placed by this shielding individual
   private boolean placedByThisIndividual(int orderNumber) {
-    return orders.containsKey(orderNumber);
+    return orders.contains(orderNumber);
   }
 
   // Finds the corresponding food box given an order number
@@ -207,12 +496,14 @@ public class ShieldingIndividualModelImp implements ShieldingIndividualModel {
   @Override
   public boolean cancelOrder(int orderNumber) {
     CateringCompanyOrder matchingOrder = findOrder(orderNumber);
+    if (Objects.isNull(matchingOrder)) {
+      return false;
+    }
     String request = QueryStringFormatter.cancelOrderRequest(orderNumber);
     try {
       String response = ClientIO.doGETRequest(endpoint + request);
       if (response.equals(ServerResponse.ORDER_CANCEL_SUCCESS.toString())) {
-        matchingOrder.setStatus(OrderStatus.CANCELLED);
-        return true;
+        return markCancelled(matchingOrder);
       }
     } catch (RuntimeException | IOException e) {
       System.err.println("ERROR: HTTP get request failed.");
@@ -223,35 +514,35 @@ public class ShieldingIndividualModelImp implements ShieldingIndividualModel {
     return false;
   }
 
+  @Override
+  public CompletableFuture<Boolean> cancelOrderAsync(int orderNumber) {
+    CateringCompanyOrder matchingOrder = findOrder(orderNumber);
+    if (Objects.isNull(matchingOrder)) {
+      return CompletableFuture.completedFuture(false);
+    }
+    String request = QueryStringFormatter.cancelOrderRequest(orderNumber);
+    return ClientIO.doGETRequestAsync(endpoint + request)
+        .thenApply(
+            response ->
+                response.equals(ServerResponse.ORDER_CANCEL_SUCCESS.toString())
+                    && markCancelled(matchingOrder))
+        .exceptionally(ClientIO.recover(false));
+  }
+
   @Override
   public boolean requestOrderStatus(int orderNumber) {
     CateringCompanyOrder matchingOrder = findOrder(orderNumber);
     if (Objects.isNull(matchingOrder)) {
       return false;
     }
+    // A reply is only applied if the status did not change while it was in flight, so that a stale
+    // reply never overwrites e.g. a cancellation
+    OrderStatus expected = matchingOrder.getStatus();
     OrderStatus status = null;
     try {
       String request = QueryStringFormatter.orderStatusRequest(orderNumber);
       String response = ClientIO.doGETRequest(endpoint + request);
-      switch (response) {
-        case "0":
-          status = OrderStatus.PLACED;
-          break;
-        case "1":
-          status = OrderStatus.PACKED;
-          break;
-        case "2":
-          status = OrderStatus.DISPATCHED;
-          break;
-        case "3":
-          status = OrderStatus.DELIVERED;
-          break;
-        case "4":
-          status = OrderStatus.CANCELLED;
-          break;
-        default:
-          status = null;
-      }
+      status = parseOrderStatus(response);
     } catch (RuntimeException | IOException e) {
       System.err.println("ERROR: HTTP get request failed.");
       e.printStackTrace();
@@ -261,20 +552,69 @@ public class ShieldingIndividualModelImp implements ShieldingIndividualModel {
     if (Objects.isNull(status)) {
       return false;
     }
-    matchingOrder.setStatus(status);
-    return true;
+    return updateStatus(matchingOrder, expected, status);
+  }
+
+  @Override
+  public CompletableFuture<Boolean> requestOrderStatusAsync(int orderNumber) {
+    CateringCompanyOrder matchingOrder = findOrder(orderNumber);
+    if (Objects.isNull(matchingOrder)) {
+      return CompletableFuture.completedFuture(false);
+    }
+    OrderStatus expected = matchingOrder.getStatus();
+    String request = QueryStringFormatter.orderStatusRequest(orderNumber);
+    return ClientIO.doGETRequestAsync(endpoint + request)
+        .thenApply(response -> updateStatus(matchingOrder, expected, parseOrderStatus(response)))
+        .exceptionally(ClientIO.recover(false));
+  }
+
+  @Override
+  public OrderStatusRefreshSummary refreshAllOrderStatuses() {
+    return refreshAllOrderStatusesAsync().join();
+  }
+
+  @Override
+  public CompletableFuture<OrderStatusRefreshSummary> refreshAllOrderStatusesAsync() {
+    return OrderStatusRefresher.shared()
+        .refresh(orders.getOrders(), this::fetchOrderStatusAsync, this::updateStatus);
+  }
+
+  // Requests the status of an order, the future holds null if the request failed
+  private CompletableFuture<OrderStatus> fetchOrderStatusAsync(int orderNumber) {
+    String request = QueryStringFormatter.orderStatusRequest(orderNumber);
+    return ClientIO.doGETRequestAsync(endpoint + request)
+        .thenApply(ShieldingIndividualModelImp::parseOrderStatus)
+        .exceptionally(ClientIO.recover(null));
+  }
+
+  // Parses the status code returned by the server, returns null if the code is unknown
+  static OrderStatus parseOrderStatus(String response) {
+    switch (response) {
+      case "0":
+        return OrderStatus.PLACED;
+      case "1":
+        return OrderStatus.PACKED;
+      case "2":
+        return OrderStatus.DISPATCHED;
+      case "3":
+        return OrderStatus.DELIVERED;
+      case "4":
+        return OrderStatus.CANCELLED;
+      default:
+        return null;
+    }
   }
 
   // --------------- ACCESSOR METHODS FOR ORDERS ---------------
 
   @Override
   public List<Integer> getOrderNumbers() {
-    assert !orders.containsKey(null) : "No order number can be null!";
-    assert !orders.containsValue(null) : "No Order Number can point to a null order object!";
+    return orders.getNumbers();
+  }
 
-    return orders.values().stream()
-        .map(CateringCompanyOrder::getNumber)
-        .collect(Collectors.toList());
+  @Override
+  public List<CateringCompanyOrder> getOrders() {
+    return orders.getOrders();
   }
 
   @Override
@@ -335,31 +675,60 @@ public class ShieldingIndividualModelImp implements ShieldingIndividualModel {
 
   @Override
   public List<String> getCateringCompanies() {
-    String request = QueryStrings.GET_CATERERS.toString();
-    List<String> caterers = null;
-    try {
-      String response = ClientIO.doGETRequest(endpoint + request);
-      Type type = new TypeToken<List<String>>() {}.getType();
-      caterers = new Gson().fromJson(response, type);
-      caterers.removeIf(Objects::isNull);
-      caterers.removeIf(String::isEmpty);
-    } catch (JsonSyntaxException e) {
-      System.err.println("ERROR: JSON syntax invalid.");
-      e.printStackTrace();
-    } catch (RuntimeException | IOException e) {
-      System.err.println("ERROR: HTTP get request failed.");
-      e.printStackTrace();
-    } catch (Exception e) {
-      e.printStackTrace();
-    }
-    return caterers;
+    List<String> caterers = catererDirectory.getCaterers();
+    return Objects.isNull(caterers) ? null : new ArrayList<>(caterers);
+  }
+
+  @Override
+  public CompletableFuture<List<String>> getCateringCompaniesAsync() {
+    return catererDirectory
+        .getCaterersAsync()
+        .thenApply(caterers -> Objects.isNull(caterers) ? null : new ArrayList<>(caterers));
   }
 
   @Override
   public Float getDistance(String postCode1, String postCode2) {
     assert Objects.nonNull(postCode1) && Objects.nonNull(postCode2) : "Post codes cannot be null";
 
-    float distance = INVALID_DISTANCE;
+    Float cachedDistance = DistanceCache.shared().get(postCode1, postCode2);
+    if (Objects.nonNull(cachedDistance)) {
+      return cachedDistance;
+    }
+    Float distance = fetchDistance(postCode1, postCode2);
+    if (Objects.isNull(distance)) {
+      return INVALID_DISTANCE;
+    }
+    // A lookup cancelled by an interrupt says nothing about the post codes
+    if (!Thread.currentThread().isInterrupted()) {
+      DistanceCache.shared().put(postCode1, postCode2, distance);
+    }
+    return distance;
+  }
+
+  @Override
+  public CompletableFuture<Float> getDistanceAsync(String postCode1, String postCode2) {
+    assert Objects.nonNull(postCode1) && Objects.nonNull(postCode2) : "Post codes cannot be null";
+
+    Float cachedDistance = DistanceCache.shared().get(postCode1, postCode2);
+    if (Objects.nonNull(cachedDistance)) {
+      return CompletableFuture.completedFuture(cachedDistance);
+    }
+    return fetchDistanceAsync(postCode1, postCode2)
+        .thenApply(
+            distance -> {
+              if (Objects.isNull(distance)) {
+                return INVALID_DISTANCE;
+              }
+              DistanceCache.shared().put(postCode1, postCode2, distance);
+              return distance;
+            });
+  }
+
+  // Requests the distance between two post codes from the server, bypassing the cache. Returns
+  // null if the request or the parsing of the response failed, which must not be cached, as
+  // opposed to a negative distance answered by the server.
+  private Float fetchDistance(String postCode1, String postCode2) {
+    Float distance = null;
     try {
       String request = QueryStringFormatter.distanceRequest(postCode1, postCode2);
       String response = ClientIO.doGETRequest(endpoint + request);
@@ -376,37 +745,260 @@ public class ShieldingIndividualModelImp implements ShieldingIndividualModel {
     return distance;
   }
 
+  // Requests the distance asynchronously, the future holds null if the lookup failed
+  private CompletableFuture<Float> fetchDistanceAsync(String postCode1, String postCode2) {
+    String request = QueryStringFormatter.distanceRequest(postCode1, postCode2);
+    return ClientIO.doGETRequestAsync(endpoint + request)
+        .thenApply(Float::valueOf)
+        .exceptionally(ClientIO.recover(null));
+  }
+
+  // Returns the distance to a catering company, looking up the cache by packed post codes
+  private float distanceTo(int postCodeKey, Caterer caterer) {
+    Float cachedDistance = DistanceCache.shared().get(postCodeKey, caterer.getPostCodeKey());
+    if (Objects.nonNull(cachedDistance)) {
+      return cachedDistance;
+    }
+    Float distance = fetchDistance(this.postCode, caterer.getPostCode());
+    if (Objects.isNull(distance)) {
+      return INVALID_DISTANCE;
+    }
+    if (!Thread.currentThread().isInterrupted()) {
+      DistanceCache.shared().put(postCodeKey, caterer.getPostCodeKey(), distance);
+    }
+    return distance;
+  }
+
+  private CompletableFuture<Float> distanceToAsync(int postCodeKey, Caterer caterer) {
+    Float cachedDistance = DistanceCache.shared().get(postCodeKey, caterer.getPostCodeKey());
+    if (Objects.nonNull(cachedDistance)) {
+      return CompletableFuture.completedFuture(cachedDistance);
+    }
+    return fetchDistanceAsync(this.postCode, caterer.getPostCode())
+        .thenApply(
+            distance -> {
+              if (Objects.isNull(distance)) {
+                return INVALID_DISTANCE;
+              }
+              DistanceCache.shared().put(postCodeKey, caterer.getPostCodeKey(), distance);
+              return distance;
+            });
+  }
+
   @Override
   public String getClosestCateringCompany() {
-    List<String> caterers = getCateringCompanies();
-    if (Objects.isNull(caterers)) {
+    Caterer caterer = findClosestCaterer();
+    return Objects.isNull(caterer) ? null : caterer.toString();
+  }
+
+  @Override
+  public List<String> getClosestCateringCompanies(int k) {
+    assert k > 0 : "At least one catering company must be requested.";
+
+    CatererRanking ranked = rankCaterers(Math.max(k, CLOSEST_CATERERS_RANKED));
+    if (Objects.isNull(ranked)) {
+      return null;
+    }
+    List<Caterer> caterers = ranked.getCaterers();
+    List<String> companies = new ArrayList<>(Math.min(k, caterers.size()));
+    for (int rank = 0; rank < k && rank < caterers.size(); rank++) {
+      companies.add(caterers.get(rank).toString());
+    }
+    return companies;
+  }
+
+  // Finds the closest catering company, returns null if there is none or no distance is known
+  private Caterer findClosestCaterer() {
+    CatererRanking ranked = rankCaterers(CLOSEST_CATERERS_RANKED);
+    return Objects.isNull(ranked) || ranked.isEmpty() ? null : ranked.getCaterers().get(0);
+  }
+
+  /**
+   * Ranks the {@code k} closest catering companies, reusing the ranking kept on the session if it
+   * was computed from the same catering companies and post code, or else the ranking shared by the
+   * individuals at the same post code (see {@link ClosestCatererCache}). Otherwise the distances to
+   * the candidates are looked up and the new ranking is kept.
+   *
+   * @param k the number of catering companies to rank
+   * @return the ranking, or null if there are no catering companies or any error occurs
+   */
+  private CatererRanking rankCaterers(int k) {
+    CatererIndex index = catererDirectory.getIndex();
+    if (Objects.isNull(index)) {
       return null;
     }
-    int minIndex = -1;
-    float minDistance = Float.POSITIVE_INFINITY;
+    String postCode = this.postCode;
+    CatererRanking kept = ranking;
+    if (Objects.nonNull(kept) && kept.isValidFor(index, postCode, k)) {
+      return kept;
+    }
+    int postCodeKey = PostCode.toKey(postCode);
+    if (postCodeKey == PostCode.INVALID_KEY) {
+      // Post codes outside of Edinburgh have no key, so their rankings are not shared
+      return keepRanking(searchCaterers(index, postCode, k));
+    }
+    CatererRanking ranked =
+        closestCaterers
+            .getRanking(
+                postCodeKey,
+                index,
+                k,
+                () -> CompletableFuture.completedFuture(searchCaterers(index, postCode, k)))
+            .join();
+    return keepRanking(ranked);
+  }
 
-    // Find closest catering company
+  // Looks up the distances to the candidates and ranks them, returns null if any error occurs
+  private CatererRanking searchCaterers(CatererIndex index, String postCode, int k) {
+    CatererCandidates candidates = preselectCaterers(index, postCode, k);
     try {
-      for (int i = 0; i < caterers.size(); i++) {
-        String company = caterers.get(i);
+      return CatererRanking.rank(
+          index, postCode, candidates, lookUpDistances(candidates.getCaterers()), k);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      System.err.println("ERROR: Interrupted while looking for the closest catering company.");
+    } catch (Exception e) {
+      e.printStackTrace();
+    }
+    return null;
+  }
 
-        int index = company.lastIndexOf(CATERING_COMPANY_INFO_DELIMITER);
-        String companyPostCode = company.substring(index + 1);
-        float distance = getDistance(this.postCode, companyPostCode);
+  // Keeps a new ranking on the session, returns it
+  private CatererRanking keepRanking(CatererRanking ranked) {
+    if (Objects.isNull(ranked)) {
+      return null;
+    }
+    if (ranked.isEmpty()) {
+      System.err.println("ERROR: No distance to a catering company is known.");
+    }
+    ranking = ranked;
+    return ranked;
+  }
+
+  // Narrows the catering companies down to those worth an exact distance lookup, i.e. the ones
+  // nearest to the individual according to the local district centroids, up to a cap
+  private static CatererCandidates preselectCaterers(
+      CatererIndex index, String postCode, int k) {
+    int candidates = Math.max(k, CLOSEST_CATERER_CANDIDATES);
+    return index.nearest(
+        PostCode.toKey(postCode), candidates, Math.max(candidates, CLOSEST_CATERER_MAX_CANDIDATES));
+  }
+
+  /**
+   * Looks up the distance to every candidate of a closest catering company search.
+   *
+   * <p>The lookups run in parallel on the bounded {@link ClientExecutors#fanOut} executor. Lookups
+   * that have not completed by the deadline are cancelled, and their distances are left unknown.
+   *
+   * @return the distance to each candidate, NaN if it is unknown
+   */
+  private float[] lookUpDistances(List<Caterer> caterers) throws InterruptedException {
+    int count = caterers.size();
+    int postCodeKey = PostCode.toKey(this.postCode);
+    float[] lookedUp = new float[count];
+    CompletionService<Integer> completionService =
+        new ExecutorCompletionService<>(ClientExecutors.fanOut());
+    List<Future<Integer>> lookups = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      int index = i;
+      Caterer caterer = caterers.get(i);
+      lookups.add(
+          completionService.submit(
+              () -> {
+                lookedUp[index] = distanceTo(postCodeKey, caterer);
+                return index;
+              }));
+    }
 
-        if (distance >= 0 && distance < minDistance) {
-          minDistance = distance;
-          minIndex = i;
+    // Only the distances of completed lookups are read, a cancelled one may still be writing
+    float[] distances = new float[count];
+    Arrays.fill(distances, Float.NaN);
+    long deadline = System.nanoTime() + CLOSEST_CATERER_DEADLINE_NANOS;
+    try {
+      for (int received = 0; received < count; received++) {
+        Future<Integer> lookup =
+            completionService.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        if (Objects.isNull(lookup)) {
+          System.err.println("ERROR: Distance lookups did not complete before the deadline.");
+          break;
+        }
+        int index = indexOf(lookup);
+        if (index >= 0) {
+          distances[index] = lookedUp[index];
         }
       }
-      return caterers.get(minIndex);
-    } catch (NullPointerException | IndexOutOfBoundsException e) {
-      System.err.println("ERROR: Catering company details are invalid");
-      e.printStackTrace();
-    } catch (Exception e) {
+    } finally {
+      for (Future<Integer> lookup : lookups) {
+        lookup.cancel(true);
+      }
+    }
+    return distances;
+  }
+
+  // Returns the index of the catering company whose distance lookup has completed, or -1 if the
+  // lookup failed
+  private static int indexOf(Future<Integer> lookup) throws InterruptedException {
+    try {
+      return lookup.get();
+    } catch (ExecutionException e) {
       e.printStackTrace();
+      return -1;
     }
-    return null;
+  }
+
+  @Override
+  public CompletableFuture<String> getClosestCateringCompanyAsync() {
+    return rankCaterersAsync(CLOSEST_CATERERS_RANKED)
+        .thenApply(
+            ranked ->
+                Objects.isNull(ranked) || ranked.isEmpty()
+                    ? null
+                    : ranked.getCaterers().get(0).toString());
+  }
+
+  // Asynchronous twin of rankCaterers
+  private CompletableFuture<CatererRanking> rankCaterersAsync(int k) {
+    String postCode = this.postCode;
+    return catererDirectory
+        .getIndexAsync()
+        .thenCompose(
+            index -> {
+              if (Objects.isNull(index)) {
+                return CompletableFuture.completedFuture(null);
+              }
+              CatererRanking kept = ranking;
+              if (Objects.nonNull(kept) && kept.isValidFor(index, postCode, k)) {
+                return CompletableFuture.completedFuture(kept);
+              }
+              int postCodeKey = PostCode.toKey(postCode);
+              if (postCodeKey == PostCode.INVALID_KEY) {
+                return searchCaterersAsync(index, postCode, k);
+              }
+              return closestCaterers.getRanking(
+                  postCodeKey, index, k, () -> searchCaterersAsync(index, postCode, k));
+            })
+        .thenApply(this::keepRanking)
+        .exceptionally(ClientIO.recover(null));
+  }
+
+  // Asynchronous twin of searchCaterers, all distance requests are in flight at the same time
+  private CompletableFuture<CatererRanking> searchCaterersAsync(
+      CatererIndex index, String postCode, int k) {
+    CatererCandidates candidates = preselectCaterers(index, postCode, k);
+    int postCodeKey = PostCode.toKey(postCode);
+    List<CompletableFuture<Float>> lookups = new ArrayList<>(candidates.getCaterers().size());
+    for (Caterer caterer : candidates.getCaterers()) {
+      lookups.add(distanceToAsync(postCodeKey, caterer));
+    }
+    return CompletableFuture.allOf(lookups.toArray(new CompletableFuture<?>[0]))
+        .thenApply(
+            ignored -> {
+              float[] distances = new float[lookups.size()];
+              for (int i = 0; i < distances.length; i++) {
+                distances[i] = lookups.get(i).join();
+              }
+              return CatererRanking.rank(index, postCode, candidates, distances, k);
+            });
   }
 
   // --------------- ACCESSOR METHODS RELATED TO SHIELDING INDIVIDUAL ---------------
@@ -443,96 +1035,63 @@ public class ShieldingIndividualModelImp implements ShieldingIndividualModel {
 
   // ---------------- METHODS RELATED TO FOOD BOXES ----------------
 
-  // Caches food boxes
-  private void cacheFoodBoxes() {
-    try {
-      String response = ClientIO.doGETRequest(endpoint + QueryStrings.SHOW_FOOD_BOX.toString());
-      Type listType = new TypeToken<List<FoodBox>>() {}.getType();
-      cachedFoodBoxes = new Gson().fromJson(response, listType);
-    } catch (JsonSyntaxException e) {
-      System.err.println("ERROR: Invalid JSON format");
-      e.printStackTrace();
-    } catch (RuntimeException | IOException e) {
-      System.err.println("ERROR: Invalid HTTP get request to the server");
-      e.printStackTrace();
-    } catch (Exception e) {
-      e.printStackTrace();
-    }
+  // Returns the indexed catalog of all food boxes on the server
+  private FoodBoxCatalog getCatalog() {
+    return catalogService.getCatalog();
   }
 
   @Override
   public int getFoodBoxNumber() {
-    List<FoodBox> allFoodBoxes = getAllFoodBoxes();
-    if (Objects.isNull(allFoodBoxes)) {
+    FoodBoxCatalog catalog = getCatalog();
+    if (Objects.isNull(catalog)) {
       return -1;
     }
-    return allFoodBoxes.size();
-  }
-
-  // Returns the list of all food boxes on the server
-  private List<FoodBox> getAllFoodBoxes() {
-    if (Objects.isNull(cachedFoodBoxes)) {
-      cacheFoodBoxes();
-    }
-    return cachedFoodBoxes;
+    return catalog.size();
   }
 
   @Override
   public Collection<String> getFoodBoxIds(DietaryPreference preference) {
-    List<FoodBox> allFoodBoxes = getAllFoodBoxes();
-    if (Objects.isNull(allFoodBoxes)) {
+    FoodBoxCatalog catalog = getCatalog();
+    if (Objects.isNull(catalog)) {
       return null;
     }
-    Stream<FoodBox> foodBoxStream;
-    if (preference == DietaryPreference.NO_PREFERENCE) {
-      foodBoxStream = allFoodBoxes.stream();
-    } else {
-      foodBoxStream =
-          allFoodBoxes.stream().filter(box -> box.getDiet().equals(preference.toString()));
-    }
-    return foodBoxStream.map(FoodBox::getId).collect(Collectors.toList());
+    // The catalog's lists are shared by all models, callers get a copy of their own
+    return new ArrayList<>(catalog.getFoodBoxIds(preference));
   }
 
   @Override
   public String getDietaryPreferenceForFoodBox(int foodBoxId) {
     assert foodBoxId >= 0 : "Invalid food box ID";
 
-    List<FoodBox> allFoodBoxes = getAllFoodBoxes();
-    if (Objects.isNull(allFoodBoxes)) {
+    FoodBoxCatalog catalog = getCatalog();
+    if (Objects.isNull(catalog)) {
       return null;
     }
-    String dietaryPreference = null;
-    String stringifiedId = String.valueOf(foodBoxId);
-    for (FoodBox box : allFoodBoxes) {
-      if (Objects.nonNull(box)
-          && Objects.nonNull(box.getId())
-          && stringifiedId.equals(box.getId())) {
-        dietaryPreference = box.getDiet();
-      }
-    }
-    return dietaryPreference;
+    return catalog.getDietaryPreference(foodBoxId);
   }
 
   @Override
   public List<Integer> getItemIdsForFoodBox(int foodBoxId) {
     assert foodBoxId >= 0 : "Invalid food box ID";
 
-    FoodBox box = findMatchingFoodBox(foodBoxId);
-    if (Objects.isNull(box) || Objects.isNull(box.getContents())) {
+    FoodBoxCatalog catalog = getCatalog();
+    if (Objects.isNull(catalog)) {
       return null;
     }
-    return box.getContents().stream().map(FoodBoxItem::getId).collect(Collectors.toList());
+    List<Integer> itemIds = catalog.getItemIds(foodBoxId);
+    return Objects.isNull(itemIds) ? null : new ArrayList<>(itemIds);
   }
 
   @Override
   public int getItemsNumberForFoodBox(int foodBoxId) {
     assert foodBoxId >= 0 : "Invalid food box ID";
 
-    FoodBox box = findMatchingFoodBox(foodBoxId);
-    if (Objects.isNull(box) || Objects.isNull(box.getContents())) {
+    FoodBoxCatalog catalog = getCatalog();
+    List<Integer> itemIds = Objects.isNull(catalog) ? null : catalog.getItemIds(foodBoxId);
+    if (Objects.isNull(itemIds)) {
       return INVALID_NUMBER_OF_ITEMS;
     }
-    return box.getContents().size();
+    return itemIds.size();
   }
 
   @Override
@@ -540,11 +1099,11 @@ public class ShieldingIndividualModelImp implements ShieldingIndividualModel {
     assert foodBoxId >= 0 : "Invalid food box ID";
     assert itemId >= 0 : "Invalid item ID";
 
-    FoodBox box = findMatchingFoodBox(foodBoxId);
-    if (Objects.isNull(box)) {
+    FoodBoxCatalog catalog = getCatalog();
+    if (Objects.isNull(catalog)) {
       return null;
     }
-    return box.getItemName(itemId);
+    return catalog.getItemName(itemId, foodBoxId);
   }
 
   @Override
@@ -552,26 +1111,20 @@ public class ShieldingIndividualModelImp implements ShieldingIndividualModel {
     assert foodBoxId >= 0 : "Invalid food box ID";
     assert itemId >= 0 : "Invalid item ID";
 
-    FoodBox box = findMatchingFoodBox(foodBoxId);
-    if (Objects.isNull(box)) {
+    FoodBoxCatalog catalog = getCatalog();
+    if (Objects.isNull(catalog)) {
       return INVALID_ITEM_QUANTITY;
     }
-    return box.getItemQuantity(itemId);
+    return catalog.getItemQuantity(itemId, foodBoxId);
   }
 
   // Finds a food box with a matching ID
   private FoodBox findMatchingFoodBox(int foodBoxId) {
-    List<FoodBox> allFoodBoxes = getAllFoodBoxes();
-    if (Objects.isNull(allFoodBoxes)) {
+    FoodBoxCatalog catalog = getCatalog();
+    if (Objects.isNull(catalog)) {
       return null;
     }
-    String stringifiedId = String.valueOf(foodBoxId);
-    for (FoodBox box : allFoodBoxes) {
-      if (Objects.nonNull(box) && stringifiedId.equals(box.getId())) {
-        return box;
-      }
-    }
-    return null;
+    return catalog.getFoodBox(foodBoxId);
   }
 
   // ---------------- METHODS RELATED TO PICKING A FOOD BOX ----------------
@@ -581,7 +1134,7 @@ public class ShieldingIndividualModelImp implements ShieldingIndividualModel {
     try {
       FoodBox matchingFoodBox = findMatchingFoodBox(foodBoxId);
       if (Objects.nonNull(matchingFoodBox)) {
-        pickedFoodBox = matchingFoodBox.copy();
+        pickedFoodBox.set(matchingFoodBox.copy());
         return true;
       }
       resetFoodBoxChoice();
@@ -593,7 +1146,7 @@ public class ShieldingIndividualModelImp implements ShieldingIndividualModel {
 
   // Resets food box choice
   private void resetFoodBoxChoice() {
-    pickedFoodBox = null;
+    pickedFoodBox.set(null);
   }
 
   @Override
@@ -601,10 +1154,11 @@ public class ShieldingIndividualModelImp implements ShieldingIndividualModel {
     assert quantity >= 0 : "Invalid item quantity";
     assert itemId >= 0 : "Invalid item ID";
 
-    if (Objects.isNull(pickedFoodBox)) {
+    FoodBox box = pickedFoodBox.get();
+    if (Objects.isNull(box)) {
       return false;
     }
-    return pickedFoodBox.setQuantityForItem(itemId, quantity, false);
+    return box.setQuantityForItem(itemId, quantity, false);
   }
 
   // --------------- METHODS ADDED FOR TESTING PURPOSES ---------------
@@ -612,19 +1166,55 @@ public class ShieldingIndividualModelImp implements ShieldingIndividualModel {
   public boolean addOrder(CateringCompanyOrder order) {
     assert Objects.nonNull(order) : "Order being added cannot be null";
 
-    orders.put(order.getNumber(), order);
-    mostRecentOrder = order;
+    orders.add(order);
+    orderRegistry.register(order, journal);
     return true;
   }
 
+  @Override
+  public void takeOver(ShieldingIndividualModel previous) {
+    assert previous instanceof ShieldingIndividualModelImp
+        : "Only the state of a model of the same kind can be taken over.";
+
+    ShieldingIndividualModelImp other = (ShieldingIndividualModelImp) previous;
+    setChi(other.chi);
+    this.postCode = other.postCode;
+    this.name = other.name;
+    this.surname = other.surname;
+    this.phoneNumber = other.phoneNumber;
+    // Shared rather than copied, so that orders still being placed by the other model end up here
+    this.orders = other.orders;
+    this.pickedFoodBox = other.pickedFoodBox;
+    other.ranking = null;
+  }
+
   @Override
   public void setRegistered(boolean registrationStatus) {
-    this.registered = registrationStatus;
+    synchronized (HOLDERS) {
+      this.registered = registrationStatus;
+      if (Objects.nonNull(chi)) {
+        if (registrationStatus) {
+          hold(chi);
+        } else {
+          release(chi);
+        }
+      }
+    }
   }
 
   @Override
   public void setChi(String chi) {
-    this.chi = chi;
+    synchronized (HOLDERS) {
+      // A registered model moves to the new CHI rather than holding both
+      if (registered && Objects.nonNull(this.chi) && !this.chi.equals(chi)) {
+        release(this.chi);
+        if (Objects.nonNull(chi)) {
+          hold(chi);
+        }
+      }
+      this.chi = chi;
+    }
+    this.placeOrderTemplate = null;
   }
 
   @Override
@@ -649,11 +1239,11 @@ public class ShieldingIndividualModelImp implements ShieldingIndividualModel {
 
   @Override
   public void setPickedFoodBox(FoodBox pickedFoodBox) {
-    this.pickedFoodBox = pickedFoodBox;
+    this.pickedFoodBox.set(pickedFoodBox);
   }
 
   @Override
   public FoodBox getPickedFoodBox() {
-    return registered ? pickedFoodBox : null;
+    return registered ? pickedFoodBox.get() : null;
   }
 }
@@ -0,0 +1,217 @@
+package shield;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Hosts the sessions of many shielding individuals in a single JVM, keyed by their CHI numbers.
+ *
+ * <p>A session is a {@link ShieldingIndividualClient} with its own lightweight state: the
+ * registration details, the picked food box and the orders of one individual. Everything else is
+ * shared by all sessions talking to the same server, i.e. the food box catalog, the directory of
+ * catering companies, the distance cache and the HTTP transport.
+ *
+ * <p>The number of live sessions is bounded by the setting {@code shield.sessions.maxLive} (see
+ * {@link ClientSettings}). When the bound is exceeded, the least recently used session is evicted.
+ * The model of an evicted session is marked as not registered, so clients still holding it can no
+ * longer act on behalf of the individual, but it is kept. When the session is opened again, a new
+ * model takes over its state (see {@link ShieldingIndividualModel#takeOver}): its registration
+ * details, so that the individual is not registered with the server a second time, which the
+ * server would refuse, and its orders and picked food box, which are shared rather than copied.
+ * The reopened session can therefore still edit, cancel and follow its orders, including an order
+ * the evicted model was still placing, and still enforces the minimum time between orders.
+ *
+ * <p>The bound applies to live sessions only. The models of evicted sessions are small, but one is
+ * kept for every individual who ever had a session, so they grow with the size of the cohort.
+ */
+public final class ShieldingIndividualSessionManager {
+  /** Default maximum number of live sessions */
+  private static final int DEFAULT_MAX_SESSIONS = 10_000;
+
+  private final Supplier<ShieldingIndividualModel> modelFactory;
+  private final Map<String, ShieldingIndividualModel> sessions;
+  /** Models of evicted sessions, keyed by CHI number, never pruned */
+  private final ConcurrentMap<String, ShieldingIndividualModel> evicted =
+      new ConcurrentHashMap<>();
+  /** Sessions being opened, so that an individual is never registered twice concurrently */
+  private final ConcurrentMap<String, CompletableFuture<ShieldingIndividualModel>> opening =
+      new ConcurrentHashMap<>();
+
+  /**
+   * Initialises a session manager.
+   *
+   * @param endpoint the endpoint used for remote communication with a server
+   */
+  public ShieldingIndividualSessionManager(String endpoint) {
+    this(
+        () -> new ShieldingIndividualModelImp(endpoint),
+        ClientSettings.getInt("sessions.maxLive", DEFAULT_MAX_SESSIONS));
+  }
+
+  /**
+   * Initialises a session manager.
+   *
+   * @param modelFactory creates the model of a new session
+   * @param maxSessions the maximum number of live sessions
+   */
+  ShieldingIndividualSessionManager(
+      Supplier<ShieldingIndividualModel> modelFactory, int maxSessions) {
+    assert maxSessions > 0 : "The maximum number of sessions must be positive.";
+
+    this.modelFactory = modelFactory;
+    this.sessions =
+        new LinkedHashMap<>(16, 0.75f, true) {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<String, ShieldingIndividualModel> eldest) {
+            if (size() <= maxSessions) {
+              return false;
+            }
+            evict(eldest.getKey(), eldest.getValue());
+            return true;
+          }
+        };
+  }
+
+  /**
+   * Returns the session of a shielding individual, opening it if necessary.
+   *
+   * <p>A new session registers the individual with the server, or, if the server reports that the
+   * individual registered before the client restarted, recovers them from the order journal (see
+   * {@link ShieldingIndividualModel#recover}). A session that was evicted is restored from its
+   * model instead.
+   *
+   * @param chi the CHI number of the shielding individual
+   * @return the session, or null if the CHI number is invalid or the registration failed
+   */
+  public ShieldingIndividualClient openSession(String chi) {
+    if (!ChiValidator.shared().isValid(chi)) {
+      return null;
+    }
+    ShieldingIndividualClient session = getSession(chi);
+    if (Objects.nonNull(session)) {
+      return session;
+    }
+
+    CompletableFuture<ShieldingIndividualModel> open = new CompletableFuture<>();
+    CompletableFuture<ShieldingIndividualModel> running = opening.putIfAbsent(chi, open);
+    ShieldingIndividualModel model = null;
+    if (Objects.nonNull(running)) {
+      model = running.join();
+    } else {
+      try {
+        model = openModel(chi);
+      } catch (RuntimeException e) {
+        System.err.println("ERROR: Failed to open the session of a shielding individual.");
+        e.printStackTrace();
+      } finally {
+        opening.remove(chi, open);
+        open.complete(model);
+      }
+    }
+    return Objects.isNull(model) ? null : new ShieldingIndividualClientImp(model);
+  }
+
+  // Creates, restores or looks up the model of a session and makes it live
+  private ShieldingIndividualModel openModel(String chi) {
+    synchronized (sessions) {
+      ShieldingIndividualModel model = sessions.get(chi);
+      if (Objects.nonNull(model)) {
+        // Opened by another thread since the first lookup
+        return model;
+      }
+    }
+    ShieldingIndividualModel model = modelFactory.get();
+    ShieldingIndividualModel previous = evicted.get(chi);
+    if (Objects.nonNull(previous)) {
+      model.takeOver(previous);
+      model.setRegistered(true);
+    } else if (!model.register(chi) && !model.recover(chi)) {
+      return null;
+    }
+    synchronized (sessions) {
+      // Before the put, which may evict the session again straight away
+      evicted.remove(chi);
+      sessions.put(chi, model);
+    }
+    return model;
+  }
+
+  // Marks the model of an evicted or closed session as no longer registered and keeps it
+  private void evict(String chi, ShieldingIndividualModel model) {
+    model.setRegistered(false);
+    evicted.put(chi, model);
+  }
+
+  /**
+   * Returns the live session of a shielding individual.
+   *
+   * @param chi the CHI number of the shielding individual
+   * @return the session, or null if the individual has no live session
+   */
+  public ShieldingIndividualClient getSession(String chi) {
+    ShieldingIndividualModel model;
+    synchronized (sessions) {
+      model = sessions.get(chi);
+    }
+    return Objects.isNull(model) ? null : new ShieldingIndividualClientImp(model);
+  }
+
+  /**
+   * Closes the session of a shielding individual, as if it had been evicted.
+   *
+   * @param chi the CHI number of the shielding individual
+   * @return true if the individual had a live session
+   */
+  public boolean closeSession(String chi) {
+    synchronized (sessions) {
+      ShieldingIndividualModel model = sessions.remove(chi);
+      if (Objects.isNull(model)) {
+        return false;
+      }
+      evict(chi, model);
+    }
+    return true;
+  }
+
+  /**
+   * Retrieves the statuses of the orders of all live sessions from the server.
+   *
+   * <p>The requests of all sessions share the bound on the number of status requests in flight
+   * (see {@link ShieldingIndividualModel#refreshAllOrderStatuses}).
+   *
+   * @return a summary of the orders whose status changed
+   */
+  public OrderStatusRefreshSummary refreshAllOrderStatuses() {
+    List<ShieldingIndividualModel> models;
+    synchronized (sessions) {
+      models = new ArrayList<>(sessions.values());
+    }
+    List<CompletableFuture<OrderStatusRefreshSummary>> refreshes = new ArrayList<>(models.size());
+    for (ShieldingIndividualModel model : models) {
+      refreshes.add(model.refreshAllOrderStatusesAsync());
+    }
+    List<OrderStatusRefreshSummary> summaries = new ArrayList<>(refreshes.size());
+    for (CompletableFuture<OrderStatusRefreshSummary> refresh : refreshes) {
+      summaries.add(refresh.join());
+    }
+    return OrderStatusRefreshSummary.merge(summaries);
+  }
+
+  /**
+   * Returns the number of live sessions.
+   *
+   * @return the number of live sessions
+   */
+  public int getSessionCount() {
+    synchronized (sessions) {
+      return sessions.size();
+    }
+  }
+}
@@ -1,8 +1,5 @@
 package shield;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
 import java.util.Objects;
 
 /** Example of a potential application for a supermarket. */
@@ -35,27 +32,13 @@ public class SupermarketClientImp implements SupermarketClient {
     if (isRegistered()) {
       return true;
     }
-    if (Objects.isNull(name) || !isValidPostCode(postCode)) {
+    if (Objects.isNull(name) || !PostCode.isValid(postCode)) {
       return false;
     }
 
     return model.register(name, postCode);
   }
 
-  /**
-   * Used to validate a particular post code to be in the Edinburgh format
-   *
-   * @param postCode post code to be validated
-   * @return true if the post code is valid
-   */
-  private boolean isValidPostCode(String postCode) {
-    if (Objects.isNull(postCode)) {
-      return false;
-    }
-    String postCodeRegex = "^[E][H][1-9][0-7]?[_][1-9][A-Z][A-Z]$";
-    return postCode.matches(postCodeRegex);
-  }
-
   /**
    * Notifies the Scottish government's system about a new supermarket order.
    *
@@ -70,7 +53,9 @@ public class SupermarketClientImp implements SupermarketClient {
    */
   @Override
   public boolean recordSupermarketOrder(String chi, int orderNumber) {
-    if (!isRegistered() || !isValidChi(chi) || !isValidOrderNumber(orderNumber)) {
+    if (!isRegistered()
+        || !ChiValidator.shared().isValid(chi)
+        || !isValidOrderNumber(orderNumber)) {
       return false;
     }
     return model.recordOrder(chi, orderNumber);
@@ -81,45 +66,6 @@ public class SupermarketClientImp implements SupermarketClient {
     return orderNumber >= 0;
   }
 
-  /**
-   * Checks if the given CHI number follows the <a
-   * href="https://datadictionary.nhs.uk/attributes/community_health_index_number.html">format
-   * specified by the * NHS </a>
-   *
-   * @param chi the CHI number to be validated
-   * @return true if the CHI number is valid.
-   */
-  private boolean isValidChi(String chi) {
-    if (Objects.isNull(chi)) {
-      return false;
-    }
-    String chiRegex = "^[0-9]{10}$";
-    if (!chi.matches(chiRegex)) {
-      return false;
-    }
-
-    String rawBirthDate = chi.substring(0, 6);
-    SimpleDateFormat formatter;
-    formatter = new SimpleDateFormat("ddMMyy");
-    formatter.setLenient(false); // Prevents lenience in edge cases such as "999999"
-
-    boolean success = false;
-    try {
-      Date birthDate = formatter.parse(rawBirthDate);
-      Date today = new Date();
-      // No need to treat the edge case where birthDate and today are equal, since Date contains a
-      // timestamp and today is initialised after birthDate
-      success = birthDate.before(today);
-    } catch (ParseException e) {
-      System.err.println("ERROR: Parsing birthdate in CHI failed.");
-      e.printStackTrace();
-    } catch (Exception e) {
-      e.printStackTrace();
-    }
-
-    return success;
-  }
-
   /**
    * Updates the status for an order with a matching number
    *
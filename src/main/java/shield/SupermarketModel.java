@@ -1,5 +1,7 @@
 package shield;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface SupermarketModel {
 
   /**
@@ -39,6 +41,43 @@ public interface SupermarketModel {
    */
   boolean updateOrder(int orderNumber, OrderStatus status);
 
+  /**
+   * Registers the supermarket without blocking the calling thread.
+   *
+   * <p>This is the asynchronous twin of {@link #register}. The returned future never completes
+   * exceptionally; it holds false if any error occurs.
+   *
+   * @param name the name of the supermarket
+   * @param postCode the post code of the supermarket
+   * @return a future holding true if the registration has been successful
+   */
+  CompletableFuture<Boolean> registerAsync(String name, String postCode);
+
+  /**
+   * Notifies the Scottish government's system about a new supermarket order without blocking the
+   * calling thread.
+   *
+   * <p>This is the asynchronous twin of {@link #recordOrder}. The returned future never completes
+   * exceptionally; it holds false if any error occurs.
+   *
+   * @param CHI is the CHI number used to record the supermarket order
+   * @param orderNumber is the order number to be recorded
+   * @return a future holding true if the order has been successfully recorded
+   */
+  CompletableFuture<Boolean> recordOrderAsync(String CHI, int orderNumber);
+
+  /**
+   * Updates the status of a particular order number without blocking the calling thread.
+   *
+   * <p>This is the asynchronous twin of {@link #updateOrder}. The returned future never completes
+   * exceptionally; it holds false if any error occurs.
+   *
+   * @param orderNumber the order number of the status to be updated
+   * @param status the status to which the order will be updated
+   * @return a future holding true if the status has been updated successfully
+   */
+  CompletableFuture<Boolean> updateOrderAsync(int orderNumber, OrderStatus status);
+
   /**
    * Checks if supermarket has been registered
    *
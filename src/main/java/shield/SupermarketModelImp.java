@@ -2,6 +2,7 @@ package shield;
 
 import java.io.IOException;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 
 /** Model implementation of the supermarket. */
 public class SupermarketModelImp implements SupermarketModel {
@@ -32,15 +33,7 @@ public class SupermarketModelImp implements SupermarketModel {
     String request = QueryStringFormatter.supermarketRegisterRequest(name, postCode);
     try {
       String response = ClientIO.doGETRequest(endpoint + request);
-      if (response.equals(ServerResponse.ALREADY_REGISTERED.toString())) {
-        return true;
-      }
-      if (response.equals(ServerResponse.REGISTRATION_SUCCESS.toString())) {
-        this.registered = true;
-        this.name = name;
-        this.postCode = postCode;
-        return true;
-      }
+      return handleRegistrationResponse(response, name, postCode);
     } catch (IOException | RuntimeException e) {
       System.err.println("ERROR: HTTP get request failed.");
       e.printStackTrace();
@@ -50,6 +43,31 @@ public class SupermarketModelImp implements SupermarketModel {
     return false;
   }
 
+  @Override
+  public CompletableFuture<Boolean> registerAsync(String name, String postCode) {
+    assert Objects.nonNull(name) : "Supermarket model should not receive null name.";
+    assert Objects.nonNull(postCode) : "Supermarket model should not receive null post code.";
+
+    String request = QueryStringFormatter.supermarketRegisterRequest(name, postCode);
+    return ClientIO.doGETRequestAsync(endpoint + request)
+        .thenApply(response -> handleRegistrationResponse(response, name, postCode))
+        .exceptionally(ClientIO.recover(false));
+  }
+
+  // Interprets the server's response to a registration request
+  private boolean handleRegistrationResponse(String response, String name, String postCode) {
+    if (response.equals(ServerResponse.ALREADY_REGISTERED.toString())) {
+      return true;
+    }
+    if (response.equals(ServerResponse.REGISTRATION_SUCCESS.toString())) {
+      this.registered = true;
+      this.name = name;
+      this.postCode = postCode;
+      return true;
+    }
+    return false;
+  }
+
   @Override
   public boolean recordOrder(String CHI, int orderNumber) {
     assert Objects.nonNull(CHI) : "The model should not receive null CHI.";
@@ -70,6 +88,18 @@ public class SupermarketModelImp implements SupermarketModel {
     return success;
   }
 
+  @Override
+  public CompletableFuture<Boolean> recordOrderAsync(String CHI, int orderNumber) {
+    assert Objects.nonNull(CHI) : "The model should not receive null CHI.";
+    assert isValidOrderNumber(orderNumber) : "The model should not receive invalid order number.";
+
+    String request;
+    request = QueryStringFormatter.recordSupermarketOrderRequest(CHI, orderNumber, name, postCode);
+    return ClientIO.doGETRequestAsync(endpoint + request)
+        .thenApply(response -> response.equals(ServerResponse.ORDER_RECORD_SUCCESS.toString()))
+        .exceptionally(ClientIO.recover(false));
+  }
+
   private boolean isValidOrderNumber(int orderNumber) {
     return orderNumber >= 0;
   }
@@ -83,7 +113,7 @@ public class SupermarketModelImp implements SupermarketModel {
     boolean success = false;
     try {
       String response = ClientIO.doGETRequest(endpoint + request);
-      success = response.equals(ServerResponse.ORDER_STATUS_UPDATE_SUCCESS.toString());
+      success = handleStatusUpdateResponse(response, orderNumber, status);
     } catch (IOException | RuntimeException e) {
       System.err.println("ERROR: HTTP get request failed.");
       e.printStackTrace();
@@ -93,6 +123,28 @@ public class SupermarketModelImp implements SupermarketModel {
     return success;
   }
 
+  @Override
+  public CompletableFuture<Boolean> updateOrderAsync(int orderNumber, OrderStatus status) {
+    assert isValidOrderNumber(orderNumber) : "The model should not receive invalid order number.";
+
+    String request =
+        QueryStringFormatter.updateSupermarketOrderRequest(orderNumber, status.toString());
+    return ClientIO.doGETRequestAsync(endpoint + request)
+        .thenApply(response -> handleStatusUpdateResponse(response, orderNumber, status))
+        .exceptionally(ClientIO.recover(false));
+  }
+
+  // Publishes a status update accepted by the server on the order status event bus; supermarket
+  // orders have no local copy, so their previous status is unknown
+  private static boolean handleStatusUpdateResponse(
+      String response, int orderNumber, OrderStatus status) {
+    if (!response.equals(ServerResponse.ORDER_STATUS_UPDATE_SUCCESS.toString())) {
+      return false;
+    }
+    OrderStatusEventBus.shared().publish(OrderKind.SUPERMARKET, orderNumber, null, status);
+    return true;
+  }
+
   @Override
   public boolean isRegistered() {
     return registered;
@@ -0,0 +1,323 @@
+package shield;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonIOException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Encoding and decoding of the JSON exchanged with the server.
+ *
+ * <p>All wire types are read and written by hand-written streaming adapters instead of Gson's
+ * reflective ones, and the configured {@link Gson} instance is created once. Gson instances and the
+ * adapters are immutable, so the codec can be used by any number of threads.
+ *
+ * <p>The adapters follow the conventions of a plain {@code new Gson()}: unknown fields are skipped,
+ * {@code null} values leave a field unset, numbers may be quoted and nulls are not written.
+ */
+final class WireCodec {
+  /** Type of the list of food boxes returned by {@code /showFoodBox}. */
+  static final Type FOOD_BOX_LIST_TYPE = new TypeToken<List<FoodBox>>() {}.getType();
+  /** Type of the lists of strings returned for caterers and registration details. */
+  static final Type STRING_LIST_TYPE = new TypeToken<List<String>>() {}.getType();
+
+  private static final TypeAdapter<String> STRING = new StringAdapter();
+  private static final TypeAdapter<FoodBoxItem> FOOD_BOX_ITEM = new FoodBoxItemAdapter();
+  private static final TypeAdapter<List<FoodBoxItem>> FOOD_BOX_ITEM_LIST =
+      new ListAdapter<>(FOOD_BOX_ITEM);
+  private static final TypeAdapter<FoodBox> FOOD_BOX = new FoodBoxAdapter();
+  private static final TypeAdapter<List<FoodBox>> FOOD_BOX_LIST = new ListAdapter<>(FOOD_BOX);
+  private static final TypeAdapter<List<String>> STRING_LIST = new ListAdapter<>(STRING);
+
+  /** Gson instance aware of all wire types. */
+  private static final Gson GSON =
+      new GsonBuilder()
+          .registerTypeAdapter(FoodBoxItem.class, FOOD_BOX_ITEM)
+          .registerTypeAdapter(FoodBox.class, FOOD_BOX)
+          .registerTypeAdapter(FOOD_BOX_LIST_TYPE, FOOD_BOX_LIST)
+          .registerTypeAdapter(STRING_LIST_TYPE, STRING_LIST)
+          .create();
+
+  private static final ClientIO.ResponseHandler<List<FoodBox>> FOOD_BOX_LIST_HANDLER =
+      ClientIO.jsonHandler(GSON, FOOD_BOX_LIST_TYPE);
+  private static final ClientIO.ResponseHandler<List<String>> STRING_LIST_HANDLER =
+      ClientIO.jsonHandler(GSON, STRING_LIST_TYPE);
+
+  private WireCodec() {
+    // Private constructor essentially makes this a static class
+  }
+
+  /**
+   * Returns the Gson instance aware of all wire types.
+   *
+   * @return the shared Gson instance
+   */
+  static Gson gson() {
+    return GSON;
+  }
+
+  /**
+   * Returns a handler decoding a list of food boxes while it is streamed from the server.
+   *
+   * @return the response handler
+   */
+  static ClientIO.ResponseHandler<List<FoodBox>> foodBoxListHandler() {
+    return FOOD_BOX_LIST_HANDLER;
+  }
+
+  /**
+   * Returns a handler decoding a list of strings while it is streamed from the server.
+   *
+   * @return the response handler
+   */
+  static ClientIO.ResponseHandler<List<String>> stringListHandler() {
+    return STRING_LIST_HANDLER;
+  }
+
+  /**
+   * Decodes a list of strings, such as the caterers or the details of a shielding individual.
+   *
+   * @param json the JSON returned by the server
+   * @return a modifiable list of strings, or null if the JSON is empty
+   * @throws com.google.gson.JsonSyntaxException if the JSON is not a list of strings
+   */
+  static List<String> parseStringList(String json) {
+    return GSON.fromJson(json, STRING_LIST_TYPE);
+  }
+
+  /**
+   * Encodes a food box as expected by the server when an order is placed or edited.
+   *
+   * <p>Only the contents of the food box are written, and every item carries the quantity offered
+   * by the catering company.
+   *
+   * @param box the food box
+   * @return the stringified JSON object
+   */
+  static String toOrderJson(FoodBox box) {
+    StringWriter json = new StringWriter();
+    try {
+      writeOrderJson(box, json);
+    } catch (IOException e) {
+      throw new JsonIOException(e);
+    }
+    return json.toString();
+  }
+
+  /**
+   * Encodes a food box as expected by the server when an order is placed or edited, as UTF-8.
+   *
+   * @param box the food box
+   * @return the UTF-8 encoded JSON object
+   * @see #toOrderJson
+   */
+  static byte[] toOrderPayload(FoodBox box) {
+    ByteArrayOutputStream payload = new ByteArrayOutputStream(256);
+    try {
+      Writer json = new OutputStreamWriter(payload, StandardCharsets.UTF_8);
+      writeOrderJson(box, json);
+      json.flush();
+    } catch (IOException e) {
+      throw new JsonIOException(e);
+    }
+    return payload.toByteArray();
+  }
+
+  private static void writeOrderJson(FoodBox box, Writer json) throws IOException {
+    JsonWriter writer = newWriter(json);
+    writer.beginObject();
+    if (Objects.nonNull(box.getContents())) {
+      writer.name("contents");
+      FOOD_BOX_ITEM_LIST.write(writer, box.getContents());
+    }
+    writer.endObject();
+    writer.flush();
+  }
+
+  // Creates a writer with the same settings as a default Gson instance
+  private static JsonWriter newWriter(Writer json) {
+    JsonWriter writer = new JsonWriter(json);
+    writer.setHtmlSafe(true);
+    writer.setSerializeNulls(false);
+    return writer;
+  }
+
+  /** Reads strings leniently: numbers and booleans are converted to strings. */
+  private static final class StringAdapter extends TypeAdapter<String> {
+    @Override
+    public void write(JsonWriter out, String value) throws IOException {
+      out.value(value);
+    }
+
+    @Override
+    public String read(JsonReader in) throws IOException {
+      JsonToken token = in.peek();
+      if (token == JsonToken.NULL) {
+        in.nextNull();
+        return null;
+      }
+      if (token == JsonToken.BOOLEAN) {
+        return Boolean.toString(in.nextBoolean());
+      }
+      return in.nextString();
+    }
+  }
+
+  /** Reads and writes JSON arrays as modifiable lists. */
+  private static final class ListAdapter<E> extends TypeAdapter<List<E>> {
+    private final TypeAdapter<E> elementAdapter;
+
+    ListAdapter(TypeAdapter<E> elementAdapter) {
+      this.elementAdapter = elementAdapter;
+    }
+
+    @Override
+    public void write(JsonWriter out, List<E> list) throws IOException {
+      if (Objects.isNull(list)) {
+        out.nullValue();
+        return;
+      }
+      out.beginArray();
+      for (E element : list) {
+        elementAdapter.write(out, element);
+      }
+      out.endArray();
+    }
+
+    @Override
+    public List<E> read(JsonReader in) throws IOException {
+      if (in.peek() == JsonToken.NULL) {
+        in.nextNull();
+        return null;
+      }
+      List<E> list = new ArrayList<>();
+      in.beginArray();
+      while (in.hasNext()) {
+        list.add(elementAdapter.read(in));
+      }
+      in.endArray();
+      return list;
+    }
+  }
+
+  /** Reads and writes food box items field by field. */
+  private static final class FoodBoxItemAdapter extends TypeAdapter<FoodBoxItem> {
+    @Override
+    public void write(JsonWriter out, FoodBoxItem item) throws IOException {
+      if (Objects.isNull(item)) {
+        out.nullValue();
+        return;
+      }
+      out.beginObject();
+      out.name("id").value(item.getId());
+      out.name("name").value(item.getName());
+      out.name("quantity").value(item.getQuantity());
+      out.endObject();
+    }
+
+    @Override
+    public FoodBoxItem read(JsonReader in) throws IOException {
+      if (in.peek() == JsonToken.NULL) {
+        in.nextNull();
+        return null;
+      }
+      int id = 0;
+      String name = null;
+      int quantity = 0;
+      in.beginObject();
+      while (in.hasNext()) {
+        String field = in.nextName();
+        if (in.peek() == JsonToken.NULL) {
+          in.nextNull();
+          continue;
+        }
+        switch (field) {
+          case "id":
+            id = in.nextInt();
+            break;
+          case "name":
+            name = STRING.read(in);
+            break;
+          case "quantity":
+            quantity = in.nextInt();
+            break;
+          default:
+            in.skipValue();
+        }
+      }
+      in.endObject();
+      return new FoodBoxItem(id, name, quantity);
+    }
+  }
+
+  /** Reads and writes food boxes field by field. */
+  private static final class FoodBoxAdapter extends TypeAdapter<FoodBox> {
+    @Override
+    public void write(JsonWriter out, FoodBox box) throws IOException {
+      if (Objects.isNull(box)) {
+        out.nullValue();
+        return;
+      }
+      out.beginObject();
+      out.name("contents");
+      FOOD_BOX_ITEM_LIST.write(out, box.getContents());
+      out.name("delivered_by").value(box.getDeliveredBy());
+      out.name("diet").value(box.getDiet());
+      out.name("id").value(box.getId());
+      out.name("name").value(box.getName());
+      out.endObject();
+    }
+
+    @Override
+    public FoodBox read(JsonReader in) throws IOException {
+      if (in.peek() == JsonToken.NULL) {
+        in.nextNull();
+        return null;
+      }
+      List<FoodBoxItem> contents = null;
+      String deliveredBy = null;
+      String diet = null;
+      String id = null;
+      String name = null;
+      in.beginObject();
+      while (in.hasNext()) {
+        String field = in.nextName();
+        switch (field) {
+          case "contents":
+            contents = FOOD_BOX_ITEM_LIST.read(in);
+            break;
+          case "delivered_by":
+            deliveredBy = STRING.read(in);
+            break;
+          case "diet":
+            diet = STRING.read(in);
+            break;
+          case "id":
+            id = STRING.read(in);
+            break;
+          case "name":
+            name = STRING.read(in);
+            break;
+          default:
+            in.skipValue();
+        }
+      }
+      in.endObject();
+      return new FoodBox(contents, deliveredBy, diet, id, name);
+    }
+  }
+}
@@ -0,0 +1,143 @@
+package shield;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the class BulkRegistrar.
+ */
+public class BulkRegistrarTest {
+  /** Response of the (simulated) server to a successful registration. */
+  private static final String DETAILS = "[\"EH1 2AB\",\"name\",\"surname\",\"0123456789\"]";
+  /** CHI numbers which the (simulated) server has registered. */
+  private Set<String> registeredChis;
+  /** Number of registration requests sent to the (simulated) server. */
+  private AtomicInteger requests;
+  /** CHI number for which the (simulated) server fails, if any. */
+  private String failingChi;
+  /** Directory holding the files of a test. */
+  private Path directory;
+
+  @BeforeEach
+  public void setup() throws IOException {
+    registeredChis = ConcurrentHashMap.newKeySet();
+    requests = new AtomicInteger();
+    failingChi = null;
+    directory = Files.createTempDirectory("bulk-registrar");
+  }
+
+  // Creates a registrar talking to the simulated server
+  private BulkRegistrar registrar(int batchSize) {
+    return registrar(batchSize, null);
+  }
+
+  // Creates a registrar talking to the simulated server and recording to a journal
+  private BulkRegistrar registrar(int batchSize, OrderJournal journal) {
+    return new BulkRegistrar(
+        chi -> {
+          requests.incrementAndGet();
+          if (chi.equals(failingChi)) {
+            return CompletableFuture.failedFuture(new IOException("Connection refused"));
+          }
+          String response =
+              registeredChis.add(chi) ? DETAILS : ServerResponse.ALREADY_REGISTERED.toString();
+          return CompletableFuture.supplyAsync(() -> response);
+        },
+        journal,
+        2,
+        batchSize);
+  }
+
+  private Path chiFile(String... chis) throws IOException {
+    Path file = directory.resolve("chis.txt");
+    Files.write(file, Arrays.asList(chis), StandardCharsets.UTF_8);
+    return file;
+  }
+
+  /**
+   * Tests that every line of the file is counted exactly once.
+   */
+  @Test
+  public void testReport() throws Exception {
+    Path chis = chiFile("0101011234", "", "bad", "0202021234", "0101011234", "0303031234");
+    failingChi = "0303031234";
+    BulkRegistrar.Report report = registrar(4).register(chis, directory.resolve("checkpoint"));
+
+    assertEquals(2, report.getRegistered(), "New individuals should be registered.");
+    assertEquals(1, report.getAlreadyRegistered(), "Duplicates should be reported.");
+    assertEquals(1, report.getInvalid(), "Invalid CHI numbers should not be sent.");
+    assertEquals(1, report.getFailed(), "Failed requests should be reported.");
+    assertEquals(4, requests.get(), "Only valid CHI numbers should be sent.");
+    assertEquals("6", readCheckpoint(), "The checkpoint should cover the whole file.");
+  }
+
+  /**
+   * Tests that a run resumes after the lines recorded in the checkpoint.
+   */
+  @Test
+  public void testResume() throws Exception {
+    Path chis = chiFile("0101011234", "0202021234", "0303031234", "0404041234", "0505051234");
+    Path checkpoint = directory.resolve("checkpoint");
+    Files.write(checkpoint, "2".getBytes(StandardCharsets.UTF_8));
+
+    BulkRegistrar.Report report = registrar(2).register(chis, checkpoint);
+    assertEquals(2, report.getSkippedLines(), "Processed lines should be skipped.");
+    assertEquals(3, report.getRegistered(), "The remaining individuals should be registered.");
+    assertEquals(3, requests.get(), "Processed lines should not be sent again.");
+    assertEquals("5", readCheckpoint(), "The checkpoint should cover the whole file.");
+
+    report = registrar(2).register(chis, checkpoint);
+    assertEquals(0, report.getRegistered(), "A completed run should not register anyone.");
+    assertEquals(3, requests.get(), "A completed run should not send any request.");
+  }
+
+  /**
+   * Tests that an individual registered in bulk can open a session, which the server would refuse
+   * to register again.
+   */
+  @Test
+  public void testSessionAfterBulkRun() throws Exception {
+    Path chis = chiFile("0101011234", "0202021234");
+    try (OrderJournal journal = OrderJournal.open(directory.resolve("journal"), 1000)) {
+      registrar(2, journal).register(chis, directory.resolve("checkpoint"));
+
+      ShieldingIndividualSessionManager manager =
+          new ShieldingIndividualSessionManager(
+              () ->
+                  new ShieldingIndividualModelImp("http://bulk.test", journal) {
+                    @Override
+                    public boolean register(String chi) {
+                      // The server has registered everyone in the file already
+                      return false;
+                    }
+                  },
+              10);
+      ShieldingIndividualClient session = manager.openSession("0202021234");
+      assertNotNull(session, "An individual registered in bulk should get a session.");
+      assertTrue(session.isRegistered(), "The session should be registered.");
+      assertEquals(
+          "EH1_2AB",
+          ((ShieldingIndividualClientImp) session).getPostCode(),
+          "The details returned to the bulk run should be recovered.");
+      assertNull(manager.openSession("0303031234"), "Unknown individuals get no session.");
+    }
+  }
+
+  private String readCheckpoint() throws IOException {
+    return new String(Files.readAllBytes(directory.resolve("checkpoint")), StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,138 @@
+package shield;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the class CatererDirectory.
+ */
+public class CatererDirectoryTest {
+  /** Time to live of the lists of the directory under test. */
+  private static final long TTL_NANOS = TimeUnit.SECONDS.toNanos(30);
+  /** The current time as seen by the directory. */
+  private long now;
+  /** Number of downloads started by the directory. */
+  private AtomicInteger downloads;
+  /** Catering companies returned by the next download, null to simulate a failure. */
+  private List<String> nextCaterers;
+  /** Asynchronous downloads which have been submitted but not run yet. */
+  private Queue<Runnable> pendingDownloads;
+  /** The directory under test. */
+  private CatererDirectory directory;
+
+  @BeforeEach
+  public void setup() {
+    now = 0;
+    downloads = new AtomicInteger();
+    nextCaterers = caterers("1,a,EH1_1AA");
+    pendingDownloads = new ArrayDeque<>();
+    directory =
+        new CatererDirectory(
+            () -> {
+              downloads.incrementAndGet();
+              return nextCaterers;
+            },
+            TTL_NANOS,
+            () -> now,
+            pendingDownloads::add);
+  }
+
+  private static List<String> caterers(String... caterers) {
+    return new ArrayList<>(Arrays.asList(caterers));
+  }
+
+  /**
+   * Tests that a list is reused until it expires.
+   */
+  @Test
+  public void testListIsReusedUntilItExpires() {
+    List<String> caterers = directory.getCaterers();
+    assertEquals(caterers("1,a,EH1_1AA"), caterers, "The downloaded list should be returned.");
+    assertSame(caterers, directory.getCaterers(), "A fresh list should be reused.");
+    assertEquals(1, downloads.get(), "A fresh list should not be downloaded again.");
+
+    now += TTL_NANOS;
+    nextCaterers = caterers("1,a,EH1_1AA", "2,b,EH2_2BB");
+    assertEquals(2, directory.getCaterers().size(), "An expired list should be downloaded again.");
+    assertEquals(2, downloads.get(), "An expired list should be downloaded once.");
+  }
+
+  /**
+   * Tests that an invalidated list is downloaded again, even if it has not expired.
+   */
+  @Test
+  public void testInvalidate() {
+    directory.getCaterers();
+    nextCaterers = caterers("1,a,EH1_1AA", "2,b,EH2_2BB");
+    directory.invalidate();
+    assertEquals(2, directory.getCaterers().size(), "An invalidated list should not be reused.");
+    assertEquals(2, downloads.get(), "An invalidated list should be downloaded once.");
+  }
+
+  /**
+   * Tests that the previous list is served when a download fails.
+   */
+  @Test
+  public void testFailedDownloadKeepsPreviousList() {
+    List<String> caterers = directory.getCaterers();
+    now += TTL_NANOS;
+    nextCaterers = null;
+    assertSame(caterers, directory.getCaterers(), "The previous list should be served.");
+    assertEquals(2, downloads.get(), "A failed download should be retried on the next read.");
+  }
+
+  /**
+   * Tests that concurrent asynchronous reads share a single download.
+   */
+  @Test
+  public void testAsyncReadsShareDownload() {
+    CompletableFuture<List<String>> first = directory.getCaterersAsync();
+    CompletableFuture<List<String>> second = directory.getCaterersAsync();
+    assertSame(first, second, "Reads during a download should share it.");
+    assertEquals(1, pendingDownloads.size(), "A single download should be submitted.");
+
+    pendingDownloads.remove().run();
+    assertEquals(caterers("1,a,EH1_1AA"), first.join(), "The downloaded list should be returned.");
+    assertEquals(1, downloads.get(), "The list should be downloaded once.");
+  }
+
+  /**
+   * Tests that the records and version are kept when a download finds the same catering companies.
+   */
+  @Test
+  public void testUnchangedListKeepsVersion() {
+    assertEquals(0, directory.getVersion(), "No list has been downloaded yet.");
+    List<Caterer> records = directory.getRecords();
+    CatererIndex index = directory.getIndex();
+    long version = directory.getVersion();
+    assertEquals(1, records.size(), "The downloaded list should be parsed.");
+    assertSame(records, index.getCaterers(), "The index should cover the parsed list.");
+
+    now += TTL_NANOS;
+    nextCaterers = caterers("1,a,EH1_1AA");
+    assertSame(records, directory.getRecords(), "An unchanged list should not be parsed again.");
+    assertSame(index, directory.getIndex(), "An unchanged list should not be indexed again.");
+    assertEquals(version, directory.getVersion(), "An unchanged list keeps its version.");
+    assertEquals(2, downloads.get(), "An expired list should be downloaded again.");
+
+    now += TTL_NANOS;
+    nextCaterers = caterers("1,a,EH1_1AA", "bad", "2,b,EH2_2BB");
+    assertEquals(2, directory.getRecords().size(), "Malformed companies should be left out.");
+    assertEquals(3, directory.getCaterers().size(), "The raw list should be kept whole.");
+    assertNotEquals(version, directory.getVersion(), "A changed list gets a new version.");
+    assertNotSame(index, directory.getIndex(), "A changed list should be indexed again.");
+  }
+}
@@ -0,0 +1,90 @@
+package shield;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the nearest catering companies query of {@link CatererIndex} with the scan of {@link
+ * GeoDistanceEngine#preselect} it replaces.
+ *
+ * <p>Run with {@code gradle jmh}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CatererIndexBenchmark {
+  /** Number of catering companies listed. */
+  @Param({"100", "10000", "1000000"})
+  public int caterers;
+
+  /** Number of companies selected by a query. */
+  private static final int K = 8;
+
+  private GeoDistanceEngine engine;
+  private List<Caterer> list;
+  private CatererIndex index;
+  private int[] origins;
+  private int next;
+
+  @Setup
+  public void setup() {
+    Random random = new Random(42);
+    engine = GeoDistanceEngine.shared();
+    list = new ArrayList<>(caterers);
+    for (int i = 0; i < caterers; i++) {
+      list.add(Caterer.parse(i + ",caterer" + i + "," + PostCode.fromKey(locatedKey(random))));
+    }
+    index = new CatererIndex(list, engine);
+    origins = new int[1024];
+    for (int i = 0; i < origins.length; i++) {
+      origins[i] = locatedKey(random);
+    }
+  }
+
+  // Returns the key of a random post code of a located district
+  private int locatedKey(Random random) {
+    while (true) {
+      String postCode = "EH" + (1 + random.nextInt(55)) + "_" + (1 + random.nextInt(9)) + "AB";
+      int key = PostCode.toKey(postCode);
+      if (engine.isLocated(key)) {
+        return key;
+      }
+    }
+  }
+
+  private int nextOrigin() {
+    next = (next + 1) & (origins.length - 1);
+    return origins[next];
+  }
+
+  @Benchmark
+  public List<Caterer> nearestScan() {
+    return engine.preselect(nextOrigin(), list, K);
+  }
+
+  @Benchmark
+  public List<Caterer> nearestIndex() {
+    return index.nearest(nextOrigin(), K);
+  }
+
+  @Benchmark
+  public CatererIndex buildIndex() {
+    return new CatererIndex(list, engine);
+  }
+}
@@ -0,0 +1,143 @@
+package shield;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the class CatererIndex.
+ */
+public class CatererIndexTest {
+
+  private static List<Caterer> randomCaterers(Random random, int count) {
+    List<Caterer> caterers = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      // Mostly Edinburgh districts, some of which are not located, and a few other post codes
+      String postCode =
+          random.nextInt(20) == 0
+              ? "G" + (1 + random.nextInt(9)) + "_1AA"
+              : "EH" + (1 + random.nextInt(60)) + "_" + random.nextInt(10) + "AB";
+      caterers.add(Caterer.parse(i + ",c" + i + "," + postCode));
+    }
+    return caterers;
+  }
+
+  /**
+   * Tests that the index selects the same catering companies as a scan of the list.
+   */
+  @Test
+  public void testNearestMatchesScan() {
+    GeoDistanceEngine engine = GeoDistanceEngine.shared();
+    Random random = new Random(7);
+    for (int count : new int[] {0, 5, 100, 2_000}) {
+      List<Caterer> caterers = randomCaterers(random, count);
+      CatererIndex index = new CatererIndex(caterers, engine);
+      for (int district = 1; district <= 60; district++) {
+        int key = PostCode.toKey("EH" + district + "_1AA");
+        for (int k : new int[] {-1, 0, 1, 3, 8, 50}) {
+          assertEquals(
+              engine.preselect(key, caterers, k),
+              index.nearest(key, k),
+              "EH" + district + ", " + count + " companies, k = " + k);
+        }
+      }
+    }
+  }
+
+  /**
+   * Tests that the index selects the same catering companies as a scan of the list when the number
+   * of companies is capped.
+   */
+  @Test
+  public void testCappedNearestMatchesScan() {
+    GeoDistanceEngine engine = GeoDistanceEngine.shared();
+    Random random = new Random(11);
+    for (int count : new int[] {0, 5, 100, 2_000}) {
+      List<Caterer> caterers = randomCaterers(random, count);
+      CatererIndex index = new CatererIndex(caterers, engine);
+      for (int district = 1; district <= 98; district++) {
+        int key = district <= 97 ? PostCode.toKey("EH" + district + "_5AA") : PostCode.INVALID_KEY;
+        for (int k : new int[] {-1, 1, 3, 8}) {
+          for (int max : new int[] {8, 20, 200}) {
+            CatererCandidates scan = engine.preselect(key, caterers, k, max);
+            CatererCandidates nearest = index.nearest(key, k, max);
+            String query = "EH" + district + ", " + count + " companies, k = " + k + ", max " + max;
+            assertEquals(scan.getCaterers(), nearest.getCaterers(), query);
+            assertEquals(scan.isTruncated(), nearest.isTruncated(), query);
+            assertTrue(nearest.getCaterers().size() <= max, query);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Tests that the companies of a crowded district are capped, keeping those in the sectors
+   * nearest to the post code, and that the candidates are then truncated.
+   */
+  @Test
+  public void testCrowdedDistrictCapped() {
+    GeoDistanceEngine engine = GeoDistanceEngine.shared();
+    List<Caterer> caterers = new ArrayList<>();
+    String[] postCodes = {"EH1_9AA", "EH1_1AA", "EH1_5AB", "EH1_4ZZ", "EH1_5AA", "EH2_5AA"};
+    for (int i = 0; i < postCodes.length; i++) {
+      caterers.add(Caterer.parse(i + ",c" + i + "," + postCodes[i]));
+    }
+    CatererIndex index = new CatererIndex(caterers, engine);
+    int origin = PostCode.toKey("EH1_5AA");
+
+    CatererCandidates capped = index.nearest(origin, 1, 3);
+    assertEquals(
+        Arrays.asList(caterers.get(2), caterers.get(3), caterers.get(4)),
+        capped.getCaterers(),
+        "The companies nearest to EH1_5AA by post code, in the order listed.");
+    assertTrue(capped.isTruncated(), "Tied companies were left out.");
+    assertEquals(5, index.nearest(origin, 1).size(), "Uncapped, the whole district is kept.");
+    assertFalse(index.nearest(origin, 1, 5).isTruncated(), "The whole district fits.");
+  }
+
+  /**
+   * Tests that ties between districts at the same distance favour the company listed first.
+   */
+  @Test
+  public void testTiedDistricts() {
+    double[] latitudes = new double[PostCode.MAX_DISTRICT + 1];
+    double[] longitudes = new double[PostCode.MAX_DISTRICT + 1];
+    Arrays.fill(latitudes, Double.NaN);
+    Arrays.fill(longitudes, Double.NaN);
+    // EH2 and EH3 are at the same place, EH4 further away
+    latitudes[1] = 55.95;
+    longitudes[1] = -3.19;
+    latitudes[2] = 55.96;
+    longitudes[2] = -3.19;
+    latitudes[3] = 55.96;
+    longitudes[3] = -3.19;
+    latitudes[4] = 56.0;
+    longitudes[4] = -3.19;
+    GeoDistanceEngine engine = new GeoDistanceEngine(latitudes, longitudes);
+    List<Caterer> caterers = new ArrayList<>();
+    String[] postCodes = {"EH4_1AA", "EH3_1AA", "EH2_1AA", "EH9_1AA", "EH3_2AA", "EH2_2AA"};
+    for (int i = 0; i < postCodes.length; i++) {
+      caterers.add(Caterer.parse(i + ",c" + i + "," + postCodes[i]));
+    }
+    CatererIndex index = new CatererIndex(caterers, engine);
+    int origin = PostCode.toKey("EH1_1AA");
+
+    List<Caterer> nearest = index.nearest(origin, 3);
+    assertEquals(engine.preselect(origin, caterers, 3), nearest, "Same as a scan.");
+    assertEquals(
+        Arrays.asList(
+            caterers.get(1), caterers.get(2), caterers.get(3), caterers.get(4), caterers.get(5)),
+        nearest,
+        "Every company of EH2 and EH3, which are tied, and the unlocated one.");
+    assertSame(caterers, index.nearest(PostCode.toKey("EH9_1AA"), 3), "Unknown origin.");
+    assertSame(caterers, index.nearest(origin, 5), "No more located companies than k.");
+  }
+}
@@ -0,0 +1,108 @@
+package shield;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the class CatererRanking.
+ */
+public class CatererRankingTest {
+
+  private static List<Caterer> caterers(int count) {
+    List<Caterer> caterers = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      caterers.add(Caterer.parse(i + ",c" + i + ",EH1_1AA"));
+    }
+    return caterers;
+  }
+
+  /**
+   * Tests that the ranking holds the closest companies in the order of a full sort.
+   */
+  @Test
+  public void testRankMatchesSort() {
+    Random random = new Random(3);
+    for (int count : new int[] {1, 2, 7, 100}) {
+      List<Caterer> caterers = caterers(count);
+      float[] distances = new float[count];
+      for (int i = 0; i < count; i++) {
+        // Few distinct distances, so that there are many ties
+        distances[i] = random.nextInt(10);
+      }
+      CatererIndex index = new CatererIndex(caterers, GeoDistanceEngine.shared());
+      List<Caterer> sorted = new ArrayList<>(caterers);
+      sorted.sort(
+          Comparator.<Caterer>comparingDouble(caterer -> distances[caterer.getId()])
+              .thenComparingInt(Caterer::getId));
+      for (int k : new int[] {1, 3, 10, 200}) {
+        CatererRanking ranking = CatererRanking.rank(index, "EH1_1AA", caterers, distances, k);
+        List<Caterer> expected = sorted.subList(0, Math.min(k, count));
+        assertEquals(expected, ranking.getCaterers(), count + " companies, k = " + k);
+        for (int rank = 0; rank < expected.size(); rank++) {
+          assertEquals(distances[expected.get(rank).getId()], ranking.getDistance(rank));
+        }
+      }
+    }
+  }
+
+  /**
+   * Tests that companies at an unknown distance are left out, and that the ranking is then not
+   * reused.
+   */
+  @Test
+  public void testUnknownDistances() {
+    List<Caterer> caterers = caterers(4);
+    CatererIndex index = new CatererIndex(caterers, GeoDistanceEngine.shared());
+    float[] distances = {5, -1, Float.NaN, 2};
+    CatererRanking ranking = CatererRanking.rank(index, "EH1_1AA", caterers, distances, 3);
+    assertEquals(
+        Arrays.asList(caterers.get(3), caterers.get(0)),
+        ranking.getCaterers(),
+        "Only the companies at a known distance should be ranked.");
+    assertFalse(ranking.isValidFor(index, "EH1_1AA", 1), "An incomplete ranking is not reused.");
+  }
+
+  /**
+   * Tests that the ranking of truncated candidates is not reused, as closer companies were left
+   * out.
+   */
+  @Test
+  public void testTruncatedCandidates() {
+    List<Caterer> caterers = caterers(3);
+    CatererIndex index = new CatererIndex(caterers, GeoDistanceEngine.shared());
+    CatererRanking ranking =
+        CatererRanking.rank(
+            index, "EH1_1AA", new CatererCandidates(caterers, true), new float[] {3, 1, 2}, 2);
+    assertEquals(
+        Arrays.asList(caterers.get(1), caterers.get(2)),
+        ranking.getCaterers(),
+        "The candidates should be ranked.");
+    assertFalse(ranking.isValidFor(index, "EH1_1AA", 1), "A truncated ranking is not reused.");
+  }
+
+  /**
+   * Tests when a ranking answers a later search.
+   */
+  @Test
+  public void testIsValidFor() {
+    List<Caterer> caterers = caterers(3);
+    CatererIndex index = new CatererIndex(caterers, GeoDistanceEngine.shared());
+    CatererRanking ranking =
+        CatererRanking.rank(index, "EH1_1AA", caterers, new float[] {3, 1, 2}, 2);
+    assertTrue(ranking.isValidFor(index, "EH1_1AA", 2), "Same search.");
+    assertTrue(ranking.isValidFor(index, "EH1_1AA", 1), "Fewer companies.");
+    assertFalse(ranking.isValidFor(index, "EH1_1AA", 3), "More companies.");
+    assertFalse(ranking.isValidFor(index, "EH2_1AA", 1), "Another post code.");
+    assertFalse(
+        ranking.isValidFor(new CatererIndex(caterers, GeoDistanceEngine.shared()), "EH1_1AA", 1),
+        "Other catering companies.");
+  }
+}
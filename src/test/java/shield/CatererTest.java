@@ -0,0 +1,55 @@
+package shield;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the class Caterer.
+ */
+public class CatererTest {
+
+  /**
+   * Tests that a catering company is parsed into its details.
+   */
+  @Test
+  public void testParse() {
+    Caterer caterer = Caterer.parse("12,Fish, Chips & Co,EH16_7AB");
+    assertEquals(12, caterer.getId(), "The ID should be parsed.");
+    assertEquals("Fish, Chips & Co", caterer.getName(), "The name may contain commas.");
+    assertEquals(PostCode.toKey("EH16_7AB"), caterer.getPostCodeKey(), "The key should be packed.");
+    assertEquals("EH16_7AB", caterer.getPostCode(), "The post code should be rebuilt.");
+    assertEquals("12,Fish, Chips & Co,EH16_7AB", caterer.toString(), "The format is kept.");
+    assertSame(
+        caterer.getName(),
+        Caterer.parse("13,Fish, Chips & Co,EH1_1AA").getName(),
+        "Names should be interned.");
+  }
+
+  /**
+   * Tests that post codes which cannot be rebuilt from a key are kept as listed.
+   */
+  @Test
+  public void testPostCodeKeptAsListed() {
+    Caterer spaced = Caterer.parse("1,a,EH1 1AA");
+    assertEquals("EH1 1AA", spaced.getPostCode(), "The server's post code should be kept.");
+    assertEquals(PostCode.toKey("EH1_1AA"), spaced.getPostCodeKey(), "The key ignores spacing.");
+
+    Caterer outside = Caterer.parse("2,b,G1_1AA");
+    assertEquals(PostCode.INVALID_KEY, outside.getPostCodeKey(), "Only Edinburgh is packed.");
+    assertEquals("G1_1AA", outside.getPostCode(), "The post code should be kept.");
+  }
+
+  /**
+   * Tests that malformed catering companies are rejected.
+   */
+  @Test
+  public void testParseInvalid() {
+    assertNull(Caterer.parse(null), "Null should be rejected.");
+    assertNull(Caterer.parse("1,EH1_1AA"), "A company needs three details.");
+    assertNull(Caterer.parse(",a,EH1_1AA"), "A company needs an ID.");
+    assertNull(Caterer.parse("x,a,EH1_1AA"), "The ID must be a number.");
+  }
+}
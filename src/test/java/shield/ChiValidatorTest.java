@@ -0,0 +1,115 @@
+package shield;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the class ChiValidator.
+ */
+public class ChiValidatorTest {
+  /** A validator which believes that today is the 15th of March 2021. */
+  private final ChiValidator validator =
+      new ChiValidator(Clock.fixed(Instant.parse("2021-03-15T12:00:00Z"), ZoneOffset.UTC));
+
+  /**
+   * Tests that only ten digits are accepted.
+   */
+  @Test
+  public void testFormat() {
+    assertTrue(validator.isValid("0101011234"), "A well formed CHI should be valid.");
+    assertFalse(validator.isValid(null), "A null CHI should be invalid.");
+    assertFalse(validator.isValid("010101123"), "A short CHI should be invalid.");
+    assertFalse(validator.isValid("01010112345"), "A long CHI should be invalid.");
+    assertFalse(validator.isValid("01010112a4"), "A CHI with letters should be invalid.");
+    assertFalse(validator.isValid("0101011２34"), "A CHI with non-ASCII digits should be invalid.");
+  }
+
+  /**
+   * Tests that the birth date must exist.
+   */
+  @Test
+  public void testBirthDate() {
+    assertFalse(validator.isValid("0001011234"), "Day 0 should be invalid.");
+    assertFalse(validator.isValid("0113011234"), "Month 13 should be invalid.");
+    assertFalse(validator.isValid("3104011234"), "The 31st of April should be invalid.");
+    assertTrue(validator.isValid("2902001234"), "The 29th of February 2000 should be valid.");
+    assertFalse(validator.isValid("2902011234"), "The 29th of February 2001 should be invalid.");
+    assertFalse(validator.isValid("9999991234"), "A CHI like 999999 should be invalid.");
+  }
+
+  /**
+   * Tests the resolution of two-digit years around today and 80 years ago.
+   */
+  @Test
+  public void testTwoDigitYears() {
+    assertTrue(validator.isValid("1503211234"), "A birth date today should be valid.");
+    assertFalse(validator.isValid("1603211234"), "A birth date tomorrow should be invalid.");
+    assertTrue(validator.isValid("1603411234"), "The year 41 should resolve to 1941.");
+    // 80 years ago is the 15th of March 1941, which starts the century of two-digit years
+    assertFalse(validator.isValid("1503411234"), "80 years ago should resolve to 2041.");
+    assertFalse(validator.isValid("3112401234"), "The year 40 should resolve to 2040.");
+  }
+
+  /**
+   * Tests that the batch API gives the same results in the same order.
+   */
+  @Test
+  public void testBatch() {
+    List<String> chis = new ArrayList<>();
+    for (int i = 0; i < 5000; i++) {
+      chis.add(String.format("%02d%02d%02d1234", i % 33, (i / 33) % 14, i % 100));
+    }
+    boolean[] expected = new boolean[chis.size()];
+    for (int i = 0; i < expected.length; i++) {
+      expected[i] = validator.isValid(chis.get(i));
+    }
+    assertArrayEquals(expected, validator.areValid(chis),
+        "A batch should be validated like its CHIs one by one.");
+    assertArrayEquals(new boolean[] {true, false},
+        validator.areValid(Arrays.asList("0101011234", "bad")),
+        "A small batch should be validated in order.");
+  }
+
+  /**
+   * Tests that birth dates are accepted exactly when SimpleDateFormat accepts them.
+   */
+  @Test
+  public void testMatchesSimpleDateFormat() {
+    ChiValidator systemValidator = new ChiValidator(Clock.system(ZoneId.systemDefault()));
+    for (int year = 0; year < 100; year++) {
+      for (int month = 0; month <= 13; month++) {
+        for (int day = 0; day <= 32; day++) {
+          String birthDate = String.format("%02d%02d%02d", day, month, year);
+          assertEquals(isValidWithSimpleDateFormat(birthDate),
+              systemValidator.isValid(birthDate + "1234"),
+              "Unexpected result for the birth date " + birthDate);
+        }
+      }
+    }
+  }
+
+  // The validation previously used by the clients
+  private static boolean isValidWithSimpleDateFormat(String rawBirthDate) {
+    SimpleDateFormat formatter = new SimpleDateFormat("ddMMyy");
+    formatter.setLenient(false);
+    try {
+      return formatter.parse(rawBirthDate).before(new Date());
+    } catch (ParseException e) {
+      return false;
+    }
+  }
+}
@@ -0,0 +1,107 @@
+package shield;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the class ClosestCatererCache.
+ */
+public class ClosestCatererCacheTest {
+  private static final int KEY = PostCode.toKey("EH1_1AA");
+
+  private List<Caterer> caterers;
+  private CatererIndex index;
+  private ClosestCatererCache cache;
+  /** Number of searches started */
+  private AtomicInteger searches;
+
+  @BeforeEach
+  public void setup() {
+    caterers = new ArrayList<>();
+    caterers.add(Caterer.parse("1,a,EH1_1AA"));
+    caterers.add(Caterer.parse("2,b,EH2_1AA"));
+    index = new CatererIndex(caterers, GeoDistanceEngine.shared());
+    cache = new ClosestCatererCache();
+    searches = new AtomicInteger();
+  }
+
+  // Returns a search completing with a ranking of the catering companies at the given distances
+  private Supplier<CompletableFuture<CatererRanking>> search(
+      CompletableFuture<Void> done, CatererIndex index, int k, float... distances) {
+    return () -> {
+      searches.incrementAndGet();
+      return done.thenApply(
+          ignored -> CatererRanking.rank(index, "EH1_1AA", caterers, distances, k));
+    };
+  }
+
+  /**
+   * Tests that searches for the same post code while a search is running share it.
+   */
+  @Test
+  public void testSingleFlight() {
+    CompletableFuture<Void> done = new CompletableFuture<>();
+    CompletableFuture<CatererRanking> first =
+        cache.getRanking(KEY, index, 2, search(done, index, 2, 2, 1));
+    CompletableFuture<CatererRanking> second =
+        cache.getRanking(KEY, index, 1, search(done, index, 1, 2, 1));
+    assertSame(first, second, "A running search should be shared.");
+    assertEquals(1, searches.get(), "A single search should be started.");
+
+    done.complete(null);
+    assertEquals(caterers.get(1), first.join().getCaterers().get(0), "Closest company.");
+    assertSame(first, cache.getRanking(KEY, index, 2, search(done, index, 2, 2, 1)), "Cached.");
+    assertEquals(1, searches.get(), "A cached ranking should be reused.");
+  }
+
+  /**
+   * Tests when a cached ranking is discarded.
+   */
+  @Test
+  public void testInvalidation() {
+    CompletableFuture<Void> done = CompletableFuture.completedFuture(null);
+    cache.getRanking(KEY, index, 1, search(done, index, 1, 2, 1)).join();
+
+    cache.getRanking(KEY, index, 2, search(done, index, 2, 2, 1)).join();
+    assertEquals(2, searches.get(), "A ranking of fewer companies should not be reused.");
+    cache.getRanking(PostCode.toKey("EH2_1AA"), index, 1, search(done, index, 1, 2, 1)).join();
+    assertEquals(3, searches.get(), "Another post code should be searched.");
+
+    CatererIndex changed = new CatererIndex(caterers, GeoDistanceEngine.shared());
+    cache.getRanking(KEY, changed, 1, search(done, changed, 1, 2, 1)).join();
+    assertEquals(4, searches.get(), "Changed catering companies should be searched again.");
+
+    cache.invalidate();
+    cache.getRanking(KEY, changed, 1, search(done, changed, 1, 2, 1)).join();
+    assertEquals(5, searches.get(), "An invalidated ranking should not be reused.");
+  }
+
+  /**
+   * Tests that failed or incomplete searches are not cached.
+   */
+  @Test
+  public void testFailedSearchesAreNotCached() {
+    CompletableFuture<Void> done = CompletableFuture.completedFuture(null);
+    CatererRanking incomplete =
+        cache.getRanking(KEY, index, 1, search(done, index, 1, -1, 1)).join();
+    assertEquals(1, incomplete.getCaterers().size(), "The known distance should be ranked.");
+    cache.getRanking(KEY, index, 1, search(done, index, 1, 2, 1)).join();
+    assertEquals(2, searches.get(), "An incomplete ranking should not be reused.");
+
+    cache.invalidate();
+    assertNull(
+        cache.getRanking(KEY, index, 1, () -> CompletableFuture.completedFuture(null)).join(),
+        "A failed search holds null.");
+    cache.getRanking(KEY, index, 1, search(done, index, 1, 2, 1)).join();
+    assertEquals(3, searches.get(), "A failed search should not be reused.");
+  }
+}
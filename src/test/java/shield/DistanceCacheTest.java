@@ -0,0 +1,117 @@
+package shield;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the class DistanceCache.
+ */
+public class DistanceCacheTest {
+  /** Maximum number of entries of the cache under test. */
+  private static final int MAX_ENTRIES = 3;
+  /** Time to live of a distance. */
+  private static final long TTL_NANOS = TimeUnit.MINUTES.toNanos(10);
+  /** Time to live of a failed lookup. */
+  private static final long NEGATIVE_TTL_NANOS = TimeUnit.MINUTES.toNanos(1);
+  /** The current time as seen by the cache. */
+  private long now;
+  /** The cache under test. */
+  private DistanceCache cache;
+
+  @BeforeEach
+  public void setup() {
+    now = 0;
+    cache = new DistanceCache(MAX_ENTRIES, TTL_NANOS, NEGATIVE_TTL_NANOS, () -> now);
+  }
+
+  /**
+   * Tests that a pair of post codes and the reversed pair share the same entry.
+   */
+  @Test
+  public void testSymmetricKeys() {
+    cache.put("EH1_1AB", "EH2_2CD", 42f);
+    assertEquals(Float.valueOf(42f), cache.get("EH2_2CD", "EH1_1AB"),
+        "The reversed pair of post codes should hit the same entry.");
+    assertEquals(1, cache.size(), "Both orders of a pair should share a single entry.");
+  }
+
+  /**
+   * Tests that the least recently used entry is evicted when the cache is full.
+   */
+  @Test
+  public void testLeastRecentlyUsedEviction() {
+    cache.put("EH1_1AA", "EH2_2AA", 1f);
+    cache.put("EH1_1AA", "EH3_3AA", 2f);
+    cache.put("EH1_1AA", "EH4_4AA", 3f);
+    // Touch the oldest entry so that the second one becomes the least recently used
+    cache.get("EH1_1AA", "EH2_2AA");
+    cache.put("EH1_1AA", "EH5_5AA", 4f);
+
+    assertEquals(MAX_ENTRIES, cache.size(), "The cache should not grow beyond its bound.");
+    assertNull(cache.get("EH1_1AA", "EH3_3AA"), "The least recently used entry should be evicted.");
+    assertEquals(Float.valueOf(1f), cache.get("EH1_1AA", "EH2_2AA"),
+        "A recently used entry should survive eviction.");
+  }
+
+  /**
+   * Tests that distances expire after their time to live.
+   */
+  @Test
+  public void testTimeToLive() {
+    cache.put("EH1_1AB", "EH2_2CD", 42f);
+    now = TTL_NANOS - 1;
+    assertEquals(Float.valueOf(42f), cache.get("EH1_1AB", "EH2_2CD"),
+        "A distance should be cached until its time to live has passed.");
+    now = TTL_NANOS;
+    assertNull(cache.get("EH1_1AB", "EH2_2CD"),
+        "A distance should not be returned once its time to live has passed.");
+  }
+
+  /**
+   * Tests that failed lookups are cached with their own time to live.
+   */
+  @Test
+  public void testNegativeCaching() {
+    cache.put("EH1_1AB", "EH2_2CD", -1f);
+    assertEquals(Float.valueOf(-1f), cache.get("EH1_1AB", "EH2_2CD"),
+        "A failed lookup should be cached.");
+    now = NEGATIVE_TTL_NANOS;
+    assertNull(cache.get("EH1_1AB", "EH2_2CD"),
+        "A failed lookup should expire after the negative time to live.");
+  }
+
+  /**
+   * Tests that hits and misses are counted.
+   */
+  @Test
+  public void testHitAndMissCounters() {
+    cache.get("EH1_1AB", "EH2_2CD");
+    cache.put("EH1_1AB", "EH2_2CD", 42f);
+    cache.get("EH1_1AB", "EH2_2CD");
+    cache.get("EH2_2CD", "EH1_1AB");
+
+    assertEquals(2, cache.getHits(), "Both lookups of the cached pair should count as hits.");
+    assertEquals(1, cache.getMisses(), "The lookup before caching should count as a miss.");
+  }
+
+  /**
+   * Tests that a distance lookup which fails to reach the server is not cached.
+   */
+  @Test
+  public void testUnreachableServerNotCached() {
+    // Nothing listens on port 1, so the request fails straight away
+    ShieldingIndividualModelImp model = new ShieldingIndividualModelImp("http://localhost:1");
+    assertEquals(Float.valueOf(-1f), model.getDistance("EH9_1AA", "EH9_2BB"),
+        "A failed lookup should report an invalid distance.");
+    assertNull(DistanceCache.shared().get("EH9_1AA", "EH9_2BB"),
+        "A failed lookup should not be cached.");
+    assertEquals(Float.valueOf(-1f), model.getDistanceAsync("EH9_1AA", "EH9_3CC").join(),
+        "A failed lookup should report an invalid distance.");
+    assertNull(DistanceCache.shared().get("EH9_1AA", "EH9_3CC"),
+        "A failed lookup should not be cached.");
+  }
+}
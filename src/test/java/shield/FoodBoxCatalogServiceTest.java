@@ -0,0 +1,170 @@
+package shield;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import java.lang.reflect.Type;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the class FoodBoxCatalogService.
+ */
+public class FoodBoxCatalogServiceTest {
+  /** Time after which the catalog under test is refreshed. */
+  private static final long REFRESH_NANOS = TimeUnit.MINUTES.toNanos(5);
+  /** The current time as seen by the service. */
+  private long now;
+  /** Number of downloads started by the service. */
+  private AtomicInteger downloads;
+  /** Food boxes returned by the next download, null to simulate a failure. */
+  private List<FoodBox> nextFoodBoxes;
+  /** Background refreshes which have been submitted but not run yet. */
+  private Queue<Runnable> pendingRefreshes;
+  /** The service under test. */
+  private FoodBoxCatalogService service;
+
+  @BeforeEach
+  public void setup() {
+    now = 0;
+    downloads = new AtomicInteger();
+    nextFoodBoxes = foodBoxes("1");
+    pendingRefreshes = new ArrayDeque<>();
+    service =
+        new FoodBoxCatalogService(
+            () -> {
+              downloads.incrementAndGet();
+              return nextFoodBoxes;
+            },
+            REFRESH_NANOS,
+            () -> now,
+            pendingRefreshes::add);
+  }
+
+  // Creates food boxes with the given IDs
+  private static List<FoodBox> foodBoxes(String... ids) {
+    StringBuilder json = new StringBuilder("[");
+    for (String id : ids) {
+      json.append(json.length() > 1 ? "," : "").append("{\"id\":\"").append(id).append("\"}");
+    }
+    Type listType = new TypeToken<List<FoodBox>>() {}.getType();
+    return new Gson().fromJson(json.append(']').toString(), listType);
+  }
+
+  /**
+   * Tests that the catalog is downloaded once and then served from memory.
+   */
+  @Test
+  public void testCatalogIsDownloadedOnce() {
+    FoodBoxCatalog catalog = service.getCatalog();
+    assertEquals(1, catalog.size(), "The downloaded catalog should be returned.");
+    assertSame(catalog, service.getCatalog(), "A fresh catalog should be served from memory.");
+    assertEquals(1, downloads.get(), "A fresh catalog should not be downloaded again.");
+  }
+
+  /**
+   * Tests that concurrent first reads share a single download.
+   */
+  @Test
+  public void testColdStartIsSingleFlight() throws InterruptedException {
+    CountDownLatch downloadStarted = new CountDownLatch(1);
+    CountDownLatch releaseDownload = new CountDownLatch(1);
+    FoodBoxCatalogService slowService =
+        new FoodBoxCatalogService(
+            () -> {
+              downloads.incrementAndGet();
+              downloadStarted.countDown();
+              try {
+                releaseDownload.await();
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+              return nextFoodBoxes;
+            },
+            REFRESH_NANOS,
+            () -> now,
+            Runnable::run);
+
+    List<Thread> readers = new ArrayList<>();
+    List<FoodBoxCatalog> results = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      Thread reader =
+          new Thread(
+              () -> {
+                FoodBoxCatalog catalog = slowService.getCatalog();
+                synchronized (results) {
+                  results.add(catalog);
+                }
+              });
+      readers.add(reader);
+      reader.start();
+    }
+    downloadStarted.await();
+    // Give the remaining readers time to join the running download
+    Thread.sleep(100);
+    releaseDownload.countDown();
+    for (Thread reader : readers) {
+      reader.join();
+    }
+
+    assertEquals(1, downloads.get(), "Concurrent first reads should share a single download.");
+    assertEquals(4, results.size(), "Every reader should receive a catalog.");
+    for (FoodBoxCatalog catalog : results) {
+      assertSame(results.get(0), catalog, "Every reader should receive the same catalog.");
+    }
+  }
+
+  /**
+   * Tests that a stale catalog is served while it is refreshed in the background.
+   */
+  @Test
+  public void testStaleCatalogIsRefreshedInBackground() {
+    FoodBoxCatalog stale = service.getCatalog();
+    nextFoodBoxes = foodBoxes("1", "2");
+    now = REFRESH_NANOS;
+
+    assertSame(stale, service.getCatalog(), "A stale catalog should be served during a refresh.");
+    assertSame(stale, service.getCatalog(), "A refresh should only be started once.");
+    assertEquals(1, pendingRefreshes.size(), "A single background refresh should be submitted.");
+
+    pendingRefreshes.poll().run();
+    assertEquals(2, service.getCatalog().size(), "The refreshed catalog should be served.");
+    assertEquals(2, downloads.get(), "The catalog should be downloaded twice.");
+  }
+
+  /**
+   * Tests that a failed refresh keeps the current catalog.
+   */
+  @Test
+  public void testFailedRefreshKeepsCatalog() {
+    FoodBoxCatalog catalog = service.getCatalog();
+    nextFoodBoxes = null;
+    now = REFRESH_NANOS;
+    service.getCatalog();
+    pendingRefreshes.poll().run();
+
+    assertSame(catalog, service.getCatalog(), "A failed refresh should keep the current catalog.");
+    assertEquals(0, pendingRefreshes.size(), "A failed refresh should not be retried at once.");
+  }
+
+  /**
+   * Tests that a failed first download returns null and is retried on the next read.
+   */
+  @Test
+  public void testFailedColdStartIsRetried() {
+    nextFoodBoxes = null;
+    assertNull(service.getCatalog(), "No catalog should be returned if the download failed.");
+    nextFoodBoxes = foodBoxes("1");
+    assertEquals(1, service.getCatalog().size(), "The download should be retried.");
+  }
+}
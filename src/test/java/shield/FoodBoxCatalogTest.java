@@ -0,0 +1,83 @@
+package shield;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the class FoodBoxCatalog.
+ */
+public class FoodBoxCatalogTest {
+  /** Food boxes in the format returned by the server. */
+  private static final String FOOD_BOXES =
+      "[{\"contents\":[{\"id\":1,\"name\":\"cucumbers\",\"quantity\":1},"
+          + "{\"id\":2,\"name\":\"tomatoes\",\"quantity\":2}],"
+          + "\"delivered_by\":\"catering\",\"diet\":\"none\",\"id\":\"1\",\"name\":\"box a\"},"
+          + "{\"contents\":[{\"id\":3,\"name\":\"onions\",\"quantity\":3}],"
+          + "\"delivered_by\":\"catering\",\"diet\":\"vegan\",\"id\":\"2\",\"name\":\"box b\"},"
+          + "{\"contents\":[{\"id\":4,\"name\":\"carrots\",\"quantity\":4}],"
+          + "\"delivered_by\":\"catering\",\"diet\":\"none\",\"id\":\"2\",\"name\":\"box c\"}]";
+  /** The catalog under test. */
+  private FoodBoxCatalog catalog;
+
+  @BeforeEach
+  public void setup() {
+    Type listType = new TypeToken<List<FoodBox>>() {}.getType();
+    List<FoodBox> foodBoxes = new Gson().fromJson(FOOD_BOXES, listType);
+    catalog = new FoodBoxCatalog(foodBoxes);
+  }
+
+  /**
+   * Tests that food box IDs are grouped by dietary preference.
+   */
+  @Test
+  public void testFoodBoxIdsByPreference() {
+    assertEquals(Arrays.asList("1", "2", "2"),
+        catalog.getFoodBoxIds(DietaryPreference.NO_PREFERENCE),
+        "No preference should match every food box.");
+    assertEquals(Arrays.asList("2"), catalog.getFoodBoxIds(DietaryPreference.VEGAN),
+        "Only vegan food boxes should match the vegan preference.");
+    assertEquals(3, catalog.size(), "Every food box should be counted.");
+  }
+
+  /**
+   * Tests that the first food box with a given ID is returned.
+   */
+  @Test
+  public void testFirstFoodBoxWithIdWins() {
+    assertEquals("vegan", catalog.getDietaryPreference(2),
+        "The first food box with a duplicated ID should be returned.");
+    assertSame(catalog.getFoodBoxes().get(1), catalog.getFoodBox(2),
+        "The indexed food box should be the one returned by the server.");
+  }
+
+  /**
+   * Tests item lookups within a food box.
+   */
+  @Test
+  public void testItemLookups() {
+    assertEquals(Arrays.asList(1, 2), catalog.getItemIds(1), "Item IDs should keep their order.");
+    assertEquals("tomatoes", catalog.getItemName(2, 1), "The item name should be found.");
+    assertEquals(2, catalog.getItemQuantity(2, 1), "The item quantity should be found.");
+  }
+
+  /**
+   * Tests that lookups of unknown food boxes or items fail gracefully.
+   */
+  @Test
+  public void testUnknownLookups() {
+    assertNull(catalog.getFoodBox(42), "An unknown food box should not be found.");
+    assertNull(catalog.getItemIds(42), "An unknown food box has no items.");
+    assertNull(catalog.getItemName(3, 1), "An item of another food box should not be found.");
+    assertEquals(-1, catalog.getItemQuantity(3, 1),
+        "An item of another food box should have an invalid quantity.");
+  }
+}
@@ -0,0 +1,74 @@
+package shield;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the class FoodBox.
+ */
+public class FoodBoxTest {
+  /** A food box in the format returned by the server. */
+  private static final String FOOD_BOX =
+      "{\"contents\":[{\"id\":1,\"name\":\"cucumbers\",\"quantity\":1},"
+          + "{\"id\":2,\"name\":\"tomatoes\",\"quantity\":2}],"
+          + "\"delivered_by\":\"catering\",\"diet\":\"none\",\"id\":\"1\",\"name\":\"box a\"}";
+  /** The food box as sent to the server when placing an order. */
+  private static final String JSONIFIED_FOOD_BOX =
+      "{\"contents\":[{\"id\":1,\"name\":\"cucumbers\",\"quantity\":1},"
+          + "{\"id\":2,\"name\":\"tomatoes\",\"quantity\":2}]}";
+  /** The food box under test. */
+  private FoodBox box;
+
+  @BeforeEach
+  public void setup() {
+    box = new Gson().fromJson(FOOD_BOX, FoodBox.class);
+  }
+
+  /**
+   * Tests that a copy shares the items but not the quantities of the original.
+   */
+  @Test
+  public void testCopyIsIndependent() {
+    FoodBox copy = box.copy();
+    assertSame(box.getContents(), copy.getContents(), "A copy should share the items.");
+
+    assertTrue(copy.setQuantityForItem(2, 1, false), "The quantity of a copy should change.");
+    assertEquals(1, copy.getItemQuantity(2), "The copy should have the new quantity.");
+    assertEquals(2, box.getItemQuantity(2), "The original should keep its quantity.");
+    assertEquals(2, box.getContents().get(1).getQuantity(), "The items should not change.");
+
+    FoodBox copyOfCopy = copy.copy();
+    assertTrue(copyOfCopy.setQuantityForItem(2, 0, false), "The quantity of a copy should change.");
+    assertEquals(1, copy.getItemQuantity(2), "A copy of a copy should not affect the copy.");
+  }
+
+  /**
+   * Tests the bounds on quantities of ordered and unordered food boxes.
+   */
+  @Test
+  public void testQuantityBounds() {
+    assertTrue(box.setQuantityForItem(2, 1, true), "An ordered quantity can be decreased.");
+    assertFalse(box.setQuantityForItem(2, 2, true), "An ordered quantity cannot be increased.");
+    assertTrue(box.setQuantityForItem(2, 2, false), "A quantity can go up to the maximum.");
+    assertFalse(box.setQuantityForItem(2, 3, false), "A quantity cannot exceed the maximum.");
+    assertTrue(box.setQuantityForItem(1, 0, false), "An item can be removed.");
+    assertFalse(box.setQuantityForItem(2, 0, false), "A food box cannot be emptied.");
+    assertFalse(box.setQuantityForItem(3, 1, false), "A missing item cannot be changed.");
+  }
+
+  /**
+   * Tests that the JSON sent to the server is not affected by the current quantities.
+   */
+  @Test
+  public void testJsonify() {
+    FoodBox copy = box.copy();
+    copy.setQuantityForItem(2, 1, false);
+    assertEquals(JSONIFIED_FOOD_BOX, copy.jsonify(), "Only the exposed fields should be sent.");
+  }
+}
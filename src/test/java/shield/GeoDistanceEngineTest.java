@@ -0,0 +1,108 @@
+package shield;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the class GeoDistanceEngine.
+ */
+public class GeoDistanceEngineTest {
+
+  private static int key(String postCode) {
+    return PostCode.toKey(postCode);
+  }
+
+  private static List<Caterer> caterers(String... postCodes) {
+    List<Caterer> caterers = new ArrayList<>();
+    for (int i = 0; i < postCodes.length; i++) {
+      caterers.add(Caterer.parse(i + ",c" + i + "," + postCodes[i]));
+    }
+    return caterers;
+  }
+
+  private static List<Integer> idsOf(List<Caterer> caterers) {
+    List<Integer> ids = new ArrayList<>();
+    for (Caterer caterer : caterers) {
+      ids.add(caterer.getId());
+    }
+    return ids;
+  }
+
+  /**
+   * Tests the great-circle distance between Edinburgh and Glasgow.
+   */
+  @Test
+  public void testHaversine() {
+    double distance = GeoDistanceEngine.haversine(55.9533, -3.1883, 55.8642, -4.2518);
+    assertEquals(66.9, distance, 0.5, "Edinburgh and Glasgow are about 67 km apart.");
+    assertEquals(0, GeoDistanceEngine.haversine(55.9, -3.1, 55.9, -3.1), 1e-9, "Same point.");
+  }
+
+  /**
+   * Tests the distances between districts of the bundled table.
+   */
+  @Test
+  public void testBundledTable() {
+    GeoDistanceEngine engine = GeoDistanceEngine.shared();
+    assertTrue(engine.isLocated(key("EH1_1AA")), "Central Edinburgh should be located.");
+    assertFalse(engine.isLocated(key("EH97_1AA")), "EH97 is not a geographic district.");
+    assertFalse(engine.isLocated(PostCode.INVALID_KEY), "Invalid post codes are not located.");
+    assertEquals(0, engine.distance(key("EH1_1AA"), key("EH1_9ZZ")), "Same district.");
+    assertTrue(engine.distance(key("EH1_1AA"), key("EH2_1AA")) < 2, "Neighbouring districts.");
+    float dunbar = engine.distance(key("EH1_1AA"), key("EH42_1AA"));
+    assertTrue(dunbar > 35 && dunbar < 50, "Dunbar is about 40 km from the centre.");
+    assertTrue(Float.isNaN(engine.distance(key("EH1_1AA"), key("EH97_1AA"))), "Unknown.");
+  }
+
+  /**
+   * Tests that the nearest catering companies are selected, together with those which cannot be
+   * located, in the order in which they are listed.
+   */
+  @Test
+  public void testPreselect() {
+    GeoDistanceEngine engine = GeoDistanceEngine.shared();
+    List<Caterer> caterers =
+        caterers("EH42_1AA", "EH1_2BB", "G1_1AA", "EH30_1AA", "EH2_1AA", "EH1_3CC", "EH3_1AA");
+
+    List<Caterer> candidates = engine.preselect(key("EH1_1AA"), caterers, 3);
+    assertEquals(List.of(1, 2, 4, 5), idsOf(candidates), "Three nearest and the unlocated one.");
+
+    assertEquals(List.of(1, 2, 5), idsOf(engine.preselect(key("EH1_1AA"), caterers, 2)),
+        "The two companies in the district of the post code.");
+    assertEquals(List.of(1, 2, 5), idsOf(engine.preselect(key("EH1_1AA"), caterers, 1)),
+        "Companies tied with the nearest should all be kept.");
+    assertSame(caterers, engine.preselect(key("EH97_1AA"), caterers, 3), "Unknown origin.");
+    assertSame(caterers, engine.preselect(key("EH1_1AA"), caterers, 0), "Disabled.");
+    assertSame(caterers, engine.preselect(key("EH1_1AA"), caterers, 7), "Few companies.");
+  }
+
+  /**
+   * Tests that the closest catering companies according to the server are among the candidates
+   * when a district holds more than {@code k} companies, which the engine cannot tell apart.
+   */
+  @Test
+  public void testPreselectCrowdedDistrict() {
+    GeoDistanceEngine engine = GeoDistanceEngine.shared();
+    List<Caterer> caterers =
+        caterers(
+            "EH1_1AA", "EH1_2AA", "EH1_3AA", "EH1_4AA", "EH1_5AA",
+            "EH3_1AA", "EH42_1AA", "EH2_1AA");
+    // Exact distances as the server would measure them, the closest being listed fifth
+    float[] exact = {0.9f, 0.8f, 0.7f, 0.6f, 0.1f, 1.5f, 40f, 1.2f};
+    int k = 2;
+
+    List<Integer> candidates = idsOf(engine.preselect(key("EH1_9ZZ"), caterers, k));
+    List<Integer> byExactDistance = new ArrayList<>(idsOf(caterers));
+    byExactDistance.sort((id1, id2) -> Float.compare(exact[id1], exact[id2]));
+    assertTrue(candidates.containsAll(byExactDistance.subList(0, k)),
+        "The " + k + " closest companies " + byExactDistance.subList(0, k) + " should be among "
+            + candidates);
+    assertEquals(List.of(0, 1, 2, 3, 4), candidates, "The whole district should be kept.");
+  }
+}
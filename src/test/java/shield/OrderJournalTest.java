@@ -0,0 +1,179 @@
+package shield;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the class OrderJournal.
+ */
+public class OrderJournalTest {
+  /** The CHI number of the individual placing the orders. */
+  private static final String CHI = "0101011234";
+  /** The registration details of the individual. */
+  private static final List<String> DETAILS =
+      Arrays.asList("EH1_2AB", "Name", "Surname", "0123456789");
+  /** The time at which the first order is placed. */
+  private static final LocalDateTime TIME_ORDERED = LocalDateTime.of(2021, 3, 1, 12, 30, 15, 7);
+  /** Directory holding the journal. */
+  private Path directory;
+
+  @BeforeEach
+  public void setup() throws IOException {
+    directory = Files.createTempDirectory("order-journal");
+  }
+
+  // Creates an order whose food box holds two items
+  private static CateringCompanyOrder order(int number, LocalDateTime timeOrdered) {
+    List<FoodBoxItem> contents =
+        Arrays.asList(new FoodBoxItem(1, "cucumbers", 2), new FoodBoxItem(6, "pork", 1));
+    FoodBox box = new FoodBox(contents, "catering", "none", "1", "box a");
+    return new CateringCompanyOrder(number, box, timeOrdered);
+  }
+
+  // Writes a registration, two orders, an edit and a status change
+  private static void writeHistory(OrderJournal journal) throws IOException {
+    journal.recordRegistered(CHI, DETAILS);
+    CateringCompanyOrder first = order(7, TIME_ORDERED);
+    journal.recordPlaced(CHI, first);
+    journal.recordPlaced(CHI, order(9, TIME_ORDERED.plusDays(7)));
+    first.getFoodBox().setQuantityForItem(1, 1, true);
+    journal.recordQuantities(7, first.getFoodBox());
+    journal.recordStatus(9, OrderStatus.CANCELLED);
+  }
+
+  private static void assertHistory(OrderJournal journal) {
+    assertEquals(DETAILS, journal.getRegistration(CHI), "The registration should be recovered.");
+    assertNull(journal.getRegistration("0202021234"), "Unknown individuals have no details.");
+
+    List<CateringCompanyOrder> orders = journal.getOrders(CHI);
+    assertEquals(2, orders.size(), "Both orders should be recovered.");
+    CateringCompanyOrder first = orders.get(0);
+    assertEquals(7, first.getNumber(), "Orders should be recovered in the order placed.");
+    assertEquals(TIME_ORDERED, first.getTimeOrdered(), "The order time should be recovered.");
+    assertEquals(OrderStatus.PLACED, first.getStatus(), "The status should be recovered.");
+    assertArrayEquals(new int[] {1, 1}, first.getFoodBox().getQuantities(),
+        "Edited quantities should be recovered.");
+    assertEquals("cucumbers", first.getItemName(1), "The food box should be recovered.");
+    assertEquals(OrderStatus.CANCELLED, orders.get(1).getStatus(),
+        "A status change should be recovered.");
+  }
+
+  /**
+   * Tests that the state is recovered by replaying the journal.
+   */
+  @Test
+  public void testReplay() throws IOException {
+    try (OrderJournal journal = OrderJournal.open(directory, 1000)) {
+      writeHistory(journal);
+      assertHistory(journal);
+    }
+    try (OrderJournal journal = OrderJournal.open(directory, 1000)) {
+      assertHistory(journal);
+    }
+  }
+
+  /**
+   * Tests that the state is recovered from a snapshot and the records appended after it.
+   */
+  @Test
+  public void testSnapshot() throws IOException {
+    try (OrderJournal journal = OrderJournal.open(directory, 3)) {
+      writeHistory(journal);
+    }
+    assertTrue(Files.exists(directory.resolve("orders.snapshot")), "A snapshot should exist.");
+    try (OrderJournal journal = OrderJournal.open(directory, 3)) {
+      assertHistory(journal);
+      journal.snapshot();
+      assertEquals(0, Files.size(directory.resolve("orders.journal")),
+          "A snapshot should truncate the journal.");
+    }
+    try (OrderJournal journal = OrderJournal.open(directory, 3)) {
+      assertHistory(journal);
+    }
+  }
+
+  /**
+   * Tests that a record torn by a crash is discarded and later records follow the valid ones.
+   */
+  @Test
+  public void testTornRecord() throws IOException {
+    try (OrderJournal journal = OrderJournal.open(directory, 1000)) {
+      writeHistory(journal);
+    }
+    Path file = directory.resolve("orders.journal");
+    // A record which announces 100 bytes but was cut short after 3
+    Files.write(file, new byte[] {0, 0, 0, 100, 1, 2, 3}, StandardOpenOption.APPEND);
+
+    try (OrderJournal journal = OrderJournal.open(directory, 1000)) {
+      assertHistory(journal);
+      journal.recordStatus(7, OrderStatus.DELIVERED);
+    }
+    try (OrderJournal journal = OrderJournal.open(directory, 1000)) {
+      assertEquals(OrderStatus.DELIVERED, journal.getOrders(CHI).get(0).getStatus(),
+          "A record written after a torn one should be recovered.");
+    }
+  }
+
+  /**
+   * Tests that a model recovers an individual from the journal, unless another model holds them.
+   */
+  @Test
+  public void testRecoverModel() throws IOException {
+    String endpoint = "http://journal.test";
+    try (OrderJournal journal = OrderJournal.open(directory, 1000)) {
+      writeHistory(journal);
+
+      ShieldingIndividualModelImp first = new ShieldingIndividualModelImp(endpoint, journal);
+      assertTrue(first.recover(CHI), "A journalled individual should be recovered.");
+      assertTrue(first.isRegistered(), "A recovered individual should be registered.");
+      assertEquals("Name", first.getName(), "The details should be recovered.");
+      assertEquals(Arrays.asList(7, 9), first.getOrderNumbers(),
+          "The orders should be recovered.");
+      assertFalse(first.recover(CHI), "A registered model should not recover again.");
+
+      ShieldingIndividualModelImp second = new ShieldingIndividualModelImp(endpoint, journal);
+      assertFalse(second.recover(CHI), "An individual held by a live model should not be copied.");
+      assertFalse(second.recover("0202021234"), "Unknown individuals cannot be recovered.");
+      first.setRegistered(false);
+      assertTrue(second.recover(CHI), "A released individual should be recovered.");
+
+      ShieldingIndividualModelImp unjournalled = new ShieldingIndividualModelImp(endpoint, null);
+      assertFalse(unjournalled.recover(CHI), "Nothing is recovered without a journal.");
+    }
+  }
+
+  /**
+   * Tests that a status update reaching an order through the registry is journalled.
+   */
+  @Test
+  public void testRegistryUpdateJournalled() throws IOException {
+    try (OrderJournal journal = OrderJournal.open(directory, 1000)) {
+      journal.recordRegistered(CHI, DETAILS);
+      CateringCompanyOrder order = order(11, TIME_ORDERED);
+      journal.recordPlaced(CHI, order);
+      OrderRegistry registry = OrderRegistry.forEndpoint("http://registry.test");
+      registry.register(order, journal);
+
+      assertTrue(registry.updateStatus(11, OrderStatus.PACKED), "The order should be found.");
+      assertFalse(registry.updateStatus(12, OrderStatus.PACKED), "Order 12 is not registered.");
+      assertEquals(OrderStatus.PACKED, order.getStatus(), "The status should be applied.");
+    }
+    try (OrderJournal journal = OrderJournal.open(directory, 1000)) {
+      assertEquals(OrderStatus.PACKED, journal.getOrders(CHI).get(0).getStatus(),
+          "The update should be journalled.");
+    }
+  }
+}
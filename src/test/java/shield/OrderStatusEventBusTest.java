@@ -0,0 +1,150 @@
+package shield;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the class OrderStatusEventBus.
+ */
+public class OrderStatusEventBusTest {
+
+  /**
+   * Tests that only actual changes of the status of an order are published.
+   */
+  @Test
+  public void testOrderPublishesChanges() {
+    try (OrderStatusEventBus.Subscription subscription =
+        OrderStatusEventBus.shared().subscribe(16, OrderStatusEventBus.OverflowPolicy.DROP)) {
+      CateringCompanyOrder order = new CateringCompanyOrder(-7, null, LocalDateTime.now());
+      order.setStatus(OrderStatus.PLACED);
+      order.setStatus(OrderStatus.PACKED);
+      order.compareAndSetStatus(OrderStatus.PLACED, OrderStatus.DISPATCHED);
+      order.compareAndSetStatus(OrderStatus.PACKED, OrderStatus.CANCELLED);
+      new CateringCompanyOrder(-8, null, LocalDateTime.now(), OrderStatus.DELIVERED);
+
+      OrderStatusEvent packed = nextEvent(subscription, -7);
+      assertEquals("-7: placed -> packed", String.valueOf(packed));
+      assertEquals(OrderKind.CATERING, packed.getKind(), "Orders are catering orders.");
+      assertEquals("-7: packed -> cancelled", String.valueOf(nextEvent(subscription, -7)));
+      assertNull(nextEvent(subscription, -7), "Unchanged statuses should not be published.");
+    }
+  }
+
+  // Returns the next event of an order, skipping events of orders of other tests
+  private static OrderStatusEvent nextEvent(
+      OrderStatusEventBus.Subscription subscription, int orderNumber) {
+    OrderStatusEvent event;
+    do {
+      event = subscription.poll();
+    } while (event != null && event.getOrderNumber() != orderNumber);
+    return event;
+  }
+
+  /**
+   * Tests that a full queue drops events for its subscription only.
+   */
+  @Test
+  public void testDropPolicy() {
+    OrderStatusEventBus bus = new OrderStatusEventBus();
+    OrderStatusEventBus.Subscription slow =
+        bus.subscribe(2, OrderStatusEventBus.OverflowPolicy.DROP);
+    OrderStatusEventBus.Subscription fast =
+        bus.subscribe(10, OrderStatusEventBus.OverflowPolicy.DROP);
+    for (int i = 0; i < 5; i++) {
+      bus.publish(OrderKind.CATERING, i, OrderStatus.PLACED, OrderStatus.PACKED);
+    }
+
+    assertEquals(3, slow.getDroppedCount(), "Events beyond the capacity should be dropped.");
+    assertEquals(0, slow.poll().getOrderNumber(), "The oldest events should be kept.");
+    assertEquals(1, slow.poll().getOrderNumber(), "The oldest events should be kept.");
+    assertNull(slow.poll(), "Only two events should be queued.");
+    assertEquals(0, fast.getDroppedCount(), "Other subscriptions should not be affected.");
+
+    slow.close();
+    bus.publish(OrderKind.CATERING, 5, OrderStatus.PACKED, OrderStatus.DISPATCHED);
+    assertNull(slow.poll(), "A closed subscription should not receive events.");
+  }
+
+  /**
+   * Tests that a full queue makes the publisher wait until there is room, and that a listener
+   * receives the events in order.
+   */
+  @Test
+  public void testBlockPolicy() throws InterruptedException {
+    OrderStatusEventBus bus = new OrderStatusEventBus();
+    OrderStatusEventBus.Subscription subscription =
+        bus.subscribe(1, OrderStatusEventBus.OverflowPolicy.BLOCK);
+    bus.publish(OrderKind.CATERING, 1, OrderStatus.PLACED, OrderStatus.PACKED);
+    Thread publisher =
+        new Thread(
+            () -> bus.publish(OrderKind.CATERING, 2, OrderStatus.PLACED, OrderStatus.PACKED));
+    publisher.start();
+    publisher.join(200);
+    assertTrue(publisher.isAlive(), "The publisher should wait for room.");
+
+    assertEquals(1, subscription.poll(1, TimeUnit.SECONDS).getOrderNumber(), "First event.");
+    publisher.join(5_000);
+    assertFalse(publisher.isAlive(), "The publisher should finish once there is room.");
+    assertEquals(2, subscription.poll(1, TimeUnit.SECONDS).getOrderNumber(), "Second event.");
+    assertEquals(0, subscription.getDroppedCount(), "No event should be dropped.");
+    subscription.close();
+
+    CountDownLatch delivered = new CountDownLatch(3);
+    StringBuilder received = new StringBuilder();
+    OrderStatusEventBus.Subscription listener =
+        bus.subscribe(
+            (number, previous, current) -> {
+              received.append(number);
+              delivered.countDown();
+            },
+            1,
+            OrderStatusEventBus.OverflowPolicy.BLOCK);
+    for (int i = 1; i <= 3; i++) {
+      bus.publish(OrderKind.CATERING, i, OrderStatus.PLACED, OrderStatus.PACKED);
+    }
+    assertTrue(delivered.await(5, TimeUnit.SECONDS), "The listener should receive every event.");
+    assertEquals("123", received.toString(), "Events should be delivered in order.");
+    listener.close();
+  }
+
+  /**
+   * Tests that an order can still change while a publisher of its changes waits for room, and that
+   * its changes are published in order.
+   */
+  @Test
+  public void testPublishingOutsideOrderLock() throws InterruptedException {
+    try (OrderStatusEventBus.Subscription subscription =
+        OrderStatusEventBus.shared().subscribe(1, OrderStatusEventBus.OverflowPolicy.BLOCK)) {
+      CateringCompanyOrder order = new CateringCompanyOrder(-9, null, LocalDateTime.now());
+      order.setStatus(OrderStatus.PACKED);
+      Thread publisher = new Thread(() -> order.setStatus(OrderStatus.DISPATCHED));
+      publisher.start();
+      publisher.join(200);
+      assertTrue(publisher.isAlive(), "The publisher should wait for room.");
+
+      Thread changer =
+          new Thread(
+              () -> order.compareAndSetStatus(OrderStatus.DISPATCHED, OrderStatus.DELIVERED));
+      changer.start();
+      changer.join(5_000);
+      assertFalse(changer.isAlive(), "The order should not be locked while publishing.");
+      assertEquals(OrderStatus.DELIVERED, order.getStatus(), "The change should be applied.");
+
+      assertEquals(
+          "-9: placed -> packed", String.valueOf(subscription.poll(1, TimeUnit.SECONDS)));
+      assertEquals(
+          "-9: packed -> dispatched", String.valueOf(subscription.poll(1, TimeUnit.SECONDS)));
+      assertEquals(
+          "-9: dispatched -> delivered", String.valueOf(subscription.poll(1, TimeUnit.SECONDS)));
+      publisher.join(5_000);
+      assertFalse(publisher.isAlive(), "The publisher should finish once there is room.");
+    }
+  }
+}
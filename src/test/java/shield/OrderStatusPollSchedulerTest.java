@@ -0,0 +1,222 @@
+package shield;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the class OrderStatusPollScheduler.
+ */
+public class OrderStatusPollSchedulerTest {
+  /** Current time of the simulated clock, one tick per nanosecond. */
+  private long now;
+  /** Statuses reported by the (simulated) server, keyed by order number. */
+  private Map<Integer, OrderStatus> serverStatuses;
+  /** Times at which each order was polled. */
+  private Map<Integer, List<Long>> polls;
+  /** Order numbers in the order in which they were polled. */
+  private List<Integer> sent;
+  /** Registry the changes are applied to, null unless a test applies them. */
+  private OrderRegistry registry;
+
+  @BeforeEach
+  public void setup() {
+    now = 0;
+    serverStatuses = new HashMap<>();
+    polls = new HashMap<>();
+    sent = new ArrayList<>();
+    registry = null;
+  }
+
+  // Creates a scheduler polling the simulated server
+  private OrderStatusPollScheduler newScheduler(long baseDelay, long maxDelay, int maxPerTick) {
+    return newScheduler(baseDelay, maxDelay, maxPerTick, new Random(42));
+  }
+
+  // Creates a scheduler polling the simulated server, drawing the jitter from a given source
+  private OrderStatusPollScheduler newScheduler(
+      long baseDelay, long maxDelay, int maxPerTick, Random random) {
+    return new OrderStatusPollScheduler(
+        orderNumber -> {
+          polls.computeIfAbsent(orderNumber, key -> new ArrayList<>()).add(now);
+          sent.add(orderNumber);
+          return CompletableFuture.completedFuture(serverStatuses.get(orderNumber));
+        },
+        registry,
+        1,
+        baseDelay,
+        maxDelay,
+        maxPerTick,
+        () -> now,
+        random);
+  }
+
+  // Returns a source of jitter which always draws the full nominal delay
+  private static Random noJitter() {
+    return new Random() {
+      @Override
+      public double nextDouble() {
+        return 0.999;
+      }
+    };
+  }
+
+  // Advances the simulated clock tick by tick
+  private void advance(OrderStatusPollScheduler scheduler, long ticks) {
+    for (long i = 0; i < ticks; i++) {
+      now++;
+      scheduler.advanceTo(now);
+    }
+  }
+
+  /**
+   * Tests that unchanged orders are polled with exponential backoff and jitter, including delays
+   * which span several levels of the timer wheel.
+   */
+  @Test
+  public void testBackoff() {
+    OrderStatusPollScheduler scheduler = newScheduler(100, 300_000, 10);
+    serverStatuses.put(1, OrderStatus.PLACED);
+    scheduler.track(1, OrderStatus.PLACED);
+    advance(scheduler, 1_200_000);
+
+    List<Long> times = polls.get(1);
+    long nominal = 100;
+    long previous = 0;
+    for (long time : times) {
+      long delay = time - previous;
+      assertTrue(delay >= nominal / 2 && delay <= nominal,
+          "Delay " + delay + " should be between half and all of " + nominal);
+      previous = time;
+      nominal = Math.min(300_000, nominal * 2);
+    }
+    assertTrue(times.size() >= 14, "Delays should double up to the maximum, but no further.");
+  }
+
+  /**
+   * Tests that changes are reported to listeners and that finished orders are no longer polled.
+   */
+  @Test
+  public void testListenersAndFinalStatus() {
+    OrderStatusPollScheduler scheduler = newScheduler(10, 1_000, 10);
+    List<String> changes = new ArrayList<>();
+    scheduler.addListener(
+        (number, previous, current) -> changes.add(number + ":" + previous + "->" + current));
+    assertFalse(scheduler.track(2, OrderStatus.DELIVERED), "Finished orders are not tracked.");
+    scheduler.track(1, OrderStatus.PLACED);
+
+    serverStatuses.put(1, OrderStatus.DISPATCHED);
+    advance(scheduler, 10);
+    assertEquals(List.of("1:placed->dispatched"), changes, "The change should be reported.");
+
+    // Dispatched orders are polled at the base delay
+    advance(scheduler, 30);
+    assertTrue(polls.get(1).size() >= 3, "Dispatched orders should not back off.");
+
+    serverStatuses.put(1, OrderStatus.DELIVERED);
+    advance(scheduler, 10);
+    assertEquals("1:dispatched->delivered", changes.get(changes.size() - 1), "Delivery reported.");
+    assertEquals(0, scheduler.getTrackedCount(), "Delivered orders should not be tracked.");
+    int count = polls.get(1).size();
+    advance(scheduler, 100);
+    assertEquals(count, polls.get(1).size(), "Delivered orders should not be polled.");
+  }
+
+  /**
+   * Tests that changes are applied to the registered orders and journalled, and that orders which
+   * are no longer registered stop being polled.
+   */
+  @Test
+  public void testChangesApplied() throws Exception {
+    registry = OrderRegistry.forEndpoint("http://poll.test");
+    Path directory = Files.createTempDirectory("status-poll");
+    try (OrderJournal journal = OrderJournal.open(directory, 1000)) {
+      CateringCompanyOrder order = new CateringCompanyOrder(1, new FoodBox(), LocalDateTime.now());
+      journal.recordPlaced("0101011234", order);
+      registry.register(order, journal);
+      OrderStatusPollScheduler scheduler = newScheduler(10, 1_000, 10);
+      scheduler.track(1, OrderStatus.PLACED);
+      scheduler.track(2, OrderStatus.PLACED);
+
+      serverStatuses.put(1, OrderStatus.PACKED);
+      serverStatuses.put(2, OrderStatus.PACKED);
+      advance(scheduler, 10);
+      assertEquals(OrderStatus.PACKED, order.getStatus(), "The change should be applied.");
+      assertEquals(
+          OrderStatus.PACKED,
+          journal.getOrders("0101011234").get(0).getStatus(),
+          "The change should be journalled.");
+      assertEquals(1, scheduler.getTrackedCount(), "Unregistered orders should not be tracked.");
+    }
+  }
+
+  /**
+   * Tests that the number of polls per tick is bounded and that untracked orders are not polled.
+   */
+  @Test
+  public void testPollsPerTickAndUntrack() {
+    OrderStatusPollScheduler scheduler = newScheduler(2, 2, 3);
+    for (int i = 0; i < 20; i++) {
+      serverStatuses.put(i, OrderStatus.PACKED);
+      scheduler.track(i, OrderStatus.PACKED);
+    }
+    assertTrue(scheduler.untrack(0), "A tracked order should be untracked.");
+    assertFalse(scheduler.untrack(0), "An order is untracked only once.");
+    advance(scheduler, 50);
+
+    Map<Long, Integer> perTick = new HashMap<>();
+    for (List<Long> times : polls.values()) {
+      for (long time : times) {
+        perTick.merge(time, 1, Integer::sum);
+      }
+    }
+    for (int count : perTick.values()) {
+      assertTrue(count <= 3, "At most three polls should be sent per tick.");
+    }
+    assertFalse(polls.containsKey(0), "An untracked order should not be polled.");
+    assertEquals(19, polls.size(), "Every tracked order should be polled.");
+  }
+
+  /**
+   * Tests that polls deferred by the limit per tick are sent before the polls scheduled for the
+   * next tick.
+   */
+  @Test
+  public void testDeferredPollsGoFirst() {
+    OrderStatusPollScheduler scheduler = newScheduler(2, 100, 2, noJitter());
+    for (int i = 1; i <= 3; i++) {
+      scheduler.track(i, OrderStatus.PLACED);
+    }
+    advance(scheduler, 1);
+    scheduler.track(4, OrderStatus.PLACED);
+    advance(scheduler, 2);
+
+    assertEquals(List.of(1, 2, 3, 4), sent, "Order 3 was deferred, so it should precede order 4.");
+    assertEquals(List.of(3L), polls.get(3), "Order 3 should be deferred by one tick only.");
+  }
+
+  /**
+   * Tests that a poll cascading from a higher level exactly onto its deadline is sent on time.
+   */
+  @Test
+  public void testCascadeOnDeadline() {
+    // A delay of 128 ticks lands on a slot boundary of the second level
+    OrderStatusPollScheduler scheduler = newScheduler(128, 1_000, 10, noJitter());
+    scheduler.track(1, OrderStatus.PLACED);
+    advance(scheduler, 200);
+
+    assertEquals(List.of(128L), polls.get(1), "The poll should be sent at its deadline.");
+  }
+}
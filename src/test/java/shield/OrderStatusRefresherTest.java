@@ -0,0 +1,141 @@
+package shield;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the class OrderStatusRefresher.
+ */
+public class OrderStatusRefresherTest {
+
+  // Creates an order with the given number and status
+  private static CateringCompanyOrder order(int number, OrderStatus status) {
+    CateringCompanyOrder order = new CateringCompanyOrder(number, null, LocalDateTime.now());
+    order.setStatus(status);
+    return order;
+  }
+
+  /**
+   * Tests that finished orders are skipped and the others are summarised by outcome.
+   */
+  @Test
+  public void testRefresh() {
+    List<CateringCompanyOrder> orders = new ArrayList<>();
+    orders.add(order(1, OrderStatus.PLACED));
+    orders.add(order(2, OrderStatus.PACKED));
+    orders.add(order(3, OrderStatus.DELIVERED));
+    orders.add(order(4, OrderStatus.CANCELLED));
+    orders.add(order(5, OrderStatus.PLACED));
+    List<Integer> requested = new ArrayList<>();
+
+    OrderStatusRefreshSummary summary =
+        new OrderStatusRefresher(2)
+            .refresh(
+                orders,
+                number -> {
+                  requested.add(number);
+                  if (number == 5) {
+                    return CompletableFuture.failedFuture(new IllegalStateException("down"));
+                  }
+                  return CompletableFuture.completedFuture(
+                      number == 1 ? OrderStatus.DISPATCHED : OrderStatus.PACKED);
+                },
+                CateringCompanyOrder::compareAndSetStatus)
+            .join();
+
+    assertEquals(List.of(1, 2, 5), requested, "Finished orders should not be requested.");
+    assertEquals(Map.of(1, OrderStatus.DISPATCHED), summary.getChanged(), "Order 1 changed.");
+    assertEquals(OrderStatus.DISPATCHED, orders.get(0).getStatus(), "The status is applied.");
+    assertEquals(1, summary.getUnchanged(), "Order 2 kept its status.");
+    assertEquals(2, summary.getSkipped(), "Orders 3 and 4 are finished.");
+    assertEquals(List.of(5), summary.getFailed(), "Order 5 could not be refreshed.");
+  }
+
+  /**
+   * Tests that the number of requests in flight is bounded.
+   */
+  @Test
+  public void testConcurrencyBound() {
+    List<CateringCompanyOrder> orders = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      orders.add(order(i, OrderStatus.PLACED));
+    }
+    List<CompletableFuture<OrderStatus>> pending = new ArrayList<>();
+    AtomicInteger inFlight = new AtomicInteger();
+    AtomicInteger maxInFlight = new AtomicInteger();
+
+    CompletableFuture<OrderStatusRefreshSummary> refresh =
+        new OrderStatusRefresher(3)
+            .refresh(
+                orders,
+                number -> {
+                  maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                  CompletableFuture<OrderStatus> response = new CompletableFuture<>();
+                  pending.add(response);
+                  return response.whenComplete((status, error) -> inFlight.decrementAndGet());
+                },
+                CateringCompanyOrder::compareAndSetStatus);
+
+    assertEquals(3, pending.size(), "Only three requests should be sent at first.");
+    for (int i = 0; i < pending.size(); i++) {
+      pending.get(i).complete(OrderStatus.PACKED);
+    }
+    assertEquals(10, pending.size(), "Every order should eventually be requested.");
+    assertEquals(3, maxInFlight.get(), "No more than three requests should be in flight.");
+    assertEquals(10, refresh.join().getChanged().size(), "Every order should change.");
+  }
+
+  /**
+   * Tests that a status set while the refresh is running is not overwritten.
+   */
+  @Test
+  public void testConcurrentChangeWins() {
+    CateringCompanyOrder order = order(1, OrderStatus.PLACED);
+    CompletableFuture<OrderStatus> response = new CompletableFuture<>();
+
+    CompletableFuture<OrderStatusRefreshSummary> refresh =
+        new OrderStatusRefresher(1)
+            .refresh(List.of(order), number -> response, CateringCompanyOrder::compareAndSetStatus);
+    order.setStatus(OrderStatus.CANCELLED);
+    response.complete(OrderStatus.PACKED);
+
+    OrderStatusRefreshSummary summary = refresh.join();
+    assertEquals(OrderStatus.CANCELLED, order.getStatus(), "The cancellation should be kept.");
+    assertTrue(summary.getChanged().isEmpty(), "The refresh should not change the order.");
+  }
+
+  /**
+   * Tests that many waiting requests completing synchronously do not overflow the stack.
+   */
+  @Test
+  public void testSynchronousCompletions() {
+    List<CateringCompanyOrder> orders = new ArrayList<>();
+    for (int i = 0; i < 100_000; i++) {
+      orders.add(order(i, OrderStatus.PLACED));
+    }
+    CompletableFuture<OrderStatus> first = new CompletableFuture<>();
+
+    CompletableFuture<OrderStatusRefreshSummary> refresh =
+        new OrderStatusRefresher(1)
+            .refresh(
+                orders,
+                number ->
+                    number == 0 ? first : CompletableFuture.completedFuture(OrderStatus.PACKED),
+                CateringCompanyOrder::compareAndSetStatus);
+    // Every other request waits behind the first, then runs on the completing thread
+    first.complete(OrderStatus.PACKED);
+
+    // A stack overflow in a completion would leave the refresh incomplete rather than fail it
+    OrderStatusRefreshSummary summary = refresh.orTimeout(30, TimeUnit.SECONDS).join();
+    assertEquals(100_000, summary.getChanged().size(), "Every order should be refreshed.");
+  }
+}
@@ -0,0 +1,104 @@
+package shield;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the class OrderStore.
+ */
+public class OrderStoreTest {
+  /** The time at which the first order of a test is placed. */
+  private static final LocalDateTime START = LocalDateTime.of(2021, 3, 1, 12, 0);
+  /** The store under test. */
+  private final OrderStore store = new OrderStore(Duration.ofDays(7));
+
+  private static CateringCompanyOrder order(int number, LocalDateTime timeOrdered) {
+    return new CateringCompanyOrder(number, new FoodBox(), timeOrdered);
+  }
+
+  /**
+   * Tests that orders are found by number, in particular after the table has grown.
+   */
+  @Test
+  public void testLookup() {
+    List<Integer> expectedNumbers = new ArrayList<>();
+    for (int number = -50; number < 1000; number += 7) {
+      store.add(order(number, START));
+      expectedNumbers.add(number);
+    }
+    for (int number : expectedNumbers) {
+      assertEquals(number, store.get(number).getNumber(), "Every order should be found.");
+    }
+    assertNull(store.get(1), "An unknown order number should not be found.");
+    assertFalse(store.contains(1000), "An unknown order number should not be contained.");
+    assertEquals(expectedNumbers, store.getNumbers(), "Numbers should be in insertion order.");
+
+    CateringCompanyOrder replacement = order(-50, START);
+    store.add(replacement);
+    assertSame(replacement, store.get(-50), "An order should replace one with the same number.");
+    assertEquals(expectedNumbers.size(), store.getNumbers().size(),
+        "A replaced order should not be listed twice.");
+  }
+
+  /**
+   * Tests the minimum time between orders.
+   */
+  @Test
+  public void testMinTimeBetweenOrders() {
+    assertTrue(store.tryReserve(START), "The first order should be allowed.");
+    store.commit(order(1, START));
+    assertSame(store.get(1), store.getMostRecentOrder(), "A committed order is the most recent.");
+
+    assertFalse(store.tryReserve(START.plusDays(6)), "An order within a week should be refused.");
+    assertTrue(store.tryReserve(START.plusDays(7)), "An order after a week should be allowed.");
+    store.release();
+
+    store.moveMostRecentOrderBack(1);
+    assertTrue(store.tryReserve(START.plusDays(6)), "Moving the last order back should count.");
+  }
+
+  /**
+   * Tests that concurrent attempts to place an order cannot both pass the check.
+   */
+  @Test
+  public void testReservationIsExclusive() throws Exception {
+    int threads = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      CountDownLatch start = new CountDownLatch(1);
+      List<Future<Boolean>> attempts = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        attempts.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  return store.tryReserve(START);
+                }));
+      }
+      start.countDown();
+      int reserved = 0;
+      for (Future<Boolean> attempt : attempts) {
+        reserved += attempt.get() ? 1 : 0;
+      }
+      assertEquals(1, reserved, "Exactly one concurrent attempt should get the reservation.");
+
+      store.commit(order(1, START));
+      assertFalse(store.tryReserve(START.plusDays(1)), "The committed order should count.");
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,68 @@
+package shield;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the class PostCode.
+ */
+public class PostCodeTest {
+  /** The regular expression previously used by the clients. */
+  private static final Pattern POST_CODE = Pattern.compile("^[E][H][1-9][0-7]?[_][1-9][A-Z][A-Z]$");
+
+  /**
+   * Tests that post codes are accepted exactly when the previous regular expression accepts them.
+   */
+  @Test
+  public void testMatchesRegex() {
+    List<String> postCodes =
+        Arrays.asList(
+            "EH1_1AB", "EH17_9ZZ", "EH10_5AA", "EH18_1AB", "EH0_1AB", "EH1_0AB", "eh1_1ab",
+            "EH1 1AB", "EH1_1A", "EH1_1ABC", "EH171_1AB", "EX1_1AB", "EH1-1AB", "EH1_1aB", "");
+    for (String postCode : postCodes) {
+      assertEquals(POST_CODE.matcher(postCode).matches(), PostCode.isValid(postCode),
+          "Unexpected result for the post code " + postCode);
+    }
+    assertFalse(PostCode.isValid(null), "A null post code should be invalid.");
+  }
+
+  /**
+   * Tests that post codes written with a space are normalised.
+   */
+  @Test
+  public void testNormalize() {
+    assertEquals("EH1_1AB", PostCode.normalize("EH1_1AB"), "A canonical post code should be kept.");
+    assertEquals("EH16_5AY", PostCode.normalize("EH16 5AY"),
+        "A space should become an underscore.");
+    assertNull(PostCode.normalize("EH18 5AY"), "An invalid post code should not be normalised.");
+    assertNull(PostCode.normalize(null), "A null post code should not be normalised.");
+  }
+
+  /**
+   * Tests that keys identify post codes regardless of their separator.
+   */
+  @Test
+  public void testKeys() {
+    assertEquals(PostCode.toKey("EH1_1AB"), PostCode.toKey("EH1 1AB"),
+        "The separator should not change the key.");
+    assertNotEquals(PostCode.toKey("EH1_1AB"), PostCode.toKey("EH10_1AB"),
+        "EH1 and EH10 should have different keys.");
+    assertEquals(PostCode.INVALID_KEY, PostCode.toKey("EH0_1AB"), "EH0 should have no key.");
+    assertEquals(PostCode.INVALID_KEY, PostCode.toKey(null),
+        "A null post code should have no key.");
+
+    for (String postCode : Arrays.asList("EH1_1AA", "EH9_9ZZ", "EH10_1AB", "EH97_9ZZ")) {
+      int key = PostCode.toKey(postCode);
+      assertTrue(key >= 0, "A valid post code should have a non-negative key.");
+      assertEquals(postCode, PostCode.fromKey(key), "A key should give back its post code.");
+    }
+  }
+}
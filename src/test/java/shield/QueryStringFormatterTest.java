@@ -0,0 +1,83 @@
+package shield;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the class QueryStringFormatter.
+ *
+ * <p>The compiled templates and the encoder are checked against {@link String#format} and {@link
+ * URLEncoder}, which they replace.
+ */
+public class QueryStringFormatterTest {
+  /** Parameters which need escaping, including multi-byte and unpaired surrogate characters. */
+  private static final String[] TRICKY_VALUES = {
+    "", "a b", "fish & chips", "100%", "é", "€uro", "🍔 burger", "\uD800", "x\uDC00y",
+    "?=&+/#", "tab\there"
+  };
+
+  /**
+   * Tests that URL safe parameters are returned without being copied.
+   */
+  @Test
+  public void testEncodeReturnsSafeValuesUnchanged() {
+    String postCode = "EH1_2AB";
+    assertSame(postCode, QueryStringFormatter.encode(postCode),
+        "A URL safe post code should be returned as is.");
+    String chi = "0101011234";
+    assertSame(chi, QueryStringFormatter.encode(chi), "A CHI should be returned as is.");
+  }
+
+  /**
+   * Tests that parameters are encoded like URLEncoder encodes them.
+   */
+  @Test
+  public void testEncodeMatchesUrlEncoder() {
+    for (String value : TRICKY_VALUES) {
+      assertEquals(URLEncoder.encode(value, StandardCharsets.UTF_8),
+          QueryStringFormatter.encode(value), "Unexpected encoding of \"" + value + "\".");
+    }
+  }
+
+  /**
+   * Tests that requests are formatted like String.format formats the query strings.
+   */
+  @Test
+  public void testRequestsMatchStringFormat() {
+    for (String value : TRICKY_VALUES) {
+      String encoded = URLEncoder.encode(value, StandardCharsets.UTF_8);
+      assertEquals(
+          String.format(QueryStrings.PLACE_ORDER.toString(), "0101011234", encoded, encoded),
+          QueryStringFormatter.placeOrderRequest("0101011234", value, value),
+          "Unexpected place order request.");
+      assertEquals(
+          String.format(QueryStrings.RECORD_SUPERMARKET_ORDER.toString(), encoded, 42, encoded,
+              "EH1_2AB"),
+          QueryStringFormatter.recordSupermarketOrderRequest(value, 42, value, "EH1_2AB"),
+          "Unexpected record supermarket order request.");
+    }
+    assertEquals(String.format(QueryStrings.EDIT_ORDER.toString(), -7),
+        QueryStringFormatter.editOrderRequest(-7), "Unexpected edit order request.");
+    assertEquals(String.format(QueryStrings.UPDATE_SUPERMARKET_STATUS.toString(), 12, "packed"),
+        QueryStringFormatter.updateSupermarketOrderRequest(12, "packed"),
+        "Unexpected update supermarket order request.");
+  }
+
+  /**
+   * Tests that binding a slot of a template gives the same request as expanding it.
+   */
+  @Test
+  public void testBind() {
+    QueryTemplate template = QueryStrings.PLACE_ORDER.template();
+    QueryTemplate bound = template.bind("0101011234");
+
+    assertEquals(3, template.getSlotCount(), "The place order request should have three slots.");
+    assertEquals(2, bound.getSlotCount(), "Binding should fill in one slot.");
+    assertEquals(template.expand("0101011234", "name", "EH1_2AB"),
+        bound.expand("name", "EH1_2AB"), "Binding should not change the expanded request.");
+  }
+}
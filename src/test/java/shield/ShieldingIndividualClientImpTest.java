@@ -16,6 +16,8 @@ import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.Properties;
@@ -1746,6 +1748,26 @@ public class ShieldingIndividualClientImpTest {
           "food boxes for any dietary preference.");
   }
 
+  /**
+   * Tests that the food box and item IDs returned are the caller's own copies, which can be
+   * modified without affecting later calls.
+   *
+   * @see ShieldingIndividualClientImp#showFoodBoxes
+   * @see ShieldingIndividualClientImp#getItemIdsForFoodBox
+   */
+  @Test
+  public void testReturnedIdsAreModifiable() {
+    Collection<String> foodBoxIds = registeredClient.showFoodBoxes("none");
+    foodBoxIds.clear();
+    assertEquals(Arrays.asList("1", "3", "4"), registeredClient.showFoodBoxes("none"),
+        "Modifying the returned food box IDs should not affect later calls.");
+
+    List<Integer> itemIds = registeredClient.getItemIdsForFoodBox(1);
+    itemIds.sort(Collections.reverseOrder());
+    assertEquals(Arrays.asList(1, 2, 6), registeredClient.getItemIdsForFoodBox(1),
+        "Modifying the returned item IDs should not affect later calls.");
+  }
+
   // --------------- GET CLOSEST CATERING COMPANY ---------------
   /**
    * Tests that an unregistered shielding individual should not be able to get catering companies
@@ -0,0 +1,151 @@
+package shield;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the class ShieldingIndividualSessionManager.
+ */
+public class ShieldingIndividualSessionManagerTest {
+  /** Maximum number of live sessions of the manager under test. */
+  private static final int MAX_SESSIONS = 2;
+  /** Number of registrations sent to the (simulated) server. */
+  private AtomicInteger registrations;
+  /** CHI numbers which the (simulated) server has registered. */
+  private Set<String> registeredChis;
+  /** Models created by the manager under test, in the order in which they were created. */
+  private List<ShieldingIndividualModel> models;
+  /** The session manager under test. */
+  private ShieldingIndividualSessionManager manager;
+
+  @BeforeEach
+  public void setup() {
+    registrations = new AtomicInteger();
+    registeredChis = new HashSet<>();
+    models = new ArrayList<>();
+    manager = new ShieldingIndividualSessionManager(this::newModel, MAX_SESSIONS);
+  }
+
+  // Creates a model whose registration is handled without a server
+  private ShieldingIndividualModel newModel() {
+    ShieldingIndividualModel model = new ShieldingIndividualModelImp("http://localhost:0") {
+      @Override
+      public boolean register(String chi) {
+        registrations.incrementAndGet();
+        if (!registeredChis.add(chi)) {
+          return false;
+        }
+        setChi(chi);
+        setPostCode("EH" + chi.charAt(1) + "_1AB");
+        setName("Name");
+        setSurname("Surname");
+        setPhoneNumber("0123456789");
+        setRegistered(true);
+        return true;
+      }
+    };
+    models.add(model);
+    return model;
+  }
+
+  /**
+   * Tests that a session is registered once and then reused.
+   */
+  @Test
+  public void testOpenSession() {
+    ShieldingIndividualClient session = manager.openSession("0101011234");
+    assertNotNull(session, "A valid CHI should get a session.");
+    assertTrue(session.isRegistered(), "A new session should be registered.");
+    assertEquals("EH1_1AB", ((ShieldingIndividualClientImp) session).getPostCode(),
+        "A session should hold its own details.");
+
+    ShieldingIndividualClient again = manager.openSession("0101011234");
+    assertEquals("0101011234", again.getChi(), "Reopening should return the same individual.");
+    assertEquals(1, registrations.get(), "A live session should not be registered again.");
+    assertNull(manager.openSession("bad"), "An invalid CHI should not get a session.");
+  }
+
+  /**
+   * Tests that the least recently used session is evicted and can be restored without
+   * registering again.
+   */
+  @Test
+  public void testEviction() {
+    manager.openSession("0101011234");
+    manager.openSession("0202021234");
+    manager.getSession("0101011234");
+    manager.openSession("0303031234");
+
+    assertEquals(MAX_SESSIONS, manager.getSessionCount(), "The number of sessions is bounded.");
+    assertNull(manager.getSession("0202021234"), "The least recently used session is evicted.");
+    assertNotNull(manager.getSession("0101011234"), "A recently used session is kept.");
+
+    ShieldingIndividualClient restored = manager.openSession("0202021234");
+    assertNotNull(restored, "An evicted session should be restored.");
+    assertTrue(restored.isRegistered(), "A restored session should be registered.");
+    assertEquals("EH2_1AB", ((ShieldingIndividualClientImp) restored).getPostCode(),
+        "A restored session keeps its details.");
+    assertEquals(3, registrations.get(), "A restored session should not be registered again.");
+  }
+
+  /**
+   * Tests that the orders and picked food box of an evicted session are shared with the session
+   * which replaces it.
+   */
+  @Test
+  public void testEvictionKeepsOrders() {
+    manager.openSession("0101011234");
+    ShieldingIndividualModel model = models.get(0);
+    CateringCompanyOrder order = new CateringCompanyOrder(41, new FoodBox(), LocalDateTime.now());
+    order.setStatus(OrderStatus.PACKED);
+    model.addOrder(order);
+    FoodBox box = new FoodBox();
+    model.setPickedFoodBox(box);
+    assertTrue(manager.closeSession("0101011234"), "A live session should be closed.");
+    assertFalse(model.isRegistered(), "The model of a closed session should not be used.");
+
+    ShieldingIndividualClient restored = manager.openSession("0101011234");
+    ShieldingIndividualModel replacement = models.get(1);
+    assertEquals(List.of(41), restored.getOrderNumbers(), "The orders should be kept.");
+    assertEquals("packed", restored.getStatusForOrder(41), "The statuses should be kept.");
+    assertSame(order, replacement.getOrders().get(0), "The orders should not be copied.");
+    assertSame(box, replacement.getPickedFoodBox(), "The picked food box should be kept.");
+
+    // An order the evicted model was still placing is recorded in the orders it shares
+    model.addOrder(new CateringCompanyOrder(42, new FoodBox(), LocalDateTime.now()));
+    assertEquals(List.of(41, 42), restored.getOrderNumbers(), "A late order should be kept.");
+    assertFalse(
+        replacement.placeOrder(LocalDateTime.now()),
+        "The minimum time between orders should still apply.");
+  }
+
+  /**
+   * Tests that a closed session is no longer live.
+   */
+  @Test
+  public void testCloseSession() {
+    manager.openSession("0101011234");
+    assertTrue(
+        ShieldingIndividualModelImp.isHeld("http://localhost:0", "0101011234"),
+        "A live session should hold its CHI.");
+    assertTrue(manager.closeSession("0101011234"), "A live session should be closed.");
+    assertFalse(manager.closeSession("0101011234"), "A closed session is no longer live.");
+    assertEquals(0, manager.getSessionCount(), "No session should be live.");
+    assertFalse(
+        ShieldingIndividualModelImp.isHeld("http://localhost:0", "0101011234"),
+        "A closed session should not be remembered as the holder of its CHI.");
+  }
+}
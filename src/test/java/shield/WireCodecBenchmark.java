@@ -0,0 +1,106 @@
+package shield;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the hand-written adapters of {@link WireCodec} with the reflective Gson path they
+ * replace.
+ *
+ * <p>Run with {@code gradle jmh}, which also reports allocations per operation through JMH's GC
+ * profiler ({@code gc.alloc.rate.norm}).
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WireCodecBenchmark {
+  /** Number of food boxes in the decoded catalog. */
+  @Param({"5", "500"})
+  public int foodBoxes;
+
+  private byte[] catalog;
+  private String caterers;
+  private FoodBox box;
+
+  @Setup
+  public void setup() {
+    StringBuilder json = new StringBuilder("[");
+    for (int i = 1; i <= foodBoxes; i++) {
+      json.append(i > 1 ? "," : "")
+          .append("{\"contents\":[{\"id\":1,\"name\":\"cucumbers\",\"quantity\":1},")
+          .append("{\"id\":2,\"name\":\"tomatoes\",\"quantity\":2},")
+          .append("{\"id\":6,\"name\":\"pork\",\"quantity\":1}],")
+          .append("\"delivered_by\":\"catering\",\"diet\":\"none\",\"id\":\"")
+          .append(i)
+          .append("\",\"name\":\"box ")
+          .append(i)
+          .append("\"}");
+    }
+    catalog = json.append(']').toString().getBytes(StandardCharsets.UTF_8);
+
+    StringBuilder list = new StringBuilder("[");
+    for (int i = 1; i <= foodBoxes; i++) {
+      list.append(i > 1 ? "," : "").append("\"").append(i).append(",caterer").append(i);
+      list.append(",EH1_1AB\"");
+    }
+    caterers = list.append(']').toString();
+
+    box = WireCodec.gson().<List<FoodBox>>fromJson(
+        new String(catalog, StandardCharsets.UTF_8), WireCodec.FOOD_BOX_LIST_TYPE).get(0);
+  }
+
+  @Benchmark
+  public List<FoodBox> decodeCatalogReflective() throws IOException {
+    Type listType = new TypeToken<List<FoodBox>>() {}.getType();
+    return ClientIO.<List<FoodBox>>jsonHandler(new Gson(), listType)
+        .handle(new ByteArrayInputStream(catalog));
+  }
+
+  @Benchmark
+  public List<FoodBox> decodeCatalogCodec() throws IOException {
+    return WireCodec.foodBoxListHandler().handle(new ByteArrayInputStream(catalog));
+  }
+
+  @Benchmark
+  public List<String> decodeCaterersReflective() {
+    Type type = new TypeToken<List<String>>() {}.getType();
+    return new Gson().fromJson(caterers, type);
+  }
+
+  @Benchmark
+  public List<String> decodeCaterersCodec() {
+    return WireCodec.parseStringList(caterers);
+  }
+
+  @Benchmark
+  public String encodeOrderReflective() {
+    Gson gson = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().create();
+    return gson.toJson(box);
+  }
+
+  @Benchmark
+  public String encodeOrderCodec() {
+    return WireCodec.toOrderJson(box);
+  }
+}
@@ -0,0 +1,65 @@
+package shield;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Unit tests for the class WireCodec.
+ *
+ * <p>The hand-written adapters are checked against Gson's reflective adapters.
+ */
+public class WireCodecTest {
+  /** Food boxes in the format returned by the server, with an unknown field and odd values. */
+  private static final String FOOD_BOXES =
+      "[{\"contents\":[{\"id\":1,\"name\":\"cucumbers\",\"quantity\":1},"
+          + "{\"id\":\"2\",\"name\":\"<tomatoes & co>\",\"quantity\":2,\"unit\":\"kg\"},null],"
+          + "\"delivered_by\":\"catering\",\"diet\":\"none\",\"id\":\"1\",\"name\":\"box a\"},"
+          + "{\"contents\":null,\"diet\":\"vegan\",\"id\":2,\"name\":null,\"extra\":{\"a\":[1]}}]";
+
+  /**
+   * Tests that food boxes are decoded like Gson's reflective adapters decode them.
+   */
+  @Test
+  public void testFoodBoxesMatchReflectiveDecoding() {
+    List<FoodBox> expected = new Gson().fromJson(FOOD_BOXES, WireCodec.FOOD_BOX_LIST_TYPE);
+    List<FoodBox> actual = WireCodec.gson().fromJson(FOOD_BOXES, WireCodec.FOOD_BOX_LIST_TYPE);
+
+    assertEquals(new Gson().toJson(expected), WireCodec.gson().toJson(actual),
+        "The decoded food boxes should match the reflectively decoded ones.");
+    assertEquals("2", actual.get(1).getId(), "A numeric ID should be decoded as a string.");
+    assertNull(actual.get(1).getContents(), "Null contents should stay unset.");
+  }
+
+  /**
+   * Tests that the JSON sent with an order matches the previous reflective encoding.
+   */
+  @Test
+  public void testOrderJsonMatchesReflectiveEncoding() {
+    Gson exposedOnly = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().create();
+    for (FoodBox box : WireCodec.gson().<List<FoodBox>>fromJson(
+        FOOD_BOXES, WireCodec.FOOD_BOX_LIST_TYPE)) {
+      assertEquals(exposedOnly.toJson(box), WireCodec.toOrderJson(box),
+          "The order JSON should match the reflective encoding of the exposed fields.");
+    }
+  }
+
+  /**
+   * Tests that lists of strings are decoded leniently.
+   */
+  @Test
+  public void testStringList() {
+    String json = "[\"EH1_1AB\",\"\",null,42,true]";
+    List<String> expected = new Gson().fromJson(json, WireCodec.STRING_LIST_TYPE);
+    assertEquals(expected, WireCodec.parseStringList(json),
+        "Lists of strings should be decoded like Gson's reflective adapters decode them.");
+    assertEquals(Arrays.asList("EH1_1AB", "", null, "42", "true"), expected,
+        "Numbers and booleans should be decoded as strings.");
+    assertNull(WireCodec.parseStringList(""), "Empty responses should be decoded as null.");
+  }
+}